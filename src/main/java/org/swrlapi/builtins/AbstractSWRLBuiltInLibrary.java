@@ -5,9 +5,7 @@ import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -52,25 +50,18 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 {
 	private final String libraryName;
 
-	// Bridge, rule name, built-in index, and head or body location within rule of built-in currently invoking its
-	// associated Java
-	// implementation. The invokingRuleName, invokingBuiltInIndex, and isInConsequent variables are valid only when a
-	// built-in currently being
-	// invoked so should only be retrieved through their associated accessor methods from within a built-in; the
-	// invokingBridge method is valid
-	// only in built-ins and in the reset method.
-	private SWRLBuiltInBridge invokingBridge;
-	private String invokingRuleName = "";
-	private int invokingBuiltInIndex = -1;
-	private boolean isInConsequent = false;
-	private Long invocationPatternID;
-	private Map<String, Long> invocationPatternMap;
+	// Bridge, rule name, built-in index, and head or body location within rule of the built-in currently invoking its
+	// associated Java implementation on each thread. The context is valid only while a built-in is being invoked so should
+	// only be retrieved through its associated accessor methods from within a built-in; the bridge is also available in
+	// the reset method.
+	private final ThreadLocal<InvocationContext> invocationContext;
+	private final InvocationPatternStore invocationPatternStore;
 
 	public AbstractSWRLBuiltInLibrary(String libraryName)
 	{
 		this.libraryName = libraryName;
-		this.invocationPatternID = 0L;
-		this.invocationPatternMap = new HashMap<String, Long>();
+		this.invocationContext = new ThreadLocal<InvocationContext>();
+		this.invocationPatternStore = new InvocationPatternStore();
 	}
 
 	@Override
@@ -79,14 +70,26 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 		return this.libraryName;
 	}
 
+	/**
+	 * Libraries are stateful by default, so only one built-in per library may be invoked at a time. Libraries whose
+	 * built-ins keep no state between invocations should override this method to allow concurrent invocation.
+	 */
+	@Override
+	public boolean isStateless()
+	{
+		return false;
+	}
+
 	@Override
 	public SWRLBuiltInBridge getBuiltInBridge() throws SWRLBuiltInLibraryException
 	{
-		if (this.invokingBridge == null)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to getInvokingBridge - should only be called from within a built-in");
 
-		return this.invokingBridge;
+		return context.getBridge();
 	}
 
 	@Override
@@ -110,52 +113,62 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 	@Override
 	public String getInvokingRuleName() throws SWRLBuiltInLibraryException
 	{
-		if (this.invokingRuleName.length() == 0)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null || context.getRuleName().length() == 0)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to getInvokingRuleName - should only be called from within a built-in");
 
-		return this.invokingRuleName;
+		return context.getRuleName();
 	}
 
 	@Override
 	public int getInvokingBuiltInIndex() throws SWRLBuiltInLibraryException
 	{
-		if (this.invokingBuiltInIndex == -1)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null || context.getBuiltInIndex() == -1)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to getInvokingBuiltInIndex - should only be called from within a built-in");
 
-		return this.invokingBuiltInIndex;
+		return context.getBuiltInIndex();
 	}
 
 	@Override
 	public boolean getIsInConsequent() throws SWRLBuiltInLibraryException
 	{
-		if (this.invokingBridge == null)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to getIsInConsequent - should only be called from within a built-in");
 
-		return this.isInConsequent;
+		return context.isInConsequent();
 	}
 
 	@Override
 	public void checkThatInConsequent() throws BuiltInException
 	{
-		if (this.invokingBridge == null)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to checkThatInConsequent - should only be called from within a built-in");
 
-		if (!this.isInConsequent)
+		if (!context.isInConsequent())
 			throw new BuiltInException("built-in can only be used in consequent");
 	}
 
 	@Override
 	public void checkThatInAntecedent() throws BuiltInException
 	{
-		if (this.invokingBridge == null)
+		InvocationContext context = this.invocationContext.get();
+
+		if (context == null)
 			throw new SWRLBuiltInLibraryException(
 					"invalid call to checkThatInAntecedent - should only be called from within a built-in");
 
-		if (this.isInConsequent)
+		if (context.isInConsequent())
 			throw new BuiltInException("built-in can only be used in antecedent");
 	}
 
@@ -166,14 +179,16 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 	public void invokeResetMethod(SWRLBuiltInBridge bridge) throws SWRLBuiltInLibraryException
 	{
 		synchronized (this) {
-			this.invokingBridge = bridge;
+			InvocationContext previousContext = this.invocationContext.get();
 
-			reset();
+			this.invocationContext.set(new InvocationContext(bridge, "", -1, false));
+			try {
+				reset();
 
-			this.invocationPatternID = 0L;
-			this.invocationPatternMap = new HashMap<String, Long>();
-
-			this.invokingBridge = null;
+				this.invocationPatternStore.clear();
+			} finally {
+				restoreInvocationContext(previousContext);
+			}
 		}
 	}
 
@@ -182,38 +197,58 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 			String builtInMethodName, int builtInIndex, boolean inConsequent, List<SWRLBuiltInArgument> arguments)
 			throws BuiltInException
 	{
-		Boolean result = null;
-		String builtInName = prefix + ":" + builtInMethodName;
-
-		synchronized (this) { // Only one built-in per library may be invoked simultaneously
-			this.invokingBridge = bridge;
-			this.invokingRuleName = ruleName;
-			this.invokingBuiltInIndex = builtInIndex;
-			this.isInConsequent = inConsequent;
-
-			try { // Invoke the built-in method.
-				result = (Boolean)method.invoke(this, new Object[] { arguments });
-			} catch (InvocationTargetException e) { // The built-in implementation threw an exception.
-				Throwable targetException = e.getTargetException();
-				if (targetException instanceof BuiltInException) { // An explicit BuiltInException was thrown by the built-in.
-					throw new BuiltInException("exception thrown by built-in " + builtInName + " in rule " + ruleName + ": "
-							+ targetException.getMessage(), targetException);
-				} else if (targetException instanceof RuntimeException) { // A runtime exception was thrown by the built-in.
-					throw new BuiltInMethodRuntimeException(ruleName, builtInName, targetException.getMessage(), targetException);
-				} else
-					throw new BuiltInException("unknown exception thrown by built-in " + builtInName + " in rule " + ruleName
-							+ ": " + e.toString(), e);
-			} catch (Throwable e) { // Should be one of IllegalAccessException or IllegalArgumentException
-				throw new SWRLBuiltInLibraryException("internal built-in library exception when invoking built-in "
-						+ builtInName + " in rule " + ruleName + ": " + e.getMessage(), e);
+		InvocationContext previousContext = this.invocationContext.get(); // Built-ins may invoke other built-ins
+
+		this.invocationContext.set(new InvocationContext(bridge, ruleName, builtInIndex, inConsequent));
+		try {
+			if (isStateless())
+				return invokeBuiltInMethod(method, ruleName, prefix, builtInMethodName, arguments);
+			else {
+				synchronized (this) { // Only one built-in per stateful library may be invoked simultaneously
+					return invokeBuiltInMethod(method, ruleName, prefix, builtInMethodName, arguments);
+				}
 			}
-			this.invokingBridge = null;
-			this.invokingRuleName = "";
-			this.invokingBuiltInIndex = -1;
-			this.isInConsequent = false;
+		} finally {
+			restoreInvocationContext(previousContext);
+		}
+	}
+
+	private boolean invokeBuiltInMethod(Method method, String ruleName, String prefix, String builtInMethodName,
+			List<SWRLBuiltInArgument> arguments) throws BuiltInException
+	{
+		try { // Invoke the built-in method.
+			return ((Boolean)method.invoke(this, new Object[] { arguments })).booleanValue();
+		} catch (InvocationTargetException e) { // The built-in implementation threw an exception.
+			Throwable targetException = e.getTargetException();
+			if (targetException instanceof BuiltInException) { // An explicit BuiltInException was thrown by the built-in.
+				throw new BuiltInException("exception thrown by built-in " + getBuiltInName(prefix, builtInMethodName)
+						+ " in rule " + ruleName + ": " + targetException.getMessage(), targetException);
+			} else if (targetException instanceof RuntimeException) { // A runtime exception was thrown by the built-in.
+				throw new BuiltInMethodRuntimeException(ruleName, getBuiltInName(prefix, builtInMethodName),
+						targetException.getMessage(), targetException);
+			} else
+				throw new BuiltInException("unknown exception thrown by built-in " + getBuiltInName(prefix, builtInMethodName)
+						+ " in rule " + ruleName + ": " + e.toString(), e);
+		} catch (Throwable e) { // Should be one of IllegalAccessException or IllegalArgumentException
+			throw new SWRLBuiltInLibraryException("internal built-in library exception when invoking built-in "
+					+ getBuiltInName(prefix, builtInMethodName) + " in rule " + ruleName + ": " + e.getMessage(), e);
 		}
+	}
+
+	private void restoreInvocationContext(InvocationContext previousContext)
+	{
+		if (previousContext == null)
+			this.invocationContext.remove();
+		else
+			this.invocationContext.set(previousContext);
+	}
 
-		return result.booleanValue();
+	/**
+	 * The full built-in name is only needed when reporting errors, so it is not built on every invocation.
+	 */
+	private static String getBuiltInName(String prefix, String builtInMethodName)
+	{
+		return prefix + ":" + builtInMethodName;
 	}
 
 	public void checkNumberOfArgumentsAtLeastOne(List<SWRLBuiltInArgument> arguments) throws BuiltInException
@@ -1271,21 +1306,19 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 	public String createInvocationPattern(SWRLBuiltInBridge bridge, String ruleName, int builtInIndex,
 			boolean inConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
-		String pattern = "" + bridge.hashCode() + "." + ruleName + "." + builtInIndex + "." + inConsequent;
-		String result;
+		Object[] argumentValues = new Object[arguments.size()];
 
 		for (int i = 0; i < arguments.size(); i++)
-			pattern += "." + getArgumentAsAPropertyValue(i, arguments);
+			argumentValues[i] = getArgumentAsAPropertyValue(i, arguments);
 
-		if (this.invocationPatternMap.containsKey(pattern))
-			result = this.invocationPatternMap.get(pattern).toString();
-		else {
-			this.invocationPatternMap.put(pattern, this.invocationPatternID);
-			result = this.invocationPatternID.toString();
-			this.invocationPatternID++;
-		}
+		return Long.toString(this.invocationPatternStore.getPatternID(bridge, ruleName, builtInIndex, inConsequent,
+				argumentValues));
+	}
 
-		return result;
+	@Override
+	public InvocationPatternStore getInvocationPatternStore()
+	{
+		return this.invocationPatternStore;
 	}
 
 	@Override
@@ -1699,4 +1732,43 @@ public abstract class AbstractSWRLBuiltInLibrary implements SWRLBuiltInLibrary
 	{
 		return getBuiltInBridge().getOWLDataFactory().getSWRLBuiltInArgumentFactory();
 	}
+
+	/**
+	 * The immutable context of a single built-in invocation.
+	 */
+	private static class InvocationContext
+	{
+		private final SWRLBuiltInBridge bridge;
+		private final String ruleName;
+		private final int builtInIndex;
+		private final boolean isInConsequent;
+
+		public InvocationContext(SWRLBuiltInBridge bridge, String ruleName, int builtInIndex, boolean isInConsequent)
+		{
+			this.bridge = bridge;
+			this.ruleName = ruleName;
+			this.builtInIndex = builtInIndex;
+			this.isInConsequent = isInConsequent;
+		}
+
+		public SWRLBuiltInBridge getBridge()
+		{
+			return this.bridge;
+		}
+
+		public String getRuleName()
+		{
+			return this.ruleName;
+		}
+
+		public int getBuiltInIndex()
+		{
+			return this.builtInIndex;
+		}
+
+		public boolean isInConsequent()
+		{
+			return this.isInConsequent;
+		}
+	}
 }
@@ -0,0 +1,185 @@
+package org.swrlapi.builtins;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.swrlapi.core.SWRLBuiltInBridge;
+
+/**
+ * Assigns IDs to built-in invocation patterns. A pattern is identified by the invoking bridge, rule name, built-in
+ * index, consequent flag, and the values of its arguments; its key is held as a structured object that hashes the
+ * argument values directly rather than as a concatenated string.
+ * <p>
+ * Argument values are normalized with {@link #normalizeArgumentValue(Object)} so that numerically equal values of
+ * different Java types, e.g., an <code>Integer</code> and a <code>Long</code>, give the same pattern.
+ * <p>
+ * By default the store is unbounded. If a maximum size is set, the least recently used patterns are evicted once the
+ * maximum is reached; an evicted pattern that is seen again is given a new ID, so built-ins that use pattern IDs to
+ * create new entities (e.g., swrlx:makeOWLIndividual) may create a further entity for it. The number of hits, misses,
+ * and evictions is recorded so that a suitable bound can be chosen.
+ *
+ * @see SWRLBuiltInLibrary#createInvocationPattern
+ */
+public class InvocationPatternStore
+{
+	public static final int Unbounded = 0;
+
+	private final Map<InvocationPattern, Long> patternIDs;
+	private int maximumSize;
+	private long nextPatternID;
+	private long numberOfHits, numberOfMisses, numberOfEvictions;
+
+	public InvocationPatternStore()
+	{
+		this.patternIDs = new LinkedHashMap<InvocationPattern, Long>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<InvocationPattern, Long> eldest)
+			{
+				if (InvocationPatternStore.this.maximumSize != Unbounded
+						&& size() > InvocationPatternStore.this.maximumSize) {
+					InvocationPatternStore.this.numberOfEvictions++;
+					return true;
+				} else
+					return false;
+			}
+		};
+		this.maximumSize = Unbounded;
+	}
+
+	/**
+	 * Get the ID of an invocation pattern, assigning a new ID if the pattern has not been seen before (or has been
+	 * evicted).
+	 */
+	public synchronized long getPatternID(SWRLBuiltInBridge bridge, String ruleName, int builtInIndex,
+			boolean isInConsequent, Object[] argumentValues)
+	{
+		InvocationPattern pattern = new InvocationPattern(bridge, ruleName, builtInIndex, isInConsequent, argumentValues);
+		Long patternID = this.patternIDs.get(pattern);
+
+		if (patternID != null) {
+			this.numberOfHits++;
+			return patternID;
+		} else {
+			this.numberOfMisses++;
+			patternID = this.nextPatternID++;
+			this.patternIDs.put(pattern, patternID);
+			return patternID;
+		}
+	}
+
+	/**
+	 * Normalize an argument value for use in a key. Integral values are represented as <code>Long</code>s and
+	 * floating-point values as <code>Double</code>s; a <code>Float</code> is converted using its decimal representation
+	 * so that, e.g., <code>0.1f</code> and <code>0.1</code> are equal. Integral and floating-point values are not equal
+	 * to each other. Other values are returned unchanged.
+	 */
+	public static Object normalizeArgumentValue(Object value)
+	{
+		if (value instanceof Byte || value instanceof Short || value instanceof Integer)
+			return Long.valueOf(((Number)value).longValue());
+		else if (value instanceof Float)
+			return Double.valueOf(value.toString());
+		else
+			return value;
+	}
+
+	/**
+	 * Set the maximum number of patterns held. {@link #Unbounded} removes the bound. Patterns above a reduced bound are
+	 * evicted when the next pattern is added.
+	 */
+	public synchronized void setMaximumSize(int maximumSize)
+	{
+		if (maximumSize < 0)
+			throw new IllegalArgumentException("maximum size must not be negative: " + maximumSize);
+
+		this.maximumSize = maximumSize;
+	}
+
+	public synchronized int getMaximumSize()
+	{
+		return this.maximumSize;
+	}
+
+	public synchronized int size()
+	{
+		return this.patternIDs.size();
+	}
+
+	public synchronized long getNumberOfHits()
+	{
+		return this.numberOfHits;
+	}
+
+	public synchronized long getNumberOfMisses()
+	{
+		return this.numberOfMisses;
+	}
+
+	public synchronized long getNumberOfEvictions()
+	{
+		return this.numberOfEvictions;
+	}
+
+	/**
+	 * Discard all patterns and restart ID assignment. The bound is retained.
+	 */
+	public synchronized void clear()
+	{
+		this.patternIDs.clear();
+		this.nextPatternID = 0L;
+		this.numberOfHits = 0L;
+		this.numberOfMisses = 0L;
+		this.numberOfEvictions = 0L;
+	}
+
+	private static class InvocationPattern
+	{
+		private final SWRLBuiltInBridge bridge;
+		private final String ruleName;
+		private final int builtInIndex;
+		private final boolean isInConsequent;
+		private final Object[] argumentValues;
+		private final int hashCode;
+
+		public InvocationPattern(SWRLBuiltInBridge bridge, String ruleName, int builtInIndex, boolean isInConsequent,
+				Object[] argumentValues)
+		{
+			this.bridge = bridge;
+			this.ruleName = ruleName;
+			this.builtInIndex = builtInIndex;
+			this.isInConsequent = isInConsequent;
+			this.argumentValues = new Object[argumentValues.length];
+			for (int i = 0; i < argumentValues.length; i++)
+				this.argumentValues[i] = normalizeArgumentValue(argumentValues[i]);
+
+			int hash = System.identityHashCode(bridge);
+			hash = 31 * hash + ruleName.hashCode();
+			hash = 31 * hash + builtInIndex;
+			hash = 31 * hash + (isInConsequent ? 1 : 0);
+			this.hashCode = 31 * hash + Arrays.hashCode(this.argumentValues);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof InvocationPattern))
+				return false;
+			InvocationPattern other = (InvocationPattern)obj;
+			return this.hashCode == other.hashCode && this.bridge == other.bridge && this.builtInIndex == other.builtInIndex
+					&& this.isInConsequent == other.isInConsequent && this.ruleName.equals(other.ruleName)
+					&& Arrays.equals(this.argumentValues, other.argumentValues);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.swrlapi.builtins;
+
+import java.lang.reflect.Method;
+
+/**
+ * A resolved SWRL built-in: the library implementing the built-in and the Java method implementing it. Handles are
+ * produced by {@link SWRLBuiltInLibraryManager#resolveSWRLBuiltIn} and can be cached by rule engines (e.g., per compiled
+ * built-in atom) so that repeated invocations of the same built-in do not parse its name or look up its library or
+ * method.
+ * <p>
+ * A handle is valid for the bridge it was resolved with.
+ */
+public class SWRLBuiltInHandle
+{
+	private final SWRLBuiltInLibrary library;
+	private final Method method;
+	private final String prefix;
+	private final String builtInMethodName;
+	private final String builtInName;
+
+	SWRLBuiltInHandle(SWRLBuiltInLibrary library, Method method, String prefix, String builtInMethodName,
+			String builtInName)
+	{
+		this.library = library;
+		this.method = method;
+		this.prefix = prefix;
+		this.builtInMethodName = builtInMethodName;
+		this.builtInName = builtInName;
+	}
+
+	public SWRLBuiltInLibrary getLibrary()
+	{
+		return this.library;
+	}
+
+	public Method getMethod()
+	{
+		return this.method;
+	}
+
+	public String getPrefix()
+	{
+		return this.prefix;
+	}
+
+	public String getBuiltInMethodName()
+	{
+		return this.builtInMethodName;
+	}
+
+	public String getBuiltInName()
+	{
+		return this.builtInName;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.builtInName;
+	}
+}
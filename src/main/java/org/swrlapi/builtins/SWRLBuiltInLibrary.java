@@ -40,6 +40,9 @@ public interface SWRLBuiltInLibrary extends SWRLBuiltInContext
 	// Reset library, discarding any internal state if any (e.g., caches).
 	void reset() throws BuiltInException;
 
+	// Stateless libraries keep no state between built-in invocations so their built-ins may be invoked concurrently.
+	boolean isStateless();
+
 	// Method to invoke a built-in in the library. Invoked by {@link SWRLBuiltInLibraryManager}.
 	boolean invokeBuiltInMethod(Method method, SWRLBuiltInBridge bridge, String ruleName, String prefix,
 			String builtInMethodName, int builtInIndex, boolean isInConsequent, List<SWRLBuiltInArgument> arguments)
@@ -282,6 +285,12 @@ public interface SWRLBuiltInLibrary extends SWRLBuiltInContext
 	String createInvocationPattern(SWRLBuiltInBridge invokingBridge, String invokingRuleName, int invokingBuiltInIndex,
 			boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException;
 
+	/**
+	 * Get the store holding the IDs of invocation patterns created by this library. It can be used to bound the number of
+	 * patterns held and to inspect hit, miss, and eviction counts.
+	 */
+	InvocationPatternStore getInvocationPatternStore();
+
 	List<SWRLBuiltInArgument> cloneArguments(List<SWRLBuiltInArgument> arguments) throws BuiltInException;
 
 	Object getArgumentAsAPropertyValue(int argumentNumber, List<SWRLBuiltInArgument> arguments) throws BuiltInException;
@@ -5,11 +5,11 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.swrlapi.core.SWRLBuiltInBridge;
 import org.swrlapi.core.arguments.SWRLBuiltInArgument;
@@ -31,8 +31,13 @@ import org.swrlapi.exceptions.UnresolvedBuiltInMethodException;
  * <p>
  * See <a href="http://protege.cim3.net/cgi-bin/wiki.pl?SWRLBuiltInBridge">here</a> for documentation on defining these
  * built-in libraries.
+ * <p>
+ * Each bridge has its own manager so that the library instances, and any state they hold (e.g., SQWRL collections),
+ * are isolated from other bridges in the same JVM. Libraries and methods are looked up concurrently and loaded lazily;
+ * a library is loaded and reset at most once even if several threads invoke its built-ins for the first time
+ * simultaneously.
  */
-public abstract class SWRLBuiltInLibraryManager
+public class SWRLBuiltInLibraryManager
 {
 	private static final String BuiltInLibraryPackageBaseName = "org.protege.swrlapi.builtins.";
 
@@ -42,13 +47,17 @@ public abstract class SWRLBuiltInLibraryManager
 	private static final Set<String> P3BuiltInLibraryPrefixes = new HashSet<String>(Arrays.asList(new String[] { "abox",
 			"tbox", "rdfb", "swrlxml" }));
 
+	private final SWRLBuiltInBridge bridge;
+
 	// Holds instances of implementation classes defining built-in libraries
-	private static final Map<String, SWRLBuiltInLibrary> builtInLibraries;
-	private static final Map<String, Method> methods;
+	private final ConcurrentMap<String, SWRLBuiltInLibrary> builtInLibraries;
+	private final ConcurrentMap<String, Method> methods;
 
-	static {
-		builtInLibraries = new HashMap<String, SWRLBuiltInLibrary>();
-		methods = new HashMap<String, Method>();
+	public SWRLBuiltInLibraryManager(SWRLBuiltInBridge bridge)
+	{
+		this.bridge = bridge;
+		this.builtInLibraries = new ConcurrentHashMap<String, SWRLBuiltInLibrary>();
+		this.methods = new ConcurrentHashMap<String, Method>();
 	}
 
 	/**
@@ -61,34 +70,53 @@ public abstract class SWRLBuiltInLibraryManager
 	 * <p>
 	 * If the built-in evaluates to false, it will return an empty argument pattern list.
 	 */
-	public static List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(SWRLBuiltInBridge bridge, String ruleName,
-			String builtInName, int builtInIndex, boolean isInConsequent, List<SWRLBuiltInArgument> arguments)
-			throws BuiltInException
+	public List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, String builtInName, int builtInIndex,
+			boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException
+	{
+		return invokeSWRLBuiltIn(ruleName, resolveSWRLBuiltIn(ruleName, builtInName), builtInIndex, isInConsequent,
+				arguments);
+	}
+
+	/**
+	 * Invoke a previously resolved SWRL built-in. See {@link #invokeSWRLBuiltIn(String, String, int, boolean, List)}.
+	 */
+	public List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, SWRLBuiltInHandle builtIn,
+			int builtInIndex, boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
-		String prefix = getPrefix(builtInName);
-		String implementationClassName = getBuiltInLibraryImplementationClassName(prefix);
-		String builtInMethodName = getBuiltInMethodName(builtInName);
-		SWRLBuiltInLibrary library = loadBuiltInLibrary(bridge, ruleName, prefix, implementationClassName);
-		Method method = resolveBuiltInMethod(ruleName, library, prefix, builtInMethodName);
 		List<List<SWRLBuiltInArgument>> argumentPatterns = new ArrayList<List<SWRLBuiltInArgument>>();
 
-		if (library.invokeBuiltInMethod(method, bridge, ruleName, prefix, builtInMethodName, builtInIndex, isInConsequent,
-				arguments)) {
+		if (builtIn.getLibrary().invokeBuiltInMethod(builtIn.getMethod(), this.bridge, ruleName, builtIn.getPrefix(),
+				builtIn.getBuiltInMethodName(), builtInIndex, isInConsequent, arguments)) {
 
 			if (hasUnboundArguments(arguments)) // Make sure the built-in has bound all of its arguments.
-				throw new BuiltInException("built-in " + builtInName + "(index " + builtInIndex + ") in rule " + ruleName
-						+ " returned with unbound arguments");
+				throw new BuiltInException("built-in " + builtIn.getBuiltInName() + "(index " + builtInIndex + ") in rule "
+						+ ruleName + " returned with unbound arguments");
 
 			processBoundArguments(arguments);
 
-			for (List<SWRLBuiltInArgument> argumentPattern : generateBuiltInArgumentPattern(ruleName, builtInName,
-					builtInIndex, arguments))
+			for (List<SWRLBuiltInArgument> argumentPattern : generateBuiltInArgumentPattern(ruleName, builtIn
+					.getBuiltInName(), builtInIndex, arguments))
 				argumentPatterns.add(argumentPattern);
 		}
 
 		return argumentPatterns;
 	}
 
+	/**
+	 * Resolve a SWRL built-in, loading its library if necessary. The returned handle can be cached by a rule engine and
+	 * passed to {@link #invokeSWRLBuiltIn(String, SWRLBuiltInHandle, int, boolean, List)}.
+	 */
+	public SWRLBuiltInHandle resolveSWRLBuiltIn(String ruleName, String builtInName) throws BuiltInException
+	{
+		String prefix = getPrefix(builtInName);
+		String implementationClassName = getBuiltInLibraryImplementationClassName(prefix);
+		String builtInMethodName = getBuiltInMethodName(builtInName);
+		SWRLBuiltInLibrary library = loadBuiltInLibrary(ruleName, prefix, implementationClassName);
+		Method method = resolveBuiltInMethod(ruleName, library, prefix, builtInMethodName);
+
+		return new SWRLBuiltInHandle(library, method, prefix, builtInMethodName, builtInName);
+	}
+
 	private static void processBoundArguments(List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
 		for (int argumentIndex = 0; argumentIndex < arguments.size(); argumentIndex++) {
@@ -98,17 +126,20 @@ public abstract class SWRLBuiltInLibraryManager
 		}
 	}
 
-	private static SWRLBuiltInLibrary loadBuiltInLibrary(SWRLBuiltInBridge bridge, String ruleName, String prefix,
-			String implementationClassName) throws SWRLBuiltInLibraryException
+	private SWRLBuiltInLibrary loadBuiltInLibrary(String ruleName, String prefix, String implementationClassName)
+			throws SWRLBuiltInLibraryException
 	{
-		SWRLBuiltInLibrary library;
-
-		if (builtInLibraries.containsKey(prefix)) { // Find the cached implementation.
-			library = builtInLibraries.get(prefix);
-		} else { // Implementation class not loaded - load it, cache it, and call its reset method.
-			library = loadBuiltInLibraryImpl(ruleName, prefix, implementationClassName);
-			builtInLibraries.put(prefix, library);
-			invokeBuiltInLibraryResetMethod(bridge, library);
+		SWRLBuiltInLibrary library = this.builtInLibraries.get(prefix); // Find the cached implementation.
+
+		if (library == null) {
+			synchronized (this.builtInLibraries) {
+				library = this.builtInLibraries.get(prefix);
+				if (library == null) { // Implementation class not loaded - load it, call its reset method, and cache it.
+					library = loadBuiltInLibraryImpl(ruleName, prefix, implementationClassName);
+					invokeBuiltInLibraryResetMethod(library);
+					this.builtInLibraries.put(prefix, library);
+				}
+			}
 		}
 		return library;
 	}
@@ -144,22 +175,24 @@ public abstract class SWRLBuiltInLibraryManager
 	}
 
 	/**
-	 * Invoke the reset() method for each registered built-in library.
+	 * Invoke the reset() method for a built-in library.
 	 */
-	private static void invokeBuiltInLibraryResetMethod(SWRLBuiltInBridge bridge, SWRLBuiltInLibrary library)
-			throws SWRLBuiltInLibraryException
+	private void invokeBuiltInLibraryResetMethod(SWRLBuiltInLibrary library) throws SWRLBuiltInLibraryException
 	{
 		try {
-			library.invokeResetMethod(bridge);
+			library.invokeResetMethod(this.bridge);
 		} catch (Exception e) {
 			throw new SWRLBuiltInLibraryException("error calling reset method in built-in library " + library.getClass());
 		}
 	}
 
-	public static void invokeAllBuiltInLibrariesResetMethod(SWRLBuiltInBridge bridge) throws SWRLBuiltInLibraryException
+	/**
+	 * Invoke the reset() method for each built-in library loaded by this manager.
+	 */
+	public void invokeAllBuiltInLibrariesResetMethod() throws SWRLBuiltInLibraryException
 	{
-		for (SWRLBuiltInLibrary library : builtInLibraries.values())
-			invokeBuiltInLibraryResetMethod(bridge, library);
+		for (SWRLBuiltInLibrary library : this.builtInLibraries.values())
+			invokeBuiltInLibraryResetMethod(library);
 	}
 
 	/**
@@ -240,20 +273,22 @@ public abstract class SWRLBuiltInLibraryManager
 		return result;
 	}
 
-	private static Method resolveBuiltInMethod(String ruleName, SWRLBuiltInLibrary library, String prefix,
+	private Method resolveBuiltInMethod(String ruleName, SWRLBuiltInLibrary library, String prefix,
 			String builtInMethodName) throws UnresolvedBuiltInMethodException
 	{
 		String key = prefix + ":" + builtInMethodName;
+		Method method = this.methods.get(key);
 
-		if (methods.containsKey(key))
-			return methods.get(key);
-		else {
+		if (method != null)
+			return method;
+		else { // Resolution is idempotent so concurrent resolutions of the same method are harmless
 			try {
-				Method method = library.getClass().getMethod(builtInMethodName, new Class[] { List.class });
+				method = library.getClass().getMethod(builtInMethodName, new Class[] { List.class });
 
 				checkBuiltInMethodSignature(ruleName, prefix, builtInMethodName, method); // Check signature of method
+				method.setAccessible(true); // Skip access checks on invocation
 
-				methods.put(key, method);
+				this.methods.putIfAbsent(key, method);
 
 				return method;
 			} catch (Exception e) {
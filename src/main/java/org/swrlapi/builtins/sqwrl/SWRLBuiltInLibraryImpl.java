@@ -12,6 +12,7 @@ import java.util.Set;
 
 import org.semanticweb.owlapi.model.SWRLArgument;
 import org.swrlapi.builtins.AbstractSWRLBuiltInLibrary;
+import org.swrlapi.builtins.InvocationPatternStore;
 import org.swrlapi.core.arguments.SQWRLCollectionBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLAnnotationPropertyBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLBuiltInArgument;
@@ -42,36 +43,38 @@ import org.swrlapi.sqwrl.values.SQWRLObjectPropertyValue;
 public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 {
 	/**
-	 * A collection can be uniquely identified by its query name and collection name. A unique key is generated from this
-	 * combination. If a collection is grouped, each group will be have a unique key generated. a {@link #collectionsMap}
-	 * is a map of collection keys to a map of group keys to collections.
+	 * A collection can be uniquely identified by its query name and collection name. Each such combination is assigned an
+	 * integer ID the first time it is seen; {@link #collectionIDs} maps query names to a map of collection names to IDs.
+	 * The ID indexes the collection's record in {@link #collectionRecords}. If a collection is grouped, each group is
+	 * identified by a {@link GroupKey} holding the values of its group arguments, so no strings are built to find the
+	 * collection for a binding.
 	 */
-	private final Map<String, Map<String, Collection<SWRLBuiltInArgument>>> collectionsMap;
+	private final Map<String, Map<String, Integer>> collectionIDs;
+	private final List<CollectionRecord> collectionRecords;
 
 	/**
-	 * A map of collection keys to group size (which will be 0 for ungrouped collections)
+	 * The results of the operators that compare two collections (intersects, contains, equal), which are typically
+	 * invoked once per binding. A result is reused until either collection is modified.
 	 */
-	private final Map<String, Integer> collectionGroupElementNumbersMap;
+	private final Map<CollectionComparisonKey, CollectionComparison> collectionComparisons;
 
-	private final Set<String> setKeys, bagKeys;
+	private static final int IntersectsComparison = 0, ContainsComparison = 1, EqualComparison = 2;
 
 	public SWRLBuiltInLibraryImpl()
 	{
 		super(SQWRLNames.SQWRLBuiltInLibraryName);
 
-		this.collectionsMap = new HashMap<String, Map<String, Collection<SWRLBuiltInArgument>>>();
-		this.collectionGroupElementNumbersMap = new HashMap<String, Integer>();
-		this.setKeys = new HashSet<String>();
-		this.bagKeys = new HashSet<String>();
+		this.collectionIDs = new HashMap<String, Map<String, Integer>>();
+		this.collectionRecords = new ArrayList<CollectionRecord>();
+		this.collectionComparisons = new HashMap<CollectionComparisonKey, CollectionComparison>();
 	}
 
 	@Override
 	public void reset()
 	{
-		this.collectionsMap.clear();
-		this.collectionGroupElementNumbersMap.clear();
-		this.setKeys.clear();
-		this.bagKeys.clear();
+		this.collectionIDs.clear();
+		this.collectionRecords.clear();
+		this.collectionComparisons.clear();
 	}
 
 	public boolean select(List<SWRLBuiltInArgument> arguments) throws BuiltInException
@@ -226,17 +229,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		final int resultCollectionArgumentNumber = 0, elementArgumentNumber = 1;
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, resultCollectionArgumentNumber);
-		String collectionGroupKey = getCollectionGroupKeyInMake(arguments); // Get unique key for collection group (if any);
+		GroupKey collectionGroupKey = getCollectionGroupKeyInMake(arguments); // Get unique key for collection group (if any);
 																																				// does argument checking
 		SWRLBuiltInArgument element = arguments.get(elementArgumentNumber);
-		Collection<SWRLBuiltInArgument> set;
 
-		if (isCollection(queryName, collectionName, collectionGroupKey))
-			set = getCollection(queryName, collectionName, collectionGroupKey);
-		else
-			set = createSet(queryName, collectionName, collectionGroupKey);
+		if (!isCollection(queryName, collectionName, collectionGroupKey))
+			createSet(queryName, collectionName, collectionGroupKey);
 
-		set.add(element);
+		addElement(getCollectionGroup(queryName, collectionName, collectionGroupKey), element);
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -253,17 +253,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		final int resultCollectionArgumentNumber = 0, elementArgumentNumber = 1;
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, resultCollectionArgumentNumber);
-		String collectionGroupKey = getCollectionGroupKeyInMake(arguments); // Get unique key for bag; does argument
+		GroupKey collectionGroupKey = getCollectionGroupKeyInMake(arguments); // Get unique key for bag; does argument
 																																				// checking
 		SWRLBuiltInArgument element = arguments.get(elementArgumentNumber);
-		Collection<SWRLBuiltInArgument> bag;
 
-		if (isCollection(queryName, collectionName, collectionGroupKey))
-			bag = getCollection(queryName, collectionName, collectionGroupKey);
-		else
-			bag = createBag(queryName, collectionName, collectionGroupKey);
+		if (!isCollection(queryName, collectionName, collectionGroupKey))
+			createBag(queryName, collectionName, collectionGroupKey);
 
-		bag.add(element);
+		addElement(getCollectionGroup(queryName, collectionName, collectionGroupKey), element);
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -427,18 +424,13 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 
 			result = true;
 		} else { // SQWRL collection operator
-			Collection<SWRLBuiltInArgument> collection = getCollectionInSingleCollectionOperation(arguments,
+			CollectionGroup collectionGroup = getCollectionGroupInSingleCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreAntecedentArguments);
 
-			if (collection.isEmpty())
+			if (collectionGroup.getCollection().isEmpty())
 				result = false;
 			else {
-				double sumValue = 0, value;
-				for (SWRLBuiltInArgument element : collection) {
-					checkThatElementIsComparable(element);
-					value = getArgumentAsADouble(element);
-					sumValue += value;
-				}
+				double sumValue = getNumericAggregates(collectionGroup).getSum();
 				result = processResultArgument(arguments, resultArgumentNumber, sumValue);
 			}
 		}
@@ -473,19 +465,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 				throw new InvalidBuiltInArgumentException(resultArgumentNumber, "expecting numeric literal, got " + argument
 						+ " with type " + argument.getClass().getCanonicalName());
 		} else { // SQWRL collection operator
-			Collection<SWRLBuiltInArgument> collection = getCollectionInSingleCollectionOperation(arguments,
+			CollectionGroup collectionGroup = getCollectionGroupInSingleCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreAntecedentArguments);
 
-			if (collection.isEmpty())
+			if (collectionGroup.getCollection().isEmpty())
 				result = false;
 			else {
-				double avgValue, sumValue = 0, value;
-				for (SWRLBuiltInArgument element : collection) {
-					checkThatElementIsComparable(element);
-					value = getArgumentAsADouble(element);
-					sumValue += value;
-				}
-				avgValue = sumValue / collection.size();
+				NumericAggregates aggregates = getNumericAggregates(collectionGroup);
+				double avgValue = aggregates.getSum() / aggregates.getNumberOfValues();
 
 				result = processResultArgument(arguments, resultArgumentNumber, avgValue);
 			}
@@ -502,28 +489,13 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		if (getIsInConsequent()) { // Simple SQWRL aggregation operator
 			throw new BuiltInException("not implemented");
 		} else { // SQWRL collection operator
-			Collection<SWRLBuiltInArgument> collection = getCollectionInSingleCollectionOperation(arguments,
+			CollectionGroup collectionGroup = getCollectionGroupInSingleCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreConsequentArguments);
 
-			if (collection.isEmpty())
+			if (collectionGroup.getCollection().isEmpty())
 				result = false;
 			else {
-				double[] valueArray = new double[collection.size()];
-				int count = 0, middle = collection.size() / 2;
-				double medianValue, value;
-
-				for (SWRLBuiltInArgument element : collection) {
-					checkThatElementIsComparable(element);
-					value = getArgumentAsADouble(element);
-					valueArray[count++] = value;
-				}
-
-				Arrays.sort(valueArray);
-
-				if (collection.size() % 2 == 1)
-					medianValue = valueArray[middle];
-				else
-					medianValue = (valueArray[middle - 1] + valueArray[middle]) / 2;
+				double medianValue = getNumericAggregates(collectionGroup).getMedian();
 
 				result = processResultArgument(arguments, resultArgumentNumber, medianValue);
 			}
@@ -635,13 +607,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		else {
 			List<SWRLBuiltInArgument> sortedList = getSortedListInSingleOperandCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreArguments);
+			List<SWRLBuiltInArgument> notNthGreatest = new ArrayList<SWRLBuiltInArgument>(sortedList);
 			int n = getArgumentAsAPositiveInteger(nArgumentNumber, arguments);
 
 			if (!sortedList.isEmpty() && n > 0 && n <= sortedList.size())
-				sortedList.remove(sortedList.size() - n);
+				notNthGreatest.remove(sortedList.size() - n);
 
 			return processSingleOperandCollectionOperationListResult(arguments, resultCollectionArgumentNumber,
-					sourceCollectionArgumentNumber, numberOfCoreArguments, sortedList);
+					sourceCollectionArgumentNumber, numberOfCoreArguments, notNthGreatest);
 		}
 	}
 
@@ -758,13 +731,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		else {
 			List<SWRLBuiltInArgument> sortedList = getSortedListInSingleOperandCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreArguments);
+			List<SWRLBuiltInArgument> notNth = new ArrayList<SWRLBuiltInArgument>(sortedList);
 			int n = getArgumentAsAPositiveInteger(nArgumentNumber, arguments) - 1; // 1-offset for user, 0 for processing
 
 			if (!sortedList.isEmpty() && n >= 0 && n < sortedList.size())
-				sortedList.remove(n);
+				notNth.remove(n);
 
 			return processSingleOperandCollectionOperationListResult(arguments, resultCollectionArgumentNumber,
-					sourceCollectionArgumentNumber, numberOfCoreArguments, sortedList);
+					sourceCollectionArgumentNumber, numberOfCoreArguments, notNth);
 		}
 	}
 
@@ -777,12 +751,13 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		else {
 			List<SWRLBuiltInArgument> sortedList = getSortedListInSingleOperandCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreArguments);
+			List<SWRLBuiltInArgument> notGreatest = new ArrayList<SWRLBuiltInArgument>(sortedList);
 
 			if (!sortedList.isEmpty())
-				sortedList.remove(sortedList.size() - 1);
+				notGreatest.remove(sortedList.size() - 1);
 
 			return processSingleOperandCollectionOperationListResult(arguments, resultCollectionArgumentNumber,
-					sourceCollectionArgumentNumber, numberOfCoreArguments, sortedList);
+					sourceCollectionArgumentNumber, numberOfCoreArguments, notGreatest);
 		}
 	}
 
@@ -845,13 +820,14 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		else {
 			List<SWRLBuiltInArgument> sortedList = getSortedListInSingleOperandCollectionOperation(arguments,
 					sourceCollectionArgumentNumber, numberOfCoreArguments);
+			List<SWRLBuiltInArgument> notLeast = new ArrayList<SWRLBuiltInArgument>(sortedList);
 
-			if (!sortedList.isEmpty())
-				sortedList.remove(0); // Remove the first (least) element; if there are multiple element with same least value,
-															// they will not be removed
+			if (!notLeast.isEmpty())
+				notLeast.remove(0); // Remove the first (least) element; if there are multiple element with same least value,
+														// they will not be removed
 
 			return processSingleOperandCollectionOperationListResult(arguments, resultCollectionArgumentNumber,
-					sourceCollectionArgumentNumber, numberOfCoreArguments, sortedList);
+					sourceCollectionArgumentNumber, numberOfCoreArguments, notLeast);
 		}
 	}
 
@@ -911,15 +887,15 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		String collection2Name = getCollectionName(arguments, collection2ArgumentNumber);
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		return !Collections.disjoint(collection1, collection2);
+		return compareCollections(IntersectsComparison, collection1Group, collection2Group);
 	}
 
 	public boolean notIntersects(List<SWRLBuiltInArgument> arguments) throws BuiltInException
@@ -939,15 +915,15 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		String collection2Name = getCollectionName(arguments, collection2ArgumentNumber);
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		return collection1.containsAll(collection2);
+		return compareCollections(ContainsComparison, collection1Group, collection2Group);
 	}
 
 	public boolean notContains(List<SWRLBuiltInArgument> arguments) throws BuiltInException
@@ -967,18 +943,18 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		String collection2Name = getCollectionName(arguments, collection2ArgumentNumber);
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
 
 		if (collection1GroupKey.equals(collection2GroupKey))
 			return true; // The same collection was passed
 		else { // Different collections - compare them
-			Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-			Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
-			return collection1.equals(collection2); // Remember, sets and lists will not be equal
+			CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+			CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
+			return compareCollections(EqualComparison, collection1Group, collection2Group);
 		}
 	}
 
@@ -1007,21 +983,19 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
 		int collectionResultNumberOfGroupElements = collection1NumberOfGroupElements + collection2NumberOfGroupElements;
-		String resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				resultCollectionArgumentNumber, numberOfCoreArguments, 0, collectionResultNumberOfGroupElements);
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, 0 + collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
-		Collection<SWRLBuiltInArgument> intersection = new HashSet<SWRLBuiltInArgument>(collection1);
-
-		intersection.retainAll(collection2);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey))
-			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey, intersection);
+		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey)) // Computed once per group
+			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey,
+					createIntersection(collection1Group, collection2Group));
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -1042,21 +1016,19 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
 		int resultCollectionNumberOfGroupElements = collection1NumberOfGroupElements + collection2NumberOfGroupElements;
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, 0 + collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		String resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				resultCollectionArgumentNumber, numberOfCoreArguments, 0, resultCollectionNumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
-		List<SWRLBuiltInArgument> resultCollection = new ArrayList<SWRLBuiltInArgument>(collection1);
-
-		resultCollection.addAll(collection2);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		if (!isCollectionRecorded(resultCollectionName, resultCollectionGroupKey))
-			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey, resultCollection);
+		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey)) // Computed once per group
+			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey,
+					createAppendedCollection(collection1Group, collection2Group));
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -1077,21 +1049,19 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
 		int resultCollectionNumberOfGroupElements = collection1NumberOfGroupElements + collection2NumberOfGroupElements;
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, 0 + collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		String resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				resultCollectionArgumentNumber, numberOfCoreArguments, 0, resultCollectionNumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
-		Set<SWRLBuiltInArgument> union = new HashSet<SWRLBuiltInArgument>(collection1);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		union.addAll(collection2);
-
-		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey))
-			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey, union);
+		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey)) // Computed once per group
+			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey,
+					createUnion(collection1Group, collection2Group));
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -1112,21 +1082,19 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		int collection1NumberOfGroupElements = getNumberOfGroupElements(queryName, collection1Name);
 		int collection2NumberOfGroupElements = getNumberOfGroupElements(queryName, collection2Name);
 		int collectionResultNumberOfGroupElements = collection1NumberOfGroupElements + collection2NumberOfGroupElements;
-		String resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey resultCollectionGroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				resultCollectionArgumentNumber, numberOfCoreArguments, 0, collectionResultNumberOfGroupElements);
-		String collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection1GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection1ArgumentNumber, numberOfCoreArguments, 0, collection1NumberOfGroupElements);
-		String collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
+		GroupKey collection2GroupKey = getCollectionGroupKeyInMultiOperandCollectionOperation(arguments,
 				collection2ArgumentNumber, numberOfCoreArguments, 0 + collection1NumberOfGroupElements,
 				collection2NumberOfGroupElements);
-		Collection<SWRLBuiltInArgument> collection1 = getCollection(queryName, collection1Name, collection1GroupKey);
-		Collection<SWRLBuiltInArgument> collection2 = getCollection(queryName, collection2Name, collection2GroupKey);
-		Collection<SWRLBuiltInArgument> difference = new HashSet<SWRLBuiltInArgument>(collection1);
+		CollectionGroup collection1Group = getCollectionGroup(queryName, collection1Name, collection1GroupKey);
+		CollectionGroup collection2Group = getCollectionGroup(queryName, collection2Name, collection2GroupKey);
 
-		difference.removeAll(collection2);
-
-		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey))
-			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey, difference);
+		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey)) // Computed once per group
+			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey,
+					createDifference(collection1Group, collection2Group));
 
 		if (isUnboundArgument(resultCollectionArgumentNumber, arguments))
 			arguments.get(resultCollectionArgumentNumber).setBuiltInResult(
@@ -1207,7 +1175,7 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 	 * 
 	 *********************************************************************************************************************/
 
-	private String getCollectionGroupKeyInMake(List<SWRLBuiltInArgument> arguments) throws BuiltInException
+	private GroupKey getCollectionGroupKeyInMake(List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
 		// The collection is the first argument, the element is the second; subsequent arguments (if any) are group elements
 		final int collectionArgumentNumber = 0, numberOfCoreArguments = 2;
@@ -1215,76 +1183,80 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, collectionArgumentNumber);
-		String collectionKey = createCollectionKey(queryName, collectionName);
+		CollectionRecord collectionRecord = getCollectionRecord(queryName, collectionName);
 		int numberOfGroupArguments = arguments.size() - numberOfCoreArguments;
 		boolean hasGroupPattern = numberOfGroupArguments != 0;
-		String groupPattern = !hasGroupPattern ? "" : createInvocationPattern(getBuiltInBridge(), queryName, 0, false,
-				arguments.subList(2, arguments.size()));
+		GroupKey groupKey = !hasGroupPattern ? GroupKey.Ungrouped : createGroupKey(arguments.subList(2, arguments.size()));
 
-		if (isBoundArgument(collectionArgumentNumber, arguments)
-				&& !this.collectionGroupElementNumbersMap.containsKey(collectionKey)) {
+		if (isBoundArgument(collectionArgumentNumber, arguments) && !collectionRecord.hasNumberOfGroupElements()) {
 			// Collection variable already used in non collection context
 			throw new BuiltInException("collection variable ?" + arguments.get(collectionArgumentNumber).getVariableName()
 					+ " already used in non collection context in query " + queryName);
 		}
 
 		if (hasGroupPattern) {
-			if (!this.collectionGroupElementNumbersMap.containsKey(collectionKey))
-				this.collectionGroupElementNumbersMap.put(collectionKey, numberOfGroupArguments);
-			else if (this.collectionGroupElementNumbersMap.get(collectionKey) != numberOfGroupArguments) {
+			if (!collectionRecord.hasNumberOfGroupElements())
+				collectionRecord.setNumberOfGroupElements(numberOfGroupArguments);
+			else if (collectionRecord.getNumberOfGroupElements() != numberOfGroupArguments) {
 				throw new BuiltInException("internal error: inconsistent number of group elements for collection "
 						+ collectionName + " in query " + queryName);
 			}
-			return groupPattern;
+			return groupKey;
 		} else {
-			if (this.collectionGroupElementNumbersMap.containsKey(collectionKey)) {
-				if (this.collectionGroupElementNumbersMap.get(collectionKey) != 0) {
+			if (collectionRecord.hasNumberOfGroupElements()) {
+				if (collectionRecord.getNumberOfGroupElements() != 0) {
 					throw new BuiltInException("internal error: inconsistent number of group elements for collection "
 							+ collectionName + " in query " + queryName);
 				}
 			} else
-				this.collectionGroupElementNumbersMap.put(collectionKey, 0);
-			return "";
+				collectionRecord.setNumberOfGroupElements(0);
+			return GroupKey.Ungrouped;
 		}
 	}
 
-	private String getCollectionGroupKeyInSingleCollectionOperation(List<SWRLBuiltInArgument> arguments,
+	private GroupKey getCollectionGroupKeyInSingleCollectionOperation(List<SWRLBuiltInArgument> arguments,
 			int coreNumberOfArguments) throws BuiltInException
 	{
-		String queryName = getInvokingRuleName();
-
 		checkThatInAntecedent();
 
 		if ((arguments.size() > coreNumberOfArguments)) // Is a grouped collection
-			return createInvocationPattern(getBuiltInBridge(), queryName, 0, false,
-					arguments.subList(coreNumberOfArguments, arguments.size()));
+			return createGroupKey(arguments.subList(coreNumberOfArguments, arguments.size()));
 		else
-			return "";
+			return GroupKey.Ungrouped;
 	}
 
-	private String getCollectionGroupKeyInMultiOperandCollectionOperation(List<SWRLBuiltInArgument> arguments,
+	private GroupKey getCollectionGroupKeyInMultiOperandCollectionOperation(List<SWRLBuiltInArgument> arguments,
 			int collectionArgumentNumber, int coreNumberOfArguments, int groupArgumentOffset,
 			int numberOfRelevantGroupArguments) throws BuiltInException
 	{
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, collectionArgumentNumber);
-		String collectionKey = createCollectionKey(queryName, collectionName);
+		CollectionRecord collectionRecord = getCollectionRecord(queryName, collectionName);
 
 		checkThatInAntecedent();
 
-		if (!this.collectionGroupElementNumbersMap.containsKey(collectionKey))
-			this.collectionGroupElementNumbersMap.put(collectionKey, numberOfRelevantGroupArguments);
+		if (!collectionRecord.hasNumberOfGroupElements())
+			collectionRecord.setNumberOfGroupElements(numberOfRelevantGroupArguments);
 
 		if (numberOfRelevantGroupArguments != 0) // Is a grouped collection
-			return createInvocationPattern(
-					getBuiltInBridge(),
-					queryName,
-					0,
-					false,
-					arguments.subList(coreNumberOfArguments + groupArgumentOffset, coreNumberOfArguments + groupArgumentOffset
-							+ numberOfRelevantGroupArguments));
+			return createGroupKey(arguments.subList(coreNumberOfArguments + groupArgumentOffset, coreNumberOfArguments
+					+ groupArgumentOffset + numberOfRelevantGroupArguments));
 		else
-			return "";
+			return GroupKey.Ungrouped;
+	}
+
+	/**
+	 * Create a key from the values of the group arguments of a collection. Values are represented as they are in
+	 * invocation patterns, so arguments that are equal as pattern arguments give equal keys.
+	 */
+	private GroupKey createGroupKey(List<SWRLBuiltInArgument> groupArguments) throws BuiltInException
+	{
+		Object[] groupArgumentValues = new Object[groupArguments.size()];
+
+		for (int i = 0; i < groupArguments.size(); i++)
+			groupArgumentValues[i] = getArgumentAsAPropertyValue(i, groupArguments);
+
+		return new GroupKey(groupArgumentValues);
 	}
 
 	private boolean processSingleOperandCollectionOperationListResult(List<SWRLBuiltInArgument> arguments,
@@ -1294,23 +1266,22 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		String queryName = getInvokingRuleName();
 		String sourceCollectionName = getCollectionName(arguments, sourceCollectionArgumentNumber);
 		String resultCollectionName = getCollectionName(arguments, resultCollectionArgumentNumber);
-		String resultCollectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, numberOfCoreArguments);
-		String resultCollectionKey = createCollectionKey(queryName, resultCollectionName);
+		GroupKey resultCollectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, numberOfCoreArguments);
+		CollectionRecord resultCollectionRecord = getCollectionRecord(queryName, resultCollectionName);
 
 		if (!isCollection(queryName, resultCollectionName, resultCollectionGroupKey))
 			recordCollection(queryName, resultCollectionName, resultCollectionGroupKey, resultList);
 
-		if (!this.collectionGroupElementNumbersMap.containsKey(resultCollectionKey)) // Give it the same number of group
-																																									// elements as the source collection
-			this.collectionGroupElementNumbersMap.put(resultCollectionKey,
-					getNumberOfGroupElements(queryName, sourceCollectionName));
+		if (!resultCollectionRecord.hasNumberOfGroupElements()) // Give it the same number of group elements as the source
+			resultCollectionRecord.setNumberOfGroupElements(getNumberOfGroupElements(queryName, sourceCollectionName));
 
 		return processListResultArgument(arguments, resultCollectionArgumentNumber, resultCollectionName,
 				resultCollectionGroupKey, resultList);
 	}
 
 	private boolean processListResultArgument(List<SWRLBuiltInArgument> arguments, int resultArgumentNumber,
-			String resultListName, String resultListID, Collection<SWRLBuiltInArgument> resultList) throws BuiltInException
+			String resultListName, GroupKey resultListGroupKey, Collection<SWRLBuiltInArgument> resultList)
+			throws BuiltInException
 	{
 		checkArgumentNumber(resultArgumentNumber, arguments);
 
@@ -1318,10 +1289,10 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 
 		if (isUnboundArgument(resultArgumentNumber, arguments)) {
 			arguments.get(resultArgumentNumber).setBuiltInResult(
-					createSQWRLCollectionBuiltInArgument(queryName, resultListName, resultListID));
+					createSQWRLCollectionBuiltInArgument(queryName, resultListName, resultListGroupKey));
 			return true;
 		} else {
-			Collection<SWRLBuiltInArgument> collection = getCollection(queryName, resultListName, resultListID);
+			Collection<SWRLBuiltInArgument> collection = getCollection(queryName, resultListName, resultListGroupKey);
 			return collection.equals(resultList); // Remember, sets and lists will not be equal
 		}
 	}
@@ -1344,12 +1315,163 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 
 	private Collection<SWRLBuiltInArgument> getCollectionInSingleCollectionOperation(List<SWRLBuiltInArgument> arguments,
 			int sourceCollectionArgumentNumber, int coreNumberOfArguments) throws BuiltInException
+	{
+		return getCollectionGroupInSingleCollectionOperation(arguments, sourceCollectionArgumentNumber,
+				coreNumberOfArguments).getCollection();
+	}
+
+	private CollectionGroup getCollectionGroupInSingleCollectionOperation(List<SWRLBuiltInArgument> arguments,
+			int sourceCollectionArgumentNumber, int coreNumberOfArguments) throws BuiltInException
 	{
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, sourceCollectionArgumentNumber);
-		String collectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, coreNumberOfArguments);
+		GroupKey collectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, coreNumberOfArguments);
+
+		return getCollectionGroup(queryName, collectionName, collectionGroupKey);
+	}
+
+	/**
+	 * Add an element to a collection group, updating the group's numeric aggregates if they have been computed. If the
+	 * element is not numeric the aggregates are discarded, so that the element is reported when they are next requested.
+	 */
+	private void addElement(CollectionGroup collectionGroup, SWRLBuiltInArgument element)
+	{
+		if (collectionGroup.addElement(element) && collectionGroup.hasNumericAggregates()) {
+			try {
+				collectionGroup.getNumericAggregates().add(getElementAsADouble(element));
+			} catch (BuiltInException e) {
+				collectionGroup.setNumericAggregates(null);
+			}
+		}
+	}
+
+	/**
+	 * Get the numeric aggregates of a collection group. They are computed from the group's elements on first use and then
+	 * kept up to date as elements are added, so aggregate operators that are invoked once per binding do not iterate over
+	 * the collection.
+	 */
+	private NumericAggregates getNumericAggregates(CollectionGroup collectionGroup) throws BuiltInException
+	{
+		if (!collectionGroup.hasNumericAggregates()) {
+			NumericAggregates aggregates = new NumericAggregates();
+
+			for (SWRLBuiltInArgument element : collectionGroup.getCollection())
+				aggregates.add(getElementAsADouble(element));
+
+			collectionGroup.setNumericAggregates(aggregates);
+		}
+		return collectionGroup.getNumericAggregates();
+	}
+
+	private double getElementAsADouble(SWRLBuiltInArgument element) throws BuiltInException
+	{
+		checkThatElementIsComparable(element);
+
+		return getArgumentAsADouble(element);
+	}
+
+	/**
+	 * Compare two collection groups, reusing the previous result of the comparison if neither group has been modified
+	 * since it was made.
+	 */
+	private boolean compareCollections(int comparison, CollectionGroup collection1Group,
+			CollectionGroup collection2Group)
+	{
+		CollectionComparisonKey key = new CollectionComparisonKey(comparison, collection1Group, collection2Group);
+		CollectionComparison previousComparison = this.collectionComparisons.get(key);
+
+		if (previousComparison != null && previousComparison.isCurrent(collection1Group, collection2Group))
+			return previousComparison.getResult();
+
+		boolean result;
+		if (comparison == IntersectsComparison)
+			result = groupsIntersect(collection1Group, collection2Group);
+		else if (comparison == ContainsComparison)
+			result = groupContainsGroup(collection1Group, collection2Group);
+		else
+			result = collection1Group.getCollection().equals(collection2Group.getCollection()); // Sets never equal lists
+
+		this.collectionComparisons.put(key, new CollectionComparison(collection1Group, collection2Group, result));
+
+		return result;
+	}
 
-		return getCollection(queryName, collectionName, collectionGroupKey);
+	// The set operations below iterate over one collection and probe the element set of the other, so neither collection
+	// is copied. The element set of a set is the set itself; that of a bag is kept with the bag.
+
+	private static boolean groupsIntersect(CollectionGroup collection1Group, CollectionGroup collection2Group)
+	{
+		CollectionGroup smallerGroup = collection1Group.size() <= collection2Group.size() ? collection1Group
+				: collection2Group;
+		Set<SWRLBuiltInArgument> largerElements = (smallerGroup == collection1Group ? collection2Group : collection1Group)
+				.getElementSet();
+
+		for (SWRLBuiltInArgument element : smallerGroup.getCollection())
+			if (largerElements.contains(element))
+				return true;
+
+		return false;
+	}
+
+	private static boolean groupContainsGroup(CollectionGroup collection1Group, CollectionGroup collection2Group)
+	{
+		Set<SWRLBuiltInArgument> collection1Elements = collection1Group.getElementSet();
+
+		for (SWRLBuiltInArgument element : collection2Group.getCollection())
+			if (!collection1Elements.contains(element))
+				return false;
+
+		return true;
+	}
+
+	private static Set<SWRLBuiltInArgument> createIntersection(CollectionGroup collection1Group,
+			CollectionGroup collection2Group)
+	{
+		CollectionGroup smallerGroup = collection1Group.size() <= collection2Group.size() ? collection1Group
+				: collection2Group;
+		Set<SWRLBuiltInArgument> largerElements = (smallerGroup == collection1Group ? collection2Group : collection1Group)
+				.getElementSet();
+		Set<SWRLBuiltInArgument> intersection = new HashSet<SWRLBuiltInArgument>();
+
+		for (SWRLBuiltInArgument element : smallerGroup.getCollection())
+			if (largerElements.contains(element))
+				intersection.add(element);
+
+		return intersection;
+	}
+
+	private static Set<SWRLBuiltInArgument> createUnion(CollectionGroup collection1Group, CollectionGroup collection2Group)
+	{
+		Set<SWRLBuiltInArgument> union = new HashSet<SWRLBuiltInArgument>(collection1Group.getCollection());
+
+		union.addAll(collection2Group.getCollection());
+
+		return union;
+	}
+
+	private static Set<SWRLBuiltInArgument> createDifference(CollectionGroup collection1Group,
+			CollectionGroup collection2Group)
+	{
+		Set<SWRLBuiltInArgument> collection2Elements = collection2Group.getElementSet();
+		Set<SWRLBuiltInArgument> difference = new HashSet<SWRLBuiltInArgument>();
+
+		for (SWRLBuiltInArgument element : collection1Group.getCollection())
+			if (!collection2Elements.contains(element))
+				difference.add(element);
+
+		return difference;
+	}
+
+	private static List<SWRLBuiltInArgument> createAppendedCollection(CollectionGroup collection1Group,
+			CollectionGroup collection2Group)
+	{
+		List<SWRLBuiltInArgument> resultCollection = new ArrayList<SWRLBuiltInArgument>(collection1Group.size()
+				+ collection2Group.size());
+
+		resultCollection.addAll(collection1Group.getCollection());
+		resultCollection.addAll(collection2Group.getCollection());
+
+		return resultCollection;
 	}
 
 	private List<SWRLBuiltInArgument> getSortedListInSingleOperandCollectionOperation(
@@ -1358,24 +1480,20 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 	{
 		String queryName = getInvokingRuleName();
 		String collectionName = getCollectionName(arguments, sourceCollectionArgumentNumber);
-		String collectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, coreNumberOfArguments);
+		GroupKey collectionGroupKey = getCollectionGroupKeyInSingleCollectionOperation(arguments, coreNumberOfArguments);
 
 		return getSortedList(queryName, collectionName, collectionGroupKey);
 	}
 
-	// We do not cache because only one built-in will typically perform an operation on a particular collection per query.
-	// Note: currently implementations may modify the returned collection.
-	private List<SWRLBuiltInArgument> getSortedList(String queryName, String collectionName, String collectionGroupKey)
+	// Operators such as nth are typically invoked once per binding, so the sorted elements are kept with the collection and
+	// updated as elements are added. The returned list is unmodifiable; operators that remove elements must copy it.
+	private List<SWRLBuiltInArgument> getSortedList(String queryName, String collectionName, GroupKey collectionGroupKey)
 			throws BuiltInException
 	{
-		Collection<SWRLBuiltInArgument> collection = getCollection(queryName, collectionName, collectionGroupKey);
-		List<SWRLBuiltInArgument> result = new ArrayList<SWRLBuiltInArgument>(collection);
-		Collections.sort(result);
-
-		return result;
+		return getCollectionGroup(queryName, collectionName, collectionGroupKey).getSortedElements();
 	}
 
-	private List<SWRLBuiltInArgument> createBag(String queryName, String collectionName, String collectionGroupKey)
+	private List<SWRLBuiltInArgument> createBag(String queryName, String collectionName, GroupKey collectionGroupKey)
 			throws BuiltInException
 	{
 		List<SWRLBuiltInArgument> bag = new ArrayList<SWRLBuiltInArgument>();
@@ -1385,7 +1503,7 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		return bag;
 	}
 
-	private Set<SWRLBuiltInArgument> createSet(String queryName, String collectionName, String collectionGroupKey)
+	private Set<SWRLBuiltInArgument> createSet(String queryName, String collectionName, GroupKey collectionGroupKey)
 			throws BuiltInException
 	{
 		Set<SWRLBuiltInArgument> set = new HashSet<SWRLBuiltInArgument>();
@@ -1403,85 +1521,82 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 
 	private int getNumberOfGroupElements(String queryName, String collectionName) throws BuiltInException
 	{
-		String collectionKey = createCollectionKey(queryName, collectionName);
+		CollectionRecord collectionRecord = getCollectionRecord(queryName, collectionName);
 
-		if (!this.collectionGroupElementNumbersMap.containsKey(collectionKey))
+		if (!collectionRecord.hasNumberOfGroupElements())
 			throw new BuiltInException("internal error: invalid collection name " + collectionName + " in query " + queryName
 					+ "; no group element number found");
 
-		return this.collectionGroupElementNumbersMap.get(collectionKey);
+		return collectionRecord.getNumberOfGroupElements();
 	}
 
-	// An ungrouped collection will have a collectionGroupKey of the empty string so will not be partitioned.
-	private void recordCollection(String queryName, String collectionName, String collectionGroupKey,
+	// An ungrouped collection will have a collectionGroupKey of GroupKey.Ungrouped so will not be partitioned.
+	private void recordCollection(String queryName, String collectionName, GroupKey collectionGroupKey,
 			Collection<SWRLBuiltInArgument> collection) throws BuiltInException
 	{
-		String collectionKey = createCollectionKey(queryName, collectionName);
+		CollectionRecord collectionRecord = getCollectionRecord(queryName, collectionName);
 
-		if (!isCollectionRecorded(queryName, collectionName)) { // Is the collection recorded?
+		if (!collectionRecord.isRecorded()) { // Is the collection recorded?
 			if (isBag(collection))
-				this.bagKeys.add(collectionKey);
+				collectionRecord.record(true);
 			else if (isSet(collection))
-				this.setKeys.add(collectionKey);
+				collectionRecord.record(false);
 			else
 				throw new BuiltInException("internal error: collection " + collectionName + " in query " + queryName
 						+ " with group key " + collectionGroupKey + " is neither a bag or a set");
-
-			this.collectionsMap.put(collectionKey, new HashMap<String, Collection<SWRLBuiltInArgument>>());
 		}
 
-		if (!isCollection(queryName, collectionName, collectionGroupKey)) { // Is the collection for this group recorded
-			if (isBag(queryName, collectionName) && !isBag(collection))
+		if (collectionRecord.getGroup(collectionGroupKey) == null) { // Is the collection for this group recorded
+			if (collectionRecord.isBag() && !isBag(collection))
 				throw new BuiltInException("attempt to add non bag elements to bag " + collectionName + " in query "
 						+ queryName + "; group key=" + collectionGroupKey);
 
-			if (isSet(queryName, collectionName) && !isSet(collection))
+			if (collectionRecord.isSet() && !isSet(collection))
 				throw new BuiltInException("attempt to add non set elements to set " + collectionName + " in query "
 						+ queryName + "; group key=" + collectionGroupKey);
 
-			this.collectionsMap.get(collectionKey).put(collectionGroupKey, collection);
+			collectionRecord.addGroup(collectionGroupKey, collection);
 		}
 	}
 
 	private Collection<SWRLBuiltInArgument> getCollection(String queryName, String collectionName,
-			String collectionGroupKey) throws BuiltInException
+			GroupKey collectionGroupKey) throws BuiltInException
 	{
-		String collectionKey = queryName + ":" + collectionName;
+		return getCollectionGroup(queryName, collectionName, collectionGroupKey).getCollection();
+	}
 
-		if (!isCollection(queryName, collectionName, collectionGroupKey))
+	private CollectionGroup getCollectionGroup(String queryName, String collectionName, GroupKey collectionGroupKey)
+			throws BuiltInException
+	{
+		CollectionGroup collectionGroup = getCollectionRecord(queryName, collectionName).getGroup(collectionGroupKey);
+
+		if (collectionGroup == null)
 			throw new BuiltInException("collection argument in query " + queryName + " with name " + collectionName
 					+ " and group key " + collectionGroupKey + " does not refer to a collection");
 
-		return this.collectionsMap.get(collectionKey).get(collectionGroupKey);
+		return collectionGroup;
 	}
 
-	private boolean isCollection(String queryName, String collectionName, String collectionGroupKey)
+	private SQWRLCollectionBuiltInArgument createSQWRLCollectionBuiltInArgument(String queryName, String collectionName,
+			GroupKey collectionGroupKey) throws BuiltInException
 	{
-		String collectionKey = createCollectionKey(queryName, collectionName);
-
-		return this.collectionsMap.containsKey(collectionKey)
-				&& this.collectionsMap.get(collectionKey).containsKey(collectionGroupKey);
+		return createSQWRLCollectionBuiltInArgument(queryName, collectionName,
+				getCollectionGroup(queryName, collectionName, collectionGroupKey).getGroupID());
 	}
 
-	private boolean isSet(String queryName, String collectionName)
+	private boolean isCollection(String queryName, String collectionName, GroupKey collectionGroupKey)
 	{
-		String setKey = createCollectionKey(queryName, collectionName);
-
-		return this.setKeys.contains(setKey);
+		return getCollectionRecord(queryName, collectionName).getGroup(collectionGroupKey) != null;
 	}
 
-	private boolean isBag(String queryName, String collectionName)
+	private boolean isSet(String queryName, String collectionName)
 	{
-		String bagKey = createCollectionKey(queryName, collectionName);
-
-		return this.bagKeys.contains(bagKey);
+		return getCollectionRecord(queryName, collectionName).isSet();
 	}
 
 	private boolean isCollectionRecorded(String queryName, String collectionName) throws BuiltInException
 	{
-		String collectionKey = createCollectionKey(queryName, collectionName);
-
-		return this.collectionsMap.containsKey(collectionKey);
+		return getCollectionRecord(queryName, collectionName).isRecorded();
 	}
 
 	private boolean isBag(Collection<SWRLBuiltInArgument> collection)
@@ -1494,9 +1609,26 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		return (collection instanceof Set<?>);
 	}
 
-	private String createCollectionKey(String queryName, String collectionName)
+	/**
+	 * Get the record of a collection, assigning the collection an ID if it has not been seen before.
+	 */
+	private CollectionRecord getCollectionRecord(String queryName, String collectionName)
 	{
-		return queryName + ":" + collectionName;
+		Map<String, Integer> queryCollectionIDs = this.collectionIDs.get(queryName);
+
+		if (queryCollectionIDs == null) {
+			queryCollectionIDs = new HashMap<String, Integer>();
+			this.collectionIDs.put(queryName, queryCollectionIDs);
+		}
+
+		Integer collectionID = queryCollectionIDs.get(collectionName);
+
+		if (collectionID == null) {
+			collectionID = this.collectionRecords.size();
+			queryCollectionIDs.put(collectionName, collectionID);
+			this.collectionRecords.add(new CollectionRecord());
+		}
+		return this.collectionRecords.get(collectionID);
 	}
 
 	@SuppressWarnings("unused")
@@ -1508,12 +1640,443 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 		else {
 			Collection<SWRLBuiltInArgument> ungroupedCollection = isSet(queryName, collectionName) ? new HashSet<SWRLBuiltInArgument>()
 					: new ArrayList<SWRLBuiltInArgument>();
-			String collectionKey = createCollectionKey(queryName, collectionName);
 
-			for (String collectionGroupKey : this.collectionsMap.get(collectionKey).keySet()) {
-				ungroupedCollection.addAll(this.collectionsMap.get(collectionKey).get(collectionGroupKey));
+			for (CollectionGroup collectionGroup : getCollectionRecord(queryName, collectionName).getGroups()) {
+				ungroupedCollection.addAll(collectionGroup.getCollection());
 			}
 			return ungroupedCollection;
 		}
 	}
+
+	/**
+	 * The state of a collection: its number of group elements (0 for ungrouped collections), whether it is a bag or a set,
+	 * and its groups. The number of group elements may be known before the collection is recorded.
+	 */
+	private static class CollectionRecord
+	{
+		private static final int UnknownNumberOfGroupElements = -1;
+
+		private int numberOfGroupElements = UnknownNumberOfGroupElements;
+		private Map<GroupKey, CollectionGroup> groups; // Null until the collection is recorded
+		private boolean isBag;
+
+		public boolean hasNumberOfGroupElements()
+		{
+			return this.numberOfGroupElements != UnknownNumberOfGroupElements;
+		}
+
+		public int getNumberOfGroupElements()
+		{
+			return this.numberOfGroupElements;
+		}
+
+		public void setNumberOfGroupElements(int numberOfGroupElements)
+		{
+			this.numberOfGroupElements = numberOfGroupElements;
+		}
+
+		public void record(boolean isBag)
+		{
+			this.groups = new HashMap<GroupKey, CollectionGroup>();
+			this.isBag = isBag;
+		}
+
+		public boolean isRecorded()
+		{
+			return this.groups != null;
+		}
+
+		public boolean isBag()
+		{
+			return this.groups != null && this.isBag;
+		}
+
+		public boolean isSet()
+		{
+			return this.groups != null && !this.isBag;
+		}
+
+		public CollectionGroup getGroup(GroupKey groupKey)
+		{
+			return this.groups == null ? null : this.groups.get(groupKey);
+		}
+
+		public Collection<CollectionGroup> getGroups()
+		{
+			return this.groups.values();
+		}
+
+		/**
+		 * Add a group. Groups are never removed, so the number of groups already recorded gives each group of the
+		 * collection a distinct ID; the single group of an ungrouped collection has the empty ID.
+		 */
+		public void addGroup(GroupKey groupKey, Collection<SWRLBuiltInArgument> collection)
+		{
+			String groupID = groupKey.isUngrouped() ? "" : Integer.toString(this.groups.size());
+
+			this.groups.put(groupKey, new CollectionGroup(groupID, collection));
+		}
+	}
+
+	/**
+	 * A group of a collection. Elements must be added through the group so that its sorted view of them is kept up to
+	 * date. The sorted view is built when it is first requested; elements added after that are merged into it when it is
+	 * next requested, by binary insertion if there are few of them or by re-sorting otherwise.
+	 */
+	private static class CollectionGroup
+	{
+		private static final int MaximumNumberOfBinaryInsertions = 16;
+
+		private final String groupID;
+		private final Collection<SWRLBuiltInArgument> collection;
+		private List<SWRLBuiltInArgument> sortedElements; // Null until requested
+		private List<SWRLBuiltInArgument> sortedElementsView;
+		private final List<SWRLBuiltInArgument> unsortedElements; // Added since the sorted view was last requested
+		private NumericAggregates numericAggregates; // Null until requested
+		private Set<SWRLBuiltInArgument> elementSet; // For bags; null until requested
+		private int modificationCount;
+
+		public CollectionGroup(String groupID, Collection<SWRLBuiltInArgument> collection)
+		{
+			this.groupID = groupID;
+			this.collection = collection;
+			this.unsortedElements = new ArrayList<SWRLBuiltInArgument>();
+		}
+
+		public String getGroupID()
+		{
+			return this.groupID;
+		}
+
+		public Collection<SWRLBuiltInArgument> getCollection()
+		{
+			return this.collection;
+		}
+
+		/**
+		 * Add an element; return false if the collection is a set that already holds it.
+		 */
+		public boolean addElement(SWRLBuiltInArgument element)
+		{
+			if (this.collection.add(element)) {
+				if (this.sortedElements != null)
+					this.unsortedElements.add(element);
+				if (this.elementSet != null)
+					this.elementSet.add(element);
+				this.modificationCount++;
+				return true;
+			} else
+				return false;
+		}
+
+		public int size()
+		{
+			return this.collection.size();
+		}
+
+		public int getModificationCount()
+		{
+			return this.modificationCount;
+		}
+
+		/**
+		 * Get the distinct elements of the collection as a set, for fast membership tests.
+		 */
+		public Set<SWRLBuiltInArgument> getElementSet()
+		{
+			if (this.collection instanceof Set<?>)
+				return (Set<SWRLBuiltInArgument>)this.collection;
+
+			if (this.elementSet == null)
+				this.elementSet = new HashSet<SWRLBuiltInArgument>(this.collection);
+
+			return this.elementSet;
+		}
+
+		public List<SWRLBuiltInArgument> getSortedElements()
+		{
+			if (this.sortedElements == null) {
+				this.sortedElements = new ArrayList<SWRLBuiltInArgument>(this.collection);
+				Collections.sort(this.sortedElements);
+				this.sortedElementsView = Collections.unmodifiableList(this.sortedElements);
+			} else if (this.unsortedElements.size() > MaximumNumberOfBinaryInsertions) {
+				this.sortedElements.addAll(this.unsortedElements); // A sorted run followed by the new elements
+				Collections.sort(this.sortedElements);
+				this.unsortedElements.clear();
+			} else if (!this.unsortedElements.isEmpty()) {
+				for (SWRLBuiltInArgument element : this.unsortedElements)
+					this.sortedElements.add(getInsertionIndex(element), element);
+				this.unsortedElements.clear();
+			}
+			return this.sortedElementsView;
+		}
+
+		public boolean hasNumericAggregates()
+		{
+			return this.numericAggregates != null;
+		}
+
+		public NumericAggregates getNumericAggregates()
+		{
+			return this.numericAggregates;
+		}
+
+		public void setNumericAggregates(NumericAggregates numericAggregates)
+		{
+			this.numericAggregates = numericAggregates;
+		}
+
+		// Insert after any equal elements, as a stable sort would
+		private int getInsertionIndex(SWRLBuiltInArgument element)
+		{
+			int low = 0, high = this.sortedElements.size();
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.sortedElements.get(middle).compareTo(element) <= 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+	}
+
+	private static class CollectionComparisonKey
+	{
+		private final int comparison;
+		private final CollectionGroup collection1Group, collection2Group;
+		private final int hashCode;
+
+		public CollectionComparisonKey(int comparison, CollectionGroup collection1Group, CollectionGroup collection2Group)
+		{
+			this.comparison = comparison;
+			this.collection1Group = collection1Group;
+			this.collection2Group = collection2Group;
+			this.hashCode = 31 * (31 * comparison + System.identityHashCode(collection1Group))
+					+ System.identityHashCode(collection2Group);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof CollectionComparisonKey))
+				return false;
+			CollectionComparisonKey other = (CollectionComparisonKey)obj;
+			return this.comparison == other.comparison && this.collection1Group == other.collection1Group
+					&& this.collection2Group == other.collection2Group;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
+	}
+
+	/**
+	 * The result of comparing two collection groups, together with their modification counts when it was made.
+	 */
+	private static class CollectionComparison
+	{
+		private final int collection1ModificationCount, collection2ModificationCount;
+		private final boolean result;
+
+		public CollectionComparison(CollectionGroup collection1Group, CollectionGroup collection2Group, boolean result)
+		{
+			this.collection1ModificationCount = collection1Group.getModificationCount();
+			this.collection2ModificationCount = collection2Group.getModificationCount();
+			this.result = result;
+		}
+
+		public boolean isCurrent(CollectionGroup collection1Group, CollectionGroup collection2Group)
+		{
+			return this.collection1ModificationCount == collection1Group.getModificationCount()
+					&& this.collection2ModificationCount == collection2Group.getModificationCount();
+		}
+
+		public boolean getResult()
+		{
+			return this.result;
+		}
+	}
+
+	/**
+	 * The sum and median of the numeric values of a collection group, maintained as values are added. The median is kept
+	 * by holding the lower half of the values in a max heap and the upper half in a min heap, so adding a value takes
+	 * O(log n) time and finding the median constant time. Values are held unboxed, in 8 bytes each.
+	 */
+	private static class NumericAggregates
+	{
+		private final DoubleHeap lowerHalf; // Holds the extra value if there is an odd number of values
+		private final DoubleHeap upperHalf;
+		private double sum;
+
+		public NumericAggregates()
+		{
+			this.lowerHalf = new DoubleHeap(true);
+			this.upperHalf = new DoubleHeap(false);
+		}
+
+		public void add(double value)
+		{
+			this.sum += value;
+
+			if (this.lowerHalf.isEmpty() || Double.compare(value, this.lowerHalf.peek()) <= 0)
+				this.lowerHalf.add(value);
+			else
+				this.upperHalf.add(value);
+
+			if (this.lowerHalf.size() > this.upperHalf.size() + 1)
+				this.upperHalf.add(this.lowerHalf.poll());
+			else if (this.upperHalf.size() > this.lowerHalf.size())
+				this.lowerHalf.add(this.upperHalf.poll());
+		}
+
+		public int getNumberOfValues()
+		{
+			return this.lowerHalf.size() + this.upperHalf.size();
+		}
+
+		public double getSum()
+		{
+			return this.sum;
+		}
+
+		public double getMedian()
+		{
+			if (this.lowerHalf.size() > this.upperHalf.size())
+				return this.lowerHalf.peek();
+			else
+				return (this.lowerHalf.peek() + this.upperHalf.peek()) / 2;
+		}
+	}
+
+	/**
+	 * A binary heap of unboxed double values, ordered as by {@link Double#compare}.
+	 */
+	private static class DoubleHeap
+	{
+		private final boolean isMaxHeap;
+		private double[] values;
+		private int size;
+
+		public DoubleHeap(boolean isMaxHeap)
+		{
+			this.isMaxHeap = isMaxHeap;
+			this.values = new double[16];
+		}
+
+		public int size()
+		{
+			return this.size;
+		}
+
+		public boolean isEmpty()
+		{
+			return this.size == 0;
+		}
+
+		public double peek()
+		{
+			return this.values[0];
+		}
+
+		public void add(double value)
+		{
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+
+			int index = this.size++;
+			while (index > 0) { // Sift up
+				int parentIndex = (index - 1) >>> 1;
+				if (!isAbove(value, this.values[parentIndex]))
+					break;
+				this.values[index] = this.values[parentIndex];
+				index = parentIndex;
+			}
+			this.values[index] = value;
+		}
+
+		public double poll()
+		{
+			double top = this.values[0];
+			double value = this.values[--this.size];
+			int index = 0;
+
+			while (true) { // Sift down
+				int childIndex = 2 * index + 1;
+				if (childIndex >= this.size)
+					break;
+				if (childIndex + 1 < this.size && isAbove(this.values[childIndex + 1], this.values[childIndex]))
+					childIndex++;
+				if (!isAbove(this.values[childIndex], value))
+					break;
+				this.values[index] = this.values[childIndex];
+				index = childIndex;
+			}
+			this.values[index] = value;
+
+			return top;
+		}
+
+		// Should value1 be nearer the top of the heap than value2?
+		private boolean isAbove(double value1, double value2)
+		{
+			int comparison = Double.compare(value1, value2);
+
+			return this.isMaxHeap ? comparison > 0 : comparison < 0;
+		}
+	}
+
+	/**
+	 * Identifies a group of a collection by the values of its group arguments. Values are normalized as for invocation
+	 * patterns (see {@link InvocationPatternStore#normalizeArgumentValue(Object)}), so numerically equal values of
+	 * different types identify the same group. The hash code is computed once, when the key is created.
+	 */
+	private static class GroupKey
+	{
+		public static final GroupKey Ungrouped = new GroupKey(new Object[0]);
+
+		private final Object[] groupArgumentValues;
+		private final int hashCode;
+
+		public GroupKey(Object[] groupArgumentValues)
+		{
+			this.groupArgumentValues = new Object[groupArgumentValues.length];
+			for (int i = 0; i < groupArgumentValues.length; i++)
+				this.groupArgumentValues[i] = InvocationPatternStore.normalizeArgumentValue(groupArgumentValues[i]);
+			this.hashCode = Arrays.hashCode(this.groupArgumentValues);
+		}
+
+		public boolean isUngrouped()
+		{
+			return this.groupArgumentValues.length == 0;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof GroupKey))
+				return false;
+			GroupKey other = (GroupKey)obj;
+			return this.hashCode == other.hashCode && Arrays.equals(this.groupArgumentValues, other.groupArgumentValues);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
+
+		@Override
+		public String toString()
+		{
+			return Arrays.toString(this.groupArgumentValues);
+		}
+	}
 }
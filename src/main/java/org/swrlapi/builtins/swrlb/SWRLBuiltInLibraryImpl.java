@@ -69,6 +69,15 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 	{
 	}
 
+	/**
+	 * The core built-ins keep no state between invocations, so they may be invoked concurrently.
+	 */
+	@Override
+	public boolean isStateless()
+	{
+		return true;
+	}
+
 	// Built-ins for comparison, defined in Section 8.1. of http://www.daml.org/2004/04/swrl/builtins.html.
 
 	public boolean greaterThan(List<SWRLBuiltInArgument> arguments) throws BuiltInException
@@ -19,17 +19,28 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 {
 	private static final String SWRLMLibraryName = "SWRLTabMathematicalBuiltIns";
 
-	private JEP jep = null;
+	private volatile ThreadLocal<JEP> jep; // JEP is not thread safe so each invoking thread has its own parser
 
 	public SWRLBuiltInLibraryImpl()
 	{
 		super(SWRLMLibraryName);
+
+		this.jep = new ThreadLocal<JEP>();
 	}
 
 	@Override
 	public void reset()
 	{
-		this.jep = null;
+		this.jep = new ThreadLocal<JEP>();
+	}
+
+	/**
+	 * The only state is the expression parser, which is held per thread, so built-ins may be invoked concurrently.
+	 */
+	@Override
+	public boolean isStateless()
+	{
+		return true;
 	}
 
 	/**
@@ -81,6 +92,7 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 	 */
 	public boolean eval(List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
+		JEP jep = getJEP(); // Obtained once, since a reset replaces the parsers
 		double value;
 		String expression;
 
@@ -97,19 +109,19 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 			for (SWRLBuiltInArgument argument : variableArguments) {
 				String variableName = argument.getVariableName(); // We will have already checked that they are all variables
 				double variableValue = getArgumentAsADouble(argument);
-				getJEP().addVariable(variableName, variableValue);
+				jep.addVariable(variableName, variableValue);
 			}
 		}
 
-		getJEP().parseExpression(expression);
+		jep.parseExpression(expression);
 
-		if (getJEP().hasError())
-			throw new BuiltInException("exception parsing expression '" + expression + "': " + getJEP().getErrorInfo());
+		if (jep.hasError())
+			throw new BuiltInException("exception parsing expression '" + expression + "': " + jep.getErrorInfo());
 
-		value = getJEP().getValue();
+		value = jep.getValue();
 
-		if (getJEP().hasError())
-			throw new BuiltInException("exception parsing expression '" + expression + "': " + getJEP().getErrorInfo());
+		if (jep.hasError())
+			throw new BuiltInException("exception parsing expression '" + expression + "': " + jep.getErrorInfo());
 
 		if (isUnboundArgument(0, arguments)) {
 			arguments.get(0).setBuiltInResult(createLiteralBuiltInArgument(value));
@@ -122,13 +134,16 @@ public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
 	// See. http://www.singularsys.com/jep/doc/javadoc/org/nfunk/jep/JEP.html for JEP API
 	private JEP getJEP()
 	{
-		if (this.jep == null) {
-			this.jep = new JEP();
+		JEP jep = this.jep.get();
+
+		if (jep == null) {
+			jep = new JEP();
 
-			this.jep.addStandardFunctions();
-			this.jep.addStandardConstants();
-			this.jep.setImplicitMul(true);
+			jep.addStandardFunctions();
+			jep.addStandardConstants();
+			jep.setImplicitMul(true);
+			this.jep.set(jep);
 		}
-		return this.jep;
+		return jep;
 	}
 }
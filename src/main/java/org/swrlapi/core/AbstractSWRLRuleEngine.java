@@ -1,27 +1,45 @@
 package org.swrlapi.core;
 
+import java.io.File;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.swrlapi.exceptions.BuiltInException;
 import org.swrlapi.exceptions.SWRLBuiltInBridgeException;
 import org.swrlapi.exceptions.SWRLRuleEngineException;
 import org.swrlapi.exceptions.TargetRuleEngineException;
+import org.swrlapi.ext.OWLAxiomChangeCursor;
 import org.swrlapi.ext.SWRLAPIOWLDataFactory;
 import org.swrlapi.ext.SWRLAPIOWLOntology;
 import org.swrlapi.ext.SWRLAPIRule;
 import org.swrlapi.owl2rl.OWL2RLEngine;
+import org.swrlapi.owl2rl.OWL2RLNames.Rule;
 import org.swrlapi.sqwrl.SQWRLQuery;
 import org.swrlapi.sqwrl.SQWRLResult;
+import org.swrlapi.sqwrl.SQWRLResultCache;
+import org.swrlapi.sqwrl.SQWRLResultCursor;
 import org.swrlapi.sqwrl.exceptions.SQWRLException;
 
 /**
  * This class provides an implementation of some of the core functionality required by a SWRL rule engine. Detailed
  * documentation for this mechanism can be found <a
  * href="http://protege.cim3.net/cgi-bin/wiki.pl?SWRLRuleEngineBridgeFAQ">here</a>.
+ * <p>
+ * Changes to the ontology are read from its change journal using an {@link OWLAxiomChangeCursor}. If incremental import
+ * is enabled (see {@link #setIncrementalImport(boolean)}), only the axioms added since the last import are passed to the
+ * target rule engine and removed axioms are retracted from it (see {@link TargetRuleEngine#retractOWLAxiom}). Since
+ * inferences made from a removed axiom may no longer hold, inferred and injected axioms are discarded when an axiom is
+ * retracted and the target rule engine infers them again on its next run. If the target rule engine cannot retract an
+ * axiom, or a SWRL rule has changed, it is reset and all axioms are imported again. The cursor is closed by
+ * {@link #dispose()}.
  */
 public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 {
@@ -33,6 +51,13 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	private final SWRLBuiltInBridgeController builtInBridgeController;
 	private final SWRLRuleEngineBridgeController ruleEngineBridgeController;
 	private final Set<OWLAxiom> exportedOWLAxioms; // Axioms exported to target rule engine
+	private final OWLAxiomChangeCursor owlAxiomChangeCursor; // Positioned at the version last imported
+
+	private boolean incrementalImport; // Import only changed axioms if knowledge has been imported since last reset
+	private volatile boolean knowledgeImported; // Set when asserted axioms have been exported to the target rule engine
+	private volatile SQWRLResultCache sqwrlResultCache; // Null if query results are not cached
+	private volatile SQWRLResultCursor streamingCursor; // Cursor of the query last streamed; null if none
+	private volatile Thread streamingThread; // Thread running the query last streamed
 
 	public AbstractSWRLRuleEngine(OWLOntologyManager ontologyManager, SWRLAPIOWLOntology owlOntology,
 			SWRLAPIOWLDataFactory swrlapiOWLDataFactory, SWRLAPIOntologyProcessor swrlapiOntologyProcessor,
@@ -47,6 +72,9 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 		this.builtInBridgeController = builtInBridgeController;
 		this.ruleEngineBridgeController = ruleEngineBridgeController;
 		this.exportedOWLAxioms = new HashSet<OWLAxiom>();
+		this.owlAxiomChangeCursor = owlOntology.openOWLAxiomChangeCursor();
+		this.incrementalImport = false;
+		this.knowledgeImported = false;
 	}
 
 	/**
@@ -56,10 +84,10 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	@Override
 	public void importSWRLRulesAndOWLKnowledge() throws SWRLRuleEngineException
 	{
-		reset();
+		checkThatNotStreaming();
 
 		try {
-			exportOWLAxioms2TargetRuleEngine(getSWRLAPIOntologyProcessor().getOWLAxioms()); // OWL axioms include SWRL rules
+			importOWLKnowledge();
 		} catch (TargetRuleEngineException e) {
 			throw new SWRLRuleEngineException("error exporting knowledge to rule engine: " + e.getMessage(), e);
 		}
@@ -72,11 +100,28 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	@Override
 	public void importSQWRLQueryAndOWLKnowledge(String queryName) throws SWRLRuleEngineException
 	{
-		reset();
+		importSQWRLQueriesAndOWLKnowledge(Collections.singleton(queryName));
+	}
+
+	/**
+	 * Load named SQWRL queries, all enabled SWRL rules, and all relevant knowledge from OWL into bridge. Only the named
+	 * queries are activated, so a single run of the rule engine produces the results of all of them.
+	 */
+	@Override
+	public void importSQWRLQueriesAndOWLKnowledge(Set<String> queryNames) throws SWRLRuleEngineException
+	{
+		checkThatNotStreaming();
 
 		try {
-			exportOWLAxioms2TargetRuleEngine(getSWRLAPIOntologyProcessor().getOWLAxioms()); // OWL axioms include SWRL rules
-			exportSQWRLQueries2TargetRuleEngine(queryName);
+			if (importOWLKnowledge()) { // Queries must be re-extracted so that they have fresh results
+				getSWRLAPIOntologyProcessor().processSQWRLQueries();
+				getBuiltInBridgeController().resetBuiltInLibraries();
+			}
+			exportSQWRLQueries2TargetRuleEngine(queryNames);
+		} catch (SQWRLException e) {
+			throw new SWRLRuleEngineException("error processing SQWRL queries: " + e.getMessage(), e);
+		} catch (SWRLBuiltInBridgeException e) {
+			throw new SWRLRuleEngineException("error resetting built-in libraries: " + e.getMessage(), e);
 		} catch (BuiltInException e) {
 			throw new SWRLRuleEngineException("error exporting SQWRL query to rule engine: " + e.getMessage(), e);
 		} catch (TargetRuleEngineException e) {
@@ -90,13 +135,19 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	@Override
 	public void reset() throws SWRLRuleEngineException
 	{
+		checkThatNotStreaming();
+
+		long ontologyVersion = getOWLOntology().getOntologyVersion(); // Before processing, so no change is missed
+
 		try {
 			getSWRLAPIOntologyProcessor().processOntology();
 			getTargetRuleEngine().resetRuleEngine(); // Reset the target rule engine
 			getBuiltInBridgeController().resetController();
 			this.exportedOWLAxioms.clear();
+			this.knowledgeImported = false;
 			getOWL2RLEngine().resetRuleSelectionChanged();
 			getOWLOntology().resetOntologyChanged();
+			this.owlAxiomChangeCursor.moveTo(ontologyVersion);
 		} catch (SQWRLException e) {
 			throw new SWRLRuleEngineException("error resetting target rule engine: " + e.getMessage(), e);
 		} catch (TargetRuleEngineException e) {
@@ -107,15 +158,73 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	}
 
 	/**
-	 * Run the rule engine.
+	 * Release the cursor on the ontology's change journal so that the journal no longer retains changes for this engine,
+	 * and release any resources held by the target rule engine.
+	 */
+	@Override
+	public void dispose()
+	{
+		this.owlAxiomChangeCursor.close();
+		if (this.targetRuleEngine != null)
+			this.targetRuleEngine.dispose();
+	}
+
+	@Override
+	public void setIncrementalImport(boolean incrementalImport)
+	{
+		this.incrementalImport = incrementalImport;
+	}
+
+	@Override
+	public boolean isIncrementalImport()
+	{
+		return this.incrementalImport;
+	}
+
+	@Override
+	public void setWriteBackChunkSize(int chunkSize)
+	{
+		getOWLOntology().setBulkConversionChunkSize(chunkSize);
+	}
+
+	@Override
+	public int getWriteBackChunkSize()
+	{
+		return getOWLOntology().getBulkConversionChunkSize();
+	}
+
+	@Override
+	public void setStreamInferredKnowledge(boolean streamInferredKnowledge)
+	{
+		this.ruleEngineBridgeController.setStreamInferredOWLAxioms(streamInferredKnowledge);
+	}
+
+	@Override
+	public boolean isStreamInferredKnowledge()
+	{
+		return this.ruleEngineBridgeController.isStreamInferredOWLAxioms();
+	}
+
+	/**
+	 * Run the rule engine. If inferred knowledge is being streamed, axioms inferred during the run are written to the
+	 * ontology in chunks as they arrive.
 	 */
 	@Override
 	public void run() throws SWRLRuleEngineException
 	{
+		checkThatNotStreaming();
+
+		boolean streamInferredKnowledge = isStreamInferredKnowledge();
+
 		try {
+			if (streamInferredKnowledge)
+				getOWLOntology().startBulkConversion();
 			getTargetRuleEngine().runRuleEngine();
 		} catch (TargetRuleEngineException e) {
 			throw new SWRLRuleEngineException("error running rule engine: " + e.getMessage(), e);
+		} finally {
+			if (streamInferredKnowledge)
+				getOWLOntology().completeBulkConversion();
 		}
 	}
 
@@ -143,19 +252,137 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 
 	/**
 	 * Run a named SQWRL query. SWRL rules will also be executed and any inferences produced by them will be available in
-	 * the query.
+	 * the query. If a result cache is set, a cached result is returned if the query has already been run against the
+	 * current version of the ontology with the current OWL 2 RL rule selection.
 	 */
 	@Override
 	public SQWRLResult runSQWRLQuery(String queryName) throws SQWRLException
 	{
+		return runSQWRLQueries(Collections.singleton(queryName)).get(queryName);
+	}
+
+	/**
+	 * Run a set of named SQWRL queries. Knowledge and SWRL rules are imported once, only the named queries are activated,
+	 * and the rule engine is run once for all of them. Queries whose results are cached (see
+	 * {@link #setSQWRLResultCache(SQWRLResultCache)}) are not run. The results are returned in the iteration order of
+	 * the supplied names.
+	 */
+	@Override
+	public Map<String, SQWRLResult> runSQWRLQueries(Set<String> queryNames) throws SQWRLException
+	{
+		Map<String, SQWRLResult> results = new LinkedHashMap<String, SQWRLResult>();
+		Set<String> queryNamesToRun = new HashSet<String>();
+		SQWRLResultCache cache = this.sqwrlResultCache;
+		long ontologyVersion = getOWLOntology().getOntologyVersion();
+		Set<Rule> ruleSelection = cache != null ? new HashSet<Rule>(getOWL2RLEngine().getEnabledRules()) : null;
+
+		for (String queryName : queryNames) {
+			String queryText = cache != null ? getSQWRLQueryText(queryName) : null;
+			SQWRLResult cachedResult = queryText != null ? cache.get(queryText, ontologyVersion, ruleSelection) : null;
+
+			results.put(queryName, cachedResult); // Placeholder until the query is run, to keep the order of the names
+			if (cachedResult == null)
+				queryNamesToRun.add(queryName);
+		}
+
+		if (!queryNamesToRun.isEmpty()) {
+			try {
+				importSQWRLQueriesAndOWLKnowledge(queryNamesToRun);
+				run();
+			} catch (SWRLRuleEngineException e) {
+				throw new SQWRLException("error running SQWRL queries: " + e.getMessage(), e);
+			}
+
+			boolean isCacheable = cache != null && !getOWLOntology().hasOntologyChangedSince(ontologyVersion);
+			for (String queryName : queryNamesToRun) {
+				SQWRLResult result = getSQWRLResult(queryName);
+				results.put(queryName, result); // Replacing the placeholder does not change the order
+				if (isCacheable) // Not if inferences streamed during the run changed the ontology
+					cache.put(getSQWRLQueryText(queryName), ontologyVersion, ruleSelection, result);
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public void setSQWRLResultCache(SQWRLResultCache cache)
+	{
+		this.sqwrlResultCache = cache;
+	}
+
+	@Override
+	public SQWRLResultCache getSQWRLResultCache()
+	{
+		return this.sqwrlResultCache;
+	}
+
+	@Override
+	public void setExternalSortThreshold(int numberOfRows)
+	{
+		getSWRLAPIOntologyProcessor().setExternalSortThreshold(numberOfRows);
+	}
+
+	@Override
+	public int getExternalSortThreshold()
+	{
+		return getSWRLAPIOntologyProcessor().getExternalSortThreshold();
+	}
+
+	@Override
+	public void setExternalSortDirectory(File directory)
+	{
+		getSWRLAPIOntologyProcessor().setExternalSortDirectory(directory);
+	}
+
+	@Override
+	public File getExternalSortDirectory()
+	{
+		return getSWRLAPIOntologyProcessor().getExternalSortDirectory();
+	}
+
+	/**
+	 * Run a named SQWRL query on a separate thread, streaming its result rows to the returned cursor. Closing the cursor
+	 * interrupts the thread and abandons the run; any failure of the run is reported to the cursor's consumer. Knowledge
+	 * is imported in full on the next run after an abandoned or failed one.
+	 * <p>
+	 * The thread has exclusive use of the engine until the run has finished. Until the cursor has reached its end or has
+	 * been closed, importing knowledge, running, resetting, or writing inferred knowledge throws an exception; after that,
+	 * these wait for the thread to finish.
+	 */
+	@Override
+	public SQWRLResultCursor streamSQWRLQuery(final String queryName, int queueCapacity) throws SQWRLException
+	{
+		final SQWRLResultCursor cursor;
+
 		try {
 			importSQWRLQueryAndOWLKnowledge(queryName);
-
-			run();
-			return getSQWRLResult(queryName);
 		} catch (SWRLRuleEngineException e) {
 			throw new SQWRLException("error running SQWRL queries: " + e.getMessage(), e);
 		}
+
+		cursor = getSWRLAPIOntologyProcessor().getSQWRLResultGenerator(queryName).openCursor(queueCapacity);
+
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				try {
+					AbstractSWRLRuleEngine.this.run();
+					getSQWRLResult(queryName); // Preparing the result completes the cursor
+				} catch (Throwable t) { // Including errors, which would otherwise leave the consumer waiting
+					AbstractSWRLRuleEngine.this.knowledgeImported = false; // The abandoned run may have left partial inferences
+					if (!cursor.isClosed())
+						cursor.fail(t);
+				}
+			}
+		}, "SQWRL query " + queryName);
+		producer.setDaemon(true);
+		cursor.setProducerThread(producer);
+		this.streamingCursor = cursor;
+		this.streamingThread = producer;
+		producer.start();
+
+		return cursor;
 	}
 
 	/**
@@ -183,11 +410,14 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	}
 
 	/**
-	 * Write knowledge inferred by rule engine back to OWL.
+	 * Write knowledge inferred by rule engine back to OWL. Axioms are applied to the ontology in chunks (see
+	 * {@link #setWriteBackChunkSize(int)}); axioms already in the ontology (e.g., streamed during the run) are skipped.
 	 */
 	@Override
 	public void writeInferredKnowledge() throws SWRLRuleEngineException
 	{
+		checkThatNotStreaming();
+
 		try {
 			getOWLOntology().startBulkConversion(); // Suspend possible event generation for bulk updates.
 
@@ -207,8 +437,7 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	@Override
 	public void infer() throws SWRLRuleEngineException
 	{
-		reset();
-		importSWRLRulesAndOWLKnowledge();
+		importSWRLRulesAndOWLKnowledge(); // Resets the rule engine unless knowledge can be imported incrementally
 		run();
 		writeInferredKnowledge();
 	}
@@ -339,15 +568,24 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 		return this.targetRuleEngine.getVersion();
 	}
 
-	private void exportSQWRLQueries2TargetRuleEngine(String activeQueryName) throws SWRLRuleEngineException,
+	private void exportSQWRLQueries2TargetRuleEngine(Set<String> activeQueryNames) throws SWRLRuleEngineException,
 			TargetRuleEngineException, BuiltInException
 	{
 		for (SQWRLQuery query : getSWRLAPIOntologyProcessor().getSQWRLQueries()) {
-			query.setActive(query.getName().equalsIgnoreCase(activeQueryName));
+			query.setActive(containsIgnoreCase(activeQueryNames, query.getName()));
 			exportSQWRLQuery2TargetRuleEngine(query);
 		}
 	}
 
+	private static boolean containsIgnoreCase(Set<String> names, String name)
+	{
+		for (String candidateName : names)
+			if (candidateName.equalsIgnoreCase(name))
+				return true;
+
+		return false;
+	}
+
 	private void exportSQWRLQueries2TargetRuleEngine() throws SWRLRuleEngineException, TargetRuleEngineException,
 			BuiltInException
 	{
@@ -363,6 +601,41 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 		getTargetRuleEngine().defineSQWRLQuery(query);
 	}
 
+	/**
+	 * Get the text of a SQWRL query as last extracted from the ontology; null if there is no such query.
+	 */
+	private String getSQWRLQueryText(String queryName)
+	{
+		try {
+			return getSWRLAPIOntologyProcessor().getSQWRLQuery(queryName).getQueryText();
+		} catch (SQWRLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check that no other thread is using the engine to stream a query result. If the cursor has reached its end or has
+	 * been closed, wait for the thread to finish.
+	 */
+	private void checkThatNotStreaming() throws SWRLRuleEngineException
+	{
+		Thread thread = this.streamingThread;
+
+		if (thread == null || thread == Thread.currentThread() || !thread.isAlive())
+			return;
+
+		if (!this.streamingCursor.isAtEnd())
+			throw new SWRLRuleEngineException("rule engine is in use by streamed SQWRL query; read the result cursor to its "
+					+ "end or close it first");
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SWRLRuleEngineException("interrupted while waiting for streamed SQWRL query to finish", e);
+		}
+	}
+
 	private TargetRuleEngine getTargetRuleEngine() throws SWRLRuleEngineException
 	{
 		if (this.targetRuleEngine == null)
@@ -371,12 +644,96 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 		return this.targetRuleEngine;
 	}
 
+	/**
+	 * Export asserted OWL axioms to the target rule engine. If possible, only axioms that have been added since the last
+	 * import are exported and those that have been removed are retracted; otherwise the rule engine is reset and all
+	 * axioms are exported. Returns true if the import was incremental.
+	 */
+	private boolean importOWLKnowledge() throws SWRLRuleEngineException, TargetRuleEngineException
+	{
+		long ontologyVersion = getOWLOntology().getOntologyVersion(); // Before reading the changes, so none is missed
+		Set<OWLAxiom> addedOWLAxioms = new HashSet<OWLAxiom>();
+		Set<OWLAxiom> removedOWLAxioms = new HashSet<OWLAxiom>();
+
+		if (canImportIncrementally()
+				&& getChangedOWLAxioms(addedOWLAxioms, removedOWLAxioms)
+				&& retractOWLAxiomsFromTargetRuleEngine(getSWRLAPIOntologyProcessor().processRemovedOWLAxioms(
+						removedOWLAxioms))) {
+			exportOWLAxioms2TargetRuleEngine(getSWRLAPIOntologyProcessor().processAddedOWLAxioms(addedOWLAxioms));
+			this.owlAxiomChangeCursor.moveTo(ontologyVersion);
+			return true;
+		} else {
+			reset();
+			exportOWLAxioms2TargetRuleEngine(getSWRLAPIOntologyProcessor().getOWLAxioms()); // OWL axioms include SWRL rules
+			this.knowledgeImported = true;
+			return false;
+		}
+	}
+
+	private boolean canImportIncrementally()
+	{
+		return this.incrementalImport && this.knowledgeImported && !getOWL2RLEngine().hasRuleSelectionChanged();
+	}
+
+	/**
+	 * Get the axioms added to and removed from the ontology since the last import; an axiom that was added and then
+	 * removed, or removed and then added, is in neither set. Returns false if the changes cannot be imported
+	 * incrementally: a SWRL rule (which includes SQWRL queries) has changed, or a change has not been journaled.
+	 */
+	private boolean getChangedOWLAxioms(Set<OWLAxiom> addedOWLAxioms, Set<OWLAxiom> removedOWLAxioms)
+	{
+		List<OWLOntologyChange> changes = this.owlAxiomChangeCursor.getOWLAxiomChanges();
+
+		if (changes == null)
+			return false;
+
+		for (OWLOntologyChange change : changes) {
+			if (change.getAxiom().isOfType(AxiomType.SWRL_RULE))
+				return false;
+			else if (change.isAddAxiom()) {
+				if (!removedOWLAxioms.remove(change.getAxiom()))
+					addedOWLAxioms.add(change.getAxiom());
+			} else if (!addedOWLAxioms.remove(change.getAxiom()))
+				removedOWLAxioms.add(change.getAxiom());
+		}
+		return true;
+	}
+
+	/**
+	 * Retract removed axioms from the target rule engine and discard the inferred and injected axioms, which the rule
+	 * engine infers again from the remaining axioms on its next run. Returns false if the rule engine cannot retract an
+	 * axiom.
+	 */
+	private boolean retractOWLAxiomsFromTargetRuleEngine(Set<OWLAxiom> axioms) throws SWRLRuleEngineException,
+			TargetRuleEngineException
+	{
+		if (axioms.isEmpty())
+			return true;
+
+		for (OWLAxiom axiom : axioms) {
+			if (this.exportedOWLAxioms.contains(axiom)) {
+				if (!getTargetRuleEngine().retractOWLAxiom(axiom))
+					return false;
+				this.exportedOWLAxioms.remove(axiom);
+			}
+		}
+
+		try {
+			getBuiltInBridgeController().resetController();
+		} catch (SWRLBuiltInBridgeException e) {
+			throw new SWRLRuleEngineException("error resetting built-in bridge: " + e.getMessage(), e);
+		}
+		return true;
+	}
+
 	private void exportOWLAxioms2TargetRuleEngine(Set<OWLAxiom> axioms) throws SWRLRuleEngineException,
 			TargetRuleEngineException
 	{
 		for (OWLAxiom axiom : axioms) {
-			if (!this.exportedOWLAxioms.contains(axiom))
+			if (!this.exportedOWLAxioms.contains(axiom)) {
 				getTargetRuleEngine().defineOWLAxiom(axiom);
+				this.exportedOWLAxioms.add(axiom);
+			}
 		}
 	}
 
@@ -384,7 +741,8 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 	{
 		try {
 			for (OWLAxiom axiom : axioms) {
-				writeOWLAxiom2OWLOntology(axiom);
+				if (!getOWLOntology().containsAxiom(axiom))
+					writeOWLAxiom2OWLOntology(axiom);
 			}
 		} catch (RuntimeException e) {
 			throw new SWRLRuleEngineException("Error writing OWL axioms to ontology", e);
@@ -393,17 +751,11 @@ public class AbstractSWRLRuleEngine implements SWRLRuleEngine
 
 	private void writeOWLAxiom2OWLOntology(OWLAxiom axiom) throws RuntimeException
 	{
-		AddAxiom addAxiomChange = new AddAxiom(getOWLOntology(), axiom);
-
-		getOWLOntologyManager().applyChange(addAxiomChange);
+		getOWLOntology().addOWLAxiom(axiom); // Deferred and applied in a single batch during bulk conversion
 	}
 
-	private OWLOntologyManager getOWLOntologyManager()
-	{
-		return this.owlOntologyManager;
-	}
-
-	private SWRLAPIOWLOntology getOWLOntology()
+	@Override
+	public SWRLAPIOWLOntology getOWLOntology()
 	{
 		return this.owlOntology;
 	}
@@ -1,5 +1,7 @@
 package org.swrlapi.core;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,6 +40,7 @@ import org.semanticweb.owlapi.model.OWLIndividual;
 import org.semanticweb.owlapi.model.OWLInverseFunctionalObjectPropertyAxiom;
 import org.semanticweb.owlapi.model.OWLInverseObjectPropertiesAxiom;
 import org.semanticweb.owlapi.model.OWLIrreflexiveObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLNegativeDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLNegativeObjectPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
@@ -60,6 +63,7 @@ import org.swrlapi.ext.SWRLAPIOWLOntology;
 import org.swrlapi.ext.SWRLAPIRule;
 import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
 import org.swrlapi.sqwrl.DefaultSQWRLQuery;
+import org.swrlapi.sqwrl.DefaultSQWRLResult;
 import org.swrlapi.sqwrl.SQWRLNames;
 import org.swrlapi.sqwrl.SQWRLQuery;
 import org.swrlapi.sqwrl.SQWRLResult;
@@ -69,6 +73,19 @@ import org.swrlapi.sqwrl.exceptions.SQWRLInvalidQueryNameException;
 
 public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 {
+	// Axiom types (other than declarations and SWRL rules) extracted by processOWLAxioms
+	private static final Set<AxiomType<?>> ProcessedOWLAxiomTypes = new HashSet<AxiomType<?>>(
+			Arrays.<AxiomType<?>> asList(AxiomType.CLASS_ASSERTION, AxiomType.OBJECT_PROPERTY_ASSERTION,
+					AxiomType.DATA_PROPERTY_ASSERTION, AxiomType.SAME_INDIVIDUAL, AxiomType.DIFFERENT_INDIVIDUALS,
+					AxiomType.SUBCLASS_OF, AxiomType.EQUIVALENT_CLASSES, AxiomType.SUB_OBJECT_PROPERTY,
+					AxiomType.SUB_DATA_PROPERTY, AxiomType.EQUIVALENT_DATA_PROPERTIES, AxiomType.EQUIVALENT_OBJECT_PROPERTIES,
+					AxiomType.TRANSITIVE_OBJECT_PROPERTY, AxiomType.SYMMETRIC_OBJECT_PROPERTY,
+					AxiomType.FUNCTIONAL_OBJECT_PROPERTY, AxiomType.INVERSE_FUNCTIONAL_OBJECT_PROPERTY,
+					AxiomType.FUNCTIONAL_DATA_PROPERTY, AxiomType.OBJECT_PROPERTY_DOMAIN, AxiomType.DATA_PROPERTY_DOMAIN,
+					AxiomType.OBJECT_PROPERTY_RANGE, AxiomType.DATA_PROPERTY_RANGE, AxiomType.INVERSE_OBJECT_PROPERTIES,
+					AxiomType.IRREFLEXIVE_OBJECT_PROPERTY, AxiomType.ASYMMETRIC_OBJECT_PROPERTY,
+					AxiomType.DISJOINT_OBJECT_PROPERTIES, AxiomType.DISJOINT_DATA_PROPERTIES));
+
 	private final SWRLAPIOWLOntology swrlapiOWLOntology;
 	private final SWRLAPIOWLDataFactory swrlapiOWLDataFactory;
 	private final OWLNamedObjectResolver namedObjectResolver;
@@ -84,6 +101,9 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 	private final HashMap<IRI, OWLDeclarationAxiom> owlDataPropertyDeclarationAxioms;
 	private final HashMap<IRI, OWLDeclarationAxiom> owlAnnotationPropertyDeclarationAxioms;
 
+	private int externalSortThreshold = DefaultSQWRLResult.NoExternalSort; // Applied to each query result
+	private File externalSortDirectory;
+
 	public DefaultSWRLAPIOntologyProcessor(SWRLAPIOWLOntology swrlapiOWLOntology) throws SQWRLException // TODO Remove
 	{
 		this.swrlapiOWLOntology = swrlapiOWLOntology;
@@ -112,6 +132,46 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 		processOWLAxioms();
 	}
 
+	@Override
+	public void processSQWRLQueries() throws SQWRLException
+	{
+		this.queries.clear();
+
+		for (SWRLAPIRule ruleOrQuery : getSWRLAPIOWLOntology().getSWRLAPIRules()) {
+			if (isSQWRLQuery(ruleOrQuery))
+				processSWRLRuleOrSQWRLQuery(ruleOrQuery);
+		}
+	}
+
+	@Override
+	public Set<OWLAxiom> processAddedOWLAxioms(Set<OWLAxiom> axioms)
+	{
+		Set<OWLAxiom> addedOWLAxioms = new HashSet<OWLAxiom>();
+
+		for (OWLAxiom axiom : axioms) {
+			if (axiom.isOfType(AxiomType.DECLARATION))
+				processAddedOWLDeclarationAxiom((OWLDeclarationAxiom)axiom, addedOWLAxioms);
+			else if (ProcessedOWLAxiomTypes.contains(axiom.getAxiomType())) {
+				generateOWLDeclarationAxiomsIfNecessary(axiom, addedOWLAxioms);
+				if (this.assertedOWLAxioms.add(axiom))
+					addedOWLAxioms.add(axiom);
+			}
+		}
+		return addedOWLAxioms;
+	}
+
+	@Override
+	public Set<OWLAxiom> processRemovedOWLAxioms(Set<OWLAxiom> axioms)
+	{
+		Set<OWLAxiom> removedOWLAxioms = new HashSet<OWLAxiom>();
+
+		for (OWLAxiom axiom : axioms) {
+			if (!axiom.isOfType(AxiomType.DECLARATION) && this.assertedOWLAxioms.remove(axiom))
+				removedOWLAxioms.add(axiom);
+		}
+		return removedOWLAxioms;
+	}
+
 	@Override
 	public SQWRLQuery getSQWRLQuery(String queryName) throws SQWRLException
 	{
@@ -136,6 +196,37 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 		return this.rules.values().size();
 	}
 
+	@Override
+	public void setExternalSortThreshold(int numberOfRows)
+	{
+		if (numberOfRows < 0)
+			throw new IllegalArgumentException("external sort threshold must not be negative: " + numberOfRows);
+
+		this.externalSortThreshold = numberOfRows;
+		for (SQWRLQuery query : this.queries.values())
+			query.getResultGenerator().setExternalSortThreshold(numberOfRows);
+	}
+
+	@Override
+	public int getExternalSortThreshold()
+	{
+		return this.externalSortThreshold;
+	}
+
+	@Override
+	public void setExternalSortDirectory(File directory)
+	{
+		this.externalSortDirectory = directory;
+		for (SQWRLQuery query : this.queries.values())
+			query.getResultGenerator().setExternalSortDirectory(directory);
+	}
+
+	@Override
+	public File getExternalSortDirectory()
+	{
+		return this.externalSortDirectory;
+	}
+
 	@Override
 	public int getNumberOfSQWRLQueries()
 	{
@@ -317,6 +408,8 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 		if (isSQWRLQuery(ruleOrQuery)) {
 			SQWRLQuery query = new DefaultSQWRLQuery(ruleOrQuery.getName(), ruleOrQuery.getBodyAtoms(),
 					ruleOrQuery.getHeadAtoms(), swrlapiOWLDataFactory);
+			query.getResultGenerator().setExternalSortThreshold(this.externalSortThreshold);
+			query.getResultGenerator().setExternalSortDirectory(this.externalSortDirectory);
 			this.queries.put(ruleOrQuery.getName(), query);
 		} else {
 			this.rules.put(ruleOrQuery.getName(), ruleOrQuery);
@@ -351,6 +444,7 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 	{
 		for (OWLDataPropertyAssertionAxiom axiom : getOWLDataPropertyAssertionAxioms()) {
 			generateOWLIndividualDeclarationAxiomIfNecessary(axiom.getSubject());
+			getOWLNamedObjectResolver().recordOWLLiteral(axiom.getObject());
 			this.assertedOWLAxioms.add(axiom);
 		}
 	}
@@ -612,6 +706,77 @@ public class DefaultSWRLAPIOntologyProcessor implements SWRLAPIOntologyProcessor
 		this.assertedOWLAxioms.addAll(axioms);
 	}
 
+	private void processAddedOWLDeclarationAxiom(OWLDeclarationAxiom axiom, Set<OWLAxiom> addedOWLAxioms)
+	{
+		OWLEntity entity = axiom.getEntity();
+		HashMap<IRI, OWLDeclarationAxiom> declarationAxioms;
+
+		if (entity.isOWLClass())
+			declarationAxioms = this.owlClassDeclarationAxioms;
+		else if (entity.isOWLNamedIndividual())
+			declarationAxioms = this.owlIndividualDeclarationAxioms;
+		else if (entity.isOWLObjectProperty())
+			declarationAxioms = this.owlObjectPropertyDeclarationAxioms;
+		else if (entity.isOWLDataProperty())
+			declarationAxioms = this.owlDataPropertyDeclarationAxioms;
+		else if (entity.isOWLAnnotationProperty())
+			declarationAxioms = this.owlAnnotationPropertyDeclarationAxioms;
+		else
+			return; // Datatype declarations are not extracted
+
+		if (!declarationAxioms.containsKey(entity.getIRI())) {
+			declarationAxioms.put(entity.getIRI(), axiom);
+			this.assertedOWLAxioms.add(axiom);
+			addedOWLAxioms.add(axiom);
+
+			if (entity.isOWLClass())
+				recordOWLClass(entity);
+			else if (entity.isOWLNamedIndividual())
+				recordOWLNamedIndividual(entity);
+			else if (entity.isOWLObjectProperty())
+				recordOWLObjectProperty(entity);
+			else if (entity.isOWLDataProperty())
+				recordOWLDataProperty(entity);
+			else
+				recordOWLAnnotationProperty(entity);
+		}
+	}
+
+	/**
+	 * Used when processing added axioms incrementally. Unlike the type-specific processing methods, declaration axioms are
+	 * generated for every class, individual, and property in the axiom's signature.
+	 */
+	private void generateOWLDeclarationAxiomsIfNecessary(OWLAxiom axiom, Set<OWLAxiom> generatedOWLAxioms)
+	{
+		for (OWLClass cls : axiom.getClassesInSignature()) {
+			if (!this.owlClassDeclarationAxioms.containsKey(cls.getIRI())) {
+				generateOWLClassDeclarationAxiom(cls);
+				generatedOWLAxioms.add(this.owlClassDeclarationAxioms.get(cls.getIRI()));
+			}
+		}
+
+		for (OWLNamedIndividual individual : axiom.getIndividualsInSignature()) {
+			if (!this.owlIndividualDeclarationAxioms.containsKey(individual.getIRI())) {
+				generateOWLIndividualDeclarationAxiomIfNecessary(individual);
+				generatedOWLAxioms.add(this.owlIndividualDeclarationAxioms.get(individual.getIRI()));
+			}
+		}
+
+		for (OWLObjectProperty property : axiom.getObjectPropertiesInSignature()) {
+			if (!this.owlObjectPropertyDeclarationAxioms.containsKey(property.getIRI())) {
+				generateOWLObjectPropertyDeclarationAxiomIfNecessary(property);
+				generatedOWLAxioms.add(this.owlObjectPropertyDeclarationAxioms.get(property.getIRI()));
+			}
+		}
+
+		for (OWLDataProperty property : axiom.getDataPropertiesInSignature()) {
+			if (!this.owlDataPropertyDeclarationAxioms.containsKey(property.getIRI())) {
+				generateOWLDataPropertyDeclarationAxiomIfNecessary(property);
+				generatedOWLAxioms.add(this.owlDataPropertyDeclarationAxioms.get(property.getIRI()));
+			}
+		}
+	}
+
 	private void generateOWLClassDeclarationAxiom(OWLClass cls)
 	{
 		if (!this.owlClassDeclarationAxioms.containsKey(cls.getIRI())) {
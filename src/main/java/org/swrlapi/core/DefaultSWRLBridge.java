@@ -6,6 +6,15 @@ import java.util.Set;
 
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLDifferentIndividualsAxiom;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLSameIndividualAxiom;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import org.swrlapi.builtins.SWRLBuiltInHandle;
 import org.swrlapi.builtins.SWRLBuiltInLibraryManager;
 import org.swrlapi.core.arguments.SWRLAtomArgumentFactory;
 import org.swrlapi.core.arguments.SWRLBuiltInArgument;
@@ -63,6 +72,13 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 	 */
 	private final Set<OWLAxiom> injectedOWLAxioms;
 
+	private boolean streamInferredOWLAxioms;
+
+	/**
+	 * Built-in libraries used by this bridge. Library instances are not shared with other bridges.
+	 */
+	private final SWRLBuiltInLibraryManager builtInLibraryManager;
+
 	public DefaultSWRLBridge(SWRLAPIOWLOntology targetOWLOntology, SWRLAPIOntologyProcessor swrlapiOntologyProcessor,
 			OWL2RLPersistenceLayer owl2RLPersistenceLayer) throws SWRLBuiltInBridgeException
 	{
@@ -83,6 +99,8 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 
 		this.inferredOWLAxioms = new HashSet<OWLAxiom>();
 		this.injectedOWLAxioms = new HashSet<OWLAxiom>();
+		this.streamInferredOWLAxioms = false;
+		this.builtInLibraryManager = new SWRLBuiltInLibraryManager(this);
 
 		resetController();
 	}
@@ -99,7 +117,13 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 		this.inferredOWLAxioms.clear();
 		this.injectedOWLAxioms.clear();
 
-		SWRLBuiltInLibraryManager.invokeAllBuiltInLibrariesResetMethod(this);
+		resetBuiltInLibraries();
+	}
+
+	@Override
+	public void resetBuiltInLibraries() throws SWRLBuiltInBridgeException
+	{
+		this.builtInLibraryManager.invokeAllBuiltInLibrariesResetMethod();
 	}
 
 	@Override
@@ -110,15 +134,16 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 
 	/**
 	 * The inject methods can be used by SWRL built-ins to inject new axioms into a bridge, which will also reflect them
-	 * in the underlying engine.
+	 * in the underlying engine. Built-ins in different libraries may inject axioms concurrently.
 	 */
 	@Override
 	public void injectOWLAxiom(OWLAxiom axiom) throws SWRLBuiltInBridgeException
 	{
-		if (!this.injectedOWLAxioms.contains(axiom)) {
-			this.injectedOWLAxioms.add(axiom);
-			exportOWLAxiom(axiom); // Export the axiom to the rule engine.
+		synchronized (this.injectedOWLAxioms) {
+			if (!this.injectedOWLAxioms.add(axiom))
+				return;
 		}
+		exportOWLAxiom(axiom); // Export the axiom to the rule engine.
 	}
 
 	@Override
@@ -127,6 +152,51 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 		return this.swrlapiOntologyProcessor.getOWLNamedObjectResolver();
 	}
 
+	@Override
+	public OWLTermDictionary getOWLTermDictionary()
+	{
+		return getOWLNamedObjectResolver().getOWLTermDictionary();
+	}
+
+	@Override
+	public int[] getOWLAssertionTriple(OWLAxiom axiom)
+	{
+		if (axiom instanceof OWLClassAssertionAxiom) {
+			OWLClassAssertionAxiom classAssertionAxiom = (OWLClassAssertionAxiom)axiom;
+
+			if (classAssertionAxiom.getClassExpression().isAnonymous() || classAssertionAxiom.getIndividual().isAnonymous())
+				return null;
+			else
+				return lookupOWLAssertionTriple(OWLRDFVocabulary.RDF_TYPE.getIRI(), classAssertionAxiom.getIndividual()
+						.asOWLNamedIndividual().getIRI(), classAssertionAxiom.getClassExpression().asOWLClass().getIRI());
+		} else if (axiom instanceof OWLObjectPropertyAssertionAxiom) {
+			OWLObjectPropertyAssertionAxiom propertyAssertionAxiom = (OWLObjectPropertyAssertionAxiom)axiom;
+
+			if (propertyAssertionAxiom.getProperty().isAnonymous() || propertyAssertionAxiom.getSubject().isAnonymous()
+					|| propertyAssertionAxiom.getObject().isAnonymous())
+				return null;
+			else
+				return lookupOWLAssertionTriple(propertyAssertionAxiom.getProperty().asOWLObjectProperty().getIRI(),
+						propertyAssertionAxiom.getSubject().asOWLNamedIndividual().getIRI(), propertyAssertionAxiom.getObject()
+								.asOWLNamedIndividual().getIRI());
+		} else if (axiom instanceof OWLDataPropertyAssertionAxiom) {
+			OWLDataPropertyAssertionAxiom propertyAssertionAxiom = (OWLDataPropertyAssertionAxiom)axiom;
+
+			if (propertyAssertionAxiom.getProperty().isAnonymous() || propertyAssertionAxiom.getSubject().isAnonymous())
+				return null;
+			else
+				return lookupOWLAssertionTriple(propertyAssertionAxiom.getProperty().asOWLDataProperty().getIRI(),
+						propertyAssertionAxiom.getSubject().asOWLNamedIndividual().getIRI(), propertyAssertionAxiom.getObject());
+		} else if (axiom instanceof OWLSameIndividualAxiom)
+			return getOWLIndividualPairTriple(OWLRDFVocabulary.OWL_SAME_AS.getIRI(),
+					((OWLSameIndividualAxiom)axiom).getIndividualsAsList());
+		else if (axiom instanceof OWLDifferentIndividualsAxiom)
+			return getOWLIndividualPairTriple(OWLRDFVocabulary.OWL_DIFFERENT_FROM.getIRI(),
+					((OWLDifferentIndividualsAxiom)axiom).getIndividualsAsList());
+		else
+			return null;
+	}
+
 	@Override
 	public OWLClassExpressionResolver getOWLClassExpressionResolver()
 	{
@@ -175,21 +245,109 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 		return this.inferredOWLAxioms.size();
 	}
 
+	@Override
+	public void setStreamInferredOWLAxioms(boolean streamInferredOWLAxioms)
+	{
+		this.streamInferredOWLAxioms = streamInferredOWLAxioms;
+	}
+
+	@Override
+	public boolean isStreamInferredOWLAxioms()
+	{
+		return this.streamInferredOWLAxioms;
+	}
+
 	@Override
 	public void inferOWLAxiom(OWLAxiom axiom) throws SWRLRuleEngineBridgeException
 	{
-		if (!this.inferredOWLAxioms.contains(axiom) && !this.swrlapiOntologyProcessor.hasAssertedOWLAxiom(axiom)) // Exclude
-																																																							// already
-			// asserted axioms
+		// Exclude already asserted axioms
+		if (!this.inferredOWLAxioms.contains(axiom) && !this.swrlapiOntologyProcessor.hasAssertedOWLAxiom(axiom)) {
 			this.inferredOWLAxioms.add(axiom);
+			if (this.streamInferredOWLAxioms)
+				writeInferredOWLAxiom(axiom);
+		}
+	}
+
+	@Override
+	public void inferOWLAssertion(int predicateID, int subjectID, int objectID) throws SWRLRuleEngineBridgeException
+	{
+		OWLTermDictionary termDictionary = getOWLTermDictionary();
+		IRI predicateIRI, subjectIRI;
+		OWLAxiom axiom;
+
+		try {
+			predicateIRI = termDictionary.getIRI(predicateID);
+			subjectIRI = termDictionary.getIRI(subjectID);
+		} catch (IllegalArgumentException e) {
+			throw new SWRLRuleEngineBridgeException("invalid assertion triple: " + e.getMessage(), e);
+		}
+
+		OWLNamedIndividual subject = this.dataFactory.getOWLNamedIndividual(subjectIRI);
+
+		if (termDictionary.isOWLLiteral(objectID))
+			axiom = this.dataFactory.getOWLDataPropertyAssertionAxiom(this.dataFactory.getOWLDataProperty(predicateIRI),
+					subject, termDictionary.getOWLLiteral(objectID));
+		else {
+			IRI objectIRI = termDictionary.getIRI(objectID);
+
+			if (predicateIRI.equals(OWLRDFVocabulary.RDF_TYPE.getIRI()))
+				axiom = this.dataFactory.getOWLClassAssertionAxiom(this.dataFactory.getOWLClass(objectIRI), subject);
+			else if (predicateIRI.equals(OWLRDFVocabulary.OWL_SAME_AS.getIRI()))
+				axiom = this.dataFactory.getOWLSameIndividualAxiom(subject, this.dataFactory.getOWLNamedIndividual(objectIRI));
+			else if (predicateIRI.equals(OWLRDFVocabulary.OWL_DIFFERENT_FROM.getIRI()))
+				axiom = this.dataFactory.getOWLDifferentIndividualsAxiom(subject, this.dataFactory
+						.getOWLNamedIndividual(objectIRI));
+			else
+				axiom = this.dataFactory.getOWLObjectPropertyAssertionAxiom(this.dataFactory.getOWLObjectProperty(predicateIRI),
+						subject, this.dataFactory.getOWLNamedIndividual(objectIRI));
+		}
+		inferOWLAxiom(axiom);
 	}
 
 	@Override
 	public List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, String builtInName, int builtInIndex,
 			boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException
 	{
-		return SWRLBuiltInLibraryManager.invokeSWRLBuiltIn(this, ruleName, builtInName, builtInIndex, isInConsequent,
-				arguments);
+		return this.builtInLibraryManager.invokeSWRLBuiltIn(ruleName, builtInName, builtInIndex, isInConsequent, arguments);
+	}
+
+	@Override
+	public SWRLBuiltInHandle resolveSWRLBuiltIn(String ruleName, String builtInName) throws BuiltInException
+	{
+		return this.builtInLibraryManager.resolveSWRLBuiltIn(ruleName, builtInName);
+	}
+
+	@Override
+	public List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, SWRLBuiltInHandle builtIn,
+			int builtInIndex, boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException
+	{
+		return this.builtInLibraryManager.invokeSWRLBuiltIn(ruleName, builtIn, builtInIndex, isInConsequent, arguments);
+	}
+
+	private int[] getOWLIndividualPairTriple(IRI predicateIRI, List<OWLIndividual> individuals)
+	{
+		if (individuals.size() != 2 || individuals.get(0).isAnonymous() || individuals.get(1).isAnonymous())
+			return null;
+		else
+			return lookupOWLAssertionTriple(predicateIRI, individuals.get(0).asOWLNamedIndividual().getIRI(), individuals
+					.get(1).asOWLNamedIndividual().getIRI());
+	}
+
+	/**
+	 * Look up the IDs of the terms of a triple. Returns null if any term is not in the dictionary; lookups never extend it.
+	 */
+	private int[] lookupOWLAssertionTriple(IRI predicateIRI, IRI subjectIRI, Object object)
+	{
+		OWLNamedObjectResolver resolver = getOWLNamedObjectResolver();
+		int predicateID = resolver.lookupTermID(predicateIRI);
+		int subjectID = resolver.lookupTermID(subjectIRI);
+		int objectID = resolver.lookupTermID(object);
+
+		if (predicateID == OWLTermDictionary.NoTermID || subjectID == OWLTermDictionary.NoTermID
+				|| objectID == OWLTermDictionary.NoTermID)
+			return null;
+		else
+			return new int[] { predicateID, subjectID, objectID };
 	}
 
 	public boolean isOWLClass(IRI classIRI)
@@ -229,6 +387,16 @@ public class DefaultSWRLBridge implements SWRLRuleEngineBridge, SWRLBuiltInBridg
 		return this.swrlapiOntologyProcessor.getSQWRLResultGenerator(queryName);
 	}
 
+	private void writeInferredOWLAxiom(OWLAxiom axiom) throws SWRLRuleEngineBridgeException
+	{
+		try {
+			getOWLOntology().addOWLAxiom(axiom); // Batched if rule engine is running in bulk conversion mode
+		} catch (RuntimeException e) {
+			throw new SWRLRuleEngineBridgeException("error writing inferred OWL axiom " + axiom + " to ontology: "
+					+ e.getMessage(), e);
+		}
+	}
+
 	private void exportOWLAxiom(OWLAxiom axiom) throws SWRLBuiltInBridgeException
 	{
 		try {
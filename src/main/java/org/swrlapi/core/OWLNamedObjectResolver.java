@@ -1,12 +1,10 @@
 package org.swrlapi.core;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.BitSet;
 
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLiteral;
 import org.swrlapi.core.arguments.SWRLClassBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLDataPropertyBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLNamedIndividualBuiltInArgument;
@@ -18,193 +16,220 @@ import org.swrlapi.exceptions.TargetRuleEngineException;
  * {@link SWRLAPIOntologyProcessor} will record all the OWL named objects in an ontology together with their types. Rule
  * engines can then use this class to determine the type of OWL entities using their prefixed name and to map those
  * prefixed names to and from IRIs if necessary.
+ * <p>
+ * Named objects are identified internally by their ID in an {@link OWLTermDictionary}, which also holds their prefixed
+ * names and the literals seen by the processor. Types are recorded as bit sets over those IDs so engines that work with
+ * IDs can determine the type of an entity without creating any objects.
+ * <p>
+ * Built-ins may record and resolve named objects concurrently, so access to the resolver is synchronized. Engines
+ * should look up term IDs using {@link #lookupTermID(Object)}; the dictionary itself may only be used directly to get
+ * the term for an ID.
  * 
  * @see SWRLAPIOntologyProcessor
  */
 public class OWLNamedObjectResolver
 {
-	private final Map<String, IRI> prefixedName2IRI;
-	private final Map<IRI, String> iri2PrefixedName;
-	private final Set<String> classPrefixedNames;
-	private final Set<String> individualPrefixedNames;
-	private final Set<String> objectPropertyPrefixedNames;
-	private final Set<String> dataPropertyPrefixedNames;
-	private final Set<String> annotationPropertyPrefixedNames;
-	private final Set<String> datatypePrefixedNames;
+	private final OWLTermDictionary termDictionary;
+	private final BitSet classIDs;
+	private final BitSet individualIDs;
+	private final BitSet objectPropertyIDs;
+	private final BitSet dataPropertyIDs;
+	private final BitSet annotationPropertyIDs;
+	private final BitSet datatypeIDs;
 
 	public OWLNamedObjectResolver()
 	{
-		this.prefixedName2IRI = new HashMap<String, IRI>();
-		this.iri2PrefixedName = new HashMap<IRI, String>();
+		this.termDictionary = new OWLTermDictionary();
 
-		this.classPrefixedNames = new HashSet<String>();
-		this.individualPrefixedNames = new HashSet<String>();
-		this.objectPropertyPrefixedNames = new HashSet<String>();
-		this.dataPropertyPrefixedNames = new HashSet<String>();
-		this.annotationPropertyPrefixedNames = new HashSet<String>();
-		this.datatypePrefixedNames = new HashSet<String>();
+		this.classIDs = new BitSet();
+		this.individualIDs = new BitSet();
+		this.objectPropertyIDs = new BitSet();
+		this.dataPropertyIDs = new BitSet();
+		this.annotationPropertyIDs = new BitSet();
+		this.datatypeIDs = new BitSet();
 	}
 
-	public void reset()
+	public synchronized void reset()
 	{
-		this.prefixedName2IRI.clear();
-		this.iri2PrefixedName.clear();
-		this.classPrefixedNames.clear();
-		this.individualPrefixedNames.clear();
-		this.objectPropertyPrefixedNames.clear();
-		this.dataPropertyPrefixedNames.clear();
-		this.annotationPropertyPrefixedNames.clear();
-		this.datatypePrefixedNames.clear();
+		this.termDictionary.reset();
+		this.classIDs.clear();
+		this.individualIDs.clear();
+		this.objectPropertyIDs.clear();
+		this.dataPropertyIDs.clear();
+		this.annotationPropertyIDs.clear();
+		this.datatypeIDs.clear();
 	}
 
-	public String iri2PrefixedName(IRI iri)
+	public OWLTermDictionary getOWLTermDictionary()
 	{
-		if (this.iri2PrefixedName.containsKey(iri))
-			return this.iri2PrefixedName(iri);
-		else
-			throw new RuntimeException("could not find prefixed name for IRI " + iri);
+		return this.termDictionary;
 	}
 
-	public IRI prefixedName2IRI(String prefixedName) throws TargetRuleEngineException
+	/**
+	 * Get the dictionary ID of an IRI or literal, or {@link OWLTermDictionary#NoTermID} if it has not been recorded.
+	 */
+	public synchronized int lookupTermID(Object term)
 	{
-		if (this.prefixedName2IRI.containsKey(prefixedName))
-			return this.prefixedName2IRI.get(prefixedName);
-		else
-			throw new RuntimeException("could not find IRI for prefixed name " + prefixedName);
+		return this.termDictionary.lookupTermID(term);
 	}
 
-	public void recordOWLClass(OWLEntity cls)
+	public synchronized String iri2PrefixedName(IRI iri)
 	{
-		IRI iri = cls.getIRI();
-		String prefixedName = getPrefixedName(iri);
-
-		recordPrefixedName2IRIMapping(prefixedName, iri);
+		int id = this.termDictionary.lookupTermID(iri);
+		String prefixedName = id == OWLTermDictionary.NoTermID ? null : this.termDictionary.getPrefixedName(id);
 
-		this.classPrefixedNames.add(prefixedName);
+		if (prefixedName != null)
+			return prefixedName;
+		else
+			throw new RuntimeException("could not find prefixed name for IRI " + iri);
 	}
 
-	public void recordOWLNamedIndividual(OWLEntity individual)
+	public synchronized IRI prefixedName2IRI(String prefixedName) throws TargetRuleEngineException
 	{
-		IRI iri = individual.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		int id = this.termDictionary.lookupPrefixedNameID(prefixedName);
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
-
-		this.individualPrefixedNames.add(prefixedName);
+		if (id != OWLTermDictionary.NoTermID)
+			return this.termDictionary.getIRI(id);
+		else
+			throw new RuntimeException("could not find IRI for prefixed name " + prefixedName);
 	}
 
-	public void recordOWLObjectProperty(OWLEntity property)
+	public synchronized void recordOWLClass(OWLEntity cls)
 	{
-		IRI iri = property.getIRI();
-		String prefixedName = getPrefixedName(iri);
-
-		recordPrefixedName2IRIMapping(prefixedName, iri);
+		recordNamedObject(cls.getIRI(), this.classIDs);
+	}
 
-		this.objectPropertyPrefixedNames.add(prefixedName);
+	public synchronized void recordOWLNamedIndividual(OWLEntity individual)
+	{
+		recordNamedObject(individual.getIRI(), this.individualIDs);
 	}
 
-	public void recordOWLDataProperty(OWLEntity property)
+	public synchronized void recordOWLObjectProperty(OWLEntity property)
 	{
-		IRI iri = property.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		recordNamedObject(property.getIRI(), this.objectPropertyIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
+	public synchronized void recordOWLDataProperty(OWLEntity property)
+	{
+		recordNamedObject(property.getIRI(), this.dataPropertyIDs);
+	}
 
-		this.dataPropertyPrefixedNames.add(prefixedName);
+	public synchronized void recordOWLAnnotationProperty(OWLEntity property)
+	{
+		recordNamedObject(property.getIRI(), this.annotationPropertyIDs);
 	}
 
-	public void recordOWLAnnotationProperty(OWLEntity property)
+	public synchronized void recordOWLDatatype(OWLEntity datatype)
 	{
-		IRI iri = property.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		recordNamedObject(datatype.getIRI(), this.datatypeIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
+	public synchronized void record(SWRLClassBuiltInArgument classArgument)
+	{
+		recordNamedObject(classArgument.getIRI(), this.classIDs);
+	}
 
-		this.annotationPropertyPrefixedNames.add(prefixedName);
+	public synchronized void record(SWRLNamedIndividualBuiltInArgument individualArgument)
+	{
+		recordNamedObject(individualArgument.getIRI(), this.individualIDs);
 	}
 
-	public void recordOWLDatatype(OWLEntity datatype)
+	public synchronized void record(SWRLObjectPropertyBuiltInArgument propertyArgument)
 	{
-		IRI iri = datatype.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		recordNamedObject(propertyArgument.getIRI(), this.objectPropertyIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
+	public synchronized void record(SWRLDataPropertyBuiltInArgument propertyArgument)
+	{
+		recordNamedObject(propertyArgument.getIRI(), this.dataPropertyIDs);
+	}
 
-		this.datatypePrefixedNames.add(prefixedName);
+	public synchronized int recordOWLLiteral(OWLLiteral literal)
+	{
+		return this.termDictionary.encode(literal);
 	}
 
-	public void record(SWRLClassBuiltInArgument classArgument)
+	public synchronized void recordPrefixedName2IRIMapping(String prefixedName, IRI iri)
 	{
-		IRI iri = classArgument.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		this.termDictionary.encode(iri, prefixedName);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
-		this.classPrefixedNames.add(prefixedName);
+	public synchronized boolean isOWLClass(String prefixedName)
+	{
+		return hasType(prefixedName, this.classIDs);
 	}
 
-	public void record(SWRLNamedIndividualBuiltInArgument individualArgument)
+	public synchronized boolean isOWLNamedIndividual(String prefixedName)
 	{
-		IRI iri = individualArgument.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		return hasType(prefixedName, this.individualIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
-		this.individualPrefixedNames.add(prefixedName);
+	public synchronized boolean isOWLObjectProperty(String prefixedName)
+	{
+		return hasType(prefixedName, this.objectPropertyIDs);
 	}
 
-	public void record(SWRLObjectPropertyBuiltInArgument propertyArgument)
+	public synchronized boolean isOWLDataProperty(String prefixedName)
 	{
-		IRI iri = propertyArgument.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		return hasType(prefixedName, this.dataPropertyIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
-		this.objectPropertyPrefixedNames.add(prefixedName);
+	public synchronized boolean isOWLAnnotationProperty(String prefixedName)
+	{
+		return hasType(prefixedName, this.annotationPropertyIDs);
 	}
 
-	public void record(SWRLDataPropertyBuiltInArgument propertyArgument)
+	public synchronized boolean isOWLDatatype(String prefixedName)
 	{
-		IRI iri = propertyArgument.getIRI();
-		String prefixedName = getPrefixedName(iri);
+		return hasType(prefixedName, this.datatypeIDs);
+	}
 
-		recordPrefixedName2IRIMapping(prefixedName, iri);
-		this.dataPropertyPrefixedNames.add(prefixedName);
+	public synchronized boolean isOWLClass(int id)
+	{
+		return this.classIDs.get(id);
 	}
 
-	public void recordPrefixedName2IRIMapping(String prefixedName, IRI iri)
+	public synchronized boolean isOWLNamedIndividual(int id)
 	{
-		if (!this.prefixedName2IRI.containsKey(prefixedName)) {
-			this.prefixedName2IRI.put(prefixedName, iri);
-			this.iri2PrefixedName.put(iri, prefixedName);
-		}
+		return this.individualIDs.get(id);
 	}
 
-	public boolean isOWLClass(String prefixedName)
+	public synchronized boolean isOWLObjectProperty(int id)
 	{
-		return this.classPrefixedNames.contains(prefixedName);
+		return this.objectPropertyIDs.get(id);
 	}
 
-	public boolean isOWLNamedIndividual(String prefixedName)
+	public synchronized boolean isOWLDataProperty(int id)
 	{
-		return this.individualPrefixedNames.contains(prefixedName);
+		return this.dataPropertyIDs.get(id);
 	}
 
-	public boolean isOWLObjectProperty(String prefixedName)
+	public synchronized boolean isOWLAnnotationProperty(int id)
 	{
-		return this.objectPropertyPrefixedNames.contains(prefixedName);
+		return this.annotationPropertyIDs.get(id);
 	}
 
-	public boolean isOWLDataProperty(String prefixedName)
+	public synchronized boolean isOWLDatatype(int id)
 	{
-		return this.dataPropertyPrefixedNames.contains(prefixedName);
+		return this.datatypeIDs.get(id);
 	}
 
-	public boolean isOWLAnnotationProperty(String prefixedName)
+	/**
+	 * Record the type of a named object. The IRI and type are recorded before the prefixed name so that they are
+	 * available to engines that work with IDs.
+	 */
+	private void recordNamedObject(IRI iri, BitSet typeIDs)
 	{
-		return this.annotationPropertyPrefixedNames.contains(prefixedName);
+		typeIDs.set(this.termDictionary.encode(iri));
+
+		recordPrefixedName2IRIMapping(getPrefixedName(iri), iri);
 	}
 
-	public boolean isOWLDatatype(String prefixedName)
+	private boolean hasType(String prefixedName, BitSet typeIDs)
 	{
-		return this.datatypePrefixedNames.contains(prefixedName);
+		int id = this.termDictionary.lookupPrefixedNameID(prefixedName);
+
+		return id != OWLTermDictionary.NoTermID && typeIDs.get(id);
 	}
 
 	private String getPrefixedName(IRI iri)
@@ -0,0 +1,229 @@
+package org.swrlapi.core;
+
+import java.util.Arrays;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+
+/**
+ * A dictionary that assigns dense integer IDs to the IRIs and literals in an ontology. A {@link SWRLAPIOntologyProcessor}
+ * encodes every IRI and literal it sees into its dictionary. Rule engines can use the dictionary to work with integer
+ * IDs rather than with OWLAPI objects, which allows facts to be hashed and joined as integers. The dictionary also
+ * holds the prefixed names of named objects, so an IRI, its ID, and its prefixed name can be mapped to each other.
+ * <p>
+ * Encoding and lookup are separate: only {@link #encode(IRI)} and {@link #encode(OWLLiteral)} assign IDs, and they are
+ * used only while the ontology is processed. Lookups never add entries, so the dictionary holds exactly the terms of
+ * the processed ontology and is emptied when it is reset. Terms are held in an array indexed by ID and found using an
+ * open-addressing hash table of IDs, so an entry costs little more than the reference to its term.
+ * <p>
+ * IDs are assigned in order starting at zero and remain valid until the dictionary is reset. The IRIs of
+ * <code>rdf:type</code>, <code>owl:sameAs</code>, and <code>owl:differentFrom</code> are always encoded.
+ * <p>
+ * The dictionary is not synchronized; {@link OWLNamedObjectResolver} guards encoding and lookups. Terms are published
+ * before their IDs, so a thread that has obtained an ID may get its term while other terms are being encoded.
+ *
+ * @see OWLNamedObjectResolver
+ * @see SWRLRuleEngineBridge#getOWLAssertionTriple(org.semanticweb.owlapi.model.OWLAxiom)
+ */
+public class OWLTermDictionary
+{
+	public static final int NoTermID = -1;
+
+	private static final int InitialCapacity = 1024;
+	private static final int EmptySlot = NoTermID;
+
+	private volatile Object[] terms; // Indexed by ID
+	private int numberOfTerms;
+	private int[] slots; // Hash table of IDs
+	private String[] prefixedNames; // Indexed by ID
+	private int[] prefixedNameSlots; // Hash table of IDs by prefixed name
+
+	public OWLTermDictionary()
+	{
+		reset();
+	}
+
+	public void reset()
+	{
+		this.terms = new Object[InitialCapacity];
+		this.numberOfTerms = 0;
+		this.slots = new int[InitialCapacity * 2];
+		Arrays.fill(this.slots, EmptySlot);
+		this.prefixedNames = new String[InitialCapacity];
+		this.prefixedNameSlots = new int[InitialCapacity * 2];
+		Arrays.fill(this.prefixedNameSlots, EmptySlot);
+
+		encodeTerm(OWLRDFVocabulary.RDF_TYPE.getIRI());
+		encodeTerm(OWLRDFVocabulary.OWL_SAME_AS.getIRI());
+		encodeTerm(OWLRDFVocabulary.OWL_DIFFERENT_FROM.getIRI());
+	}
+
+	/**
+	 * Get the ID of an IRI, assigning a new ID if the IRI has not been encoded before.
+	 */
+	public int encode(IRI iri)
+	{
+		return encodeTerm(iri);
+	}
+
+	/**
+	 * Get the ID of a literal, assigning a new ID if the literal has not been encoded before.
+	 */
+	public int encode(OWLLiteral literal)
+	{
+		return encodeTerm(literal);
+	}
+
+	/**
+	 * Get the ID of an IRI and record its prefixed name. An IRI keeps the first prefixed name recorded for it, and a
+	 * prefixed name keeps the first IRI.
+	 */
+	public int encode(IRI iri, String prefixedName)
+	{
+		int id = encodeTerm(iri);
+		int slot = findPrefixedNameSlot(prefixedName);
+
+		if (this.prefixedNames[id] == null && this.prefixedNameSlots[slot] == EmptySlot) {
+			this.prefixedNames[id] = prefixedName;
+			this.prefixedNameSlots[slot] = id;
+		}
+		return id;
+	}
+
+	/**
+	 * Get the ID of a previously encoded IRI or literal, or {@link #NoTermID} if it has not been encoded.
+	 */
+	public int lookupTermID(Object term)
+	{
+		return this.slots[findSlot(term)];
+	}
+
+	/**
+	 * Get the ID of the IRI with a prefixed name, or {@link #NoTermID} if no IRI has been encoded with that name.
+	 */
+	public int lookupPrefixedNameID(String prefixedName)
+	{
+		return this.prefixedNameSlots[findPrefixedNameSlot(prefixedName)];
+	}
+
+	/**
+	 * Get the prefixed name recorded for an IRI, or null if it has none.
+	 */
+	public String getPrefixedName(int id)
+	{
+		getTerm(id);
+
+		return this.prefixedNames[id];
+	}
+
+	public boolean isIRI(int id)
+	{
+		return getTerm(id) instanceof IRI;
+	}
+
+	public boolean isOWLLiteral(int id)
+	{
+		return getTerm(id) instanceof OWLLiteral;
+	}
+
+	public IRI getIRI(int id)
+	{
+		Object term = getTerm(id);
+
+		if (term instanceof IRI)
+			return (IRI)term;
+		else
+			throw new IllegalArgumentException("term with ID " + id + " is not an IRI: " + term);
+	}
+
+	public OWLLiteral getOWLLiteral(int id)
+	{
+		Object term = getTerm(id);
+
+		if (term instanceof OWLLiteral)
+			return (OWLLiteral)term;
+		else
+			throw new IllegalArgumentException("term with ID " + id + " is not a literal: " + term);
+	}
+
+	public int getNumberOfTerms()
+	{
+		return this.numberOfTerms;
+	}
+
+	public Object getTerm(int id)
+	{
+		Object[] terms = this.terms;
+
+		if (id < 0 || id >= terms.length || terms[id] == null)
+			throw new IllegalArgumentException("invalid term ID " + id);
+
+		return terms[id];
+	}
+
+	private int encodeTerm(Object term)
+	{
+		int slot = findSlot(term);
+		int id = this.slots[slot];
+
+		if (id == EmptySlot) {
+			Object[] terms = this.terms;
+
+			id = this.numberOfTerms++;
+			if (id == terms.length) {
+				terms = Arrays.copyOf(terms, terms.length * 2);
+				this.prefixedNames = Arrays.copyOf(this.prefixedNames, terms.length);
+			}
+			terms[id] = term;
+			this.terms = terms;
+			this.slots[slot] = id;
+			if (this.numberOfTerms * 2 > this.slots.length)
+				rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Find the slot holding the ID of a term, or the empty slot at which it would be inserted.
+	 */
+	private int findSlot(Object term)
+	{
+		int mask = this.slots.length - 1;
+		int slot = (term.hashCode() * 0x9E3779B9) & mask;
+
+		while (this.slots[slot] != EmptySlot && !this.terms[this.slots[slot]].equals(term))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	private int findPrefixedNameSlot(String prefixedName)
+	{
+		int mask = this.prefixedNameSlots.length - 1;
+		int slot = (prefixedName.hashCode() * 0x9E3779B9) & mask;
+
+		while (this.prefixedNameSlots[slot] != EmptySlot
+				&& !this.prefixedNames[this.prefixedNameSlots[slot]].equals(prefixedName))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	/**
+	 * Rebuild both hash tables. Each prefixed name belongs to a distinct term, so neither table is more than half full.
+	 */
+	private void rehash()
+	{
+		this.slots = new int[this.slots.length * 2];
+		Arrays.fill(this.slots, EmptySlot);
+		this.prefixedNameSlots = new int[this.slots.length];
+		Arrays.fill(this.prefixedNameSlots, EmptySlot);
+
+		for (int id = 0; id < this.numberOfTerms; id++) {
+			this.slots[findSlot(this.terms[id])] = id;
+			if (this.prefixedNames[id] != null)
+				this.prefixedNameSlots[findPrefixedNameSlot(this.prefixedNames[id])] = id;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package org.swrlapi.core;
 
+import java.io.File;
 import java.util.Set;
 
 import org.semanticweb.owlapi.model.OWLAxiom;
@@ -23,6 +24,11 @@ import org.swrlapi.sqwrl.exceptions.SQWRLException;
  * <p>
  * The {@link #processOntology} method should be called before any axioms are retrieved.
  * <p>
+ * Axioms added to or removed from the ontology after processing can be applied incrementally using the
+ * {@link #processAddedOWLAxioms(Set)} and {@link #processRemovedOWLAxioms(Set)} methods. SQWRL queries can be re-extracted with fresh results using the
+ * {@link #processSQWRLQueries} method. Result settings made on the processor, such as the external sort threshold, are
+ * applied to the results of re-extracted queries.
+ * <p>
  * The {@link DefaultSWRLAPIOntologyProcessor} class provides a default implementation of this interface. Apart from
  * extracting SWRL rules and SQWRL queries, this processor also generates OWL declaration axioms for all OWL entities
  * encountered during axiom processing and records their type, IRI and prefixed names using the
@@ -33,6 +39,41 @@ public interface SWRLAPIOntologyProcessor
 {
 	void processOntology() throws SQWRLException;
 
+	/**
+	 * Re-extract the SQWRL queries in the ontology, discarding any existing query results. SWRL rules and OWL axioms are
+	 * not reprocessed.
+	 */
+	void processSQWRLQueries() throws SQWRLException;
+
+	/**
+	 * Record OWL axioms added to the ontology since it was processed. Returns the newly asserted axioms, which include
+	 * any declaration axioms generated for entities referenced by the added axioms. Axiom types that are not extracted
+	 * by the processor are ignored.
+	 */
+	Set<OWLAxiom> processAddedOWLAxioms(Set<OWLAxiom> axioms);
+
+	/**
+	 * Record OWL axioms removed from the ontology since it was processed. Returns the axioms that are no longer asserted.
+	 * Declaration axioms are kept, since the declared entities may still be referenced by other axioms.
+	 */
+	Set<OWLAxiom> processRemovedOWLAxioms(Set<OWLAxiom> axioms);
+
+	/**
+	 * Set the external sort threshold of the results of the current SQWRL queries and of those extracted later. See
+	 * {@link org.swrlapi.sqwrl.DefaultSQWRLResult#setExternalSortThreshold}.
+	 */
+	void setExternalSortThreshold(int numberOfRows);
+
+	int getExternalSortThreshold();
+
+	/**
+	 * Set the directory for the temporary files of external sorts of SQWRL query results; null for the default
+	 * temporary directory.
+	 */
+	void setExternalSortDirectory(File directory);
+
+	File getExternalSortDirectory();
+
 	OWLNamedObjectResolver getOWLNamedObjectResolver();
 
 	SWRLAPIOWLDataFactory getSWRLAPIOWLDataFactory();
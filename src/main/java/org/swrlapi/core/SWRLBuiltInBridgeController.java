@@ -12,6 +12,11 @@ public interface SWRLBuiltInBridgeController
 {
 	void resetController() throws SWRLBuiltInBridgeException;
 
+	/**
+	 * Reset the state of the built-in libraries (e.g., SQWRL collections) without discarding injected or inferred axioms.
+	 */
+	void resetBuiltInLibraries() throws SWRLBuiltInBridgeException;
+
 	int getNumberOfInjectedOWLAxioms();
 
 	boolean isInjectedOWLAxiom(OWLAxiom axiom);
@@ -34,6 +34,12 @@ public interface SWRLRuleEngine extends SQWRLQueryEngine
 	 */
 	void importSQWRLQueryAndOWLKnowledge(String queryName) throws SWRLRuleEngineException;
 
+	/**
+	 * Load specific queries, all enabled rules, and relevant knowledge from OWL. Only the named queries are active in the
+	 * next run of the rule engine.
+	 */
+	void importSQWRLQueriesAndOWLKnowledge(Set<String> queryNames) throws SWRLRuleEngineException;
+
 	/**
 	 * Run the rule engine.
 	 */
@@ -50,6 +56,37 @@ public interface SWRLRuleEngine extends SQWRLQueryEngine
 	@Override
 	void reset() throws SWRLRuleEngineException;
 
+	/**
+	 * Release the resources held by the rule engine. The rule engine should not be used once it has been disposed.
+	 */
+	void dispose();
+
+	/**
+	 * When incremental import is enabled, knowledge is fully imported only on the first import after a reset. Subsequent
+	 * imports pass only the OWL axioms added to the ontology since the previous import to the rule engine. A full import
+	 * is performed if axioms have been removed, if the OWL 2 RL rule selection has changed, or if SWRL rules or SQWRL
+	 * queries have been modified.
+	 */
+	void setIncrementalImport(boolean incrementalImport);
+
+	boolean isIncrementalImport();
+
+	/**
+	 * Inferred knowledge is written back to OWL in chunks of at most this many axioms, each of which is applied to the
+	 * ontology as a single batch of changes.
+	 */
+	void setWriteBackChunkSize(int chunkSize);
+
+	int getWriteBackChunkSize();
+
+	/**
+	 * If enabled, axioms inferred by the rule engine are written to the OWL ontology while the rule engine is running
+	 * instead of when {@link #writeInferredKnowledge()} is called.
+	 */
+	void setStreamInferredKnowledge(boolean streamInferredKnowledge);
+
+	boolean isStreamInferredKnowledge();
+
 	/**
 	 * Get the underlying controller for the OWL 2 RL reasoner used by the rule and query engine.
 	 */
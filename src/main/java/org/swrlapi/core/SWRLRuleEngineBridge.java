@@ -3,6 +3,7 @@ package org.swrlapi.core;
 import java.util.List;
 
 import org.semanticweb.owlapi.model.OWLAxiom;
+import org.swrlapi.builtins.SWRLBuiltInHandle;
 import org.swrlapi.core.arguments.SWRLAtomArgumentFactory;
 import org.swrlapi.core.arguments.SWRLBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLBuiltInArgumentFactory;
@@ -49,6 +50,23 @@ public interface SWRLRuleEngineBridge
 	 */
 	OWLNamedObjectResolver getOWLNamedObjectResolver();
 
+	/**
+	 * A term dictionary can be used by a target rule engine to work with integer IDs for IRIs and literals rather than
+	 * with OWLAPI objects. It is shared with the {@link OWLNamedObjectResolver}, which can determine the type of a named
+	 * object from its ID. Built-ins may add terms while rules are evaluated, so engines should look up IDs using
+	 * {@link OWLNamedObjectResolver#lookupTermID(Object)}.
+	 */
+	OWLTermDictionary getOWLTermDictionary();
+
+	/**
+	 * Encode an assertion axiom as a triple of term IDs: <code>{predicateID, subjectID, objectID}</code>. Class assertions
+	 * use the ID of <code>rdf:type</code> as their predicate and the class as their object; two-individual same and
+	 * different individual axioms use the IDs of <code>owl:sameAs</code> and <code>owl:differentFrom</code>. Returns null
+	 * for other axioms, for assertions of anonymous classes or individuals, and for assertions with a term that is not in
+	 * the dictionary. Encoding an axiom never adds terms to the dictionary.
+	 */
+	int[] getOWLAssertionTriple(OWLAxiom axiom);
+
 	/**
 	 * A class expression resolver can be used by a target rule engine to resolve OWL class expressions.
 	 */
@@ -69,6 +87,12 @@ public interface SWRLRuleEngineBridge
 	 */
 	void inferOWLAxiom(OWLAxiom axiom) throws SWRLRuleEngineBridgeException;
 
+	/**
+	 * Infer an assertion axiom encoded as a triple of term IDs. See {@link #getOWLAssertionTriple(OWLAxiom)} for the
+	 * encoding.
+	 */
+	void inferOWLAssertion(int predicateID, int subjectID, int objectID) throws SWRLRuleEngineBridgeException;
+
 	/**
 	 * This method can be used by a target rule engine to invoke built-ins. If the built-in evaluates to false, an empty
 	 * list is returned. If it evaluates to true, one of more argument lists are returned, one for each combination of
@@ -77,6 +101,19 @@ public interface SWRLRuleEngineBridge
 	List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, String builtInName, int builtInIndex,
 			boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException;
 
+	/**
+	 * Resolve a built-in so that it can be invoked repeatedly without looking it up by name. Rule engines can resolve
+	 * each built-in atom once and cache the returned handle.
+	 */
+	SWRLBuiltInHandle resolveSWRLBuiltIn(String ruleName, String builtInName) throws BuiltInException;
+
+	/**
+	 * Invoke a built-in previously resolved with {@link #resolveSWRLBuiltIn(String, String)}. See
+	 * {@link #invokeSWRLBuiltIn(String, String, int, boolean, List)}.
+	 */
+	List<List<SWRLBuiltInArgument>> invokeSWRLBuiltIn(String ruleName, SWRLBuiltInHandle builtIn, int builtInIndex,
+			boolean isInConsequent, List<SWRLBuiltInArgument> arguments) throws BuiltInException;
+
 	/**
 	 * See if the active ontology has changed since last knowledge rule engine call to {@link SWRLRuleEngine#reset()}.
 	 */
@@ -12,4 +12,12 @@ public interface SWRLRuleEngineBridgeController
 	int getNumberOfInferredOWLAxioms();
 
 	Set<OWLAxiom> getInferredOWLAxioms();
+
+	/**
+	 * If enabled, inferred axioms are also added to the OWL ontology as soon as they are inferred by the rule engine
+	 * rather than only when inferred knowledge is written back after the rule engine has run.
+	 */
+	void setStreamInferredOWLAxioms(boolean streamInferredOWLAxioms);
+
+	boolean isStreamInferredOWLAxioms();
 }
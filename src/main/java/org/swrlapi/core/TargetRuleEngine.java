@@ -22,7 +22,16 @@ public interface TargetRuleEngine
 	void defineOWLAxiom(OWLAxiom axiom) throws TargetRuleEngineException;
 
 	/**
-	 * Define a target rule engine representation of a SQWRL query.
+	 * Remove the target rule engine representation of a previously defined OWL axiom. Knowledge inferred from the axiom
+	 * must not survive the next run of the rule engine. Returns false if the rule engine cannot retract axioms, in which
+	 * case it is reset and all axioms are defined again.
+	 */
+	boolean retractOWLAxiom(OWLAxiom axiom) throws TargetRuleEngineException;
+
+	/**
+	 * Define a target rule engine representation of a SQWRL query. When knowledge is imported incrementally a query may
+	 * be defined again without an intervening reset; the new definition should replace the existing one and be evaluated
+	 * against the knowledge currently held by the rule engine.
 	 */
 	void defineSQWRLQuery(SQWRLQuery query) throws TargetRuleEngineException, BuiltInException;
 
@@ -36,6 +45,11 @@ public interface TargetRuleEngine
 	 */
 	void resetRuleEngine() throws TargetRuleEngineException;
 
+	/**
+	 * Release any resources, such as threads, held by the rule engine.
+	 */
+	void dispose();
+
 	/**
 	 * Return the name of the target rule engine.
 	 */
@@ -17,6 +17,9 @@ import org.semanticweb.owlapi.model.OWLObjectVisitorEx;
 import org.semanticweb.owlapi.model.SWRLObjectVisitor;
 import org.semanticweb.owlapi.model.SWRLObjectVisitorEx;
 import org.swrlapi.core.arguments.SWRLLiteralBuiltInArgument;
+import org.swrlapi.exceptions.SQWRLLiteralException;
+import org.swrlapi.ext.SWRLAPILiteral;
+import org.swrlapi.ext.impl.DefaultSWRLAPILiteral;
 
 class SWRLLiteralBuiltInArgumentImpl extends SWRLBuiltInArgumentImpl implements SWRLLiteralBuiltInArgument
 {
@@ -131,10 +134,26 @@ class SWRLLiteralBuiltInArgumentImpl extends SWRLBuiltInArgumentImpl implements
 		throw new RuntimeException("Not implemented");
 	}
 
+	/**
+	 * Numeric literals are compared by value so that SQWRL operators such as <code>sqwrl:greatest</code> order them
+	 * numerically. Other literals are compared as OWL literals; literals are ordered before other arguments.
+	 */
 	@Override
 	public int compareTo(OWLObject o)
 	{
-		throw new RuntimeException("Not implemented");
+		if (!(o instanceof SWRLLiteralBuiltInArgument))
+			return -1;
+
+		SWRLAPILiteral literal1 = new DefaultSWRLAPILiteral(this.literal);
+		SWRLAPILiteral literal2 = new DefaultSWRLAPILiteral(((SWRLLiteralBuiltInArgument)o).getLiteral());
+
+		if (literal1.isNumeric() && literal2.isNumeric()) {
+			try {
+				return Double.compare(literal1.getDouble(), literal2.getDouble());
+			} catch (SQWRLLiteralException e) { // Malformed lexical value; fall through to compare as OWL literals
+			}
+		}
+		return this.literal.compareTo(literal2.getOWLLiteral());
 	}
 
 	@Override
@@ -0,0 +1,214 @@
+package org.swrlapi.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.swrlapi.builtins.SWRLBuiltInHandle;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.ext.SWRLAPIBuiltInAtom;
+
+/**
+ * A rule compiled for evaluation by a {@link SemiNaiveRuleEngine}. Compiled rules are produced from SWRL rules, SQWRL
+ * queries, and from those OWL axioms that are implemented by OWL 2 RL rules.
+ * <p>
+ * Variables are numbered densely in order of first appearance and a binding is an <code>int</code> array indexed by
+ * variable number. Terms in relational atoms are encoded as an <code>int</code>: a non-negative term is the interned
+ * identifier of a constant and a negative term <code>-(n + 1)</code> refers to variable <code>n</code>.
+ */
+class CompiledRule
+{
+	public static final int Unbound = -1;
+
+	private final String name;
+	private final Map<String, Integer> variableIndexes;
+	private final List<String> variableNames;
+	private final List<RelationalAtom> bodyRelationalAtoms;
+	private final List<BuiltInAtom> bodyBuiltInAtoms;
+	private final List<BuiltInAtom> headBuiltInAtoms;
+	private final List<RelationalAtom> headRelationalAtoms;
+
+	public CompiledRule(String name)
+	{
+		this.name = name;
+		this.variableIndexes = new HashMap<String, Integer>();
+		this.variableNames = new ArrayList<String>();
+		this.bodyRelationalAtoms = new ArrayList<RelationalAtom>();
+		this.bodyBuiltInAtoms = new ArrayList<BuiltInAtom>();
+		this.headBuiltInAtoms = new ArrayList<BuiltInAtom>();
+		this.headRelationalAtoms = new ArrayList<RelationalAtom>();
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Get the term representing the named variable, numbering it if it has not been seen before.
+	 */
+	public int getVariableTerm(String variableName)
+	{
+		return -(getVariableIndex(variableName) + 1);
+	}
+
+	public int getVariableIndex(String variableName)
+	{
+		Integer variableIndex = this.variableIndexes.get(variableName);
+
+		if (variableIndex == null) {
+			variableIndex = this.variableNames.size();
+			this.variableIndexes.put(variableName, variableIndex);
+			this.variableNames.add(variableName);
+		}
+		return variableIndex;
+	}
+
+	public String getVariableName(int variableIndex)
+	{
+		return this.variableNames.get(variableIndex);
+	}
+
+	public int getNumberOfVariables()
+	{
+		return this.variableNames.size();
+	}
+
+	public static boolean isVariableTerm(int term)
+	{
+		return term < 0;
+	}
+
+	public static int getVariableIndexFromTerm(int term)
+	{
+		return -term - 1;
+	}
+
+	public void addBodyAtom(RelationalAtom atom)
+	{
+		this.bodyRelationalAtoms.add(atom);
+	}
+
+	public void addBodyAtom(BuiltInAtom atom)
+	{
+		this.bodyBuiltInAtoms.add(atom);
+	}
+
+	public void addHeadAtom(RelationalAtom atom)
+	{
+		this.headRelationalAtoms.add(atom);
+	}
+
+	public void addHeadAtom(BuiltInAtom atom)
+	{
+		this.headBuiltInAtoms.add(atom);
+	}
+
+	public List<RelationalAtom> getBodyRelationalAtoms()
+	{
+		return this.bodyRelationalAtoms;
+	}
+
+	public List<BuiltInAtom> getBodyBuiltInAtoms()
+	{
+		return this.bodyBuiltInAtoms;
+	}
+
+	public List<BuiltInAtom> getHeadBuiltInAtoms()
+	{
+		return this.headBuiltInAtoms;
+	}
+
+	public List<RelationalAtom> getHeadRelationalAtoms()
+	{
+		return this.headRelationalAtoms;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.name;
+	}
+
+	/**
+	 * A class, property, same individual, or different individuals atom. The object term of a unary atom is unused.
+	 */
+	static class RelationalAtom
+	{
+		private final Relation relation;
+		private final int subjectTerm;
+		private final int objectTerm;
+
+		public RelationalAtom(Relation relation, int subjectTerm, int objectTerm)
+		{
+			this.relation = relation;
+			this.subjectTerm = subjectTerm;
+			this.objectTerm = objectTerm;
+		}
+
+		public RelationalAtom(Relation relation, int subjectTerm)
+		{
+			this(relation, subjectTerm, 0);
+		}
+
+		public Relation getRelation()
+		{
+			return this.relation;
+		}
+
+		public int getSubjectTerm()
+		{
+			return this.subjectTerm;
+		}
+
+		public int getObjectTerm()
+		{
+			return this.objectTerm;
+		}
+	}
+
+	/**
+	 * A built-in atom. Variable arguments are recorded by variable index; non-variable arguments are passed to the
+	 * built-in unchanged. The built-in is resolved on first invocation and the resolved handle is reused thereafter.
+	 */
+	static class BuiltInAtom
+	{
+		private final SWRLAPIBuiltInAtom atom;
+		private final List<SWRLBuiltInArgument> arguments;
+		private final int[] argumentVariableIndexes; // Unbound for non-variable arguments
+		private volatile SWRLBuiltInHandle builtIn; // Null until resolved; may be resolved by concurrent evaluations
+
+		public BuiltInAtom(SWRLAPIBuiltInAtom atom, int[] argumentVariableIndexes)
+		{
+			this.atom = atom;
+			this.arguments = atom.getBuiltInArguments();
+			this.argumentVariableIndexes = argumentVariableIndexes;
+		}
+
+		public SWRLAPIBuiltInAtom getAtom()
+		{
+			return this.atom;
+		}
+
+		public List<SWRLBuiltInArgument> getArguments()
+		{
+			return this.arguments;
+		}
+
+		public int getArgumentVariableIndex(int argumentNumber)
+		{
+			return this.argumentVariableIndexes[argumentNumber];
+		}
+
+		public SWRLBuiltInHandle getBuiltIn()
+		{
+			return this.builtIn;
+		}
+
+		public void setBuiltIn(SWRLBuiltInHandle builtIn)
+		{
+			this.builtIn = builtIn;
+		}
+	}
+}
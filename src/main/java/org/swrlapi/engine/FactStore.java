@@ -0,0 +1,183 @@
+package org.swrlapi.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.core.OWLTermDictionary;
+
+/**
+ * Holds the facts known to a {@link SemiNaiveRuleEngine}. Values (individuals, literals, and other built-in argument
+ * values) are interned to integer identifiers so that facts can be stored and joined as integer tuples. There is one
+ * {@link Relation} per class, property, and for the same and different individual predicates.
+ * <p>
+ * Named individuals and literals recorded by the ontology processor are identified by the ID of their IRI or literal in
+ * the bridge's {@link OWLTermDictionary}, so the store keeps no copy of them. All other values, and individuals and
+ * literals first seen by the engine, are interned locally with identifiers from {@link #LocalIDBase}. A value keeps its
+ * local identifier if the processor records it later.
+ * <p>
+ * Values may be interned and looked up concurrently by rule evaluation tasks; other methods must be called from a
+ * single thread between evaluation rounds.
+ */
+class FactStore
+{
+	static final int LocalIDBase = 1 << 30;
+
+	private static final int InitialCapacity = 1024;
+
+	private final OWLNamedObjectResolver namedObjectResolver;
+	private final OWLDataFactory dataFactory;
+	private final Map<Object, Integer> value2IDMap;
+	private volatile Object[] id2ValueMap;
+	private int numberOfValues;
+	private final Map<Object, Relation> relations; // Keyed by predicate entity or relation type
+
+	public FactStore(OWLNamedObjectResolver namedObjectResolver, OWLDataFactory dataFactory)
+	{
+		this.namedObjectResolver = namedObjectResolver;
+		this.dataFactory = dataFactory;
+		this.value2IDMap = new ConcurrentHashMap<Object, Integer>();
+		this.id2ValueMap = new Object[InitialCapacity];
+		this.numberOfValues = 0;
+		this.relations = new HashMap<Object, Relation>();
+	}
+
+	public int intern(Object value)
+	{
+		Integer id = this.value2IDMap.get(value);
+
+		return id != null ? id : internNewValue(value);
+	}
+
+	public Object getValue(int id)
+	{
+		if (id >= LocalIDBase)
+			return this.id2ValueMap[id - LocalIDBase];
+
+		Object term = getOWLTermDictionary().getTerm(id);
+
+		return term instanceof IRI ? this.dataFactory.getOWLNamedIndividual((IRI)term) : term;
+	}
+
+	/**
+	 * Returns true if the value with an identifier is an individual. Unlike {@link #getValue(int)}, this creates no
+	 * objects for values in the term dictionary.
+	 */
+	public boolean isOWLIndividual(int id)
+	{
+		return id >= LocalIDBase ? this.id2ValueMap[id - LocalIDBase] instanceof OWLIndividual
+				: getOWLTermDictionary().isIRI(id);
+	}
+
+	/**
+	 * Returns true if the value with an identifier is a literal.
+	 */
+	public boolean isOWLLiteral(int id)
+	{
+		return id >= LocalIDBase ? this.id2ValueMap[id - LocalIDBase] instanceof OWLLiteral
+				: getOWLTermDictionary().isOWLLiteral(id);
+	}
+
+	/**
+	 * Get the relation for a class or property, creating it if necessary.
+	 */
+	public Relation getRelation(Relation.Type type, OWLEntity predicate)
+	{
+		Object key = predicate == null ? type : predicate;
+		Relation relation = this.relations.get(key);
+
+		if (relation == null) {
+			relation = new Relation(type, predicate);
+			this.relations.put(key, relation);
+		}
+		return relation;
+	}
+
+	public Collection<Relation> getRelations()
+	{
+		return this.relations.values();
+	}
+
+	/**
+	 * Commit pending facts in all relations. Returns true if any relation has a non-empty delta as a result.
+	 */
+	public boolean commitPending()
+	{
+		boolean hasDelta = false;
+
+		for (Relation relation : this.relations.values())
+			hasDelta |= relation.commitPending();
+
+		return hasDelta;
+	}
+
+	public int getNumberOfFacts()
+	{
+		int numberOfFacts = 0;
+
+		for (Relation relation : this.relations.values())
+			numberOfFacts += relation.size();
+
+		return numberOfFacts;
+	}
+
+	public synchronized void clear()
+	{
+		this.value2IDMap.clear();
+		this.id2ValueMap = new Object[InitialCapacity];
+		this.numberOfValues = 0;
+		this.relations.clear();
+	}
+
+	/**
+	 * The value is stored before its identifier is published in the value map, so any thread that obtains the identifier
+	 * can see the value. Dictionary lookups are made while holding the store's lock so that a value that is recorded by
+	 * the processor while it is being interned gets a single identifier.
+	 */
+	private synchronized int internNewValue(Object value)
+	{
+		Integer id = this.value2IDMap.get(value);
+
+		if (id == null) {
+			int termID = lookupTermID(value);
+
+			if (termID != OWLTermDictionary.NoTermID)
+				return termID;
+
+			Object[] values = this.id2ValueMap;
+
+			if (this.numberOfValues == values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+
+			values[this.numberOfValues] = value;
+			this.id2ValueMap = values;
+			id = LocalIDBase + this.numberOfValues++;
+			this.value2IDMap.put(value, id);
+		}
+		return id;
+	}
+
+	private int lookupTermID(Object value)
+	{
+		if (value instanceof OWLNamedIndividual)
+			return this.namedObjectResolver.lookupTermID(((OWLNamedIndividual)value).getIRI());
+		else if (value instanceof OWLLiteral)
+			return this.namedObjectResolver.lookupTermID(value);
+		else
+			return OWLTermDictionary.NoTermID;
+	}
+
+	private OWLTermDictionary getOWLTermDictionary()
+	{
+		return this.namedObjectResolver.getOWLTermDictionary();
+	}
+}
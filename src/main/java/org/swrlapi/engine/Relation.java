@@ -0,0 +1,449 @@
+package org.swrlapi.engine;
+
+import java.util.Arrays;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+/**
+ * A fact table for a single predicate. Facts are stored as tuples of interned value identifiers (see {@link FactStore})
+ * encoded into a single <code>long</code>. Binary relations are indexed on both their subject and object.
+ * <p>
+ * Tuples are held in primitive arrays: committed tuples in an array in commit order, membership in an open-addressing
+ * hash set, and the subject and object indexes as hash tables of long-array buckets. Matches are returned as
+ * {@link Tuples} ranges over these arrays, so no tuple is boxed.
+ * <p>
+ * Facts added during an evaluation round are held as pending until {@link #commitPending()} is called at the end of the
+ * round, at which point they are appended to the committed tuples and become the relation's delta for the next round
+ * of semi-naive evaluation. Tuples committed before the delta can be matched separately (see {@link #matchOld}); since
+ * tuples are appended in commit order, the delta is at the end of the committed tuples and of each index bucket.
+ * <p>
+ * During a round the relation is only read, so rules may be evaluated against it concurrently. All other methods must
+ * be called from a single thread between rounds.
+ */
+class Relation
+{
+	enum Type {
+		Class, ObjectProperty, DataProperty, SameIndividual, DifferentIndividuals
+	};
+
+	private static final int InitialCapacity = 16;
+
+	private final Type type;
+	private final OWLEntity predicate; // Null for same and different individual relations
+	private final TupleSet knownTuples; // Committed and pending tuples
+	private final TupleSet deltaTuples;
+	private final TupleIndex subjectIndex;
+	private final TupleIndex objectIndex;
+	private long[] tuples; // Committed tuples in commit order; the delta is at the end
+	private int numberOfTuples;
+	private int deltaStart;
+	private long[] pendingTuples;
+	private int numberOfPendingTuples;
+
+	public Relation(Type type, OWLEntity predicate)
+	{
+		this.type = type;
+		this.predicate = predicate;
+		this.knownTuples = new TupleSet();
+		this.deltaTuples = new TupleSet();
+		this.subjectIndex = new TupleIndex();
+		this.objectIndex = new TupleIndex();
+		this.tuples = new long[InitialCapacity];
+		this.pendingTuples = new long[InitialCapacity];
+	}
+
+	public Type getType()
+	{
+		return this.type;
+	}
+
+	public OWLEntity getPredicate()
+	{
+		return this.predicate;
+	}
+
+	public boolean isUnary()
+	{
+		return this.type == Type.Class;
+	}
+
+	public static long encode(int subjectID, int objectID)
+	{
+		return ((long)subjectID << 32) | (objectID & 0xFFFFFFFFL);
+	}
+
+	public static int getSubjectID(long tuple)
+	{
+		return (int)(tuple >>> 32);
+	}
+
+	public static int getObjectID(long tuple)
+	{
+		return (int)tuple;
+	}
+
+	/**
+	 * Returns true if the tuple has been committed or is pending.
+	 */
+	public boolean contains(long tuple)
+	{
+		return this.knownTuples.contains(tuple);
+	}
+
+	/**
+	 * Add a tuple to the pending tuples. Returns false if the tuple is already known.
+	 */
+	public boolean addPending(long tuple)
+	{
+		if (!this.knownTuples.add(tuple))
+			return false;
+
+		if (this.numberOfPendingTuples == this.pendingTuples.length)
+			this.pendingTuples = Arrays.copyOf(this.pendingTuples, this.pendingTuples.length * 2);
+		this.pendingTuples[this.numberOfPendingTuples++] = tuple;
+
+		return true;
+	}
+
+	/**
+	 * Make pending tuples visible and make them the delta for the next round. Returns true if there were pending tuples.
+	 */
+	public boolean commitPending()
+	{
+		if (this.numberOfTuples + this.numberOfPendingTuples > this.tuples.length)
+			this.tuples = Arrays.copyOf(this.tuples, Math.max(this.tuples.length * 2, this.numberOfTuples
+					+ this.numberOfPendingTuples));
+
+		System.arraycopy(this.pendingTuples, 0, this.tuples, this.numberOfTuples, this.numberOfPendingTuples);
+		this.deltaStart = this.numberOfTuples;
+		this.numberOfTuples += this.numberOfPendingTuples;
+		this.numberOfPendingTuples = 0;
+
+		this.deltaTuples.clear();
+		for (int i = this.deltaStart; i < this.numberOfTuples; i++)
+			this.deltaTuples.add(this.tuples[i]);
+
+		if (!isUnary()) {
+			this.subjectIndex.startDelta();
+			this.objectIndex.startDelta();
+			for (int i = this.deltaStart; i < this.numberOfTuples; i++) {
+				this.subjectIndex.add(getSubjectID(this.tuples[i]), this.tuples[i]);
+				this.objectIndex.add(getObjectID(this.tuples[i]), this.tuples[i]);
+			}
+		}
+		return this.deltaStart != this.numberOfTuples;
+	}
+
+	/**
+	 * Get a range of the delta. Used to partition the delta among concurrently evaluated tasks.
+	 */
+	public Tuples getDelta(int fromIndex, int toIndex)
+	{
+		return new Tuples(this.tuples, this.deltaStart + fromIndex, this.deltaStart + toIndex);
+	}
+
+	public int getDeltaSize()
+	{
+		return this.numberOfTuples - this.deltaStart;
+	}
+
+	/**
+	 * Find committed tuples matching the supplied subject and object identifiers. A negative identifier matches any
+	 * value.
+	 */
+	public Tuples match(int subjectID, int objectID)
+	{
+		if (isUnary()) {
+			if (subjectID < 0)
+				return new Tuples(this.tuples, 0, this.numberOfTuples);
+			else
+				return matchTuple(encode(subjectID, 0));
+		} else if (subjectID >= 0 && objectID >= 0)
+			return matchTuple(encode(subjectID, objectID));
+		else if (subjectID >= 0)
+			return this.subjectIndex.get(subjectID);
+		else if (objectID >= 0)
+			return this.objectIndex.get(objectID);
+		else
+			return new Tuples(this.tuples, 0, this.numberOfTuples);
+	}
+
+	/**
+	 * Find tuples committed before the delta matching the supplied subject and object identifiers. A negative identifier
+	 * matches any value.
+	 */
+	public Tuples matchOld(int subjectID, int objectID)
+	{
+		if (isUnary()) {
+			if (subjectID < 0)
+				return new Tuples(this.tuples, 0, this.deltaStart);
+			else
+				return matchOldTuple(encode(subjectID, 0));
+		} else if (subjectID >= 0 && objectID >= 0)
+			return matchOldTuple(encode(subjectID, objectID));
+		else if (subjectID >= 0)
+			return this.subjectIndex.getOld(subjectID);
+		else if (objectID >= 0)
+			return this.objectIndex.getOld(objectID);
+		else
+			return new Tuples(this.tuples, 0, this.deltaStart);
+	}
+
+	public int size()
+	{
+		return this.numberOfTuples;
+	}
+
+	public void clear()
+	{
+		this.knownTuples.clear();
+		this.deltaTuples.clear();
+		this.subjectIndex.clear();
+		this.objectIndex.clear();
+		this.tuples = new long[InitialCapacity];
+		this.numberOfTuples = 0;
+		this.deltaStart = 0;
+		this.pendingTuples = new long[InitialCapacity];
+		this.numberOfPendingTuples = 0;
+	}
+
+	/**
+	 * A committed tuple matches if it is known and not pending.
+	 */
+	private Tuples matchTuple(long tuple)
+	{
+		if (!this.knownTuples.contains(tuple))
+			return Tuples.Empty;
+
+		for (int i = 0; i < this.numberOfPendingTuples; i++)
+			if (this.pendingTuples[i] == tuple)
+				return Tuples.Empty;
+
+		return new Tuples(new long[] { tuple }, 0, 1);
+	}
+
+	private Tuples matchOldTuple(long tuple)
+	{
+		return this.deltaTuples.contains(tuple) ? Tuples.Empty : matchTuple(tuple);
+	}
+
+	private static int hash(long value)
+	{
+		long hash = value * 0x9E3779B97F4A7C15L;
+
+		return (int)(hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * A range of an array of tuples. The array is shared with the relation and must not be modified.
+	 */
+	static class Tuples
+	{
+		public static final Tuples Empty = new Tuples(new long[0], 0, 0);
+
+		private final long[] tuples;
+		private final int fromIndex, toIndex;
+
+		public Tuples(long[] tuples, int fromIndex, int toIndex)
+		{
+			this.tuples = tuples;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		public int size()
+		{
+			return this.toIndex - this.fromIndex;
+		}
+
+		public long get(int index)
+		{
+			return this.tuples[this.fromIndex + index];
+		}
+	}
+
+	/**
+	 * An open-addressing hash set of tuples. Tuples are never negative since identifiers are not, so a negative value
+	 * marks an empty slot.
+	 */
+	private static class TupleSet
+	{
+		private static final long EmptySlot = -1L;
+
+		private long[] slots;
+		private int size;
+
+		public TupleSet()
+		{
+			clear();
+		}
+
+		public boolean contains(long tuple)
+		{
+			int mask = this.slots.length - 1;
+
+			for (int slot = hash(tuple) & mask; this.slots[slot] != EmptySlot; slot = (slot + 1) & mask)
+				if (this.slots[slot] == tuple)
+					return true;
+
+			return false;
+		}
+
+		public boolean add(long tuple)
+		{
+			int mask = this.slots.length - 1;
+			int slot = hash(tuple) & mask;
+
+			while (this.slots[slot] != EmptySlot) {
+				if (this.slots[slot] == tuple)
+					return false;
+				slot = (slot + 1) & mask;
+			}
+			this.slots[slot] = tuple;
+			if (++this.size * 2 > this.slots.length)
+				rehash();
+
+			return true;
+		}
+
+		public void clear()
+		{
+			this.slots = new long[InitialCapacity];
+			Arrays.fill(this.slots, EmptySlot);
+			this.size = 0;
+		}
+
+		private void rehash()
+		{
+			long[] oldSlots = this.slots;
+
+			this.slots = new long[oldSlots.length * 2];
+			Arrays.fill(this.slots, EmptySlot);
+			this.size = 0;
+			for (long tuple : oldSlots)
+				if (tuple != EmptySlot)
+					add(tuple);
+		}
+	}
+
+	/**
+	 * An index from an identifier to the tuples containing it. Identifiers are hashed with open addressing into parallel
+	 * arrays of identifiers and long-array buckets of tuples. A negative identifier marks an empty slot.
+	 * <p>
+	 * Each bucket records where the tuples added since {@link #startDelta} begin. Rather than resetting every bucket, a
+	 * bucket's delta start is only valid if its generation is the current one; otherwise all its tuples are old.
+	 */
+	private static class TupleIndex
+	{
+		private static final int EmptySlot = -1;
+		private static final int InitialBucketCapacity = 4;
+
+		private int[] ids;
+		private long[][] buckets;
+		private int[] bucketSizes;
+		private int[] bucketDeltaStarts;
+		private int[] bucketGenerations;
+		private int generation;
+		private int size;
+
+		public TupleIndex()
+		{
+			clear();
+		}
+
+		public Tuples get(int id)
+		{
+			int slot = findSlot(id);
+
+			return this.ids[slot] == EmptySlot ? Tuples.Empty : new Tuples(this.buckets[slot], 0, this.bucketSizes[slot]);
+		}
+
+		public Tuples getOld(int id)
+		{
+			int slot = findSlot(id);
+
+			if (this.ids[slot] == EmptySlot)
+				return Tuples.Empty;
+			else
+				return new Tuples(this.buckets[slot], 0, this.bucketGenerations[slot] == this.generation
+						? this.bucketDeltaStarts[slot] : this.bucketSizes[slot]);
+		}
+
+		public void startDelta()
+		{
+			this.generation++;
+		}
+
+		public void add(int id, long tuple)
+		{
+			int slot = findSlot(id);
+
+			if (this.ids[slot] == EmptySlot) {
+				this.ids[slot] = id;
+				this.buckets[slot] = new long[InitialBucketCapacity];
+				if (++this.size * 2 > this.ids.length) {
+					rehash();
+					slot = findSlot(id);
+				}
+			} else if (this.bucketSizes[slot] == this.buckets[slot].length)
+				this.buckets[slot] = Arrays.copyOf(this.buckets[slot], this.buckets[slot].length * 2);
+
+			if (this.bucketGenerations[slot] != this.generation) {
+				this.bucketDeltaStarts[slot] = this.bucketSizes[slot];
+				this.bucketGenerations[slot] = this.generation;
+			}
+			this.buckets[slot][this.bucketSizes[slot]++] = tuple;
+		}
+
+		public void clear()
+		{
+			this.ids = new int[InitialCapacity];
+			Arrays.fill(this.ids, EmptySlot);
+			this.buckets = new long[InitialCapacity][];
+			this.bucketSizes = new int[InitialCapacity];
+			this.bucketDeltaStarts = new int[InitialCapacity];
+			this.bucketGenerations = new int[InitialCapacity];
+			Arrays.fill(this.bucketGenerations, -1);
+			this.generation = 0;
+			this.size = 0;
+		}
+
+		private int findSlot(int id)
+		{
+			int mask = this.ids.length - 1;
+			int slot = hash(id) & mask;
+
+			while (this.ids[slot] != EmptySlot && this.ids[slot] != id)
+				slot = (slot + 1) & mask;
+
+			return slot;
+		}
+
+		private void rehash()
+		{
+			int[] oldIDs = this.ids;
+			long[][] oldBuckets = this.buckets;
+			int[] oldBucketSizes = this.bucketSizes;
+			int[] oldBucketDeltaStarts = this.bucketDeltaStarts;
+			int[] oldBucketGenerations = this.bucketGenerations;
+
+			this.ids = new int[oldIDs.length * 2];
+			Arrays.fill(this.ids, EmptySlot);
+			this.buckets = new long[oldIDs.length * 2][];
+			this.bucketSizes = new int[oldIDs.length * 2];
+			this.bucketDeltaStarts = new int[oldIDs.length * 2];
+			this.bucketGenerations = new int[oldIDs.length * 2];
+			Arrays.fill(this.bucketGenerations, -1);
+			for (int oldSlot = 0; oldSlot < oldIDs.length; oldSlot++) {
+				if (oldIDs[oldSlot] != EmptySlot) {
+					int slot = findSlot(oldIDs[oldSlot]);
+					this.ids[slot] = oldIDs[oldSlot];
+					this.buckets[slot] = oldBuckets[oldSlot];
+					this.bucketSizes[slot] = oldBucketSizes[oldSlot];
+					this.bucketDeltaStarts[slot] = oldBucketDeltaStarts[oldSlot];
+					this.bucketGenerations[slot] = oldBucketGenerations[oldSlot];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package org.swrlapi.engine;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.swrlapi.owl2rl.AbstractOWL2RLEngine;
+import org.swrlapi.owl2rl.OWL2RLPersistenceLayer;
+
+/**
+ * The OWL 2 RL reasoner controller for the {@link SemiNaiveRuleEngine}. The engine implements the subset of OWL 2 RL
+ * rules that derive new class and property assertions from named classes and properties; all other rules are reported
+ * as unsupported.
+ */
+public class SemiNaiveOWL2RLEngine extends AbstractOWL2RLEngine
+{
+	private static final Set<Rule> SupportedRules = EnumSet.copyOf(Arrays.asList(Rule.EQ_SYM, Rule.EQ_TRANS,
+			Rule.PRP_DOM, Rule.PRP_RNG, Rule.PRP_SYMP, Rule.PRP_TRP, Rule.PRP_SPO1, Rule.PRP_EQP1, Rule.PRP_EQP2,
+			Rule.PRP_INV1, Rule.PRP_INV2, Rule.CAX_SCO, Rule.CAX_EQC1, Rule.CAX_EQC2));
+
+	public SemiNaiveOWL2RLEngine(OWL2RLPersistenceLayer persistenceLayer)
+	{
+		super(persistenceLayer, EnumSet.complementOf(EnumSet.copyOf(SupportedRules)), new HashSet<Rule>(),
+				new HashSet<Set<Rule>>());
+	}
+}
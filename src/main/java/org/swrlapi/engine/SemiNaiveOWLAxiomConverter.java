@@ -0,0 +1,673 @@
+package org.swrlapi.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLAnnotationPropertyDomainAxiom;
+import org.semanticweb.owlapi.model.OWLAnnotationPropertyRangeAxiom;
+import org.semanticweb.owlapi.model.OWLAsymmetricObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLDataPropertyDomainAxiom;
+import org.semanticweb.owlapi.model.OWLDataPropertyExpression;
+import org.semanticweb.owlapi.model.OWLDataPropertyRangeAxiom;
+import org.semanticweb.owlapi.model.OWLDatatypeDefinitionAxiom;
+import org.semanticweb.owlapi.model.OWLDeclarationAxiom;
+import org.semanticweb.owlapi.model.OWLDifferentIndividualsAxiom;
+import org.semanticweb.owlapi.model.OWLDisjointClassesAxiom;
+import org.semanticweb.owlapi.model.OWLDisjointDataPropertiesAxiom;
+import org.semanticweb.owlapi.model.OWLDisjointObjectPropertiesAxiom;
+import org.semanticweb.owlapi.model.OWLDisjointUnionAxiom;
+import org.semanticweb.owlapi.model.OWLEquivalentClassesAxiom;
+import org.semanticweb.owlapi.model.OWLEquivalentDataPropertiesAxiom;
+import org.semanticweb.owlapi.model.OWLEquivalentObjectPropertiesAxiom;
+import org.semanticweb.owlapi.model.OWLFunctionalDataPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLFunctionalObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLHasKeyAxiom;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLInverseFunctionalObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLInverseObjectPropertiesAxiom;
+import org.semanticweb.owlapi.model.OWLIrreflexiveObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLNegativeDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLNegativeObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLObjectPropertyDomainAxiom;
+import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
+import org.semanticweb.owlapi.model.OWLObjectPropertyRangeAxiom;
+import org.semanticweb.owlapi.model.OWLReflexiveObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLSameIndividualAxiom;
+import org.semanticweb.owlapi.model.OWLSubAnnotationPropertyOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubDataPropertyOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubObjectPropertyOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubPropertyChainOfAxiom;
+import org.semanticweb.owlapi.model.OWLSymmetricObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.OWLTransitiveObjectPropertyAxiom;
+import org.semanticweb.owlapi.model.SWRLArgument;
+import org.semanticweb.owlapi.model.SWRLAtom;
+import org.semanticweb.owlapi.model.SWRLClassAtom;
+import org.semanticweb.owlapi.model.SWRLDataPropertyAtom;
+import org.semanticweb.owlapi.model.SWRLDifferentIndividualsAtom;
+import org.semanticweb.owlapi.model.SWRLIndividualArgument;
+import org.semanticweb.owlapi.model.SWRLLiteralArgument;
+import org.semanticweb.owlapi.model.SWRLObjectPropertyAtom;
+import org.semanticweb.owlapi.model.SWRLRule;
+import org.semanticweb.owlapi.model.SWRLSameIndividualAtom;
+import org.semanticweb.owlapi.model.SWRLVariable;
+import org.swrlapi.converters.TargetRuleEngineConverterBase;
+import org.swrlapi.converters.TargetRuleEngineOWLAxiomConverter;
+import org.swrlapi.core.SWRLRuleEngineBridge;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLNamedIndividualAtomArgument;
+import org.swrlapi.core.arguments.SWRLVariableAtomArgument;
+import org.swrlapi.exceptions.TargetRuleEngineException;
+import org.swrlapi.exceptions.TargetRuleEngineNotImplementedFeatureException;
+import org.swrlapi.ext.SWRLAPIBuiltInAtom;
+import org.swrlapi.ext.SWRLAPIRule;
+import org.swrlapi.owl2rl.OWL2RLNames.Rule;
+
+/**
+ * Converts OWL axioms to facts and compiled rules for a {@link SemiNaiveRuleEngine}. Assertion axioms become facts;
+ * SWRL rules and the schema axioms covered by the supported OWL 2 RL rules become {@link CompiledRule}s. Axioms that
+ * are not covered by an enabled OWL 2 RL rule are ignored.
+ */
+public class SemiNaiveOWLAxiomConverter extends TargetRuleEngineConverterBase implements
+		TargetRuleEngineOWLAxiomConverter
+{
+	private final SemiNaiveRuleEngine ruleEngine;
+
+	public SemiNaiveOWLAxiomConverter(SWRLRuleEngineBridge bridge, SemiNaiveRuleEngine ruleEngine)
+	{
+		super(bridge);
+
+		this.ruleEngine = ruleEngine;
+	}
+
+	public void convert(OWLAxiom axiom) throws TargetRuleEngineException
+	{
+		if (axiom instanceof SWRLAPIRule)
+			convert((SWRLAPIRule)axiom);
+		else if (axiom instanceof SWRLRule)
+			convert((SWRLRule)axiom);
+		else if (axiom instanceof OWLDeclarationAxiom)
+			convert((OWLDeclarationAxiom)axiom);
+		else if (axiom instanceof OWLClassAssertionAxiom)
+			convert((OWLClassAssertionAxiom)axiom);
+		else if (axiom instanceof OWLObjectPropertyAssertionAxiom)
+			convert((OWLObjectPropertyAssertionAxiom)axiom);
+		else if (axiom instanceof OWLDataPropertyAssertionAxiom)
+			convert((OWLDataPropertyAssertionAxiom)axiom);
+		else if (axiom instanceof OWLSameIndividualAxiom)
+			convert((OWLSameIndividualAxiom)axiom);
+		else if (axiom instanceof OWLDifferentIndividualsAxiom)
+			convert((OWLDifferentIndividualsAxiom)axiom);
+		else if (axiom instanceof OWLDisjointClassesAxiom)
+			convert((OWLDisjointClassesAxiom)axiom);
+		else if (axiom instanceof OWLEquivalentClassesAxiom)
+			convert((OWLEquivalentClassesAxiom)axiom);
+		else if (axiom instanceof OWLSubClassOfAxiom)
+			convert((OWLSubClassOfAxiom)axiom);
+		else if (axiom instanceof OWLSubDataPropertyOfAxiom)
+			convert((OWLSubDataPropertyOfAxiom)axiom);
+		else if (axiom instanceof OWLSubObjectPropertyOfAxiom)
+			convert((OWLSubObjectPropertyOfAxiom)axiom);
+		else if (axiom instanceof OWLEquivalentDataPropertiesAxiom)
+			convert((OWLEquivalentDataPropertiesAxiom)axiom);
+		else if (axiom instanceof OWLEquivalentObjectPropertiesAxiom)
+			convert((OWLEquivalentObjectPropertiesAxiom)axiom);
+		else if (axiom instanceof OWLObjectPropertyDomainAxiom)
+			convert((OWLObjectPropertyDomainAxiom)axiom);
+		else if (axiom instanceof OWLDataPropertyDomainAxiom)
+			convert((OWLDataPropertyDomainAxiom)axiom);
+		else if (axiom instanceof OWLObjectPropertyRangeAxiom)
+			convert((OWLObjectPropertyRangeAxiom)axiom);
+		else if (axiom instanceof OWLTransitiveObjectPropertyAxiom)
+			convert((OWLTransitiveObjectPropertyAxiom)axiom);
+		else if (axiom instanceof OWLSymmetricObjectPropertyAxiom)
+			convert((OWLSymmetricObjectPropertyAxiom)axiom);
+		else if (axiom instanceof OWLInverseObjectPropertiesAxiom)
+			convert((OWLInverseObjectPropertiesAxiom)axiom);
+		// Remaining axiom types are not covered by the OWL 2 RL rules supported by this engine.
+	}
+
+	@Override
+	public void convert(SWRLAPIRule rule) throws TargetRuleEngineException
+	{
+		this.ruleEngine.addRule(compileRule(rule.getName(), rule.getBodyAtoms(), rule.getHeadAtoms()));
+	}
+
+	public void convert(SWRLRule rule) throws TargetRuleEngineException
+	{
+		this.ruleEngine.addRule(compileRule(rule.toString(), rule.getBody(), rule.getHead()));
+	}
+
+	@Override
+	public void convert(OWLDeclarationAxiom axiom) throws TargetRuleEngineException
+	{ // Declarations carry no facts
+	}
+
+	@Override
+	public void convert(OWLClassAssertionAxiom axiom) throws TargetRuleEngineException
+	{
+		OWLClassExpression classExpression = axiom.getClassExpression();
+
+		if (!classExpression.isAnonymous() && axiom.getIndividual().isNamed())
+			this.ruleEngine.assertFact(getRelation(classExpression.asOWLClass()), intern(axiom.getIndividual()), 0);
+	}
+
+	@Override
+	public void convert(OWLObjectPropertyAssertionAxiom axiom) throws TargetRuleEngineException
+	{
+		OWLObjectPropertyExpression property = axiom.getProperty();
+		OWLIndividual subject = axiom.getSubject(), object = axiom.getObject();
+
+		if (subject.isNamed() && object.isNamed()) {
+			if (property.isAnonymous()) // Inverse property
+				this.ruleEngine.assertFact(getRelation(property.getNamedProperty()), intern(object), intern(subject));
+			else
+				this.ruleEngine.assertFact(getRelation(property.asOWLObjectProperty()), intern(subject), intern(object));
+		}
+	}
+
+	@Override
+	public void convert(OWLDataPropertyAssertionAxiom axiom) throws TargetRuleEngineException
+	{
+		if (axiom.getSubject().isNamed())
+			this.ruleEngine.assertFact(getRelation(axiom.getProperty().asOWLDataProperty()), intern(axiom.getSubject()),
+					intern(axiom.getObject()));
+	}
+
+	@Override
+	public void convert(OWLSameIndividualAxiom axiom) throws TargetRuleEngineException
+	{
+		assertPairwise(this.ruleEngine.getRelation(Relation.Type.SameIndividual, null), axiom.getIndividualsAsList());
+	}
+
+	@Override
+	public void convert(OWLDifferentIndividualsAxiom axiom) throws TargetRuleEngineException
+	{
+		assertPairwise(this.ruleEngine.getRelation(Relation.Type.DifferentIndividuals, null), axiom.getIndividualsAsList());
+	}
+
+	@Override
+	public void convert(OWLDisjointClassesAxiom axiom) throws TargetRuleEngineException
+	{ // CAX_DW detects inconsistencies only; not supported
+	}
+
+	/**
+	 * OWL 2 RL rules cax-eqc1 and cax-eqc2.
+	 */
+	@Override
+	public void convert(OWLEquivalentClassesAxiom axiom) throws TargetRuleEngineException
+	{
+		List<OWLClass> classes = getNamedClasses(axiom.getClassExpressions());
+
+		for (int i = 0; i < classes.size(); i++) {
+			for (int j = i + 1; j < classes.size(); j++) {
+				if (isOWL2RLRuleEnabled(Rule.CAX_EQC1))
+					addClassImplicationRule(Rule.CAX_EQC1, classes.get(i), classes.get(j));
+				if (isOWL2RLRuleEnabled(Rule.CAX_EQC2))
+					addClassImplicationRule(Rule.CAX_EQC2, classes.get(j), classes.get(i));
+			}
+		}
+	}
+
+	/**
+	 * OWL 2 RL rule cax-sco.
+	 */
+	@Override
+	public void convert(OWLSubClassOfAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.CAX_SCO) && !axiom.getSubClass().isAnonymous()
+				&& !axiom.getSuperClass().isAnonymous())
+			addClassImplicationRule(Rule.CAX_SCO, axiom.getSubClass().asOWLClass(), axiom.getSuperClass().asOWLClass());
+	}
+
+	/**
+	 * OWL 2 RL rule prp-spo1.
+	 */
+	@Override
+	public void convert(OWLSubDataPropertyOfAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_SPO1) && !axiom.getSubProperty().isAnonymous()
+				&& !axiom.getSuperProperty().isAnonymous())
+			addPropertyImplicationRule(Rule.PRP_SPO1, getRelation(axiom.getSubProperty().asOWLDataProperty()),
+					getRelation(axiom.getSuperProperty().asOWLDataProperty()), false);
+	}
+
+	/**
+	 * OWL 2 RL rule prp-spo1.
+	 */
+	@Override
+	public void convert(OWLSubObjectPropertyOfAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_SPO1) && !axiom.getSubProperty().isAnonymous()
+				&& !axiom.getSuperProperty().isAnonymous())
+			addPropertyImplicationRule(Rule.PRP_SPO1, getRelation(axiom.getSubProperty().asOWLObjectProperty()),
+					getRelation(axiom.getSuperProperty().asOWLObjectProperty()), false);
+	}
+
+	/**
+	 * OWL 2 RL rules prp-eqp1 and prp-eqp2.
+	 */
+	@Override
+	public void convert(OWLEquivalentDataPropertiesAxiom axiom) throws TargetRuleEngineException
+	{
+		List<Relation> relations = new ArrayList<Relation>();
+
+		for (OWLDataPropertyExpression property : axiom.getProperties())
+			if (!property.isAnonymous())
+				relations.add(getRelation(property.asOWLDataProperty()));
+
+		addPropertyEquivalenceRules(relations);
+	}
+
+	/**
+	 * OWL 2 RL rules prp-eqp1 and prp-eqp2.
+	 */
+	@Override
+	public void convert(OWLEquivalentObjectPropertiesAxiom axiom) throws TargetRuleEngineException
+	{
+		List<Relation> relations = new ArrayList<Relation>();
+
+		for (OWLObjectPropertyExpression property : axiom.getProperties())
+			if (!property.isAnonymous())
+				relations.add(getRelation(property.asOWLObjectProperty()));
+
+		addPropertyEquivalenceRules(relations);
+	}
+
+	@Override
+	public void convert(OWLDisjointDataPropertiesAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_PDW detects inconsistencies only; not supported
+	}
+
+	@Override
+	public void convert(OWLDisjointObjectPropertiesAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_PDW detects inconsistencies only; not supported
+	}
+
+	/**
+	 * OWL 2 RL rule prp-dom.
+	 */
+	@Override
+	public void convert(OWLObjectPropertyDomainAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_DOM) && !axiom.getProperty().isAnonymous() && !axiom.getDomain().isAnonymous())
+			addPropertyTypingRule(Rule.PRP_DOM, getRelation(axiom.getProperty().asOWLObjectProperty()),
+					getRelation(axiom.getDomain().asOWLClass()), true);
+	}
+
+	/**
+	 * OWL 2 RL rule prp-dom.
+	 */
+	@Override
+	public void convert(OWLDataPropertyDomainAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_DOM) && !axiom.getProperty().isAnonymous() && !axiom.getDomain().isAnonymous())
+			addPropertyTypingRule(Rule.PRP_DOM, getRelation(axiom.getProperty().asOWLDataProperty()),
+					getRelation(axiom.getDomain().asOWLClass()), true);
+	}
+
+	/**
+	 * OWL 2 RL rule prp-rng.
+	 */
+	@Override
+	public void convert(OWLObjectPropertyRangeAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_RNG) && !axiom.getProperty().isAnonymous() && !axiom.getRange().isAnonymous())
+			addPropertyTypingRule(Rule.PRP_RNG, getRelation(axiom.getProperty().asOWLObjectProperty()),
+					getRelation(axiom.getRange().asOWLClass()), false);
+	}
+
+	@Override
+	public void convert(OWLDataPropertyRangeAxiom axiom) throws TargetRuleEngineException
+	{ // Datatype ranges are not supported
+	}
+
+	@Override
+	public void convert(OWLFunctionalObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_FP requires equality reasoning; not supported
+	}
+
+	@Override
+	public void convert(OWLFunctionalDataPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_FP requires equality reasoning; not supported
+	}
+
+	@Override
+	public void convert(OWLInverseFunctionalObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_IFP requires equality reasoning; not supported
+	}
+
+	@Override
+	public void convert(OWLIrreflexiveObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_IRP detects inconsistencies only; not supported
+	}
+
+	/**
+	 * OWL 2 RL rule prp-trp.
+	 */
+	@Override
+	public void convert(OWLTransitiveObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_TRP) && !axiom.getProperty().isAnonymous())
+			addTransitivityRule(Rule.PRP_TRP, getRelation(axiom.getProperty().asOWLObjectProperty()));
+	}
+
+	/**
+	 * OWL 2 RL rule prp-symp.
+	 */
+	@Override
+	public void convert(OWLSymmetricObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{
+		if (isOWL2RLRuleEnabled(Rule.PRP_SYMP) && !axiom.getProperty().isAnonymous()) {
+			Relation relation = getRelation(axiom.getProperty().asOWLObjectProperty());
+			addPropertyImplicationRule(Rule.PRP_SYMP, relation, relation, true);
+		}
+	}
+
+	@Override
+	public void convert(OWLAsymmetricObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_ASYP detects inconsistencies only; not supported
+	}
+
+	/**
+	 * OWL 2 RL rules prp-inv1 and prp-inv2.
+	 */
+	@Override
+	public void convert(OWLInverseObjectPropertiesAxiom axiom) throws TargetRuleEngineException
+	{
+		if (!axiom.getFirstProperty().isAnonymous() && !axiom.getSecondProperty().isAnonymous()) {
+			Relation first = getRelation(axiom.getFirstProperty().asOWLObjectProperty());
+			Relation second = getRelation(axiom.getSecondProperty().asOWLObjectProperty());
+
+			if (isOWL2RLRuleEnabled(Rule.PRP_INV1))
+				addPropertyImplicationRule(Rule.PRP_INV1, first, second, true);
+			if (isOWL2RLRuleEnabled(Rule.PRP_INV2))
+				addPropertyImplicationRule(Rule.PRP_INV2, second, first, true);
+		}
+	}
+
+	@Override
+	public void convert(OWLNegativeDataPropertyAssertionAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_NPA2 detects inconsistencies only; not supported
+	}
+
+	@Override
+	public void convert(OWLNegativeObjectPropertyAssertionAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_NPA1 detects inconsistencies only; not supported
+	}
+
+	@Override
+	public void convert(OWLReflexiveObjectPropertyAxiom axiom) throws TargetRuleEngineException
+	{ // Not in OWL 2 RL
+	}
+
+	@Override
+	public void convert(OWLDisjointUnionAxiom axiom) throws TargetRuleEngineException
+	{ // Not in OWL 2 RL
+	}
+
+	@Override
+	public void convert(OWLAnnotationAssertionAxiom axiom) throws TargetRuleEngineException
+	{ // Annotations carry no facts
+	}
+
+	@Override
+	public void convert(OWLSubPropertyChainOfAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_SPO2 not supported
+	}
+
+	@Override
+	public void convert(OWLHasKeyAxiom axiom) throws TargetRuleEngineException
+	{ // PRP_KEY requires equality reasoning; not supported
+	}
+
+	@Override
+	public void convert(OWLDatatypeDefinitionAxiom axiom) throws TargetRuleEngineException
+	{ // Datatype definitions are not supported
+	}
+
+	@Override
+	public void convert(OWLAnnotationPropertyRangeAxiom axiom) throws TargetRuleEngineException
+	{ // Annotations carry no facts
+	}
+
+	@Override
+	public void convert(OWLAnnotationPropertyDomainAxiom axiom) throws TargetRuleEngineException
+	{ // Annotations carry no facts
+	}
+
+	@Override
+	public void convert(OWLSubAnnotationPropertyOfAxiom axiom) throws TargetRuleEngineException
+	{ // Annotations carry no facts
+	}
+
+	/**
+	 * Compile the body and head atoms of a SWRL rule or SQWRL query.
+	 */
+	CompiledRule compileRule(String ruleName, Collection<? extends SWRLAtom> bodyAtoms,
+			Collection<? extends SWRLAtom> headAtoms) throws TargetRuleEngineException
+	{
+		CompiledRule rule = new CompiledRule(ruleName);
+
+		for (SWRLAtom atom : bodyAtoms) {
+			if (atom instanceof SWRLAPIBuiltInAtom)
+				rule.addBodyAtom(compileBuiltInAtom(rule, (SWRLAPIBuiltInAtom)atom));
+			else
+				rule.addBodyAtom(compileRelationalAtom(rule, atom));
+		}
+
+		for (SWRLAtom atom : headAtoms) {
+			if (atom instanceof SWRLAPIBuiltInAtom)
+				rule.addHeadAtom(compileBuiltInAtom(rule, (SWRLAPIBuiltInAtom)atom));
+			else
+				rule.addHeadAtom(compileRelationalAtom(rule, atom));
+		}
+		return rule;
+	}
+
+	/**
+	 * OWL 2 RL rules eq-sym and eq-trans. These rules do not depend on any axiom so are added on reset.
+	 */
+	void addEqualityRules()
+	{
+		Relation sameIndividual = this.ruleEngine.getRelation(Relation.Type.SameIndividual, null);
+
+		if (isOWL2RLRuleEnabled(Rule.EQ_SYM))
+			addPropertyImplicationRule(Rule.EQ_SYM, sameIndividual, sameIndividual, true);
+		if (isOWL2RLRuleEnabled(Rule.EQ_TRANS))
+			addTransitivityRule(Rule.EQ_TRANS, sameIndividual);
+	}
+
+	private CompiledRule.RelationalAtom compileRelationalAtom(CompiledRule rule, SWRLAtom atom)
+			throws TargetRuleEngineException
+	{
+		if (atom instanceof SWRLClassAtom) {
+			SWRLClassAtom classAtom = (SWRLClassAtom)atom;
+			if (classAtom.getPredicate().isAnonymous())
+				throw new TargetRuleEngineNotImplementedFeatureException("class expressions in class atoms are not supported: "
+						+ atom);
+			return new CompiledRule.RelationalAtom(getRelation(classAtom.getPredicate().asOWLClass()), compileTerm(rule,
+					classAtom.getArgument()));
+		} else if (atom instanceof SWRLObjectPropertyAtom) {
+			SWRLObjectPropertyAtom propertyAtom = (SWRLObjectPropertyAtom)atom;
+			OWLObjectPropertyExpression property = propertyAtom.getPredicate();
+			int subjectTerm = compileTerm(rule, propertyAtom.getFirstArgument());
+			int objectTerm = compileTerm(rule, propertyAtom.getSecondArgument());
+			if (property.isAnonymous()) // Inverse property
+				return new CompiledRule.RelationalAtom(getRelation(property.getNamedProperty()), objectTerm, subjectTerm);
+			else
+				return new CompiledRule.RelationalAtom(getRelation(property.asOWLObjectProperty()), subjectTerm, objectTerm);
+		} else if (atom instanceof SWRLDataPropertyAtom) {
+			SWRLDataPropertyAtom propertyAtom = (SWRLDataPropertyAtom)atom;
+			return new CompiledRule.RelationalAtom(getRelation(propertyAtom.getPredicate().asOWLDataProperty()),
+					compileTerm(rule, propertyAtom.getFirstArgument()), compileTerm(rule, propertyAtom.getSecondArgument()));
+		} else if (atom instanceof SWRLSameIndividualAtom) {
+			SWRLSameIndividualAtom sameIndividualAtom = (SWRLSameIndividualAtom)atom;
+			return new CompiledRule.RelationalAtom(this.ruleEngine.getRelation(Relation.Type.SameIndividual, null),
+					compileTerm(rule, sameIndividualAtom.getFirstArgument()), compileTerm(rule,
+							sameIndividualAtom.getSecondArgument()));
+		} else if (atom instanceof SWRLDifferentIndividualsAtom) {
+			SWRLDifferentIndividualsAtom differentIndividualsAtom = (SWRLDifferentIndividualsAtom)atom;
+			return new CompiledRule.RelationalAtom(this.ruleEngine.getRelation(Relation.Type.DifferentIndividuals, null),
+					compileTerm(rule, differentIndividualsAtom.getFirstArgument()), compileTerm(rule,
+							differentIndividualsAtom.getSecondArgument()));
+		} else
+			throw new TargetRuleEngineNotImplementedFeatureException("unsupported atom type " + atom.getClass().getName()
+					+ " in rule " + rule.getName());
+	}
+
+	private CompiledRule.BuiltInAtom compileBuiltInAtom(CompiledRule rule, SWRLAPIBuiltInAtom atom)
+	{
+		List<SWRLBuiltInArgument> arguments = atom.getBuiltInArguments();
+		int[] argumentVariableIndexes = new int[arguments.size()];
+
+		for (int argumentNumber = 0; argumentNumber < arguments.size(); argumentNumber++) {
+			SWRLBuiltInArgument argument = arguments.get(argumentNumber);
+			if (argument.isVariable())
+				argumentVariableIndexes[argumentNumber] = rule.getVariableIndex(argument.getVariableName());
+			else
+				argumentVariableIndexes[argumentNumber] = CompiledRule.Unbound;
+		}
+		return new CompiledRule.BuiltInAtom(atom, argumentVariableIndexes);
+	}
+
+	private int compileTerm(CompiledRule rule, SWRLArgument argument) throws TargetRuleEngineException
+	{
+		if (argument instanceof SWRLVariableAtomArgument)
+			return rule.getVariableTerm(((SWRLVariableAtomArgument)argument).getVariableName());
+		else if (argument instanceof SWRLVariable)
+			return rule.getVariableTerm(getVariableName(((SWRLVariable)argument).getIRI()));
+		else if (argument instanceof SWRLNamedIndividualAtomArgument)
+			return intern(getBridge().getOWLDataFactory().getOWLNamedIndividual(
+					((SWRLNamedIndividualAtomArgument)argument).getIRI()));
+		else if (argument instanceof SWRLIndividualArgument)
+			return intern(((SWRLIndividualArgument)argument).getIndividual());
+		else if (argument instanceof SWRLLiteralArgument)
+			return intern(((SWRLLiteralArgument)argument).getLiteral());
+		else
+			throw new TargetRuleEngineNotImplementedFeatureException("unsupported argument type "
+					+ argument.getClass().getName() + " in rule " + rule.getName());
+	}
+
+	private String getVariableName(IRI variableIRI)
+	{
+		String fragment = variableIRI.getFragment();
+
+		return fragment != null ? fragment : variableIRI.toString();
+	}
+
+	private void addClassImplicationRule(Rule owl2RLRule, OWLClass subClass, OWLClass superClass)
+	{
+		CompiledRule rule = new CompiledRule(owl2RLRule.name());
+		int x = rule.getVariableTerm("x");
+
+		rule.addBodyAtom(new CompiledRule.RelationalAtom(getRelation(subClass), x));
+		rule.addHeadAtom(new CompiledRule.RelationalAtom(getRelation(superClass), x));
+		this.ruleEngine.addRule(rule);
+	}
+
+	private void addPropertyImplicationRule(Rule owl2RLRule, Relation subRelation, Relation superRelation,
+			boolean isInverse)
+	{
+		CompiledRule rule = new CompiledRule(owl2RLRule.name());
+		int x = rule.getVariableTerm("x"), y = rule.getVariableTerm("y");
+
+		rule.addBodyAtom(new CompiledRule.RelationalAtom(subRelation, x, y));
+		if (isInverse)
+			rule.addHeadAtom(new CompiledRule.RelationalAtom(superRelation, y, x));
+		else
+			rule.addHeadAtom(new CompiledRule.RelationalAtom(superRelation, x, y));
+		this.ruleEngine.addRule(rule);
+	}
+
+	private void addPropertyEquivalenceRules(List<Relation> relations)
+	{
+		for (int i = 0; i < relations.size(); i++) {
+			for (int j = i + 1; j < relations.size(); j++) {
+				if (isOWL2RLRuleEnabled(Rule.PRP_EQP1))
+					addPropertyImplicationRule(Rule.PRP_EQP1, relations.get(i), relations.get(j), false);
+				if (isOWL2RLRuleEnabled(Rule.PRP_EQP2))
+					addPropertyImplicationRule(Rule.PRP_EQP2, relations.get(j), relations.get(i), false);
+			}
+		}
+	}
+
+	private void addPropertyTypingRule(Rule owl2RLRule, Relation propertyRelation, Relation classRelation,
+			boolean isDomain)
+	{
+		CompiledRule rule = new CompiledRule(owl2RLRule.name());
+		int x = rule.getVariableTerm("x"), y = rule.getVariableTerm("y");
+
+		rule.addBodyAtom(new CompiledRule.RelationalAtom(propertyRelation, x, y));
+		rule.addHeadAtom(new CompiledRule.RelationalAtom(classRelation, isDomain ? x : y));
+		this.ruleEngine.addRule(rule);
+	}
+
+	private void addTransitivityRule(Rule owl2RLRule, Relation relation)
+	{
+		CompiledRule rule = new CompiledRule(owl2RLRule.name());
+		int x = rule.getVariableTerm("x"), y = rule.getVariableTerm("y"), z = rule.getVariableTerm("z");
+
+		rule.addBodyAtom(new CompiledRule.RelationalAtom(relation, x, y));
+		rule.addBodyAtom(new CompiledRule.RelationalAtom(relation, y, z));
+		rule.addHeadAtom(new CompiledRule.RelationalAtom(relation, x, z));
+		this.ruleEngine.addRule(rule);
+	}
+
+	private void assertPairwise(Relation relation, List<OWLIndividual> individuals)
+	{
+		for (int i = 0; i < individuals.size(); i++) {
+			for (int j = i + 1; j < individuals.size(); j++) {
+				if (individuals.get(i).isNamed() && individuals.get(j).isNamed())
+					this.ruleEngine.assertFact(relation, intern(individuals.get(i)), intern(individuals.get(j)));
+			}
+		}
+	}
+
+	private List<OWLClass> getNamedClasses(Collection<OWLClassExpression> classExpressions)
+	{
+		List<OWLClass> classes = new ArrayList<OWLClass>();
+
+		for (OWLClassExpression classExpression : classExpressions)
+			if (!classExpression.isAnonymous())
+				classes.add(classExpression.asOWLClass());
+
+		return classes;
+	}
+
+	private boolean isOWL2RLRuleEnabled(Rule rule)
+	{
+		return this.ruleEngine.getOWL2RLEngine().isRuleEnabled(rule);
+	}
+
+	private Relation getRelation(OWLClass cls)
+	{
+		return this.ruleEngine.getRelation(Relation.Type.Class, cls);
+	}
+
+	private Relation getRelation(OWLObjectProperty property)
+	{
+		return this.ruleEngine.getRelation(Relation.Type.ObjectProperty, property);
+	}
+
+	private Relation getRelation(OWLDataProperty property)
+	{
+		return this.ruleEngine.getRelation(Relation.Type.DataProperty, property);
+	}
+
+	private int intern(Object value)
+	{
+		return this.ruleEngine.intern(value);
+	}
+}
@@ -0,0 +1,803 @@
+package org.swrlapi.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.SWRLAtom;
+import org.swrlapi.core.SWRLRuleEngineBridge;
+import org.swrlapi.core.SWRLRuleEngineManager;
+import org.swrlapi.core.TargetRuleEngine;
+import org.swrlapi.core.arguments.SWRLAnnotationPropertyBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLBuiltInArgumentFactory;
+import org.swrlapi.core.arguments.SWRLClassBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLDataPropertyBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLDatatypeBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLLiteralBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLNamedIndividualBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLObjectPropertyBuiltInArgument;
+import org.swrlapi.exceptions.BuiltInException;
+import org.swrlapi.exceptions.SWRLRuleEngineBridgeException;
+import org.swrlapi.exceptions.TargetRuleEngineException;
+import org.swrlapi.ext.SWRLAPIBuiltInAtom;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.owl2rl.OWL2RLEngine;
+import org.swrlapi.sqwrl.SQWRLQuery;
+
+/**
+ * An in-memory forward-chaining rule engine that evaluates SWRL rules, SQWRL queries, and a subset of the OWL 2 RL
+ * rules directly in the JVM.
+ * <p>
+ * Facts are stored in interned, indexed tables (see {@link FactStore}), which identify individuals and literals by their
+ * IDs in the bridge's {@link SWRLRuleEngineBridge#getOWLTermDictionary() term dictionary}. Rules are evaluated to a
+ * fixpoint using semi-naive iteration: in each round a rule is only evaluated against joins that include at least one fact derived in
+ * the previous round. Built-ins are invoked through {@link SWRLRuleEngineBridge#invokeSWRLBuiltIn} and inferred axioms
+ * are passed to the bridge using {@link SWRLRuleEngineBridge#inferOWLAxiom}. SQWRL queries are evaluated once the
+ * fixpoint has been reached.
+ * <p>
+ * Within a round, rules, and partitions of large deltas of the same rule, are independent and are evaluated
+ * concurrently (see {@link #setNumberOfThreads(int)}). All engines share a single pool of daemon threads, one per
+ * available processor, so running many engines at once does not multiply the number of threads. The pool is created
+ * when an engine first evaluates rules concurrently and is shut down once every engine that has used it has been
+ * disposed (see {@link #dispose()}). Built-ins are invoked
+ * concurrently; each stateful built-in library serializes its own invocations. Axioms injected by built-ins during a
+ * round are defined, and inferred axioms are passed to the bridge, on the thread running the engine at the end of each
+ * round.
+ * <p>
+ * Axioms defined after a run (e.g., during incremental import) are evaluated incrementally on the next run. Facts and
+ * rules are not traced back to the axioms they were converted from, so if axioms have been retracted the next run
+ * instead discards all facts and rules and converts the remaining asserted axioms again; the bridge need not export
+ * them again.
+ * <p>
+ * The engine can be registered with a {@link SWRLRuleEngineManager} using {@link #Creator}.
+ */
+public class SemiNaiveRuleEngine implements TargetRuleEngine
+{
+	public static final String Name = "SemiNaive";
+	public static final String Version = "1.0";
+
+	public static final SWRLRuleEngineManager.TargetSWRLRuleEngineCreator Creator = new SWRLRuleEngineManager.TargetSWRLRuleEngineCreator()
+	{
+		@Override
+		public TargetRuleEngine create(SWRLRuleEngineBridge bridge) throws TargetRuleEngineException
+		{
+			return new SemiNaiveRuleEngine(bridge);
+		}
+	};
+
+	public static final int DefaultNumberOfThreads = Runtime.getRuntime().availableProcessors();
+
+	private static final int MinimumDeltaPartitionSize = 1024;
+	private static final int NoNewBinding = CompiledRule.Unbound;
+	private static final int Mismatch = -2;
+
+	private static final ThreadFactory EvaluationThreadFactory = new ThreadFactory()
+	{
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, Name + "-" + this.threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private final SWRLRuleEngineBridge bridge;
+	private final SemiNaiveOWL2RLEngine owl2RLEngine;
+	private final SemiNaiveOWLAxiomConverter owlAxiomConverter;
+	private final FactStore factStore;
+	private final List<CompiledRule> rules;
+	private final List<CompiledRule> newRules; // Rules defined since the last round; evaluated against all facts
+	private final Set<OWLAxiom> definedOWLAxioms;
+	private final Set<OWLAxiom> assertedOWLAxioms; // Defined by the bridge, in order; excludes axioms injected by built-ins
+	private final Map<String, SQWRLQuery> queries;
+	private final Set<String> unevaluatedQueryNames;
+	private final List<OWLAxiom> injectedOWLAxioms; // Axioms defined by built-ins during a round; guarded by itself
+
+	private volatile boolean isEvaluatingRules;
+	private boolean hasRetractedOWLAxioms; // Facts and rules must be converted again before the next run
+
+	private static ExecutorService executorService; // Shared by all engines; guarded by the class
+	private static int numberOfExecutorServiceUsers; // Engines using the executor service; guarded by the class
+
+	private int numberOfThreads;
+	private boolean isExecutorServiceUser; // Guarded by the class
+
+	public SemiNaiveRuleEngine(SWRLRuleEngineBridge bridge) throws TargetRuleEngineException
+	{
+		this.bridge = bridge;
+		this.owl2RLEngine = new SemiNaiveOWL2RLEngine(bridge.getOWL2RLPersistenceLayer());
+		this.owlAxiomConverter = new SemiNaiveOWLAxiomConverter(bridge, this);
+		this.factStore = new FactStore(bridge.getOWLNamedObjectResolver(), bridge.getOWLDataFactory());
+		this.rules = new ArrayList<CompiledRule>();
+		this.newRules = new ArrayList<CompiledRule>();
+		this.definedOWLAxioms = new LinkedHashSet<OWLAxiom>();
+		this.assertedOWLAxioms = new LinkedHashSet<OWLAxiom>();
+		this.queries = new LinkedHashMap<String, SQWRLQuery>();
+		this.unevaluatedQueryNames = new LinkedHashSet<String>();
+		this.injectedOWLAxioms = new ArrayList<OWLAxiom>();
+		this.numberOfThreads = DefaultNumberOfThreads;
+
+		resetRuleEngine();
+
+		bridge.setTargetRuleEngine(this);
+	}
+
+	/**
+	 * Axioms defined by built-ins while a round is being evaluated are deferred until the end of the round, since
+	 * relations are only read during a round.
+	 */
+	@Override
+	public void defineOWLAxiom(OWLAxiom axiom) throws TargetRuleEngineException
+	{
+		if (this.isEvaluatingRules) {
+			synchronized (this.injectedOWLAxioms) {
+				this.injectedOWLAxioms.add(axiom);
+			}
+		} else if (this.assertedOWLAxioms.add(axiom) && !this.hasRetractedOWLAxioms)
+			convertOWLAxiom(axiom);
+	}
+
+	/**
+	 * A retraction is applied at the start of the next run, when the remaining asserted axioms are converted again.
+	 */
+	@Override
+	public boolean retractOWLAxiom(OWLAxiom axiom) throws TargetRuleEngineException
+	{
+		if (this.assertedOWLAxioms.remove(axiom))
+			this.hasRetractedOWLAxioms = true;
+
+		return true;
+	}
+
+	@Override
+	public void defineSQWRLQuery(SQWRLQuery query) throws TargetRuleEngineException, BuiltInException
+	{
+		this.queries.put(query.getName(), query);
+		this.unevaluatedQueryNames.add(query.getName());
+	}
+
+	@Override
+	public void runRuleEngine() throws TargetRuleEngineException
+	{
+		if (this.hasRetractedOWLAxioms)
+			reconvertAssertedOWLAxioms();
+
+		this.factStore.commitPending(); // Facts asserted since the last run form the first delta
+
+		do {
+			List<RuleEvaluation> evaluations = new ArrayList<RuleEvaluation>();
+
+			addNewRuleEvaluations(evaluations);
+			for (CompiledRule rule : this.rules)
+				addDeltaEvaluations(rule, evaluations);
+			evaluateRules(evaluations);
+		} while (this.factStore.commitPending() || !this.newRules.isEmpty());
+
+		evaluateSQWRLQueries();
+	}
+
+	@Override
+	public void resetRuleEngine() throws TargetRuleEngineException
+	{
+		clearFactsAndRules();
+		this.assertedOWLAxioms.clear();
+		this.hasRetractedOWLAxioms = false;
+		this.queries.clear();
+		this.unevaluatedQueryNames.clear();
+	}
+
+	/**
+	 * Release the engine's use of the shared evaluation threads, which are shut down once no engine uses them. An engine
+	 * that is run again after being disposed uses the threads again.
+	 */
+	@Override
+	public void dispose()
+	{
+		synchronized (SemiNaiveRuleEngine.class) {
+			if (this.isExecutorServiceUser) {
+				this.isExecutorServiceUser = false;
+				if (--numberOfExecutorServiceUsers == 0) {
+					executorService.shutdown();
+					executorService = null;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String getName()
+	{
+		return Name;
+	}
+
+	@Override
+	public String getVersion()
+	{
+		return Version;
+	}
+
+	@Override
+	public OWL2RLEngine getOWL2RLEngine()
+	{
+		return this.owl2RLEngine;
+	}
+
+	public int getNumberOfFacts()
+	{
+		return this.factStore.getNumberOfFacts();
+	}
+
+	public int getNumberOfRules()
+	{
+		return this.rules.size();
+	}
+
+	/**
+	 * Set the number of threads used to evaluate rules, which determines how finely large deltas are partitioned. No more
+	 * than {@link #DefaultNumberOfThreads} evaluations run at once since all engines share one pool. With a single thread
+	 * all evaluation is performed on the thread running the engine.
+	 */
+	public void setNumberOfThreads(int numberOfThreads)
+	{
+		if (numberOfThreads < 1)
+			throw new IllegalArgumentException("number of threads must be positive: " + numberOfThreads);
+
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	public int getNumberOfThreads()
+	{
+		return this.numberOfThreads;
+	}
+
+	void addRule(CompiledRule rule)
+	{
+		this.rules.add(rule);
+		this.newRules.add(rule);
+	}
+
+	void assertFact(Relation relation, int subjectID, int objectID)
+	{
+		relation.addPending(Relation.encode(subjectID, relation.isUnary() ? 0 : objectID));
+	}
+
+	Relation getRelation(Relation.Type type, OWLEntity predicate)
+	{
+		return this.factStore.getRelation(type, predicate);
+	}
+
+	int intern(Object value)
+	{
+		return this.factStore.intern(value);
+	}
+
+	private void convertOWLAxiom(OWLAxiom axiom) throws TargetRuleEngineException
+	{
+		if (this.definedOWLAxioms.add(axiom))
+			this.owlAxiomConverter.convert(axiom);
+	}
+
+	/**
+	 * Discard all facts and rules, including those inferred or injected, and convert the asserted axioms again.
+	 */
+	private void reconvertAssertedOWLAxioms() throws TargetRuleEngineException
+	{
+		clearFactsAndRules();
+		this.hasRetractedOWLAxioms = false;
+
+		for (OWLAxiom axiom : this.assertedOWLAxioms)
+			convertOWLAxiom(axiom);
+	}
+
+	private void clearFactsAndRules() throws TargetRuleEngineException
+	{
+		this.factStore.clear();
+		this.rules.clear();
+		this.newRules.clear();
+		this.definedOWLAxioms.clear();
+
+		this.owlAxiomConverter.addEqualityRules();
+	}
+
+	/**
+	 * Create evaluations for rules defined since the last round. These are evaluated against all facts.
+	 */
+	private void addNewRuleEvaluations(List<RuleEvaluation> evaluations)
+	{
+		for (CompiledRule rule : this.newRules)
+			evaluations.add(new RuleEvaluation(rule, -1, 0, 0));
+
+		this.newRules.clear();
+	}
+
+	/**
+	 * Create evaluations for each body atom of a rule whose relation has a delta. Large deltas are partitioned so that
+	 * the partitions can be evaluated concurrently.
+	 */
+	private void addDeltaEvaluations(CompiledRule rule, List<RuleEvaluation> evaluations)
+	{
+		List<CompiledRule.RelationalAtom> atoms = rule.getBodyRelationalAtoms();
+
+		for (int atomIndex = 0; atomIndex < atoms.size(); atomIndex++) {
+			Relation relation = atoms.get(atomIndex).getRelation();
+			int deltaSize = relation.getDeltaSize();
+
+			if (deltaSize != 0) {
+				int partitionSize = Math.max(MinimumDeltaPartitionSize, (deltaSize + this.numberOfThreads - 1)
+						/ this.numberOfThreads);
+
+				for (int fromIndex = 0; fromIndex < deltaSize; fromIndex += partitionSize)
+					evaluations.add(new RuleEvaluation(rule, atomIndex, fromIndex, Math.min(deltaSize, fromIndex + partitionSize)));
+			}
+		}
+	}
+
+	/**
+	 * Evaluate rules for a single round and pass the facts they inferred to the bridge. Evaluations are run concurrently
+	 * if more than one thread is configured. Facts are inferred into pending sets that are not visible until the end of
+	 * the round, so evaluations are independent of each other.
+	 */
+	private void evaluateRules(List<RuleEvaluation> evaluations) throws TargetRuleEngineException
+	{
+		this.isEvaluatingRules = true;
+		try {
+			if (this.numberOfThreads == 1 || evaluations.size() < 2) {
+				for (RuleEvaluation evaluation : evaluations)
+					evaluation.call();
+			} else {
+				try {
+					for (Future<RuleEvaluation> future : getExecutorService().invokeAll(evaluations))
+						future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TargetRuleEngineException("interrupted while evaluating rules", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof TargetRuleEngineException)
+						throw (TargetRuleEngineException)e.getCause();
+					else if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException)e.getCause();
+					else
+						throw new TargetRuleEngineException("error evaluating rules: " + e.getCause().getMessage(), e.getCause());
+				}
+			}
+		} finally {
+			this.isEvaluatingRules = false;
+		}
+
+		for (RuleEvaluation evaluation : evaluations)
+			evaluation.inferOWLAxioms();
+
+		defineInjectedOWLAxioms();
+	}
+
+	private void defineInjectedOWLAxioms() throws TargetRuleEngineException
+	{
+		List<OWLAxiom> axioms;
+
+		synchronized (this.injectedOWLAxioms) {
+			axioms = new ArrayList<OWLAxiom>(this.injectedOWLAxioms);
+			this.injectedOWLAxioms.clear();
+		}
+
+		for (OWLAxiom axiom : axioms)
+			convertOWLAxiom(axiom);
+	}
+
+	private void evaluateSQWRLQueries() throws TargetRuleEngineException
+	{
+		for (String queryName : new ArrayList<String>(this.unevaluatedQueryNames)) {
+			SQWRLQuery query = this.queries.get(queryName);
+
+			if (query.isActive()) { // Queries are evaluated in order on this thread so that result rows are ordered
+				if (query.hasCollections()) {
+					evaluateRule(this.owlAxiomConverter.compileRule(queryName, query.getSQWRLPhase1BodyAtoms(),
+							Collections.<SWRLAtom> emptyList()));
+					evaluateRule(this.owlAxiomConverter.compileRule(queryName, query.getSQWRLPhase2BodyAtoms(),
+							query.getHeadAtoms()));
+				} else
+					evaluateRule(this.owlAxiomConverter.compileRule(queryName, query.getBodyAtoms(), query.getHeadAtoms()));
+				this.unevaluatedQueryNames.remove(queryName);
+			}
+		}
+	}
+
+	private void evaluateRule(CompiledRule rule) throws TargetRuleEngineException
+	{
+		RuleEvaluation evaluation = new RuleEvaluation(rule, -1, 0, 0);
+
+		evaluation.call();
+		evaluation.inferOWLAxioms();
+	}
+
+	/**
+	 * The evaluation of a rule, or of a partition of the delta of one of its body atoms, in a single round.
+	 * <p>
+	 * If a delta atom index is supplied that atom is matched against the supplied range of the facts derived in the
+	 * previous round only and is joined first. Atoms before it in the rule body are matched against the facts known before
+	 * the previous round and atoms after it against all facts, so a join with facts from the deltas of several atoms is
+	 * made only by the evaluation for the first of them. Without a delta atom all atoms are matched against all facts.
+	 * Inferred facts that are not already known are recorded; once the round is complete they are added to the pending
+	 * tuples of their relations on the thread running the engine, and those that are new are passed to the bridge.
+	 */
+	private class RuleEvaluation implements Callable<RuleEvaluation>
+	{
+		private final CompiledRule rule;
+		private final int deltaAtomIndex;
+		private final int deltaFromIndex;
+		private final int deltaToIndex;
+		private final List<Relation> inferredRelations;
+		private long[] inferredTuples;
+
+		public RuleEvaluation(CompiledRule rule, int deltaAtomIndex, int deltaFromIndex, int deltaToIndex)
+		{
+			this.rule = rule;
+			this.deltaAtomIndex = deltaAtomIndex;
+			this.deltaFromIndex = deltaFromIndex;
+			this.deltaToIndex = deltaToIndex;
+			this.inferredRelations = new ArrayList<Relation>();
+			this.inferredTuples = new long[16];
+		}
+
+		@Override
+		public RuleEvaluation call() throws TargetRuleEngineException
+		{
+			int numberOfAtoms = this.rule.getBodyRelationalAtoms().size();
+			int[] atomOrder = new int[numberOfAtoms];
+			int[] bindings = new int[this.rule.getNumberOfVariables()];
+			int position = 0;
+
+			if (this.deltaAtomIndex >= 0)
+				atomOrder[position++] = this.deltaAtomIndex;
+			for (int atomIndex = 0; atomIndex < numberOfAtoms; atomIndex++)
+				if (atomIndex != this.deltaAtomIndex)
+					atomOrder[position++] = atomIndex;
+
+			Arrays.fill(bindings, CompiledRule.Unbound);
+			matchRelationalAtoms(atomOrder, 0, bindings);
+
+			return this;
+		}
+
+		/**
+		 * Add the facts inferred by this evaluation to their relations and pass those that are new to the bridge. Must be
+		 * called on the thread running the engine.
+		 */
+		public void inferOWLAxioms() throws TargetRuleEngineException
+		{
+			for (int i = 0; i < this.inferredRelations.size(); i++) {
+				Relation relation = this.inferredRelations.get(i);
+				long tuple = this.inferredTuples[i];
+
+				if (relation.addPending(tuple)) {
+					OWLAxiom axiom = createOWLAxiom(relation, Relation.getSubjectID(tuple), Relation.getObjectID(tuple));
+
+					try {
+						SemiNaiveRuleEngine.this.bridge.inferOWLAxiom(axiom);
+					} catch (SWRLRuleEngineBridgeException e) {
+						throw new TargetRuleEngineException("error inferring axiom " + axiom + ": " + e.getMessage(), e);
+					}
+				}
+			}
+			this.inferredRelations.clear();
+		}
+
+		private void matchRelationalAtoms(int[] atomOrder, int position, int[] bindings) throws TargetRuleEngineException
+		{
+			if (position == atomOrder.length) {
+				matchBuiltInAtoms(this.rule.getBodyBuiltInAtoms(), 0, false, bindings);
+				return;
+			}
+
+			CompiledRule.RelationalAtom atom = this.rule.getBodyRelationalAtoms().get(atomOrder[position]);
+			Relation relation = atom.getRelation();
+			int subjectID = resolveTerm(atom.getSubjectTerm(), bindings);
+			int objectID = relation.isUnary() ? CompiledRule.Unbound : resolveTerm(atom.getObjectTerm(), bindings);
+			Relation.Tuples tuples;
+
+			if (atomOrder[position] == this.deltaAtomIndex)
+				tuples = relation.getDelta(this.deltaFromIndex, this.deltaToIndex);
+			else if (atomOrder[position] < this.deltaAtomIndex)
+				tuples = relation.matchOld(subjectID, objectID);
+			else
+				tuples = relation.match(subjectID, objectID);
+
+			for (int tupleIndex = 0; tupleIndex < tuples.size(); tupleIndex++) {
+				long tuple = tuples.get(tupleIndex);
+				int subjectVariableIndex = bindTerm(atom.getSubjectTerm(), Relation.getSubjectID(tuple), bindings);
+				if (subjectVariableIndex == Mismatch)
+					continue;
+
+				int objectVariableIndex = relation.isUnary() ? NoNewBinding : bindTerm(atom.getObjectTerm(), Relation
+						.getObjectID(tuple), bindings);
+				if (objectVariableIndex != Mismatch)
+					matchRelationalAtoms(atomOrder, position + 1, bindings);
+
+				unbind(subjectVariableIndex, bindings);
+				unbind(objectVariableIndex, bindings);
+			}
+		}
+
+		/**
+		 * Invoke built-ins in order. Body built-ins are followed by head built-ins; once all have succeeded the head
+		 * relational atoms are inferred.
+		 */
+		private void matchBuiltInAtoms(List<CompiledRule.BuiltInAtom> builtInAtoms, int position, boolean isInConsequent,
+				int[] bindings) throws TargetRuleEngineException
+		{
+			if (position == builtInAtoms.size()) {
+				if (isInConsequent)
+					inferHeadAtoms(bindings);
+				else
+					matchBuiltInAtoms(this.rule.getHeadBuiltInAtoms(), 0, true, bindings);
+				return;
+			}
+
+			CompiledRule.BuiltInAtom builtInAtom = builtInAtoms.get(position);
+			int[] newlyBoundVariableIndexes = new int[builtInAtom.getArguments().size()];
+
+			for (int[] argumentIDs : invokeSWRLBuiltIn(this.rule, builtInAtom, isInConsequent, bindings)) {
+				int numberOfNewlyBoundVariables = 0;
+
+				for (int argumentNumber = 0; argumentNumber < argumentIDs.length; argumentNumber++) {
+					if (argumentIDs[argumentNumber] != CompiledRule.Unbound) {
+						int variableIndex = builtInAtom.getArgumentVariableIndex(argumentNumber);
+						bindings[variableIndex] = argumentIDs[argumentNumber];
+						newlyBoundVariableIndexes[numberOfNewlyBoundVariables++] = variableIndex;
+					}
+				}
+
+				matchBuiltInAtoms(builtInAtoms, position + 1, isInConsequent, bindings);
+
+				for (int i = 0; i < numberOfNewlyBoundVariables; i++)
+					bindings[newlyBoundVariableIndexes[i]] = CompiledRule.Unbound;
+			}
+		}
+
+		private void inferHeadAtoms(int[] bindings)
+		{
+			for (CompiledRule.RelationalAtom atom : this.rule.getHeadRelationalAtoms()) {
+				Relation relation = atom.getRelation();
+				int subjectID = resolveTerm(atom.getSubjectTerm(), bindings);
+				int objectID = relation.isUnary() ? 0 : resolveTerm(atom.getObjectTerm(), bindings);
+
+				if (subjectID != CompiledRule.Unbound && objectID != CompiledRule.Unbound)
+					inferFact(relation, subjectID, objectID);
+			}
+		}
+
+		private void inferFact(Relation relation, int subjectID, int objectID)
+		{
+			long tuple = Relation.encode(subjectID, objectID);
+
+			if (isWellTyped(relation, subjectID, objectID) && !relation.contains(tuple)) {
+				int numberOfInferredTuples = this.inferredRelations.size();
+
+				if (numberOfInferredTuples == this.inferredTuples.length)
+					this.inferredTuples = Arrays.copyOf(this.inferredTuples, numberOfInferredTuples * 2);
+				this.inferredTuples[numberOfInferredTuples] = tuple;
+				this.inferredRelations.add(relation);
+			}
+		}
+	}
+
+	/**
+	 * Invoke a built-in and intern the values it bound to previously unbound variables. Returns an array of identifiers
+	 * for each argument pattern produced by the built-in; arguments that were not newly bound are {@link
+	 * CompiledRule#Unbound}. Built-ins may be invoked concurrently by evaluations in the same round.
+	 */
+	private List<int[]> invokeSWRLBuiltIn(CompiledRule rule, CompiledRule.BuiltInAtom builtInAtom,
+			boolean isInConsequent, int[] bindings) throws TargetRuleEngineException
+	{
+		SWRLAPIBuiltInAtom atom = builtInAtom.getAtom();
+		List<SWRLBuiltInArgument> arguments = createBuiltInArguments(rule, builtInAtom, bindings);
+		List<int[]> argumentIDPatterns = new ArrayList<int[]>();
+
+		try {
+			if (builtInAtom.getBuiltIn() == null)
+				builtInAtom.setBuiltIn(this.bridge.resolveSWRLBuiltIn(rule.getName(), atom.getBuiltInPrefixedName()));
+
+			for (List<SWRLBuiltInArgument> argumentPattern : this.bridge.invokeSWRLBuiltIn(rule.getName(), builtInAtom
+					.getBuiltIn(), atom.getBuiltInIndex(), isInConsequent, arguments)) {
+				int[] argumentIDs = new int[argumentPattern.size()];
+
+				for (int argumentNumber = 0; argumentNumber < argumentPattern.size(); argumentNumber++) {
+					int variableIndex = builtInAtom.getArgumentVariableIndex(argumentNumber);
+
+					if (variableIndex != CompiledRule.Unbound && bindings[variableIndex] == CompiledRule.Unbound)
+						argumentIDs[argumentNumber] = internBuiltInArgument(argumentPattern.get(argumentNumber));
+					else
+						argumentIDs[argumentNumber] = CompiledRule.Unbound;
+				}
+				argumentIDPatterns.add(argumentIDs);
+			}
+		} catch (BuiltInException e) {
+			throw new TargetRuleEngineException("error invoking built-in " + atom.getBuiltInPrefixedName() + " in rule "
+					+ rule.getName() + ": " + e.getMessage(), e);
+		}
+		return argumentIDPatterns;
+	}
+
+	private boolean isWellTyped(Relation relation, int subjectID, int objectID)
+	{
+		if (!this.factStore.isOWLIndividual(subjectID))
+			return false;
+
+		switch (relation.getType()) {
+		case Class:
+			return true;
+		case DataProperty:
+			return this.factStore.isOWLLiteral(objectID);
+		default:
+			return this.factStore.isOWLIndividual(objectID);
+		}
+	}
+
+	private OWLAxiom createOWLAxiom(Relation relation, int subjectID, int objectID)
+	{
+		SWRLAPIOWLDataFactory dataFactory = this.bridge.getOWLDataFactory();
+		OWLIndividual subject = (OWLIndividual)getValue(subjectID);
+
+		switch (relation.getType()) {
+		case Class:
+			return dataFactory.getOWLClassAssertionAxiom((OWLClass)relation.getPredicate(), subject);
+		case ObjectProperty:
+			return dataFactory.getOWLObjectPropertyAssertionAxiom((OWLObjectProperty)relation.getPredicate(), subject,
+					(OWLIndividual)getValue(objectID));
+		case DataProperty:
+			return dataFactory.getOWLDataPropertyAssertionAxiom((OWLDataProperty)relation.getPredicate(), subject,
+					(OWLLiteral)getValue(objectID));
+		case SameIndividual:
+			return dataFactory.getOWLSameIndividualAxiom(subject, (OWLIndividual)getValue(objectID));
+		default:
+			return dataFactory.getOWLDifferentIndividualsAxiom(subject, (OWLIndividual)getValue(objectID));
+		}
+	}
+
+	private List<SWRLBuiltInArgument> createBuiltInArguments(CompiledRule rule, CompiledRule.BuiltInAtom builtInAtom,
+			int[] bindings)
+	{
+		List<SWRLBuiltInArgument> arguments = new ArrayList<SWRLBuiltInArgument>();
+
+		for (int argumentNumber = 0; argumentNumber < builtInAtom.getArguments().size(); argumentNumber++) {
+			int variableIndex = builtInAtom.getArgumentVariableIndex(argumentNumber);
+
+			if (variableIndex == CompiledRule.Unbound)
+				arguments.add(builtInAtom.getArguments().get(argumentNumber));
+			else if (bindings[variableIndex] == CompiledRule.Unbound)
+				arguments.add(getSWRLBuiltInArgumentFactory().getUnboundVariableBuiltInArgument(
+						rule.getVariableName(variableIndex)));
+			else
+				arguments.add(createBuiltInArgument(bindings[variableIndex], rule.getVariableName(variableIndex)));
+		}
+		return arguments;
+	}
+
+	private SWRLBuiltInArgument createBuiltInArgument(int id, String variableName)
+	{
+		Object value = getValue(id);
+		SWRLBuiltInArgument argument;
+
+		if (value instanceof OWLLiteral)
+			argument = getSWRLBuiltInArgumentFactory().getLiteralBuiltInArgument((OWLLiteral)value);
+		else if (value instanceof OWLIndividual)
+			argument = getSWRLBuiltInArgumentFactory().getNamedIndividualBuiltInArgument((OWLIndividual)value);
+		else if (value instanceof OWLClass)
+			argument = getSWRLBuiltInArgumentFactory().getClassBuiltInArgument((OWLClass)value);
+		else if (value instanceof OWLObjectProperty)
+			argument = getSWRLBuiltInArgumentFactory().getObjectPropertyBuiltInArgument((OWLObjectProperty)value);
+		else if (value instanceof OWLDataProperty)
+			argument = getSWRLBuiltInArgumentFactory().getDataPropertyBuiltInArgument((OWLDataProperty)value);
+		else if (value instanceof OWLAnnotationProperty)
+			argument = getSWRLBuiltInArgumentFactory().getAnnotationPropertyBuiltInArgument((OWLAnnotationProperty)value);
+		else if (value instanceof OWLDatatype)
+			argument = getSWRLBuiltInArgumentFactory().getDatatypeBuiltInArgument((OWLDatatype)value);
+		else
+			return (SWRLBuiltInArgument)value; // E.g., SQWRL collections, which are passed unchanged
+
+		argument.setVariableName(variableName);
+		argument.setBound();
+
+		return argument;
+	}
+
+	/**
+	 * Built-in results are interned by their OWL value so that they join with facts from the ontology.
+	 */
+	private int internBuiltInArgument(SWRLBuiltInArgument argument)
+	{
+		SWRLAPIOWLDataFactory dataFactory = this.bridge.getOWLDataFactory();
+
+		if (argument instanceof SWRLLiteralBuiltInArgument)
+			return intern(((SWRLLiteralBuiltInArgument)argument).getLiteral());
+		else if (argument instanceof SWRLNamedIndividualBuiltInArgument)
+			return intern(dataFactory.getOWLNamedIndividual(((SWRLNamedIndividualBuiltInArgument)argument).getIRI()));
+		else if (argument instanceof SWRLClassBuiltInArgument)
+			return intern(dataFactory.getOWLClass(((SWRLClassBuiltInArgument)argument).getIRI()));
+		else if (argument instanceof SWRLObjectPropertyBuiltInArgument)
+			return intern(dataFactory.getOWLObjectProperty(((SWRLObjectPropertyBuiltInArgument)argument).getIRI()));
+		else if (argument instanceof SWRLDataPropertyBuiltInArgument)
+			return intern(dataFactory.getOWLDataProperty(((SWRLDataPropertyBuiltInArgument)argument).getIRI()));
+		else if (argument instanceof SWRLAnnotationPropertyBuiltInArgument)
+			return intern(dataFactory.getOWLAnnotationProperty(((SWRLAnnotationPropertyBuiltInArgument)argument).getIRI()));
+		else if (argument instanceof SWRLDatatypeBuiltInArgument)
+			return intern(dataFactory.getOWLDatatype(((SWRLDatatypeBuiltInArgument)argument).getIRI()));
+		else
+			return intern(argument);
+	}
+
+	private int resolveTerm(int term, int[] bindings)
+	{
+		return CompiledRule.isVariableTerm(term) ? bindings[CompiledRule.getVariableIndexFromTerm(term)] : term;
+	}
+
+	/**
+	 * Unify a term with a value identifier. Returns the index of a newly bound variable, {@link #NoNewBinding} if the
+	 * term already matched, or {@link #Mismatch}.
+	 */
+	private int bindTerm(int term, int id, int[] bindings)
+	{
+		if (!CompiledRule.isVariableTerm(term))
+			return term == id ? NoNewBinding : Mismatch;
+
+		int variableIndex = CompiledRule.getVariableIndexFromTerm(term);
+		if (bindings[variableIndex] == CompiledRule.Unbound) {
+			bindings[variableIndex] = id;
+			return variableIndex;
+		} else
+			return bindings[variableIndex] == id ? NoNewBinding : Mismatch;
+	}
+
+	private void unbind(int variableIndex, int[] bindings)
+	{
+		if (variableIndex >= 0)
+			bindings[variableIndex] = CompiledRule.Unbound;
+	}
+
+	private ExecutorService getExecutorService()
+	{
+		synchronized (SemiNaiveRuleEngine.class) {
+			if (!this.isExecutorServiceUser) {
+				if (executorService == null)
+					executorService = Executors.newFixedThreadPool(DefaultNumberOfThreads, EvaluationThreadFactory);
+				numberOfExecutorServiceUsers++;
+				this.isExecutorServiceUser = true;
+			}
+			return executorService;
+		}
+	}
+
+	private Object getValue(int id)
+	{
+		return this.factStore.getValue(id);
+	}
+
+	private SWRLBuiltInArgumentFactory getSWRLBuiltInArgumentFactory()
+	{
+		return this.bridge.getSWRLBuiltInArgumentFactory();
+	}
+}
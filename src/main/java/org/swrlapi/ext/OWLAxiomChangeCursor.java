@@ -0,0 +1,38 @@
+package org.swrlapi.ext;
+
+import java.util.List;
+
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+/**
+ * A position in the change journal of a {@link SWRLAPIOWLOntology}. Each consumer of the journal, e.g., a rule engine
+ * that imports knowledge incrementally, holds its own cursor. The journal retains changes only until every open cursor
+ * has moved past them, so a cursor must be closed once its consumer no longer needs it.
+ *
+ * @see SWRLAPIOWLOntology#openOWLAxiomChangeCursor()
+ */
+public interface OWLAxiomChangeCursor
+{
+	/**
+	 * Returns the version of the ontology that the cursor is positioned at.
+	 */
+	long getVersion();
+
+	/**
+	 * Returns the axiom additions and removals applied to the ontology since the version of the cursor, in application
+	 * order. Returns null if changes that are not journaled (e.g., import changes, or changes to imported ontologies)
+	 * have been applied since that version, in which case the journal does not describe how the ontology has changed.
+	 */
+	List<OWLOntologyChange> getOWLAxiomChanges();
+
+	/**
+	 * Move the cursor forward to the supplied version, which must not be later than the current version of the ontology.
+	 * Journal entries that no open cursor needs any longer are discarded.
+	 */
+	void moveTo(long version);
+
+	/**
+	 * Close the cursor so that the journal no longer retains changes for it.
+	 */
+	void close();
+}
@@ -16,6 +16,11 @@ public interface OWLLiteralFactory
 {
 	OWLLiteral getOWLLiteral(String literal, OWLDatatype datatype);
 
+	/**
+	 * Create a plain literal with a language tag.
+	 */
+	OWLLiteral getOWLLiteral(String literal, String language);
+
 	OWLLiteral getOWLLiteral(String value);
 
 	OWLLiteral getOWLLiteral(boolean value);
@@ -1,8 +1,10 @@
 package org.swrlapi.ext;
 
+import java.util.List;
 import java.util.Set;
 
 import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
@@ -27,6 +29,13 @@ import org.swrlapi.core.arguments.SWRLAtomArgument;
  * {@link startBulkConversion} method turns off listener notification so that bulk transfer of OWL axioms can be
  * performed more efficiently. The {@link hasOntologyChanged} method can be used by rule engines to avoid unnecessary
  * regeneration of knowledge.
+ * <p>
+ * Every change applied to the ontology, or to an ontology in its imports closure, advances its version number (see
+ * {@link #getOntologyVersion()}). Axiom additions and removals are recorded in a change journal so that incremental
+ * consumers can cheaply determine whether, and how, the ontology has changed since a version they previously observed.
+ * Each consumer reads the journal through its own cursor (see {@link #openOWLAxiomChangeCursor()}). Changes to imported
+ * ontologies are tracked from the first time the version is observed until the ontology is disposed (see
+ * {@link #dispose()}).
  * 
  * @see SWRLAtomArgument, SWRLAPIOntologyProcessor, SWRLAPIOWLDataFactory
  */
@@ -42,6 +51,40 @@ public interface SWRLAPIOWLOntology extends OWLOntology
 
 	void resetOntologyChanged();
 
+	/**
+	 * Add an axiom to the ontology. If called between {@link #startBulkConversion()} and {@link #completeBulkConversion()}
+	 * the addition is deferred and all deferred additions are applied in a single batch on completion.
+	 */
+	void addOWLAxiom(OWLAxiom axiom);
+
+	/**
+	 * Deferred additions are applied in chunks of at most this size, each with a single
+	 * {@link org.semanticweb.owlapi.model.OWLOntologyManager#applyChanges(List)} call, so that large bulk conversions do
+	 * not have to hold all pending changes in memory.
+	 */
+	void setBulkConversionChunkSize(int chunkSize);
+
+	int getBulkConversionChunkSize();
+
+	/**
+	 * Returns the current version of the ontology. The version increases monotonically with every applied change.
+	 */
+	long getOntologyVersion();
+
+	boolean hasOntologyChangedSince(long version);
+
+	/**
+	 * Open a cursor on the change journal positioned at the current version. Changes are retained until every open cursor
+	 * has moved past them.
+	 */
+	OWLAxiomChangeCursor openOWLAxiomChangeCursor();
+
+	/**
+	 * Stop tracking changes to imported ontologies and release the listener registered with the ontology manager. The
+	 * ontology remains usable, but changes to imported ontologies no longer advance its version.
+	 */
+	void dispose();
+
 	// TODO We don't want this method here. It is a convenience method and used only by the temporal built-in library.
 	boolean isOWLIndividualOfType(IRI individualIRI, IRI classIRI);
 
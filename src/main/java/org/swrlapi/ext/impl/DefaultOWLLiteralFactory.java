@@ -4,6 +4,7 @@ import java.net.URI;
 
 import org.semanticweb.owlapi.model.OWLDatatype;
 import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
 import org.swrlapi.ext.OWLDatatypeFactory;
 import org.swrlapi.ext.OWLLiteralFactory;
 import org.swrlapi.xsd.XSDDate;
@@ -106,6 +107,13 @@ public class DefaultOWLLiteralFactory implements OWLLiteralFactory
 		return new OWLLiteralImpl(literal, "", datatype);
 	}
 
+	@Override
+	public OWLLiteral getOWLLiteral(String literal, String language)
+	{
+		return new OWLLiteralImpl(literal, language, getOWLDatatypeFactory().getOWLDatatype(
+				OWL2Datatype.RDF_PLAIN_LITERAL.getIRI()));
+	}
+
 	private OWLDatatypeFactory getOWLDatatypeFactory()
 	{
 		return this.datatypeFactory;
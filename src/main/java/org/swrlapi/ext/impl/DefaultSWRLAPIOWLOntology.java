@@ -1,17 +1,23 @@
 package org.swrlapi.ext.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.semanticweb.owlapi.model.AddAxiom;
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLDatatype;
 import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
 import org.semanticweb.owlapi.model.OWLOntologyID;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.SWRLAtom;
@@ -36,6 +42,7 @@ import org.swrlapi.core.arguments.SWRLClassAtomArgument;
 import org.swrlapi.core.arguments.SWRLLiteralBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLMultiValueBuiltInArgument;
 import org.swrlapi.core.arguments.SWRLVariableBuiltInArgument;
+import org.swrlapi.ext.OWLAxiomChangeCursor;
 import org.swrlapi.ext.SWRLAPIOWLDataFactory;
 import org.swrlapi.ext.SWRLAPIOWLOntology;
 import org.swrlapi.ext.SWRLAPIRule;
@@ -46,38 +53,146 @@ public class DefaultSWRLAPIOWLOntology extends OWLOntologyImpl implements SWRLAP
 {
 	private static final long serialVersionUID = 1L;
 
+	public static final int DefaultBulkConversionChunkSize = 10000;
+
 	private final SWRLAPIOWLDataFactory swrlapiOWLDataFactory;
 
+	// Non-axiom changes and changes to imported ontologies advance the version but are not journaled
+	private final OWLAxiomChangeJournal journal;
+	private volatile long resetVersion; // Version at last call to resetOntologyChanged
+
+	private final List<OWLOntologyChange> deferredChanges; // Additions deferred during bulk conversion; guarded by itself
+	private int bulkConversionDepth; // Guarded by deferredChanges
+	private volatile int bulkConversionChunkSize;
+	private final Object addOWLAxiomLock; // Serializes the application of changes made by addOWLAxiom
+
+	private final ImportedOntologyChangeListener importedOntologyChangeListener;
+	private volatile boolean isImportedOntologyChangeListenerRegistered; // Changes guarded by the listener
+	private boolean isDisposed; // Guarded by the listener
+
 	public DefaultSWRLAPIOWLOntology(OWLOntologyManager manager, OWLOntologyID ontologyID,
 			SWRLAPIOWLDataFactory swrlapiOWLDataFactory)
 	{
 		super(manager, ontologyID);
 
 		this.swrlapiOWLDataFactory = swrlapiOWLDataFactory;
+		this.journal = new OWLAxiomChangeJournal(this);
+		this.resetVersion = 0;
+		this.deferredChanges = new ArrayList<OWLOntologyChange>();
+		this.bulkConversionDepth = 0;
+		this.bulkConversionChunkSize = DefaultBulkConversionChunkSize;
+		this.addOWLAxiomLock = new Object();
+		this.importedOntologyChangeListener = new ImportedOntologyChangeListener();
+		this.isImportedOntologyChangeListenerRegistered = false;
+		this.isDisposed = false;
 	}
 
 	@Override
 	public void startBulkConversion()
 	{
-		throw new RuntimeException("Not implemented");
+		synchronized (this.deferredChanges) {
+			this.bulkConversionDepth++;
+		}
 	}
 
 	@Override
 	public void completeBulkConversion()
 	{
-		throw new RuntimeException("Not implemented");
+		List<OWLOntologyChange> changes = null;
+
+		synchronized (this.deferredChanges) {
+			if (this.bulkConversionDepth > 0 && --this.bulkConversionDepth == 0)
+				changes = takeDeferredChanges();
+		}
+		applyDeferredChanges(changes);
 	}
 
 	@Override
 	public boolean hasOntologyChanged()
 	{
-		throw new RuntimeException("Not implemented");
+		return hasOntologyChangedSince(this.resetVersion);
 	}
 
 	@Override
 	public void resetOntologyChanged()
 	{
-		throw new RuntimeException("Not implemented");
+		this.resetVersion = getOntologyVersion();
+	}
+
+	@Override
+	public void addOWLAxiom(OWLAxiom axiom)
+	{
+		AddAxiom change = new AddAxiom(this, axiom);
+
+		if (!deferChange(change)) {
+			synchronized (this.addOWLAxiomLock) {
+				getOWLOntologyManager().applyChange(change);
+			}
+		}
+	}
+
+	@Override
+	public void dispose()
+	{
+		synchronized (this.importedOntologyChangeListener) {
+			if (this.isImportedOntologyChangeListenerRegistered)
+				getOWLOntologyManager().removeOntologyChangeListener(this.importedOntologyChangeListener);
+			this.isImportedOntologyChangeListenerRegistered = false;
+			this.isDisposed = true;
+		}
+	}
+
+	@Override
+	public void setBulkConversionChunkSize(int chunkSize)
+	{
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("bulk conversion chunk size must be positive; got " + chunkSize);
+
+		this.bulkConversionChunkSize = chunkSize;
+	}
+
+	@Override
+	public int getBulkConversionChunkSize()
+	{
+		return this.bulkConversionChunkSize;
+	}
+
+	@Override
+	public long getOntologyVersion()
+	{
+		registerImportedOntologyChangeListener();
+
+		return this.journal.getVersion();
+	}
+
+	@Override
+	public boolean hasOntologyChangedSince(long version)
+	{
+		return getOntologyVersion() > version;
+	}
+
+	@Override
+	public OWLAxiomChangeCursor openOWLAxiomChangeCursor()
+	{
+		registerImportedOntologyChangeListener();
+
+		return this.journal.openCursor();
+	}
+
+	@Override
+	public List<OWLOntologyChange> applyChange(OWLOntologyChange change)
+	{
+		List<OWLOntologyChange> appliedChanges = super.applyChange(change);
+		journalOWLOntologyChanges(appliedChanges);
+		return appliedChanges;
+	}
+
+	@Override
+	public List<OWLOntologyChange> applyChanges(List<OWLOntologyChange> changes)
+	{
+		List<OWLOntologyChange> appliedChanges = super.applyChanges(changes);
+		journalOWLOntologyChanges(appliedChanges);
+		return appliedChanges;
 	}
 
 	@Override
@@ -294,6 +409,75 @@ public class DefaultSWRLAPIOWLOntology extends OWLOntologyImpl implements SWRLAP
 		return datatype.getIRI().equals(OWL2Datatype.XSD_ANY_URI.getIRI());
 	}
 
+	/**
+	 * Defer a change if a bulk conversion is in progress, applying the deferred changes once a chunk is full. Returns
+	 * false if no bulk conversion is in progress.
+	 */
+	private boolean deferChange(OWLOntologyChange change)
+	{
+		List<OWLOntologyChange> changes = null;
+
+		synchronized (this.deferredChanges) {
+			if (this.bulkConversionDepth == 0)
+				return false;
+
+			this.deferredChanges.add(change);
+			if (this.deferredChanges.size() >= this.bulkConversionChunkSize)
+				changes = takeDeferredChanges();
+		}
+		applyDeferredChanges(changes);
+
+		return true;
+	}
+
+	private List<OWLOntologyChange> takeDeferredChanges()
+	{
+		List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>(this.deferredChanges);
+
+		this.deferredChanges.clear();
+
+		return changes;
+	}
+
+	/**
+	 * Deferred changes are applied without holding their lock because the manager notifies listeners, which may add
+	 * axioms in turn. OWLAPI ontologies are not thread-safe, so chunks from different threads are applied one at a time.
+	 */
+	private void applyDeferredChanges(List<OWLOntologyChange> changes)
+	{
+		if (changes != null && !changes.isEmpty()) {
+			synchronized (this.addOWLAxiomLock) {
+				getOWLOntologyManager().applyChanges(changes); // Single batch, so listeners are notified once per chunk
+			}
+		}
+	}
+
+	/**
+	 * The listener is registered when the version is first observed rather than in the constructor, so that the manager
+	 * never refers to a partly constructed ontology. It is not registered again once the ontology has been disposed.
+	 */
+	private void registerImportedOntologyChangeListener()
+	{
+		if (!this.isImportedOntologyChangeListenerRegistered) {
+			synchronized (this.importedOntologyChangeListener) {
+				if (!this.isImportedOntologyChangeListenerRegistered && !this.isDisposed) {
+					getOWLOntologyManager().addOntologyChangeListener(this.importedOntologyChangeListener);
+					this.isImportedOntologyChangeListenerRegistered = true;
+				}
+			}
+		}
+	}
+
+	private void journalOWLOntologyChanges(List<OWLOntologyChange> appliedChanges)
+	{
+		for (OWLOntologyChange change : appliedChanges) {
+			if (change.isAxiomChange())
+				this.journal.recordAxiomChange(change.getAxiom(), change.isAddAxiom());
+			else
+				this.journal.recordUnjournaledChange();
+		}
+	}
+
 	private SWRLAPIOWLDataFactory getSWRLAPIOWLDataFactory()
 	{
 		return this.swrlapiOWLDataFactory;
@@ -303,4 +487,27 @@ public class DefaultSWRLAPIOWLOntology extends OWLOntologyImpl implements SWRLAP
 	{
 		return getSWRLAPIOWLDataFactory().getSWRLBuiltInArgumentFactory();
 	}
+
+	/**
+	 * Advances the version of the ontology when an ontology it imports changes. The imports closure is computed at most
+	 * once per batch of changes.
+	 */
+	private class ImportedOntologyChangeListener implements OWLOntologyChangeListener
+	{
+		@Override
+		public void ontologiesChanged(List<? extends OWLOntologyChange> changes)
+		{
+			Set<OWLOntology> importsClosure = null;
+
+			for (OWLOntologyChange change : changes) {
+				if (change.getOntology() != DefaultSWRLAPIOWLOntology.this) { // Changes to this ontology are journaled
+					if (importsClosure == null)
+						importsClosure = getOWLOntologyManager().contains(getOntologyID()) ? getImportsClosure() : Collections
+								.<OWLOntology> emptySet(); // Imports are resolved only once the ontology is managed
+					if (importsClosure.contains(change.getOntology()))
+						DefaultSWRLAPIOWLOntology.this.journal.recordUnjournaledChange();
+				}
+			}
+		}
+	}
 }
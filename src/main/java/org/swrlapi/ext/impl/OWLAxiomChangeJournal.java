@@ -0,0 +1,209 @@
+package org.swrlapi.ext.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+import org.swrlapi.ext.OWLAxiomChangeCursor;
+
+/**
+ * The change journal of a {@link DefaultSWRLAPIOWLOntology}.
+ * <p>
+ * Every change advances the version of the ontology. While at least one cursor is open, axiom additions and removals
+ * are recorded in parallel arrays of axioms, versions, and addition flags. Entries are discarded once every open cursor
+ * has moved past them. Changes that are not journaled advance the version only, so a cursor can detect that the
+ * journal does not describe all changes since its version.
+ * <p>
+ * The journal is guarded by its own lock, so changes may be recorded while consumers on other threads read and move
+ * their cursors. The current version can be read without locking.
+ */
+class OWLAxiomChangeJournal
+{
+	private static final int InitialCapacity = 64;
+
+	private final OWLOntology ontology;
+	private final List<Cursor> openCursors;
+
+	private OWLAxiom[] axioms;
+	private long[] versions; // Strictly increasing but not contiguous because some changes are not journaled
+	private boolean[] additions; // True means addition; false means removal
+	private int start, end; // Entries in use are in [start, end)
+	private volatile long version;
+
+	public OWLAxiomChangeJournal(OWLOntology ontology)
+	{
+		this.ontology = ontology;
+		this.openCursors = new ArrayList<Cursor>();
+		this.axioms = new OWLAxiom[InitialCapacity];
+		this.versions = new long[InitialCapacity];
+		this.additions = new boolean[InitialCapacity];
+		this.start = this.end = 0;
+		this.version = 0;
+	}
+
+	public long getVersion()
+	{
+		return this.version;
+	}
+
+	/**
+	 * Returns the number of changes retained for open cursors.
+	 */
+	public synchronized int getNumberOfEntries()
+	{
+		return this.end - this.start;
+	}
+
+	public synchronized void recordAxiomChange(OWLAxiom axiom, boolean isAddition)
+	{
+		long newVersion = this.version + 1;
+
+		if (!this.openCursors.isEmpty()) {
+			if (this.end == this.axioms.length)
+				makeRoom();
+			this.axioms[this.end] = axiom;
+			this.versions[this.end] = newVersion;
+			this.additions[this.end] = isAddition;
+			this.end++;
+		}
+		this.version = newVersion;
+	}
+
+	public synchronized void recordUnjournaledChange()
+	{
+		this.version++;
+	}
+
+	public synchronized OWLAxiomChangeCursor openCursor()
+	{
+		Cursor cursor = new Cursor(this.version);
+
+		this.openCursors.add(cursor);
+
+		return cursor;
+	}
+
+	/**
+	 * Compact the entries in use to the front of the arrays, growing them if more than half of their capacity is in use.
+	 */
+	private void makeRoom()
+	{
+		int size = this.end - this.start;
+		int capacity = size * 2 > this.axioms.length ? this.axioms.length * 2 : this.axioms.length;
+		OWLAxiom[] newAxioms = new OWLAxiom[capacity];
+		long[] newVersions = new long[capacity];
+		boolean[] newAdditions = new boolean[capacity];
+
+		System.arraycopy(this.axioms, this.start, newAxioms, 0, size);
+		System.arraycopy(this.versions, this.start, newVersions, 0, size);
+		System.arraycopy(this.additions, this.start, newAdditions, 0, size);
+
+		this.axioms = newAxioms;
+		this.versions = newVersions;
+		this.additions = newAdditions;
+		this.start = 0;
+		this.end = size;
+	}
+
+	/**
+	 * Discard the entries that are not after the version of any open cursor.
+	 */
+	private void discardUnneededEntries()
+	{
+		int newStart = this.end;
+
+		for (Cursor cursor : this.openCursors)
+			newStart = Math.min(newStart, findFirstEntryAfter(cursor.version));
+
+		Arrays.fill(this.axioms, this.start, newStart, null);
+		if (newStart == this.end)
+			this.start = this.end = 0;
+		else
+			this.start = newStart;
+	}
+
+	/**
+	 * Binary search for the first entry with a version greater than the supplied version.
+	 */
+	private int findFirstEntryAfter(long version)
+	{
+		int low = this.start, high = this.end;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.versions[middle] <= version)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	private class Cursor implements OWLAxiomChangeCursor
+	{
+		private long version; // Guarded by the journal
+
+		public Cursor(long version)
+		{
+			this.version = version;
+		}
+
+		@Override
+		public long getVersion()
+		{
+			synchronized (OWLAxiomChangeJournal.this) {
+				return this.version;
+			}
+		}
+
+		@Override
+		public List<OWLOntologyChange> getOWLAxiomChanges()
+		{
+			synchronized (OWLAxiomChangeJournal.this) {
+				int first = findFirstEntryAfter(this.version);
+
+				if (OWLAxiomChangeJournal.this.end - first != OWLAxiomChangeJournal.this.version - this.version)
+					return null;
+
+				List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>(OWLAxiomChangeJournal.this.end - first);
+				for (int i = first; i < OWLAxiomChangeJournal.this.end; i++) {
+					OWLAxiom axiom = OWLAxiomChangeJournal.this.axioms[i];
+					if (OWLAxiomChangeJournal.this.additions[i])
+						changes.add(new AddAxiom(OWLAxiomChangeJournal.this.ontology, axiom));
+					else
+						changes.add(new RemoveAxiom(OWLAxiomChangeJournal.this.ontology, axiom));
+				}
+				return changes;
+			}
+		}
+
+		@Override
+		public void moveTo(long version)
+		{
+			synchronized (OWLAxiomChangeJournal.this) {
+				if (!OWLAxiomChangeJournal.this.openCursors.contains(this))
+					throw new IllegalStateException("cursor is closed");
+				if (version < this.version || version > OWLAxiomChangeJournal.this.version)
+					throw new IllegalArgumentException("cannot move cursor from version " + this.version + " to version "
+							+ version + "; current version is " + OWLAxiomChangeJournal.this.version);
+
+				this.version = version;
+				discardUnneededEntries();
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			synchronized (OWLAxiomChangeJournal.this) {
+				if (OWLAxiomChangeJournal.this.openCursors.remove(this))
+					discardUnneededEntries();
+			}
+		}
+	}
+}
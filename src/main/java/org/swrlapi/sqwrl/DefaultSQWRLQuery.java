@@ -41,6 +41,7 @@ public class DefaultSQWRLQuery implements SQWRLQuery
 		this.headAtoms = headAtoms;
 		this.swrlapiOWLDataFactory = swrlapiOWLDataFactory;
 		this.sqwrlResult = new DefaultSQWRLResult(swrlapiOWLDataFactory.getSQWRLResultValueFactory());
+		this.sqwrlResult.setIsDistinctOnAdd(true);
 		this.collectionGroupArgumentsMap = new HashMap<String, List<SWRLBuiltInArgument>>();
 		this.active = false;
 
@@ -1,13 +1,16 @@
 package org.swrlapi.sqwrl;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.swrlapi.sqwrl.exceptions.SQWRLException;
@@ -97,6 +100,8 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 {
 	private static final long serialVersionUID = -2945270777360073492L;
 
+	public static final int NoExternalSort = 0;
+
 	private final SQWRLResultValueFactory sqwrlResultValueFactory;
 
 	private final List<String> allColumnNames, columnDisplayNames;
@@ -104,10 +109,19 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 	private final Map<Integer, String> aggregateColumnIndexes; // Map of (index, function) pairs
 	private List<List<SQWRLResultValue>> rows; // List of List of SQWRLResultValue objects.
 	private List<SQWRLResultValue> rowData; // List of SQWRLResultValue objects used when assembling a row.
-	private Map<String, List<SQWRLResultValue>> columnValuesMap; // Column name -> List<SWRLAPILiteral>
+	private List<SQWRLResultColumn> columns; // Columns of the prepared result; rows are then a view of these
+	private transient Set<RowKey> distinctRowKeys; // Keys of rows added so far; used only when distinct on add
+	private transient TopRowSelector topRowSelector; // Holds the rows that can reach the output; may drop rows on add
+	private transient RowAggregator rowAggregator; // Aggregates rows as they are added; used only with aggregates
+	private transient SQWRLResultCursor cursor; // Receives the rows as they are added when the result is streamed
+	private transient SQWRLResultRowSorter rowSorter; // Sorts the rows as they are added when sorting externally
+	private int externalSortThreshold = NoExternalSort;
+	private File externalSortDirectory;
+	private int numberOfStreamedRows;
 
 	private int numberOfColumns, currentRowIndex, currentRowDataColumnIndex;
-	private boolean isConfigured, isPrepared, isRowOpen, isOrdered, isAscending, isDistinct, hasAggregates;
+	private boolean isConfigured, isPrepared, isRowOpen, isOrdered, isAscending, isDistinct, isDistinctOnAdd,
+			hasAggregates;
 	private int limit = -1, nth = -1, firstN = -1, lastN = -1, sliceSize = -1;
 	private boolean notNthSelection = false, firstSelection = false, lastSelection = false, notFirstSelection = false,
 			notLastSelection = false, nthSliceSelection = false, notNthSliceSelection = false, nthLastSliceSelection = false,
@@ -136,6 +150,30 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		this.rows = new ArrayList<List<SQWRLResultValue>>();
 	}
 
+	/**
+	 * Create a prepared result from existing columns; used by {@link SQWRLResultSerializer} and {@link #createSnapshot}.
+	 * The column names are the internal names, which are shown unless replaced by display names.
+	 */
+	DefaultSQWRLResult(SQWRLResultValueFactory sqwrlResultValueFactory, List<String> columnNames,
+			List<String> columnDisplayNames, List<Integer> orderByColumnIndexes, boolean ascending,
+			List<SQWRLResultColumn> columns, int numberOfRows) throws SQWRLException
+	{
+		this(sqwrlResultValueFactory);
+
+		addColumns(columnNames);
+		for (String columnDisplayName : columnDisplayNames)
+			addColumnDisplayName(columnDisplayName);
+		for (Integer orderByColumnIndex : orderByColumnIndexes)
+			addOrderByColumn(orderByColumnIndex, ascending);
+		configured();
+
+		this.columns = columns;
+		this.rows = SQWRLResultColumn.asRows(columns, numberOfRows);
+		this.isPrepared = true;
+		if (numberOfRows > 0)
+			this.currentRowIndex = 0;
+	}
+
 	// Configuration phase methods
 
 	@Override
@@ -155,6 +193,11 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		return this.isDistinct;
 	}
 
+	public boolean isDistinctOnAdd()
+	{
+		return this.isDistinctOnAdd;
+	}
+
 	@Override
 	public boolean isPrepared()
 	{
@@ -245,6 +288,8 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 			throw new SQWRLInvalidQueryException("aggregate columns cannot also be selected columns");
 
 		this.hasAggregates = !this.aggregateColumnIndexes.isEmpty();
+		if (this.hasAggregates)
+			this.rowAggregator = createRowAggregator();
 
 		this.isConfigured = true;
 	}
@@ -257,6 +302,15 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		this.isDistinct = true;
 	}
 
+	/**
+	 * If set, duplicate rows in a distinct result without aggregates are discarded as they are closed rather than when
+	 * the result is prepared, so that they are never stored.
+	 */
+	public void setIsDistinctOnAdd(boolean isDistinctOnAdd)
+	{
+		this.isDistinctOnAdd = isDistinctOnAdd;
+	}
+
 	@Override
 	public int getNumberOfColumns() throws SQWRLException
 	{
@@ -335,7 +389,7 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 				&& (!this.aggregateColumnIndexes.get(Integer.valueOf(this.currentRowDataColumnIndex)).equals(
 						SQWRLResultNames.CountDistinctAggregateFunction)) && (!isNumericValue(value)))
 			throw new SQWRLException("attempt to add non numeric value " + value
-					+ " to min, max, sum, or avg aggregate column " + this.allColumnNames.get(this.currentRowDataColumnIndex));
+					+ " to min, max, sum, avg, or median aggregate column " + this.allColumnNames.get(this.currentRowDataColumnIndex));
 		this.rowData.add(value);
 		this.currentRowDataColumnIndex++;
 
@@ -349,8 +403,30 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		throwExceptionIfNotConfigured();
 		throwExceptionIfAlreadyPrepared();
 
-		if (this.isRowOpen)
-			this.rows.add(this.rowData);
+		if (this.isRowOpen && this.cursor != null) {
+			if (this.isOrdered) { // Rows are sorted externally and passed to the cursor when the result is prepared
+				if (this.rowSorter == null)
+					this.rowSorter = createRowSorter();
+				this.rowSorter.add(this.rowData);
+			} else
+				streamRow(this.rowData);
+		} else if (this.isRowOpen && this.hasAggregates)
+			this.rowAggregator.add(this.rowData);
+		else if (this.isRowOpen && !isDuplicateRow(this.rowData)) {
+			if (this.topRowSelector == null && this.rowSorter == null && this.rows.isEmpty() && !this.isDistinct) {
+				if (getTopRowCount() != -1)
+					this.topRowSelector = createTopRowSelector();
+				else if (this.isOrdered && this.externalSortThreshold != NoExternalSort)
+					this.rowSorter = createRowSorter();
+			}
+
+			if (this.topRowSelector != null)
+				this.topRowSelector.add(this.rowData);
+			else if (this.rowSorter != null)
+				this.rowSorter.add(this.rowData);
+			else
+				this.rows.add(this.rowData);
+		}
 
 		this.isRowOpen = false;
 	}
@@ -364,25 +440,123 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		if (this.currentRowDataColumnIndex != 0)
 			throwExceptionIfRowOpen(); // We allow prepared() with an open row if no data have been added.
 
+		if (this.topRowSelector != null) { // Rows that could not reach the output have been dropped as they were added
+			if (this.topRowSelector.hasDiscardedRows()
+					&& (this.isDistinct || !this.topRowSelector.hasSameSelection(createTopRowSelector())))
+				throw new SQWRLResultStateException("distinct or selection operator set after rows were discarded");
+			this.rows = this.topRowSelector.getRows();
+			this.topRowSelector = null;
+		}
+
+		if (this.hasAggregates) { // Rows have been aggregated as they were added; aggregation implies killing duplicates
+			this.rows = this.rowAggregator.getRows();
+			this.rowAggregator = null;
+		}
+
+		if (this.cursor != null) { // Rows have been passed to the cursor rather than stored
+			if (this.rowSorter != null)
+				streamSortedRows();
+			this.cursor.complete();
+			this.cursor = null;
+		}
+
 		this.isPrepared = true;
 		this.isRowOpen = false;
 		this.currentRowDataColumnIndex = 0;
+
+		if (this.rowSorter != null && !this.isDistinct && !hasSelectionOperators())
+			prepareColumns(this.rowSorter); // Merge the sorted rows straight into the columns
+		else {
+			if (this.rowSorter != null) // Distinct or a selection operator was set after rows were added
+				this.rows = toList(this.rowSorter);
+
+			if (!this.hasAggregates && this.isDistinct
+					&& !(this.distinctRowKeys != null && this.distinctRowKeys.size() == this.rows.size()))
+				this.rows = distinct(this.rows); // Not all rows were checked for duplicates as they were added
+			this.distinctRowKeys = null;
+
+			if (getTopRowCount() != -1) // Only the leading or trailing rows of the ordered result are selected
+				this.rows = selectTopRows(this.rows);
+			else if (this.isOrdered)
+				this.rows = orderBy(this.rows, this.isAscending);
+
+			this.rows = processSelectionOperators(this.rows);
+
+			prepareColumns(this.rows);
+		}
+		this.rowSorter = null;
+
 		if (getNumberOfRows() > 0)
 			this.currentRowIndex = 0;
 		else
 			this.currentRowIndex = -1;
+	}
 
-		if (this.hasAggregates)
-			this.rows = aggregate(this.rows); // Aggregation implies killing duplicate rows
-		else if (this.isDistinct)
-			this.rows = distinct(this.rows);
+	/**
+	 * Sort ordered results with an external merge sort once they have more than the given number of rows: rows are
+	 * then written in sorted runs to temporary files (see {@link #setExternalSortDirectory}) and merged as the result is
+	 * prepared. {@link #NoExternalSort} (the default) sorts in memory. External sorting is not used for results with
+	 * aggregates, distinct, or selection operators, which do not keep all their rows. Ordered results that are
+	 * streamed to a cursor (see {@link #openCursor}) must be sorted externally; the merged rows are then passed to the
+	 * cursor one at a time rather than held in the result.
+	 */
+	@Override
+	public void setExternalSortThreshold(int numberOfRows)
+	{
+		if (numberOfRows < 0)
+			throw new IllegalArgumentException("external sort threshold must not be negative: " + numberOfRows);
+
+		this.externalSortThreshold = numberOfRows;
+	}
+
+	public int getExternalSortThreshold()
+	{
+		return this.externalSortThreshold;
+	}
+
+	@Override
+	public void setExternalSortDirectory(File directory)
+	{
+		this.externalSortDirectory = directory;
+	}
 
-		if (this.isOrdered)
-			this.rows = orderBy(this.rows, this.isAscending);
+	public File getExternalSortDirectory()
+	{
+		return this.externalSortDirectory;
+	}
+
+	/**
+	 * Stream the rows of this result to a cursor as they are added rather than storing them. Streaming is only possible
+	 * for results without aggregation or distinct, and with no selection operator other than limit; it must be started
+	 * before any rows are added. Ordered results can only be streamed if they are sorted externally (see {@link
+	 * #setExternalSortThreshold}): their rows are passed to the cursor, in order, when {@link #prepared} is called.
+	 * Otherwise the producer blocks in {@link #closeRow} (and hence {@link #addRow}) while the cursor's queue is full.
+	 * The cursor reaches its end when {@link #prepared} is called; the prepared result itself has no rows.
+	 */
+	@Override
+	public SQWRLResultCursor openCursor(int queueCapacity) throws SQWRLException
+	{
+		throwExceptionIfNotConfigured();
+		throwExceptionIfAlreadyPrepared();
+
+		if (this.cursor != null)
+			throw new SQWRLResultStateException("result is already being streamed");
 
-		this.rows = processSelectionOperators(this.rows);
+		if (!this.rows.isEmpty() || this.topRowSelector != null || this.rowSorter != null)
+			throw new SQWRLResultStateException("attempt to stream result after rows have been added");
 
-		prepareColumnVectors();
+		if ((this.isOrdered && this.externalSortThreshold == NoExternalSort) || this.hasAggregates || this.isDistinct
+				|| (!hasLimit() && getTopRowCount() != -1)
+				|| hasNth() || hasNotNth() || hasFirstSelection() || hasLastSelection() || hasNotFirstSelection()
+				|| hasNotLastSelection() || hasNthSliceSelection() || hasNotNthSliceSelection() || hasNthLastSliceSelection()
+				|| hasNotNthLastSliceSelection())
+			throw new SQWRLInvalidQueryException("only results without aggregation, distinct, or selection operators "
+					+ "other than limit, and that are not ordered unless sorted externally, can be streamed");
+
+		this.cursor = new SQWRLResultCursor(getColumnNames(), queueCapacity);
+		this.numberOfStreamedRows = 0;
+
+		return this.cursor;
 	}
 
 	// Methods used to retrieve data after result has been prepared
@@ -396,6 +570,48 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		return this.rows.size();
 	}
 
+	/**
+	 * Create a prepared result that shares this result's columns, which are not modified once prepared, but has its own
+	 * iteration state; used by {@link SQWRLQueryExecutor}.
+	 */
+	DefaultSQWRLResult createSnapshot() throws SQWRLException
+	{
+		throwExceptionIfNotConfigured();
+		throwExceptionIfNotPrepared();
+
+		return new DefaultSQWRLResult(getSQWRLResultValueFactory(), this.allColumnNames, this.columnDisplayNames,
+				this.orderByColumnIndexes, this.isAscending, this.columns, this.rows.size());
+	}
+
+	/**
+	 * Get the internal column names, which are used to look up columns by name; used by {@link SQWRLResultSerializer}.
+	 */
+	List<String> getInternalColumnNames()
+	{
+		return Collections.unmodifiableList(this.allColumnNames);
+	}
+
+	List<String> getColumnDisplayNames()
+	{
+		return Collections.unmodifiableList(this.columnDisplayNames);
+	}
+
+	List<Integer> getOrderByColumnIndexes()
+	{
+		return Collections.unmodifiableList(this.orderByColumnIndexes);
+	}
+
+	/**
+	 * Get the columns of the prepared result; used by {@link SQWRLResultSerializer}.
+	 */
+	List<SQWRLResultColumn> getColumns() throws SQWRLException
+	{
+		throwExceptionIfNotConfigured();
+		throwExceptionIfNotPrepared();
+
+		return this.columns;
+	}
+
 	@Override
 	public boolean isEmpty() throws SQWRLException
 	{
@@ -445,7 +661,6 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 	@Override
 	public SQWRLResultValue getValue(String columnName) throws SQWRLException
 	{
-		List<SQWRLResultValue> row;
 		int columnIndex;
 
 		throwExceptionIfNotConfigured();
@@ -456,25 +671,19 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 
 		columnIndex = this.allColumnNames.indexOf(columnName);
 
-		row = this.rows.get(this.currentRowIndex);
-
-		return row.get(columnIndex);
+		return this.columns.get(columnIndex).getValue(this.currentRowIndex);
 	}
 
 	@Override
 	public SQWRLResultValue getValue(int columnIndex) throws SQWRLException
 	{
-		List<SQWRLResultValue> row;
-
 		throwExceptionIfNotConfigured();
 		throwExceptionIfNotPrepared();
 		throwExceptionIfAtEndOfResult();
 
 		checkColumnIndex(columnIndex);
 
-		row = this.rows.get(this.currentRowIndex);
-
-		return row.get(columnIndex);
+		return this.columns.get(columnIndex).getValue(this.currentRowIndex);
 	}
 
 	@Override
@@ -487,7 +696,7 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		checkColumnIndex(columnIndex);
 		checkRowIndex(rowIndex);
 
-		return this.rows.get(rowIndex).get(columnIndex);
+		return this.columns.get(columnIndex).getValue(rowIndex);
 	}
 
 	@Override
@@ -554,13 +763,18 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 
 		checkColumnName(columnName);
 
-		return this.columnValuesMap.get(columnName);
+		return this.columns.get(this.allColumnNames.indexOf(columnName)).asList();
 	}
 
 	@Override
 	public List<SQWRLResultValue> getColumn(int columnIndex) throws SQWRLException
 	{
-		return getColumn(getColumnName(columnIndex));
+		throwExceptionIfNotConfigured();
+		throwExceptionIfNotPrepared();
+
+		checkColumnIndex(columnIndex);
+
+		return this.columns.get(columnIndex).asList();
 	}
 
 	@Override
@@ -831,6 +1045,13 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		this.sliceSize = sliceSize;
 	}
 
+	private boolean hasSelectionOperators()
+	{
+		return hasLimit() || hasNth() || hasNotNth() || hasFirstSelection() || hasLastSelection()
+				|| hasNotFirstSelection() || hasNotLastSelection() || hasNthSliceSelection() || hasNotNthSliceSelection()
+				|| hasNthLastSliceSelection() || hasNotNthLastSliceSelection();
+	}
+
 	private boolean hasLimit()
 	{
 		return this.limit != -1;
@@ -886,23 +1107,150 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		return this.notNthLastSliceSelection;
 	}
 
-	private void prepareColumnVectors() throws SQWRLException
+	/**
+	 * Get the number of leading (or, for last selection, trailing) rows of the ordered result from which the selection
+	 * operators take their rows, or -1 if the selection operators need the full result. The ordered result can be
+	 * reduced to these rows before the selection operators are applied.
+	 */
+	private int getTopRowCount()
+	{
+		if (hasLimit())
+			return this.limit < 0 ? -1 : this.limit;
+
+		if (!this.isOrdered || hasNotNth() || hasNotFirstSelection() || hasNotLastSelection()
+				|| hasNotNthSliceSelection() || hasNthLastSliceSelection() || hasNotNthLastSliceSelection())
+			return -1;
+
+		if (hasNth() && !hasFirstSelection() && !hasLastSelection() && !hasNthSliceSelection())
+			return this.nth < 1 ? 1 : this.nth;
+		else if (hasFirstSelection() && !hasNth() && !hasLastSelection() && !hasNthSliceSelection())
+			return this.firstN < 1 ? 1 : this.firstN;
+		else if (hasLastSelection() && !hasNth() && !hasFirstSelection() && !hasNthSliceSelection())
+			return this.lastN < 1 ? 1 : this.lastN;
+		else if (hasNthSliceSelection() && !hasNth() && !hasFirstSelection() && !hasLastSelection() && this.sliceSize > 0)
+			return (this.firstN < 1 ? 1 : this.firstN) + this.sliceSize - 1;
+		else
+			return -1;
+	}
+
+	private TopRowSelector createTopRowSelector()
+	{
+		boolean fromEnd = !hasLimit() && hasLastSelection();
+
+		return new TopRowSelector(new RowComparator(this.allColumnNames, this.orderByColumnIndexes, this.isAscending),
+				getTopRowCount(), fromEnd);
+	}
+
+	private List<List<SQWRLResultValue>> selectTopRows(List<List<SQWRLResultValue>> sourceRows)
+	{
+		TopRowSelector selector = createTopRowSelector();
+
+		for (List<SQWRLResultValue> row : sourceRows)
+			selector.add(row);
+
+		return selector.getRows();
+	}
+
+	/**
+	 * Store the prepared rows column by column and replace them with a row view of the columns.
+	 */
+	private void prepareColumns(List<List<SQWRLResultValue>> sourceRows) throws SQWRLException
+	{
+		SQWRLResultColumn.Builder[] columnBuilders = createColumnBuilders();
+
+		for (List<SQWRLResultValue> row : sourceRows)
+			for (int c = 0; c < columnBuilders.length; c++)
+				columnBuilders[c].add(row.get(c));
+
+		buildColumns(columnBuilders, sourceRows.size());
+	}
+
+	private void prepareColumns(SQWRLResultRowSorter rowSorter) throws SQWRLException
+	{
+		SQWRLResultColumn.Builder[] columnBuilders = createColumnBuilders();
+		List<SQWRLResultValue> row;
+		int numberOfRows = 0;
+
+		try {
+			SQWRLResultRowSorter.SortedRows sortedRows = rowSorter.getSortedRows();
+			while ((row = sortedRows.nextRow()) != null) {
+				for (int c = 0; c < columnBuilders.length; c++)
+					columnBuilders[c].add(row.get(c));
+				numberOfRows++;
+			}
+		} finally {
+			rowSorter.dispose();
+		}
+
+		buildColumns(columnBuilders, numberOfRows);
+	}
+
+	private SQWRLResultRowSorter createRowSorter()
+	{
+		return new SQWRLResultRowSorter(new RowComparator(this.allColumnNames, this.orderByColumnIndexes,
+				this.isAscending), getSQWRLResultValueFactory(), this.externalSortThreshold, this.externalSortDirectory);
+	}
+
+	private void streamRow(List<SQWRLResultValue> row) throws SQWRLException
+	{
+		if (!hasLimit() || this.numberOfStreamedRows < this.limit) {
+			this.cursor.addRow(row);
+			this.numberOfStreamedRows++;
+		}
+	}
+
+	/**
+	 * Pass the merged rows of an external sort to the cursor one at a time. The run files are deleted even if the
+	 * consumer closes the cursor before all rows have been read.
+	 */
+	private void streamSortedRows() throws SQWRLException
+	{
+		List<SQWRLResultValue> row;
+
+		try {
+			SQWRLResultRowSorter.SortedRows sortedRows = this.rowSorter.getSortedRows();
+			while ((!hasLimit() || this.numberOfStreamedRows < this.limit) && (row = sortedRows.nextRow()) != null)
+				streamRow(row);
+		} finally {
+			this.rowSorter.dispose();
+			this.rowSorter = null;
+		}
+	}
+
+	private SQWRLResultColumn.Builder[] createColumnBuilders() throws SQWRLException
+	{
+		SQWRLResultColumn.Builder[] columnBuilders = new SQWRLResultColumn.Builder[getNumberOfColumns()];
+
+		for (int c = 0; c < columnBuilders.length; c++)
+			columnBuilders[c] = new SQWRLResultColumn.Builder(getSQWRLResultValueFactory());
+
+		return columnBuilders;
+	}
+
+	private void buildColumns(SQWRLResultColumn.Builder[] columnBuilders, int numberOfRows)
 	{
-		this.columnValuesMap = new HashMap<String, List<SQWRLResultValue>>();
+		this.columns = new ArrayList<SQWRLResultColumn>(columnBuilders.length);
 
-		if (getNumberOfColumns() > 0) {
-			List<List<SQWRLResultValue>> columns = new ArrayList<List<SQWRLResultValue>>(getNumberOfColumns());
+		for (SQWRLResultColumn.Builder columnBuilder : columnBuilders)
+			this.columns.add(columnBuilder.build());
 
-			for (int c = 0; c < getNumberOfColumns(); c++)
-				columns.add(new ArrayList<SQWRLResultValue>(getNumberOfRows()));
+		this.rows = SQWRLResultColumn.asRows(this.columns, numberOfRows);
+	}
 
-			for (int r = 0; r < getNumberOfRows(); r++)
-				for (int c = 0; c < getNumberOfColumns(); c++)
-					columns.get(c).add(this.rows.get(r).get(c));
+	private static List<List<SQWRLResultValue>> toList(SQWRLResultRowSorter rowSorter) throws SQWRLException
+	{
+		List<List<SQWRLResultValue>> rows = new ArrayList<List<SQWRLResultValue>>();
+		List<SQWRLResultValue> row;
 
-			for (int c = 0; c < getNumberOfColumns(); c++)
-				this.columnValuesMap.put(getColumnName(c), columns.get(c));
+		try {
+			SQWRLResultRowSorter.SortedRows sortedRows = rowSorter.getSortedRows();
+			while ((row = sortedRows.nextRow()) != null)
+				rows.add(row);
+		} finally {
+			rowSorter.dispose();
 		}
+
+		return rows;
 	}
 
 	@Override
@@ -1006,89 +1354,61 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		return ((value instanceof SQWRLLiteralResultValue) && (((SQWRLLiteralResultValue)value).isNumeric()));
 	}
 
-	// TODO: fix - very inefficient
+	/**
+	 * Remove duplicate rows in a single pass, keeping the first occurrence of each row in its original position.
+	 */
 	private List<List<SQWRLResultValue>> distinct(List<List<SQWRLResultValue>> sourceRows)
 	{
-		List<List<SQWRLResultValue>> localRows = new ArrayList<List<SQWRLResultValue>>(sourceRows);
 		List<List<SQWRLResultValue>> processedRows = new ArrayList<List<SQWRLResultValue>>();
-		RowComparator rowComparator = new RowComparator(this.allColumnNames, true); // Look at the entire row.
+		Set<RowKey> rowKeys = new HashSet<RowKey>();
+		int[] columnIndexes = getAllColumnIndexes();
 
-		Collections.sort(localRows, rowComparator); // binary search is expecting a sorted list
-		for (List<SQWRLResultValue> row : localRows)
-			if (Collections.binarySearch(processedRows, row, rowComparator) < 0)
+		for (List<SQWRLResultValue> row : sourceRows)
+			if (rowKeys.add(new RowKey(row, columnIndexes)))
 				processedRows.add(row);
 
 		return processedRows;
 	}
 
-	private List<List<SQWRLResultValue>> aggregate(List<List<SQWRLResultValue>> sourceRows) throws SQWRLException
-	{
-		List<List<SQWRLResultValue>> result = new ArrayList<List<SQWRLResultValue>>();
-		RowComparator rowComparator = new RowComparator(this.allColumnNames, this.selectedColumnIndexes, true);
-		// Key is index of aggregated row in result, value is hash map of aggregate column index to list of original values.
-		HashMap<Integer, HashMap<Integer, List<SQWRLResultValue>>> aggregatesMap = new HashMap<Integer, HashMap<Integer, List<SQWRLResultValue>>>();
-		HashMap<Integer, List<SQWRLResultValue>> aggregateRowMap; // Map of column indexes to value lists; used to
-																															// accumulate
-		// values for aggregation.
-		List<SQWRLResultValue> values;
-		SQWRLResultValue value;
-		int rowIndex;
-
-		for (List<SQWRLResultValue> row : sourceRows) {
-			rowIndex = findRowIndex(result, row, rowComparator); // Find a row with the same values for non aggregated
-																														// columns.
-
-			if (rowIndex < 0) { // Row with same values for non aggregated columns not yet present in result.
-				aggregateRowMap = new HashMap<Integer, List<SQWRLResultValue>>();
-				// Find value for each aggregated column in row and add each to map indexed by result row
-				for (Integer aggregateColumnIndex : this.aggregateColumnIndexes.keySet()) {
-					values = new ArrayList<SQWRLResultValue>();
-					value = row.get(aggregateColumnIndex.intValue());
-					values.add(value);
-					aggregateRowMap.put(aggregateColumnIndex, values);
-				}
-				aggregatesMap.put(Integer.valueOf(result.size()), aggregateRowMap); //
-				result.add(row);
-			} else { // We found a row that has the same values for the non aggregated columns.
-				aggregateRowMap = aggregatesMap.get(Integer.valueOf(rowIndex)); // Find the aggregate map
-				for (Integer aggregateColumnIndex : this.aggregateColumnIndexes.keySet()) {
-					value = row.get(aggregateColumnIndex.intValue()); // Find value
-					values = aggregateRowMap.get(aggregateColumnIndex); // Find row map
-					values.add(value); // Add value
-				}
-			}
+	private boolean isDuplicateRow(List<SQWRLResultValue> row)
+	{
+		if (!this.isDistinctOnAdd || !this.isDistinct || this.hasAggregates || row.size() != this.numberOfColumns)
+			return false;
+
+		if (this.distinctRowKeys == null) {
+			if (!this.rows.isEmpty()) // Distinct was requested after rows were added; leave them to prepared()
+				return false;
+			this.distinctRowKeys = new HashSet<RowKey>();
 		}
 
-		rowIndex = 0;
-		for (List<SQWRLResultValue> row : result) {
-			aggregateRowMap = aggregatesMap.get(Integer.valueOf(rowIndex));
-
-			for (Integer aggregateColumnIndex : this.aggregateColumnIndexes.keySet()) {
-				String aggregateFunctionName = this.aggregateColumnIndexes.get(aggregateColumnIndex);
-				values = aggregateRowMap.get(aggregateColumnIndex);
-
-				// We have checked in addRowData that only numeric data are added for sum, max, min, and avg
-				if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.MinAggregateFunction))
-					value = min(values);
-				else if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.MaxAggregateFunction))
-					value = max(values);
-				else if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.SumAggregateFunction))
-					value = sum(values);
-				else if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.AvgAggregateFunction))
-					value = avg(values);
-				else if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.CountAggregateFunction))
-					value = count(values);
-				else if (aggregateFunctionName.equalsIgnoreCase(SQWRLResultNames.CountDistinctAggregateFunction))
-					value = countDistinct(values);
-				else
-					throw new SQWRLInvalidAggregateFunctionNameException("invalid aggregate function " + aggregateFunctionName);
+		return !this.distinctRowKeys.add(new RowKey(row, getAllColumnIndexes()));
+	}
 
-				row.set(aggregateColumnIndex.intValue(), value);
-			}
-			rowIndex++;
+	private int[] getAllColumnIndexes()
+	{
+		int[] columnIndexes = new int[this.numberOfColumns];
+
+		for (int i = 0; i < columnIndexes.length; i++)
+			columnIndexes[i] = i;
+
+		return columnIndexes;
+	}
+
+	private RowAggregator createRowAggregator() throws SQWRLException
+	{
+		int[] aggregateColumnIndexes = new int[this.aggregateColumnIndexes.size()];
+		AggregateFunction[] aggregateFunctions = new AggregateFunction[aggregateColumnIndexes.length];
+		int i = 0;
+
+		for (Integer aggregateColumnIndex : this.aggregateColumnIndexes.keySet()) {
+			aggregateColumnIndexes[i] = aggregateColumnIndex.intValue();
+			aggregateFunctions[i] = AggregateFunction.getAggregateFunction(this.aggregateColumnIndexes
+					.get(aggregateColumnIndex));
+			i++;
 		}
 
-		return result;
+		return new RowAggregator(toIntArray(this.selectedColumnIndexes), aggregateColumnIndexes, aggregateFunctions,
+				getSQWRLResultValueFactory());
 	}
 
 	private List<List<SQWRLResultValue>> orderBy(List<List<SQWRLResultValue>> sourceRows, boolean ascending)
@@ -1102,131 +1422,265 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		return result;
 	}
 
-	private SQWRLResultValue min(List<SQWRLResultValue> values) throws SQWRLException
+	private static int[] toIntArray(List<Integer> integers)
 	{
-		SQWRLResultValue result = null, value;
+		int[] result = new int[integers.size()];
 
-		if (values.isEmpty())
-			throw new SQWRLException("empty aggregate list for " + SQWRLResultNames.MinAggregateFunction);
+		for (int i = 0; i < result.length; i++)
+			result[i] = integers.get(i).intValue();
 
-		for (SQWRLResultValue SWRLAPILiteral : values) {
+		return result;
+	}
 
-			if (!(SWRLAPILiteral instanceof SQWRLResultValue))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.MinAggregateFunction
-						+ " aggregate on non datatype " + SWRLAPILiteral);
+	/**
+	 * The values of a subset of a row's columns, used as a hash key when grouping rows.
+	 */
+	private static class RowKey
+	{
+		private final List<SQWRLResultValue> row;
+		private final int[] columnIndexes;
+		private final int hashCode;
 
-			value = SWRLAPILiteral;
+		public RowKey(List<SQWRLResultValue> row, int[] columnIndexes)
+		{
+			int hash = 1;
 
-			if (!isNumericValue(value))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.MinAggregateFunction
-						+ " aggregate on non numeric datatype " + value);
+			this.row = row;
+			this.columnIndexes = columnIndexes;
 
-			if (result == null)
-				result = value;
-			else if (value.compareTo(result) < 0)
-				result = value;
+			for (int columnIndex : columnIndexes) {
+				SQWRLResultValue value = row.get(columnIndex);
+				hash = 31 * hash + (value == null ? 0 : value.hashCode());
+			}
+			this.hashCode = hash;
 		}
 
-		return result;
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof RowKey))
+				return false;
+			RowKey other = (RowKey)obj;
+			if (this.hashCode != other.hashCode || this.columnIndexes.length != other.columnIndexes.length)
+				return false;
+			for (int i = 0; i < this.columnIndexes.length; i++) {
+				SQWRLResultValue value = this.row.get(this.columnIndexes[i]);
+				SQWRLResultValue otherValue = other.row.get(other.columnIndexes[i]);
+				if (value == null ? otherValue != null : !value.equals(otherValue))
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
 	}
 
-	private SQWRLResultValue max(List<SQWRLResultValue> values) throws SQWRLException
+	/**
+	 * Groups rows by the values of their non aggregated columns using a hash map and computes the aggregates for each
+	 * group with streaming accumulators as rows are added, so that neither the added rows nor per-group value lists are
+	 * retained. The first row seen for each group is used as that group's result row; groups are returned in the order
+	 * in which they were first seen.
+	 */
+	private static class RowAggregator
 	{
-		SQWRLResultValue result = null, value;
-
-		if (values.isEmpty())
-			throw new SQWRLException("empty aggregate list for " + SQWRLResultNames.MaxAggregateFunction);
+		private final int[] groupColumnIndexes, aggregateColumnIndexes;
+		private final AggregateFunction[] aggregateFunctions;
+		private final SQWRLResultValueFactory factory;
+		private final List<List<SQWRLResultValue>> groupRows;
+		private final List<AggregateAccumulator[]> groupAccumulators;
+		private final Map<RowKey, Integer> groupIndexes;
 
-		for (SQWRLResultValue SWRLAPILiteral : values) {
+		public RowAggregator(int[] groupColumnIndexes, int[] aggregateColumnIndexes,
+				AggregateFunction[] aggregateFunctions, SQWRLResultValueFactory factory)
+		{
+			this.groupColumnIndexes = groupColumnIndexes;
+			this.aggregateColumnIndexes = aggregateColumnIndexes;
+			this.aggregateFunctions = aggregateFunctions;
+			this.factory = factory;
+			this.groupRows = new ArrayList<List<SQWRLResultValue>>();
+			this.groupAccumulators = new ArrayList<AggregateAccumulator[]>();
+			this.groupIndexes = new HashMap<RowKey, Integer>();
+		}
 
-			if (!(SWRLAPILiteral instanceof SQWRLResultValue))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.MaxAggregateFunction
-						+ " aggregate on non datatype " + SWRLAPILiteral);
+		public void add(List<SQWRLResultValue> row) throws SQWRLException
+		{
+			RowKey groupKey = new RowKey(row, this.groupColumnIndexes);
+			Integer groupIndex = this.groupIndexes.get(groupKey);
+			AggregateAccumulator[] accumulators;
+
+			if (groupIndex == null) { // Row with same values for non aggregated columns not yet seen
+				accumulators = new AggregateAccumulator[this.aggregateFunctions.length];
+				for (int i = 0; i < this.aggregateFunctions.length; i++)
+					accumulators[i] = new AggregateAccumulator(this.aggregateFunctions[i]);
+				this.groupIndexes.put(groupKey, Integer.valueOf(this.groupRows.size()));
+				this.groupAccumulators.add(accumulators);
+				this.groupRows.add(row);
+			} else
+				accumulators = this.groupAccumulators.get(groupIndex.intValue());
+
+			for (int i = 0; i < this.aggregateColumnIndexes.length; i++)
+				accumulators[i].accumulate(row.get(this.aggregateColumnIndexes[i]));
+		}
 
-			value = SWRLAPILiteral;
+		/**
+		 * Get one row per group with the aggregated values in its aggregate columns.
+		 */
+		public List<List<SQWRLResultValue>> getRows() throws SQWRLException
+		{
+			for (int rowIndex = 0; rowIndex < this.groupRows.size(); rowIndex++) {
+				List<SQWRLResultValue> row = this.groupRows.get(rowIndex);
+				AggregateAccumulator[] accumulators = this.groupAccumulators.get(rowIndex);
 
-			if (!isNumericValue(value))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.MaxAggregateFunction
-						+ " aggregate on non numeric datatype " + value);
+				for (int i = 0; i < this.aggregateColumnIndexes.length; i++)
+					row.set(this.aggregateColumnIndexes[i], accumulators[i].getValue(this.factory));
+			}
 
-			if (result == null)
-				result = value;
-			else if (value.compareTo(result) > 0)
-				result = value;
+			return this.groupRows;
 		}
-
-		return result;
 	}
 
-	private SQWRLResultValue sum(List<SQWRLResultValue> values) throws SQWRLException
+	private enum AggregateFunction
 	{
-		double sum = 0;
+		MIN(SQWRLResultNames.MinAggregateFunction), MAX(SQWRLResultNames.MaxAggregateFunction), SUM(
+				SQWRLResultNames.SumAggregateFunction), AVG(SQWRLResultNames.AvgAggregateFunction), MEDIAN(
+				SQWRLResultNames.MedianAggregateFunction), COUNT(SQWRLResultNames.CountAggregateFunction), COUNT_DISTINCT(
+				SQWRLResultNames.CountDistinctAggregateFunction);
 
-		if (values.isEmpty())
-			throw new SQWRLException("empty aggregate list for " + SQWRLResultNames.SumAggregateFunction);
+		private final String functionName;
 
-		for (SQWRLResultValue value : values) {
+		private AggregateFunction(String functionName)
+		{
+			this.functionName = functionName;
+		}
 
-			if (!isNumericValue(value))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.SumAggregateFunction
-						+ " aggregate on non numeric value: " + value);
+		public String getFunctionName()
+		{
+			return this.functionName;
+		}
 
-			double d = ((SQWRLLiteralResultValue)value).getDouble();
+		public static AggregateFunction getAggregateFunction(String functionName)
+				throws SQWRLInvalidAggregateFunctionNameException
+		{
+			for (AggregateFunction aggregateFunction : values())
+				if (aggregateFunction.getFunctionName().equalsIgnoreCase(functionName))
+					return aggregateFunction;
 
-			sum = sum + d;
+			throw new SQWRLInvalidAggregateFunctionNameException("invalid aggregate function " + functionName);
 		}
-
-		return getSQWRLResultValueFactory().getLiteral(sum);
 	}
 
-	private SQWRLResultValue avg(List<SQWRLResultValue> values) throws SQWRLException
+	/**
+	 * Accumulates the values of one aggregate column of one group. Only the running minimum, maximum, sum, count, and mean
+	 * are kept; the mean is updated incrementally using Welford's method. Only median and count distinct retain values:
+	 * median buffers the group's values in a primitive array that is sorted when the median is requested, and count
+	 * distinct holds them in a hash set.
+	 */
+	private static class AggregateAccumulator
 	{
-		double sum = 0;
-		int count = 0;
-
-		if (values.isEmpty())
-			throw new SQWRLException("empty aggregate list for function " + SQWRLResultNames.AvgAggregateFunction);
+		private static final int InitialMedianCapacity = 16;
 
-		for (SQWRLResultValue value : values) {
+		private final AggregateFunction aggregateFunction;
+		private final Set<SQWRLResultValue> distinctValues;
+		private SQWRLResultValue extremeValue;
+		private double sum, mean;
+		private double[] values; // Median only
+		private int count;
 
-			if (!isNumericValue(value))
-				throw new SQWRLException("attempt to use " + SQWRLResultNames.AvgAggregateFunction
-						+ " aggregate on non literal value " + value);
-
-			double d = ((SQWRLLiteralResultValue)value).getDouble();
+		public AggregateAccumulator(AggregateFunction aggregateFunction)
+		{
+			this.aggregateFunction = aggregateFunction;
+			this.distinctValues = aggregateFunction == AggregateFunction.COUNT_DISTINCT ? new HashSet<SQWRLResultValue>()
+					: null;
+			this.values = aggregateFunction == AggregateFunction.MEDIAN ? new double[InitialMedianCapacity] : null;
+		}
 
-			count++;
-			sum = sum + d;
+		public void accumulate(SQWRLResultValue value) throws SQWRLException
+		{
+			this.count++;
+
+			switch (this.aggregateFunction) {
+			case MIN:
+				if (this.extremeValue == null || getNumericValue(value).compareTo(this.extremeValue) < 0)
+					this.extremeValue = value;
+				break;
+			case MAX:
+				if (this.extremeValue == null || getNumericValue(value).compareTo(this.extremeValue) > 0)
+					this.extremeValue = value;
+				break;
+			case SUM:
+				this.sum += getNumericValue(value).getDouble();
+				break;
+			case AVG:
+				this.mean += (getNumericValue(value).getDouble() - this.mean) / this.count;
+				break;
+			case MEDIAN:
+				if (this.count > this.values.length)
+					this.values = Arrays.copyOf(this.values, this.values.length * 2);
+				this.values[this.count - 1] = getNumericValue(value).getDouble();
+				break;
+			case COUNT:
+				break;
+			case COUNT_DISTINCT:
+				this.distinctValues.add(value);
+				break;
+			}
 		}
 
-		return getSQWRLResultValueFactory().getLiteral(sum / count);
-	}
+		public SQWRLResultValue getValue(SQWRLResultValueFactory factory) throws SQWRLException
+		{
+			if (this.count == 0)
+				throw new SQWRLException("empty aggregate list for " + this.aggregateFunction.getFunctionName());
+
+			switch (this.aggregateFunction) {
+			case MIN:
+			case MAX:
+				return this.extremeValue;
+			case SUM:
+				return factory.getLiteral(this.sum);
+			case AVG:
+				return factory.getLiteral(this.mean);
+			case MEDIAN:
+				return factory.getLiteral(getMedian());
+			case COUNT:
+				return factory.getLiteral(this.count);
+			case COUNT_DISTINCT:
+				return factory.getLiteral(this.distinctValues.size());
+			default:
+				throw new SQWRLInvalidAggregateFunctionNameException("invalid aggregate function "
+						+ this.aggregateFunction.getFunctionName());
+			}
+		}
 
-	private SQWRLResultValue count(List<SQWRLResultValue> values) throws SQWRLException
-	{
-		return getSQWRLResultValueFactory().getLiteral(values.size());
-	}
+		/**
+		 * The middle value of the sorted values, or the mean of the two middle values if there is an even number of them.
+		 */
+		private double getMedian()
+		{
+			int middle = this.count / 2;
 
-	private SQWRLResultValue countDistinct(List<SQWRLResultValue> values) throws SQWRLException
-	{
-		Set<SQWRLResultValue> distinctValues = new HashSet<SQWRLResultValue>(values);
+			Arrays.sort(this.values, 0, this.count);
 
-		return getSQWRLResultValueFactory().getLiteral(distinctValues.size());
-	}
+			if (this.count % 2 == 0)
+				return (this.values[middle - 1] + this.values[middle]) / 2;
+			else
+				return this.values[middle];
+		}
 
-	// TODO: linear search is not very efficient.
-	private int findRowIndex(List<List<SQWRLResultValue>> result, List<SQWRLResultValue> rowToFind,
-			Comparator<List<SQWRLResultValue>> rowComparator)
-	{
-		int rowIndex = 0;
+		private SQWRLLiteralResultValue getNumericValue(SQWRLResultValue value) throws SQWRLException
+		{
+			// We have checked in addRowData that only numeric data are added for sum, max, min, avg, and median
+			if (!((value instanceof SQWRLLiteralResultValue) && (((SQWRLLiteralResultValue)value).isNumeric())))
+				throw new SQWRLException("attempt to use " + this.aggregateFunction.getFunctionName()
+						+ " aggregate on non numeric value " + value);
 
-		for (List<SQWRLResultValue> row : result) {
-			if (rowComparator.compare(rowToFind, row) == 0)
-				return rowIndex;
-			rowIndex++;
+			return (SQWRLLiteralResultValue)value;
 		}
-
-		return -1;
 	}
 
 	// TODO Look at. This is quick and dirty - all checking left to the Java runtime.
@@ -1266,6 +1720,111 @@ public class DefaultSQWRLResult implements SQWRLResult, SQWRLResultGenerator, Se
 		}
 	}
 
+	/**
+	 * Selects the first (or last) rows of an ordering using a bounded heap, so that selecting k of n rows takes O(n log
+	 * k) time and keeps at most k rows. Rows that compare equal keep the order in which they were added, so the selected
+	 * rows are the same as those of a stable sort of all rows.
+	 */
+	private static class TopRowSelector
+	{
+		private final Comparator<SequencedRow> comparator;
+		private final PriorityQueue<SequencedRow> heap; // Head of the heap is the selected row that is first to go
+		private final int numberOfRows;
+		private final boolean fromEnd;
+		private long nextSequenceNumber;
+		private boolean hasDiscardedRows;
+
+		public TopRowSelector(final Comparator<List<SQWRLResultValue>> rowComparator, int numberOfRows, boolean fromEnd)
+		{
+			this.comparator = new Comparator<SequencedRow>() {
+				@Override
+				public int compare(SequencedRow row1, SequencedRow row2)
+				{
+					int result = rowComparator.compare(row1.getRow(), row2.getRow());
+
+					if (result != 0)
+						return result;
+					else
+						return row1.getSequenceNumber() < row2.getSequenceNumber() ? -1 : (row1.getSequenceNumber() == row2
+								.getSequenceNumber() ? 0 : 1);
+				}
+			};
+			this.heap = new PriorityQueue<SequencedRow>(Math.min(numberOfRows, 1024) + 1, fromEnd ? this.comparator
+					: Collections.reverseOrder(this.comparator));
+			this.numberOfRows = numberOfRows;
+			this.fromEnd = fromEnd;
+		}
+
+		public void add(List<SQWRLResultValue> row)
+		{
+			SequencedRow sequencedRow = new SequencedRow(row, this.nextSequenceNumber++);
+
+			if (this.heap.size() < this.numberOfRows)
+				this.heap.add(sequencedRow);
+			else {
+				this.hasDiscardedRows = true;
+				if (this.numberOfRows > 0 && isSelectedBefore(sequencedRow, this.heap.peek())) {
+					this.heap.poll();
+					this.heap.add(sequencedRow);
+				}
+			}
+		}
+
+		public boolean hasDiscardedRows()
+		{
+			return this.hasDiscardedRows;
+		}
+
+		public boolean hasSameSelection(TopRowSelector selector)
+		{
+			return this.numberOfRows == selector.numberOfRows && this.fromEnd == selector.fromEnd;
+		}
+
+		/**
+		 * Get the selected rows in order.
+		 */
+		public List<List<SQWRLResultValue>> getRows()
+		{
+			List<SequencedRow> sequencedRows = new ArrayList<SequencedRow>(this.heap);
+			List<List<SQWRLResultValue>> rows = new ArrayList<List<SQWRLResultValue>>(sequencedRows.size());
+
+			Collections.sort(sequencedRows, this.comparator);
+			for (SequencedRow sequencedRow : sequencedRows)
+				rows.add(sequencedRow.getRow());
+
+			return rows;
+		}
+
+		private boolean isSelectedBefore(SequencedRow row1, SequencedRow row2)
+		{
+			int result = this.comparator.compare(row1, row2);
+
+			return this.fromEnd ? result > 0 : result < 0;
+		}
+	}
+
+	private static class SequencedRow
+	{
+		private final List<SQWRLResultValue> row;
+		private final long sequenceNumber;
+
+		public SequencedRow(List<SQWRLResultValue> row, long sequenceNumber)
+		{
+			this.row = row;
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		public List<SQWRLResultValue> getRow()
+		{
+			return this.row;
+		}
+
+		public long getSequenceNumber()
+		{
+			return this.sequenceNumber;
+		}
+	}
+
 	private SQWRLResultValueFactory getSQWRLResultValueFactory()
 	{
 		return this.sqwrlResultValueFactory;
@@ -1,8 +1,11 @@
 package org.swrlapi.sqwrl;
 
+import java.io.File;
+import java.util.Map;
 import java.util.Set;
 
 import org.swrlapi.exceptions.SWRLRuleEngineException;
+import org.swrlapi.ext.SWRLAPIOWLOntology;
 import org.swrlapi.owl2rl.OWL2RLEngine;
 import org.swrlapi.sqwrl.exceptions.SQWRLException;
 
@@ -17,6 +20,46 @@ public interface SQWRLQueryEngine
 	 */
 	SQWRLResult runSQWRLQuery(String queryName) throws SQWRLException;
 
+	/**
+	 * Run a set of named SQWRL queries with a single run of the rule engine, returning their results keyed by query
+	 * name. SWRL rules are executed once and their inferences are shared by all the queries.
+	 */
+	Map<String, SQWRLResult> runSQWRLQueries(Set<String> queryNames) throws SQWRLException;
+
+	/**
+	 * Run a named SQWRL query, streaming its result rows to the returned cursor as they are generated. The rule engine
+	 * runs on a separate thread, which blocks while the cursor holds queueCapacity unread rows; the engine should not
+	 * otherwise be used until the cursor has reached its end or has been closed. Only queries without aggregation or
+	 * distinct, and with no selection operator other than limit, can be streamed. Ordered queries can be streamed if
+	 * external sorting is enabled (see {@link #setExternalSortThreshold}); their rows reach the cursor once the run has
+	 * finished. Closing the cursor cancels the run, and a failure of the run is reported by the cursor.
+	 */
+	SQWRLResultCursor streamSQWRLQuery(String queryName, int queueCapacity) throws SQWRLException;
+
+	/**
+	 * Cache the results of {@link #runSQWRLQuery(String)}, so that a query is only run again if its text, the ontology,
+	 * or the OWL 2 RL rule selection has changed. Queries are not cached if the cache is null, which is the default.
+	 */
+	void setSQWRLResultCache(SQWRLResultCache cache);
+
+	SQWRLResultCache getSQWRLResultCache();
+
+	/**
+	 * Sort ordered query results with an external merge sort once they have more than the given number of rows. The
+	 * setting applies to all queries, including those re-extracted when knowledge is imported.
+	 * {@link DefaultSQWRLResult#NoExternalSort} (the default) sorts in memory.
+	 */
+	void setExternalSortThreshold(int numberOfRows);
+
+	int getExternalSortThreshold();
+
+	/**
+	 * Set the directory for the temporary files of external sorts; null for the default temporary directory.
+	 */
+	void setExternalSortDirectory(File directory);
+
+	File getExternalSortDirectory();
+
 	/**
 	 * Run all enabled SQWRL queries.
 	 */
@@ -66,4 +109,9 @@ public interface SQWRLQueryEngine
 	 * Get the underlying controller for the OWL 2 RL reasoner used by the rule and query engine.
 	 */
 	OWL2RLEngine getOWL2RLEngine();
+
+	/**
+	 * Returns the ontology that queries are run against.
+	 */
+	SWRLAPIOWLOntology getOWLOntology();
 }
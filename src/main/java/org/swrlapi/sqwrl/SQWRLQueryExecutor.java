@@ -0,0 +1,232 @@
+package org.swrlapi.sqwrl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.swrlapi.core.SWRLRuleEngine;
+import org.swrlapi.exceptions.SWRLRuleEngineException;
+import org.swrlapi.ext.SWRLAPIOWLOntology;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+
+/**
+ * Runs SQWRL queries concurrently against a single ontology. The executor holds a pool of query engines, each of which
+ * has its own bridge, ontology processor, built-in library state (including SQWRL collections), result generators, and
+ * target rule engine; only the ontology is shared. Each query is run on a worker thread using an engine that no other
+ * query is using at the time, so there is one worker thread per engine and throughput scales with the number of engines
+ * up to the number of cores. An engine keeps the knowledge it has imported between queries; with incremental import
+ * (see {@link org.swrlapi.core.SWRLRuleEngine#setIncrementalImport(boolean)}) later queries do not re-import it.
+ * <p>
+ * Since each engine holds its own copy of the imported knowledge, engines are created by a
+ * {@link SQWRLQueryEngineCreator} only when a query is submitted while every existing engine is busy, up to a maximum.
+ * The number of copies therefore follows the number of queries actually run at once rather than the maximum. Every
+ * engine must read the executor's ontology; an engine created for another ontology is rejected.
+ * <p>
+ * The engines do not register listeners on the shared ontology. Each reads the ontology's change journal through its
+ * own cursor (see {@link org.swrlapi.ext.SWRLAPIOWLOntology#openOWLAxiomChangeCursor()}), and resetting one engine does
+ * not discard changes that the others have yet to import. Target rule engines that evaluate rules concurrently should
+ * share one thread pool across engines, as {@link org.swrlapi.engine.SemiNaiveRuleEngine} does.
+ * <p>
+ * The ontology must not be modified while queries are running, and the engines should not stream inferred knowledge
+ * back to it. Results are returned as snapshots that share the prepared columns of the engine's result but have their
+ * own iteration state, so they remain valid while the engine goes on to run other queries.
+ */
+public class SQWRLQueryExecutor
+{
+	private final SWRLAPIOWLOntology ontology;
+	private final SQWRLQueryEngineCreator queryEngineCreator;
+	private final BlockingQueue<SQWRLQueryEngine> idleQueryEngines;
+	private final ExecutorService executorService;
+	private final int maximumNumberOfQueryEngines;
+	private int numberOfQueryEngines; // Guarded by idleQueryEngines
+
+	/**
+	 * Creates the query engines of an executor. Each engine must have its own bridge and ontology processor and must
+	 * read the supplied ontology.
+	 */
+	public interface SQWRLQueryEngineCreator
+	{
+		SQWRLQueryEngine create(SWRLAPIOWLOntology ontology) throws SWRLRuleEngineException;
+	}
+
+	public SQWRLQueryExecutor(SWRLAPIOWLOntology ontology, SQWRLQueryEngineCreator queryEngineCreator,
+			int maximumNumberOfQueryEngines)
+	{
+		if (maximumNumberOfQueryEngines < 1)
+			throw new IllegalArgumentException("maximum number of query engines must be positive; got "
+					+ maximumNumberOfQueryEngines);
+
+		this.ontology = ontology;
+		this.queryEngineCreator = queryEngineCreator;
+		this.idleQueryEngines = new LinkedBlockingQueue<SQWRLQueryEngine>();
+		this.maximumNumberOfQueryEngines = maximumNumberOfQueryEngines;
+		this.numberOfQueryEngines = 0;
+		this.executorService = Executors.newFixedThreadPool(maximumNumberOfQueryEngines, new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "SQWRL query executor " + this.threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public SWRLAPIOWLOntology getOWLOntology()
+	{
+		return this.ontology;
+	}
+
+	public int getMaximumNumberOfQueryEngines()
+	{
+		return this.maximumNumberOfQueryEngines;
+	}
+
+	/**
+	 * Returns the number of query engines created so far.
+	 */
+	public int getNumberOfQueryEngines()
+	{
+		synchronized (this.idleQueryEngines) {
+			return this.numberOfQueryEngines;
+		}
+	}
+
+	/**
+	 * Submit a named SQWRL query for execution on the first available query engine.
+	 */
+	public Future<SQWRLResult> submit(final String queryName)
+	{
+		return this.executorService.submit(new Callable<SQWRLResult>() {
+			@Override
+			public SQWRLResult call() throws SQWRLException
+			{
+				return runSQWRLQuery(queryName);
+			}
+		});
+	}
+
+	/**
+	 * Run a set of named SQWRL queries in parallel, waiting for all of them to complete. Results are keyed by query name.
+	 */
+	public Map<String, SQWRLResult> runSQWRLQueries(Set<String> queryNames) throws SQWRLException
+	{
+		Map<String, Future<SQWRLResult>> futureResults = new LinkedHashMap<String, Future<SQWRLResult>>();
+		Map<String, SQWRLResult> results = new LinkedHashMap<String, SQWRLResult>();
+
+		for (String queryName : queryNames)
+			futureResults.put(queryName, submit(queryName));
+
+		try {
+			for (Map.Entry<String, Future<SQWRLResult>> futureResult : futureResults.entrySet())
+				results.put(futureResult.getKey(), getResult(futureResult.getKey(), futureResult.getValue()));
+		} finally {
+			for (Future<SQWRLResult> futureResult : futureResults.values())
+				futureResult.cancel(false); // Has no effect on completed queries
+		}
+		return results;
+	}
+
+	/**
+	 * Stop accepting queries, wait for the queries that have already been submitted to complete, and dispose the query
+	 * engines. If the calling thread is interrupted while waiting, engines still running queries are not disposed.
+	 */
+	public void shutdown()
+	{
+		this.executorService.shutdown();
+		try {
+			this.executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		SQWRLQueryEngine queryEngine;
+		while ((queryEngine = this.idleQueryEngines.poll()) != null) {
+			if (queryEngine instanceof SWRLRuleEngine)
+				((SWRLRuleEngine)queryEngine).dispose();
+		}
+	}
+
+	private SQWRLResult runSQWRLQuery(String queryName) throws SQWRLException
+	{
+		SQWRLQueryEngine queryEngine = getIdleQueryEngine();
+
+		try {
+			SQWRLResult result = queryEngine.runSQWRLQuery(queryName);
+
+			return result instanceof DefaultSQWRLResult ? ((DefaultSQWRLResult)result).createSnapshot() : result;
+		} finally {
+			this.idleQueryEngines.add(queryEngine);
+		}
+	}
+
+	/**
+	 * Get an idle engine, creating one if there is none. Since there is one worker thread per engine, an idle engine
+	 * exists whenever the maximum number of engines has been created.
+	 */
+	private SQWRLQueryEngine getIdleQueryEngine() throws SQWRLException
+	{
+		synchronized (this.idleQueryEngines) {
+			SQWRLQueryEngine queryEngine = this.idleQueryEngines.poll();
+
+			if (queryEngine != null)
+				return queryEngine;
+			this.numberOfQueryEngines++;
+		}
+
+		try {
+			return createQueryEngine();
+		} catch (SQWRLException e) {
+			synchronized (this.idleQueryEngines) {
+				this.numberOfQueryEngines--;
+			}
+			throw e;
+		}
+	}
+
+	private SQWRLQueryEngine createQueryEngine() throws SQWRLException
+	{
+		SQWRLQueryEngine queryEngine;
+
+		try {
+			queryEngine = this.queryEngineCreator.create(this.ontology);
+		} catch (SWRLRuleEngineException e) {
+			throw new SQWRLException("error creating query engine: " + e.getMessage(), e);
+		}
+
+		if (queryEngine.getOWLOntology() != this.ontology) {
+			if (queryEngine instanceof SWRLRuleEngine)
+				((SWRLRuleEngine)queryEngine).dispose();
+			throw new SQWRLException("query engine was created for a different ontology than the executor's");
+		}
+		return queryEngine;
+	}
+
+	private static SQWRLResult getResult(String queryName, Future<SQWRLResult> futureResult) throws SQWRLException
+	{
+		try {
+			return futureResult.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQWRLException("interrupted while waiting for SQWRL query " + queryName, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SQWRLException)
+				throw (SQWRLException)e.getCause();
+			else
+				throw new SQWRLException("error running SQWRL query " + queryName + ": " + e.getCause().getMessage(),
+						e.getCause());
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package org.swrlapi.sqwrl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+
+/**
+ * A cache of SQWRL query results. Results are keyed by the text of the query, the version of the ontology that the
+ * query was run against (see {@link org.swrlapi.ext.SWRLAPIOWLOntology#getOntologyVersion()}), and the OWL 2 RL rule
+ * selection of the engine that ran it, so a cached result is never returned once the ontology or the rule selection has
+ * changed.
+ * <p>
+ * Results are held in the binary format written by {@link SQWRLResultSerializer}. Each hit returns a new result read
+ * directly from the cached bytes, so callers never share a result's iteration state.
+ * <p>
+ * The least recently used entries are evicted when the cache holds more than its maximum number of entries or its
+ * maximum number of bytes. Hit, miss, and eviction counts are kept for monitoring.
+ * <p>
+ * A cache should only be used by query engines on a single ontology. Ontology versions only ever increase, so entries
+ * for earlier versions can never be returned again; they are discarded as soon as a later version is seen.
+ *
+ * @see SQWRLQueryEngine#setSQWRLResultCache
+ */
+public class SQWRLResultCache
+{
+	private final SQWRLResultSerializer serializer;
+	private final int maximumNumberOfEntries;
+	private final long maximumSizeInBytes;
+	private final Map<Key, byte[]> entries; // In access order, least recently used first
+
+	private long ontologyVersion; // Latest ontology version seen
+	private long sizeInBytes;
+	private long numberOfHits, numberOfMisses, numberOfEvictions;
+
+	public SQWRLResultCache(SQWRLResultValueFactory factory, int maximumNumberOfEntries, long maximumSizeInBytes)
+	{
+		if (maximumNumberOfEntries < 1)
+			throw new IllegalArgumentException("maximum number of entries must be positive: " + maximumNumberOfEntries);
+		if (maximumSizeInBytes < 1)
+			throw new IllegalArgumentException("maximum size must be positive: " + maximumSizeInBytes);
+
+		this.serializer = new SQWRLResultSerializer(factory);
+		this.maximumNumberOfEntries = maximumNumberOfEntries;
+		this.maximumSizeInBytes = maximumSizeInBytes;
+		this.entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+	}
+
+	/**
+	 * Get a cached result, or null if there is none.
+	 *
+	 * @param ruleSelection The rule selection of the engine, e.g., its set of enabled OWL 2 RL rules; any object with
+	 *          value equality can be used
+	 */
+	public synchronized SQWRLResult get(String queryText, long ontologyVersion, Object ruleSelection)
+			throws SQWRLException
+	{
+		discardEarlierVersions(ontologyVersion);
+
+		byte[] encodedResult = this.entries.get(new Key(queryText, ontologyVersion, ruleSelection));
+
+		if (encodedResult == null) {
+			this.numberOfMisses++;
+			return null;
+		} else {
+			this.numberOfHits++;
+			return this.serializer.read(ByteBuffer.wrap(encodedResult));
+		}
+	}
+
+	/**
+	 * Cache a prepared result. A result larger than the maximum size of the cache, or for an earlier version of the
+	 * ontology than the latest one seen, is not cached.
+	 */
+	public synchronized void put(String queryText, long ontologyVersion, Object ruleSelection, SQWRLResult result)
+			throws SQWRLException
+	{
+		discardEarlierVersions(ontologyVersion);
+		if (ontologyVersion < this.ontologyVersion)
+			return;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		this.serializer.write(result, out, false);
+
+		byte[] encodedResult = out.toByteArray();
+		if (encodedResult.length > this.maximumSizeInBytes)
+			return;
+
+		Key key = new Key(queryText, ontologyVersion, ruleSelection);
+		byte[] previousEncodedResult = this.entries.put(key, encodedResult);
+		if (previousEncodedResult != null)
+			this.sizeInBytes -= previousEncodedResult.length;
+		this.sizeInBytes += encodedResult.length;
+
+		evict();
+	}
+
+	/**
+	 * Discard all cached results.
+	 */
+	public synchronized void invalidate()
+	{
+		this.entries.clear();
+		this.sizeInBytes = 0;
+	}
+
+	public synchronized int getNumberOfEntries()
+	{
+		return this.entries.size();
+	}
+
+	public synchronized long getSizeInBytes()
+	{
+		return this.sizeInBytes;
+	}
+
+	public synchronized long getNumberOfHits()
+	{
+		return this.numberOfHits;
+	}
+
+	public synchronized long getNumberOfMisses()
+	{
+		return this.numberOfMisses;
+	}
+
+	public synchronized long getNumberOfEvictions()
+	{
+		return this.numberOfEvictions;
+	}
+
+	public synchronized void resetStatistics()
+	{
+		this.numberOfHits = this.numberOfMisses = this.numberOfEvictions = 0;
+	}
+
+	private void discardEarlierVersions(long ontologyVersion)
+	{
+		if (ontologyVersion > this.ontologyVersion) {
+			this.ontologyVersion = ontologyVersion;
+			invalidate();
+		}
+	}
+
+	private void evict()
+	{
+		Iterator<byte[]> iterator = this.entries.values().iterator();
+
+		while (this.entries.size() > this.maximumNumberOfEntries || this.sizeInBytes > this.maximumSizeInBytes) {
+			this.sizeInBytes -= iterator.next().length;
+			iterator.remove();
+			this.numberOfEvictions++;
+		}
+	}
+
+	private static class Key
+	{
+		private final String queryText;
+		private final long ontologyVersion;
+		private final Object ruleSelection;
+		private final int hashCode;
+
+		public Key(String queryText, long ontologyVersion, Object ruleSelection)
+		{
+			this.queryText = queryText;
+			this.ontologyVersion = ontologyVersion;
+			this.ruleSelection = ruleSelection;
+			this.hashCode = 31 * (31 * queryText.hashCode() + (int)(ontologyVersion ^ (ontologyVersion >>> 32)))
+					+ (ruleSelection == null ? 0 : ruleSelection.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key)obj;
+
+			return this.ontologyVersion == other.ontologyVersion && this.queryText.equals(other.queryText)
+					&& (this.ruleSelection == null ? other.ruleSelection == null : this.ruleSelection
+							.equals(other.ruleSelection));
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
+	}
+}
@@ -0,0 +1,718 @@
+package org.swrlapi.sqwrl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLLiteralResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+
+/**
+ * A column of a prepared {@link DefaultSQWRLResult}. Columns whose values are all int, short, long, float, double, or
+ * boolean literals are held in primitive arrays; all other columns (IRIs, strings, dates, and mixed columns) are
+ * dictionary encoded, holding each distinct value once plus an integer code per row.
+ * <p>
+ * A literal is only held in a primitive column if it can be recreated exactly, i.e., if it has the datatype and
+ * canonical lexical form that the result value factory produces for its primitive value. Otherwise the column is
+ * dictionary encoded.
+ * <p>
+ * Columns are created with a {@link Builder}, which picks the column type from the first value added and switches to a
+ * dictionary encoded column if a later value does not fit.
+ * <p>
+ * A column can be written in a binary form in which every row occupies a fixed number of bytes; see
+ * {@link SQWRLResultSerializer}. Columns read back from that form access their values directly in the buffer they
+ * were read from, which may be memory mapped, rather than copying them to the heap.
+ */
+abstract class SQWRLResultColumn implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int InitialCapacity = 16;
+
+	// Column types in the binary form
+	private static final byte IntType = 1;
+	private static final byte ShortType = 2;
+	private static final byte LongType = 3;
+	private static final byte DoubleType = 4;
+	private static final byte FloatType = 5;
+	private static final byte BooleanType = 6;
+	private static final byte DictionaryType = 7;
+
+	/**
+	 * Get an unmodifiable list view of the rows of a list of columns.
+	 */
+	public static List<List<SQWRLResultValue>> asRows(List<SQWRLResultColumn> columns, int numberOfRows)
+	{
+		return new RowList(columns, numberOfRows);
+	}
+
+	public abstract int size();
+
+	public abstract SQWRLResultValue getValue(int rowIndex);
+
+	/**
+	 * Append a value; return false if the value cannot be held by this column.
+	 */
+	protected abstract boolean add(SQWRLResultValue value);
+
+	/**
+	 * Release any space reserved for further values.
+	 */
+	protected abstract void trim();
+
+	/**
+	 * Write the column in its binary form. IRIs, datatypes, and language tags are recorded in the codec's dictionary.
+	 */
+	protected abstract void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException, SQWRLException;
+
+	/**
+	 * Read a column written by {@link #write}. The buffer is positioned after the column on return; the values of the
+	 * column remain in the buffer, which must not be modified while the column is in use.
+	 */
+	public static SQWRLResultColumn read(ByteBuffer in, int numberOfRows, SQWRLResultRowCodec codec,
+			SQWRLResultValueFactory factory) throws SQWRLException
+	{
+		try {
+			byte type = in.get();
+			List<SQWRLResultValue> dictionary = null;
+			int dataSize;
+
+			switch (type) {
+			case IntType:
+			case ShortType:
+			case FloatType:
+				dataSize = numberOfRows * 4;
+				break;
+			case LongType:
+			case DoubleType:
+				dataSize = numberOfRows * 8;
+				break;
+			case BooleanType:
+				dataSize = (numberOfRows + 7) / 8;
+				break;
+			case DictionaryType:
+				int dictionarySize = SQWRLResultRowCodec.readVarInt(in);
+				dictionary = new ArrayList<SQWRLResultValue>(dictionarySize);
+				for (int code = 0; code < dictionarySize; code++)
+					dictionary.add(codec.readValue(in));
+				dataSize = numberOfRows * 4;
+				break;
+			default:
+				throw new SQWRLException("invalid column type " + type + " in encoded result");
+			}
+
+			ByteBuffer data = in.slice();
+			data.limit(dataSize);
+			in.position(in.position() + dataSize);
+
+			return new MappedColumn(type, data, dictionary, numberOfRows, factory);
+		} catch (BufferUnderflowException e) {
+			throw new SQWRLException("encoded result is truncated");
+		} catch (IllegalArgumentException e) {
+			throw new SQWRLException("encoded result is truncated");
+		}
+	}
+
+	/**
+	 * Get an unmodifiable list view of the column.
+	 */
+	public List<SQWRLResultValue> asList()
+	{
+		return new ColumnList(this);
+	}
+
+	/**
+	 * Builds a column one value at a time.
+	 */
+	public static class Builder
+	{
+		private final SQWRLResultValueFactory factory;
+		private SQWRLResultColumn column;
+
+		public Builder(SQWRLResultValueFactory factory)
+		{
+			this.factory = factory;
+		}
+
+		public void add(SQWRLResultValue value)
+		{
+			if (this.column == null)
+				this.column = createColumn(value, this.factory);
+
+			if (!this.column.add(value)) { // Switch to a dictionary encoded column
+				SQWRLResultColumn dictionaryColumn = new DictionaryColumn();
+				for (int rowIndex = 0; rowIndex < this.column.size(); rowIndex++)
+					dictionaryColumn.add(this.column.getValue(rowIndex));
+				dictionaryColumn.add(value);
+				this.column = dictionaryColumn;
+			}
+		}
+
+		public SQWRLResultColumn build()
+		{
+			SQWRLResultColumn column = this.column != null ? this.column : new DictionaryColumn();
+
+			column.trim();
+			this.column = null;
+
+			return column;
+		}
+
+		private static SQWRLResultColumn createColumn(SQWRLResultValue firstValue, SQWRLResultValueFactory factory)
+		{
+			if (firstValue instanceof SQWRLLiteralResultValue) {
+				SQWRLLiteralResultValue literal = (SQWRLLiteralResultValue)firstValue;
+
+				if (literal.isInteger())
+					return new IntColumn(factory, false);
+				else if (literal.isShort())
+					return new IntColumn(factory, true);
+				else if (literal.isLong())
+					return new LongColumn(factory);
+				else if (literal.isDouble())
+					return new DoubleColumn(factory, false);
+				else if (literal.isFloat())
+					return new DoubleColumn(factory, true);
+				else if (literal.isBoolean())
+					return new BooleanColumn(factory);
+			}
+			return new DictionaryColumn();
+		}
+	}
+
+	/**
+	 * Get the lexical form of a literal value if it has the given datatype and no language tag; otherwise, return null.
+	 */
+	private static String getLexicalForm(SQWRLResultValue value, OWLDatatype datatype)
+	{
+		if (!(value instanceof SQWRLLiteralResultValue))
+			return null;
+
+		OWLLiteral literal = ((SQWRLLiteralResultValue)value).getOWLLiteral();
+
+		return !literal.hasLang() && literal.getDatatype().equals(datatype) ? literal.getLiteral() : null;
+	}
+
+	private static OWLDatatype getDatatype(SQWRLLiteralResultValue prototype)
+	{
+		return prototype.getOWLLiteral().getDatatype();
+	}
+
+	private static int newCapacity(int capacity)
+	{
+		return capacity < InitialCapacity ? InitialCapacity : capacity + (capacity >> 1);
+	}
+
+	private static class IntColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SQWRLResultValueFactory factory;
+		private final OWLDatatype datatype;
+		private final boolean isShort;
+		private int[] values;
+		private int size;
+
+		public IntColumn(SQWRLResultValueFactory factory, boolean isShort)
+		{
+			this.factory = factory;
+			this.datatype = getDatatype(isShort ? factory.getLiteral((short)0) : factory.getLiteral(0));
+			this.isShort = isShort;
+			this.values = new int[0];
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			String lexicalForm = getLexicalForm(value, this.datatype);
+			int i;
+
+			if (lexicalForm == null)
+				return false;
+			try {
+				i = this.isShort ? Short.parseShort(lexicalForm) : Integer.parseInt(lexicalForm);
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (!lexicalForm.equals(Integer.toString(i)))
+				return false;
+
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			this.values[this.size++] = i;
+			return true;
+		}
+
+		@Override
+		protected void trim()
+		{
+			this.values = Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			return this.isShort ? this.factory.getLiteral((short)this.values[rowIndex]) : this.factory
+					.getLiteral(this.values[rowIndex]);
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException
+		{
+			out.writeByte(this.isShort ? ShortType : IntType);
+			for (int rowIndex = 0; rowIndex < this.size; rowIndex++)
+				out.writeInt(this.values[rowIndex]);
+		}
+	}
+
+	private static class LongColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SQWRLResultValueFactory factory;
+		private final OWLDatatype datatype;
+		private long[] values;
+		private int size;
+
+		public LongColumn(SQWRLResultValueFactory factory)
+		{
+			this.factory = factory;
+			this.datatype = getDatatype(factory.getLiteral(0L));
+			this.values = new long[0];
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			String lexicalForm = getLexicalForm(value, this.datatype);
+			long l;
+
+			if (lexicalForm == null)
+				return false;
+			try {
+				l = Long.parseLong(lexicalForm);
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (!lexicalForm.equals(Long.toString(l)))
+				return false;
+
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			this.values[this.size++] = l;
+			return true;
+		}
+
+		@Override
+		protected void trim()
+		{
+			this.values = Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			return this.factory.getLiteral(this.values[rowIndex]);
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException
+		{
+			out.writeByte(LongType);
+			for (int rowIndex = 0; rowIndex < this.size; rowIndex++)
+				out.writeLong(this.values[rowIndex]);
+		}
+	}
+
+	private static class DoubleColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SQWRLResultValueFactory factory;
+		private final OWLDatatype datatype;
+		private final boolean isFloat;
+		private double[] values;
+		private int size;
+
+		public DoubleColumn(SQWRLResultValueFactory factory, boolean isFloat)
+		{
+			this.factory = factory;
+			this.datatype = getDatatype(isFloat ? factory.getLiteral(0.0f) : factory.getLiteral(0.0d));
+			this.isFloat = isFloat;
+			this.values = new double[0];
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			String lexicalForm = getLexicalForm(value, this.datatype);
+			String canonicalForm;
+			double d;
+
+			if (lexicalForm == null)
+				return false;
+			try {
+				if (this.isFloat) {
+					float f = Float.parseFloat(lexicalForm);
+					d = f;
+					canonicalForm = Float.toString(f);
+				} else {
+					d = Double.parseDouble(lexicalForm);
+					canonicalForm = Double.toString(d);
+				}
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (!lexicalForm.equals(canonicalForm))
+				return false;
+
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+			this.values[this.size++] = d;
+			return true;
+		}
+
+		@Override
+		protected void trim()
+		{
+			this.values = Arrays.copyOf(this.values, this.size);
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			return this.isFloat ? this.factory.getLiteral((float)this.values[rowIndex]) : this.factory
+					.getLiteral(this.values[rowIndex]);
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException
+		{
+			out.writeByte(this.isFloat ? FloatType : DoubleType);
+			for (int rowIndex = 0; rowIndex < this.size; rowIndex++)
+				if (this.isFloat)
+					out.writeFloat((float)this.values[rowIndex]);
+				else
+					out.writeDouble(this.values[rowIndex]);
+		}
+	}
+
+	private static class BooleanColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SQWRLResultValueFactory factory;
+		private final OWLDatatype datatype;
+		private final BitSet values;
+		private int size;
+
+		public BooleanColumn(SQWRLResultValueFactory factory)
+		{
+			this.factory = factory;
+			this.datatype = getDatatype(factory.getLiteral(true));
+			this.values = new BitSet();
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			String lexicalForm = getLexicalForm(value, this.datatype);
+
+			if ("true".equals(lexicalForm))
+				this.values.set(this.size);
+			else if (!"false".equals(lexicalForm))
+				return false;
+			this.size++;
+			return true;
+		}
+
+		@Override
+		protected void trim()
+		{ // A bit set only grows as bits are set
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			return this.factory.getLiteral(this.values.get(rowIndex));
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException
+		{
+			out.writeByte(BooleanType);
+			out.write(Arrays.copyOf(this.values.toByteArray(), (this.size + 7) / 8)); // Bit i is bit i % 8 of byte i / 8
+		}
+	}
+
+	private static class DictionaryColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<SQWRLResultValue> dictionary;
+		private transient Map<SQWRLResultValue, Integer> value2Code; // Only needed while values are added
+		private int[] codes;
+		private int size;
+
+		public DictionaryColumn()
+		{
+			this.dictionary = new ArrayList<SQWRLResultValue>();
+			this.value2Code = new HashMap<SQWRLResultValue, Integer>();
+			this.codes = new int[0];
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			Integer code = this.value2Code.get(value);
+
+			if (code == null) {
+				code = this.dictionary.size();
+				this.value2Code.put(value, code);
+				this.dictionary.add(value);
+			}
+			if (this.size == this.codes.length)
+				this.codes = Arrays.copyOf(this.codes, newCapacity(this.size));
+			this.codes[this.size++] = code;
+			return true;
+		}
+
+		@Override
+		protected void trim()
+		{
+			this.codes = Arrays.copyOf(this.codes, this.size);
+			this.value2Code = null;
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			return this.dictionary.get(this.codes[rowIndex]);
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException, SQWRLException
+		{
+			out.writeByte(DictionaryType);
+			SQWRLResultRowCodec.writeVarInt(out, this.dictionary.size());
+			for (SQWRLResultValue value : this.dictionary)
+				codec.writeValue(out, value);
+			for (int rowIndex = 0; rowIndex < this.size; rowIndex++)
+				out.writeInt(this.codes[rowIndex]);
+		}
+	}
+
+	/**
+	 * A column read from its binary form. Values are decoded from the buffer as they are requested; only the dictionary
+	 * of a dictionary encoded column is held on the heap. The column is serialized as an equivalent heap column.
+	 */
+	private static class MappedColumn extends SQWRLResultColumn
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final byte type;
+		private final transient ByteBuffer data;
+		private final List<SQWRLResultValue> dictionary;
+		private final int size;
+		private final SQWRLResultValueFactory factory;
+
+		public MappedColumn(byte type, ByteBuffer data, List<SQWRLResultValue> dictionary, int size,
+				SQWRLResultValueFactory factory)
+		{
+			this.type = type;
+			this.data = data;
+			this.dictionary = dictionary;
+			this.size = size;
+			this.factory = factory;
+		}
+
+		@Override
+		protected boolean add(SQWRLResultValue value)
+		{
+			return false;
+		}
+
+		@Override
+		protected void trim()
+		{ // Nothing is reserved
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public SQWRLResultValue getValue(int rowIndex)
+		{
+			checkRowIndex(rowIndex, this.size);
+
+			switch (this.type) {
+			case IntType:
+				return this.factory.getLiteral(this.data.getInt(rowIndex * 4));
+			case ShortType:
+				return this.factory.getLiteral((short)this.data.getInt(rowIndex * 4));
+			case LongType:
+				return this.factory.getLiteral(this.data.getLong(rowIndex * 8));
+			case DoubleType:
+				return this.factory.getLiteral(this.data.getDouble(rowIndex * 8));
+			case FloatType:
+				return this.factory.getLiteral(this.data.getFloat(rowIndex * 4));
+			case BooleanType:
+				return this.factory.getLiteral((this.data.get(rowIndex / 8) & (1 << rowIndex % 8)) != 0);
+			default:
+				return this.dictionary.get(this.data.getInt(rowIndex * 4));
+			}
+		}
+
+		@Override
+		protected void write(DataOutput out, SQWRLResultRowCodec codec) throws IOException, SQWRLException
+		{
+			byte[] bytes = new byte[this.data.limit()];
+
+			out.writeByte(this.type);
+			if (this.type == DictionaryType) {
+				SQWRLResultRowCodec.writeVarInt(out, this.dictionary.size());
+				for (SQWRLResultValue value : this.dictionary)
+					codec.writeValue(out, value);
+			}
+			this.data.duplicate().get(bytes); // Fixed size values do not refer to the dictionary so are copied as is
+			out.write(bytes);
+		}
+
+		private Object writeReplace() throws ObjectStreamException
+		{
+			Builder builder = new Builder(this.factory);
+
+			for (int rowIndex = 0; rowIndex < this.size; rowIndex++)
+				builder.add(getValue(rowIndex));
+
+			return builder.build();
+		}
+	}
+
+	private static void checkRowIndex(int rowIndex, int size)
+	{
+		if (rowIndex < 0 || rowIndex >= size)
+			throw new IndexOutOfBoundsException("row index " + rowIndex + " out of bounds");
+	}
+
+	private static class ColumnList extends AbstractList<SQWRLResultValue> implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SQWRLResultColumn column;
+
+		public ColumnList(SQWRLResultColumn column)
+		{
+			this.column = column;
+		}
+
+		@Override
+		public SQWRLResultValue get(int index)
+		{
+			return this.column.getValue(index);
+		}
+
+		@Override
+		public int size()
+		{
+			return this.column.size();
+		}
+	}
+
+	private static class RowList extends AbstractList<List<SQWRLResultValue>> implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<SQWRLResultColumn> columns;
+		private final int numberOfRows;
+
+		public RowList(List<SQWRLResultColumn> columns, int numberOfRows)
+		{
+			this.columns = columns;
+			this.numberOfRows = numberOfRows;
+		}
+
+		@Override
+		public List<SQWRLResultValue> get(final int index)
+		{
+			checkRowIndex(index, this.numberOfRows);
+
+			return new AbstractList<SQWRLResultValue>() {
+				@Override
+				public SQWRLResultValue get(int columnIndex)
+				{
+					return RowList.this.columns.get(columnIndex).getValue(index);
+				}
+
+				@Override
+				public int size()
+				{
+					return RowList.this.columns.size();
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return this.numberOfRows;
+		}
+	}
+}
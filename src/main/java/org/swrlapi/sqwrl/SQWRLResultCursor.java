@@ -0,0 +1,186 @@
+package org.swrlapi.sqwrl;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.exceptions.SQWRLResultStateException;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+
+/**
+ * A cursor over the rows of a streamed SQWRL result. Rows are passed from the thread generating the result (typically
+ * a rule engine run) to the thread reading the cursor through a bounded queue: the producer blocks while the queue is
+ * full, so at most the queue's capacity of rows is held in memory regardless of the size of the result.
+ * <p>
+ * A consumer iterates using {@link #hasNext} and {@link #next}, both of which block until a row is available or the
+ * result is complete. If the result could not be generated, {@link #hasNext} throws an exception once the rows
+ * generated before the failure have been read.
+ * <p>
+ * A consumer that does not want further rows should call {@link #close}. Closing the cursor cancels the producer: its
+ * thread, if registered using {@link #setProducerThread}, is interrupted, and any further attempt to add a row throws
+ * an exception so that generation of the result is abandoned.
+ *
+ * @see SQWRLResultGenerator#openCursor
+ * @see SQWRLQueryEngine#streamSQWRLQuery
+ */
+public class SQWRLResultCursor
+{
+	private static final Object EndOfResult = new Object();
+	private static final long WaitTimeoutMilliseconds = 100;
+
+	private final List<String> columnNames;
+	private final BlockingQueue<Object> queue;
+	private volatile boolean isClosed;
+	private volatile Throwable failure;
+	private volatile Thread producerThread;
+	private List<SQWRLResultValue> nextRow;
+	private volatile boolean isAtEnd; // Read by the rule engine to tell whether the producer is finishing
+
+	public SQWRLResultCursor(List<String> columnNames, int queueCapacity)
+	{
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("queue capacity must be positive: " + queueCapacity);
+
+		this.columnNames = columnNames;
+		this.queue = new ArrayBlockingQueue<Object>(queueCapacity);
+	}
+
+	public List<String> getColumnNames()
+	{
+		return this.columnNames;
+	}
+
+	// Methods used by the producer
+
+	/**
+	 * Register the thread generating the result so that it is interrupted if the cursor is closed.
+	 */
+	public void setProducerThread(Thread producerThread)
+	{
+		this.producerThread = producerThread;
+
+		if (this.isClosed)
+			producerThread.interrupt();
+	}
+
+	/**
+	 * Add a row, blocking while the queue is full. Throws an exception if the cursor has been closed, so that the
+	 * producer stops generating rows.
+	 */
+	public void addRow(List<SQWRLResultValue> row) throws SQWRLException
+	{
+		if (this.isClosed)
+			throw new SQWRLResultStateException("result cursor has been closed");
+
+		enqueue(row);
+	}
+
+	/**
+	 * Signal that all rows have been added.
+	 */
+	public void complete() throws SQWRLException
+	{
+		enqueue(EndOfResult);
+	}
+
+	/**
+	 * Signal that the result could not be generated. No further rows may be added. Does not block: the consumer sees the
+	 * failure once it has read the rows already queued.
+	 */
+	public void fail(Throwable cause)
+	{
+		this.failure = cause;
+		this.queue.offer(EndOfResult); // Wakes a waiting consumer if there is room; otherwise it polls for the failure
+	}
+
+	// Methods used by the consumer
+
+	public boolean hasNext() throws SQWRLException
+	{
+		if (this.nextRow == null && !this.isAtEnd) {
+			Object element;
+
+			try {
+				do
+					element = this.queue.poll(WaitTimeoutMilliseconds, TimeUnit.MILLISECONDS);
+				while (element == null && this.failure == null);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQWRLException("interrupted while waiting for result rows", e);
+			}
+
+			if (element == null || element == EndOfResult)
+				this.isAtEnd = true;
+			else
+				this.nextRow = castRow(element);
+		}
+
+		if (this.isAtEnd && this.failure != null)
+			throw new SQWRLException("error generating result: " + this.failure.getMessage(), this.failure);
+
+		return !this.isAtEnd;
+	}
+
+	public List<SQWRLResultValue> next() throws SQWRLException
+	{
+		if (!hasNext())
+			throw new SQWRLResultStateException("attempt to get data after end of result reached");
+
+		List<SQWRLResultValue> row = this.nextRow;
+		this.nextRow = null;
+
+		return row;
+	}
+
+	/**
+	 * Stop reading rows and cancel the producer. Queued rows are discarded so that the producer is not blocked.
+	 */
+	public void close()
+	{
+		Thread producerThread = this.producerThread;
+
+		this.isClosed = true;
+		this.isAtEnd = true;
+		this.nextRow = null;
+		this.queue.clear();
+
+		if (producerThread != null)
+			producerThread.interrupt();
+	}
+
+	public boolean isClosed()
+	{
+		return this.isClosed;
+	}
+
+	/**
+	 * Returns true once the consumer has reached the end of the result or has closed the cursor.
+	 */
+	public boolean isAtEnd()
+	{
+		return this.isAtEnd;
+	}
+
+	/**
+	 * Add an element to the queue, blocking while it is full. The element is discarded if the cursor is closed.
+	 */
+	private void enqueue(Object element) throws SQWRLException
+	{
+		try {
+			while (!this.isClosed)
+				if (this.queue.offer(element, WaitTimeoutMilliseconds, TimeUnit.MILLISECONDS))
+					return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQWRLException("interrupted while streaming result rows", e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SQWRLResultValue> castRow(Object element)
+	{
+		return (List<SQWRLResultValue>)element;
+	}
+}
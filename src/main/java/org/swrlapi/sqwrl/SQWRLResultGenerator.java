@@ -1,5 +1,6 @@
 package org.swrlapi.sqwrl;
 
+import java.io.File;
 import java.util.List;
 
 import org.swrlapi.sqwrl.exceptions.SQWRLException;
@@ -44,4 +45,21 @@ public interface SQWRLResultGenerator
 	boolean isPrepared();
 
 	void prepared() throws SQWRLException;
+
+	/**
+	 * Sort ordered results externally once they have more than the given number of rows. See
+	 * {@link DefaultSQWRLResult#setExternalSortThreshold}.
+	 */
+	void setExternalSortThreshold(int numberOfRows);
+
+	/**
+	 * Set the directory for the temporary files of an external sort; null for the default temporary directory.
+	 */
+	void setExternalSortDirectory(File directory);
+
+	/**
+	 * Stream rows to a cursor as they are added instead of storing them in the result. See
+	 * {@link DefaultSQWRLResult#openCursor} for the results that can be streamed.
+	 */
+	SQWRLResultCursor openCursor(int queueCapacity) throws SQWRLException;
 }
@@ -0,0 +1,231 @@
+package org.swrlapi.sqwrl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.swrlapi.ext.OWLDatatypeFactory;
+import org.swrlapi.ext.OWLLiteralFactory;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLAnnotationPropertyValue;
+import org.swrlapi.sqwrl.values.SQWRLClassValue;
+import org.swrlapi.sqwrl.values.SQWRLDataPropertyValue;
+import org.swrlapi.sqwrl.values.SQWRLIndividualValue;
+import org.swrlapi.sqwrl.values.SQWRLLiteralResultValue;
+import org.swrlapi.sqwrl.values.SQWRLNamedResultValue;
+import org.swrlapi.sqwrl.values.SQWRLObjectPropertyValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+
+/**
+ * A compact binary encoding of SQWRL result rows. Each value is written as a one byte type tag followed by its content.
+ * IRIs, datatype IRIs, and language tags are replaced by variable-length integer IDs from a string dictionary held by
+ * the codec; literal lexical forms are written inline as UTF-8. Rows must be read with the codec that wrote them (or
+ * one initialized with the same dictionary), using the result value factory to recreate the values.
+ */
+class SQWRLResultRowCodec
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final byte LiteralTag = 1;
+	private static final byte ClassTag = 2;
+	private static final byte IndividualTag = 3;
+	private static final byte ObjectPropertyTag = 4;
+	private static final byte DataPropertyTag = 5;
+	private static final byte AnnotationPropertyTag = 6;
+
+	private final SQWRLResultValueFactory factory;
+	private final Map<String, Integer> string2ID;
+	private final List<String> strings;
+	private final Map<Integer, OWLDatatype> datatypes;
+	private final OWLDatatypeFactory datatypeFactory;
+	private final OWLLiteralFactory literalFactory;
+
+	public SQWRLResultRowCodec(SQWRLResultValueFactory factory)
+	{
+		this(factory, new ArrayList<String>());
+	}
+
+	/**
+	 * Create a codec whose dictionary starts with the given strings (e.g., those of the codec that wrote the rows).
+	 */
+	public SQWRLResultRowCodec(SQWRLResultValueFactory factory, List<String> strings)
+	{
+		this.factory = factory;
+		this.string2ID = new HashMap<String, Integer>();
+		this.strings = new ArrayList<String>();
+		this.datatypes = new HashMap<Integer, OWLDatatype>();
+		this.datatypeFactory = new DefaultOWLDatatypeFactory();
+		this.literalFactory = new DefaultOWLLiteralFactory(this.datatypeFactory);
+
+		for (String string : strings)
+			getStringID(string);
+	}
+
+	/**
+	 * Get the strings in the codec's dictionary in ID order.
+	 */
+	public List<String> getStrings()
+	{
+		return this.strings;
+	}
+
+	public void writeRow(DataOutput out, List<SQWRLResultValue> row) throws IOException, SQWRLException
+	{
+		writeVarInt(out, row.size());
+		for (SQWRLResultValue value : row)
+			writeValue(out, value);
+	}
+
+	public List<SQWRLResultValue> readRow(ByteBuffer in) throws SQWRLException
+	{
+		int numberOfValues = readVarInt(in);
+		List<SQWRLResultValue> row = new ArrayList<SQWRLResultValue>(numberOfValues);
+
+		for (int i = 0; i < numberOfValues; i++)
+			row.add(readValue(in));
+
+		return row;
+	}
+
+	public void writeValue(DataOutput out, SQWRLResultValue value) throws IOException, SQWRLException
+	{
+		if (value instanceof SQWRLLiteralResultValue) {
+			OWLLiteral literal = ((SQWRLLiteralResultValue)value).getOWLLiteral();
+			out.writeByte(LiteralTag);
+			writeString(out, literal.getLiteral());
+			writeVarInt(out, getStringID(literal.getDatatype().getIRI().toString()));
+			writeVarInt(out, getStringID(literal.getLang()));
+		} else if (value instanceof SQWRLNamedResultValue) {
+			if (value instanceof SQWRLClassValue)
+				out.writeByte(ClassTag);
+			else if (value instanceof SQWRLIndividualValue)
+				out.writeByte(IndividualTag);
+			else if (value instanceof SQWRLObjectPropertyValue)
+				out.writeByte(ObjectPropertyTag);
+			else if (value instanceof SQWRLDataPropertyValue)
+				out.writeByte(DataPropertyTag);
+			else if (value instanceof SQWRLAnnotationPropertyValue)
+				out.writeByte(AnnotationPropertyTag);
+			else
+				throw new SQWRLException("cannot encode result value " + value);
+			writeVarInt(out, getStringID(((SQWRLNamedResultValue)value).getIRI().toString()));
+		} else
+			throw new SQWRLException("cannot encode result value " + value);
+	}
+
+	public SQWRLResultValue readValue(ByteBuffer in) throws SQWRLException
+	{
+		byte tag = in.get();
+
+		if (tag == LiteralTag) {
+			String lexicalForm = readString(in);
+			OWLDatatype datatype = getDatatype(readVarInt(in));
+			String lang = getString(readVarInt(in));
+			OWLLiteral literal = lang.length() == 0 ? this.literalFactory.getOWLLiteral(lexicalForm, datatype)
+					: this.literalFactory.getOWLLiteral(lexicalForm, lang);
+			return this.factory.getLiteral(literal);
+		} else {
+			IRI iri = IRI.create(getString(readVarInt(in)));
+			switch (tag) {
+			case ClassTag:
+				return this.factory.getClassValue(iri);
+			case IndividualTag:
+				return this.factory.getIndividualValue(iri);
+			case ObjectPropertyTag:
+				return this.factory.getObjectPropertyValue(iri);
+			case DataPropertyTag:
+				return this.factory.getDataPropertyValue(iri);
+			case AnnotationPropertyTag:
+				return this.factory.getAnnotationPropertyValue(iri);
+			default:
+				throw new SQWRLException("invalid result value tag " + tag);
+			}
+		}
+	}
+
+	public static void writeVarInt(DataOutput out, int i) throws IOException
+	{
+		while ((i & ~0x7F) != 0) {
+			out.writeByte((i & 0x7F) | 0x80);
+			i >>>= 7;
+		}
+		out.writeByte(i);
+	}
+
+	/**
+	 * Write a string as its UTF-8 length followed by its UTF-8 bytes.
+	 */
+	public static void writeString(DataOutput out, String string) throws IOException
+	{
+		byte[] bytes = string.getBytes(UTF8);
+
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(ByteBuffer in)
+	{
+		byte[] bytes = new byte[readVarInt(in)];
+
+		in.get(bytes);
+
+		return new String(bytes, UTF8);
+	}
+
+	public static int readVarInt(ByteBuffer in)
+	{
+		int result = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = in.get();
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return result;
+	}
+
+	private int getStringID(String string)
+	{
+		Integer id = this.string2ID.get(string);
+
+		if (id == null) {
+			id = this.strings.size();
+			this.string2ID.put(string, id);
+			this.strings.add(string);
+		}
+		return id;
+	}
+
+	private String getString(int id) throws SQWRLException
+	{
+		if (id < 0 || id >= this.strings.size())
+			throw new SQWRLException("invalid string ID " + id + " in encoded result");
+
+		return this.strings.get(id);
+	}
+
+	private OWLDatatype getDatatype(int id) throws SQWRLException
+	{
+		OWLDatatype datatype = this.datatypes.get(id);
+
+		if (datatype == null) {
+			datatype = this.datatypeFactory.getOWLDatatype(IRI.create(getString(id)));
+			this.datatypes.put(id, datatype);
+		}
+		return datatype;
+	}
+}
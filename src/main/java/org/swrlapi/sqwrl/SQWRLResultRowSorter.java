@@ -0,0 +1,257 @@
+package org.swrlapi.sqwrl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+
+/**
+ * Sorts result rows using an external merge sort. Rows are buffered in memory until the buffer holds the maximum number
+ * of rows; the buffer is then sorted and written as a run to a temporary file using a {@link SQWRLResultRowCodec}. The
+ * sorted rows are produced by lazily merging the runs, which are read through memory-mapped buffers. If no run had to be
+ * written the rows are simply sorted in memory.
+ * <p>
+ * Run files are deleted once all sorted rows have been read, if a run cannot be written or read, and by {@link #dispose};
+ * a sorter that may have written runs must be disposed in a finally block once its rows are no longer needed.
+ * <p>
+ * The sort is stable: rows that compare equal are produced in the order in which they were added.
+ */
+class SQWRLResultRowSorter
+{
+	private final Comparator<List<SQWRLResultValue>> rowComparator;
+	private final SQWRLResultRowCodec codec;
+	private final int maximumNumberOfRowsInMemory;
+	private final File directory;
+	private final List<List<SQWRLResultValue>> buffer;
+	private final List<File> runFiles;
+	private final List<Integer> runSizes;
+	private int numberOfRows;
+
+	/**
+	 * @param directory The directory for the run files; null for the default temporary directory
+	 */
+	public SQWRLResultRowSorter(Comparator<List<SQWRLResultValue>> rowComparator, SQWRLResultValueFactory factory,
+			int maximumNumberOfRowsInMemory, File directory)
+	{
+		if (maximumNumberOfRowsInMemory < 1)
+			throw new IllegalArgumentException("maximum number of rows in memory must be positive: "
+					+ maximumNumberOfRowsInMemory);
+
+		this.rowComparator = rowComparator;
+		this.codec = new SQWRLResultRowCodec(factory);
+		this.maximumNumberOfRowsInMemory = maximumNumberOfRowsInMemory;
+		this.directory = directory;
+		this.buffer = new ArrayList<List<SQWRLResultValue>>();
+		this.runFiles = new ArrayList<File>();
+		this.runSizes = new ArrayList<Integer>();
+	}
+
+	public void add(List<SQWRLResultValue> row) throws SQWRLException
+	{
+		this.buffer.add(row);
+		this.numberOfRows++;
+
+		if (this.buffer.size() >= this.maximumNumberOfRowsInMemory)
+			writeRun();
+	}
+
+	public int getNumberOfRows()
+	{
+		return this.numberOfRows;
+	}
+
+	/**
+	 * Get the sorted rows. No rows may be added after this call.
+	 */
+	public SortedRows getSortedRows() throws SQWRLException
+	{
+		if (this.runFiles.isEmpty()) {
+			Collections.sort(this.buffer, this.rowComparator);
+			return new SortedRows(this.buffer);
+		} else {
+			if (!this.buffer.isEmpty())
+				writeRun();
+			return new SortedRows(openRuns());
+		}
+	}
+
+	/**
+	 * Delete any run files and discard buffered rows. The sorter holds no rows afterwards.
+	 */
+	public void dispose()
+	{
+		for (File runFile : this.runFiles)
+			runFile.delete();
+		this.runFiles.clear();
+		this.runSizes.clear();
+		this.buffer.clear();
+	}
+
+	private void writeRun() throws SQWRLException
+	{
+		File runFile = null;
+		DataOutputStream out = null;
+
+		Collections.sort(this.buffer, this.rowComparator);
+
+		try {
+			runFile = File.createTempFile("sqwrl-sort", ".run", this.directory);
+			this.runFiles.add(runFile);
+			this.runSizes.add(this.buffer.size());
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile)));
+			for (List<SQWRLResultValue> row : this.buffer)
+				this.codec.writeRow(out, row);
+		} catch (IOException e) {
+			dispose();
+			throw new SQWRLException("error writing sorted run " + runFile + ": " + e.getMessage(), e);
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+					// Ignore; a failed write has already been reported
+				}
+		}
+		this.buffer.clear();
+	}
+
+	private PriorityQueue<Run> openRuns() throws SQWRLException
+	{
+		PriorityQueue<Run> runs = new PriorityQueue<Run>(this.runFiles.size(), new Comparator<Run>() {
+			@Override
+			public int compare(Run run1, Run run2)
+			{
+				int result = SQWRLResultRowSorter.this.rowComparator.compare(run1.getRow(), run2.getRow());
+
+				return result != 0 ? result : run1.getRunIndex() - run2.getRunIndex(); // Earlier runs hold earlier rows
+			}
+		});
+
+		for (int runIndex = 0; runIndex < this.runFiles.size(); runIndex++) {
+			Run run = new Run(runIndex, map(this.runFiles.get(runIndex)), this.runSizes.get(runIndex));
+			if (run.advance())
+				runs.add(run);
+		}
+		return runs;
+	}
+
+	private ByteBuffer map(File runFile) throws SQWRLException
+	{
+		RandomAccessFile file = null;
+
+		try {
+			file = new RandomAccessFile(runFile, "r");
+			FileChannel channel = file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new SQWRLException("sorted run " + runFile + " is too large to map; reduce the number of rows held "
+						+ "in memory");
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			dispose();
+			throw new SQWRLException("error reading sorted run " + runFile + ": " + e.getMessage(), e);
+		} finally {
+			if (file != null)
+				try {
+					file.close(); // The mapping remains valid after the file is closed
+				} catch (IOException e) {
+					// Ignore
+				}
+		}
+	}
+
+	/**
+	 * The sorted rows, produced one at a time.
+	 */
+	public class SortedRows
+	{
+		private final List<List<SQWRLResultValue>> rows;
+		private final PriorityQueue<Run> runs;
+		private int nextRowIndex;
+
+		private SortedRows(List<List<SQWRLResultValue>> rows)
+		{
+			this.rows = rows;
+			this.runs = null;
+		}
+
+		private SortedRows(PriorityQueue<Run> runs)
+		{
+			this.rows = null;
+			this.runs = runs;
+		}
+
+		/**
+		 * Get the next row, or null if all rows have been produced. Run files are deleted once all rows have been read.
+		 */
+		public List<SQWRLResultValue> nextRow() throws SQWRLException
+		{
+			if (this.rows != null)
+				return this.nextRowIndex < this.rows.size() ? this.rows.get(this.nextRowIndex++) : null;
+
+			Run run = this.runs.poll();
+
+			if (run == null) {
+				dispose();
+				return null;
+			}
+
+			List<SQWRLResultValue> row = run.getRow();
+			if (run.advance())
+				this.runs.add(run);
+
+			return row;
+		}
+	}
+
+	private class Run
+	{
+		private final int runIndex;
+		private final ByteBuffer buffer;
+		private int remainingRows;
+		private List<SQWRLResultValue> row;
+
+		public Run(int runIndex, ByteBuffer buffer, int numberOfRows)
+		{
+			this.runIndex = runIndex;
+			this.buffer = buffer;
+			this.remainingRows = numberOfRows;
+		}
+
+		public int getRunIndex()
+		{
+			return this.runIndex;
+		}
+
+		public List<SQWRLResultValue> getRow()
+		{
+			return this.row;
+		}
+
+		/**
+		 * Read the next row of the run; return false if the run is exhausted.
+		 */
+		public boolean advance() throws SQWRLException
+		{
+			if (this.remainingRows == 0) {
+				this.row = null;
+				return false;
+			}
+			this.row = SQWRLResultRowSorter.this.codec.readRow(this.buffer);
+			this.remainingRows--;
+			return true;
+		}
+	}
+}
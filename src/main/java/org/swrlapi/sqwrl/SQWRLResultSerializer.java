@@ -0,0 +1,289 @@
+package org.swrlapi.sqwrl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+
+/**
+ * Writes SQWRL results in a compact, versioned binary format and reads them back.
+ * <p>
+ * An encoded result consists of a header (a magic number, the format version, and a flags byte) followed by a body
+ * holding the numbers of columns and rows, the internal column names, the column display names, the ordering of the
+ * result, a dictionary of the IRIs, datatype IRIs, and language tags used by the result, and the columns. Int, short,
+ * long, float, double, and boolean columns are written as fixed size binary values; all other columns are written as a
+ * dictionary of their distinct values, which refer to the IRIs in the result dictionary by ID, followed by a fixed size
+ * code per row. The body may optionally be compressed.
+ * <p>
+ * Results read from an uncompressed body are served directly from the buffer holding it: in particular, a result read
+ * from a file is served from a memory-mapped buffer, with values decoded as they are requested and only the column
+ * dictionaries held on the heap. A compressed body is first inflated into a heap buffer.
+ *
+ * @see SQWRLResultColumn
+ */
+public class SQWRLResultSerializer
+{
+	public static final int Version = 2;
+
+	private static final int Magic = 0x5351524C; // "SQRL"
+	private static final byte CompressedFlag = 1;
+
+	private final SQWRLResultValueFactory factory;
+
+	public SQWRLResultSerializer(SQWRLResultValueFactory factory)
+	{
+		this.factory = factory;
+	}
+
+	public void write(SQWRLResult result, File file, boolean compress) throws SQWRLException
+	{
+		OutputStream out = null;
+
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(file));
+			write(result, out, compress);
+		} catch (IOException e) {
+			throw new SQWRLException("error writing result to " + file + ": " + e.getMessage(), e);
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+					// Ignore; a failed write has already been reported
+				}
+		}
+	}
+
+	/**
+	 * Write a prepared result to a stream. The stream is flushed but not closed.
+	 */
+	public void write(SQWRLResult result, OutputStream out, boolean compress) throws SQWRLException
+	{
+		List<SQWRLResultColumn> columns = getColumns(result);
+		SQWRLResultRowCodec codec = new SQWRLResultRowCodec(this.factory);
+		ByteArrayOutputStream columnBytes = new ByteArrayOutputStream();
+		Deflater deflater = null;
+
+		try {
+			DataOutputStream columnOut = new DataOutputStream(columnBytes);
+			for (SQWRLResultColumn column : columns) // Written first to fill the dictionary, which precedes them
+				column.write(columnOut, codec);
+			columnOut.flush();
+
+			DataOutputStream headerOut = new DataOutputStream(out);
+			headerOut.writeInt(Magic);
+			headerOut.writeInt(Version);
+			headerOut.writeByte(compress ? CompressedFlag : 0);
+			headerOut.flush();
+
+			DeflaterOutputStream deflaterOut = null;
+			DataOutputStream bodyOut;
+			if (compress) {
+				deflater = new Deflater();
+				deflaterOut = new DeflaterOutputStream(out, deflater);
+				bodyOut = new DataOutputStream(deflaterOut);
+			} else
+				bodyOut = new DataOutputStream(out);
+
+			bodyOut.writeInt(columns.size());
+			bodyOut.writeInt(result.getNumberOfRows());
+			writeColumnNames(bodyOut, result);
+			SQWRLResultRowCodec.writeVarInt(bodyOut, codec.getStrings().size());
+			for (String string : codec.getStrings())
+				SQWRLResultRowCodec.writeString(bodyOut, string);
+			columnBytes.writeTo(bodyOut);
+
+			if (deflaterOut != null)
+				deflaterOut.finish();
+			bodyOut.flush();
+		} catch (IOException e) {
+			throw new SQWRLException("error writing result: " + e.getMessage(), e);
+		} finally {
+			if (deflater != null)
+				deflater.end();
+		}
+	}
+
+	/**
+	 * Read a result from a file, which is memory mapped.
+	 */
+	public SQWRLResult read(File file) throws SQWRLException
+	{
+		RandomAccessFile randomAccessFile = null;
+		ByteBuffer buffer;
+
+		try {
+			randomAccessFile = new RandomAccessFile(file, "r");
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new SQWRLException("encoded result " + file + " is too large to map");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new SQWRLException("error reading result from " + file + ": " + e.getMessage(), e);
+		} finally {
+			if (randomAccessFile != null)
+				try {
+					randomAccessFile.close(); // The mapping remains valid after the file is closed
+				} catch (IOException e) {
+					// Ignore
+				}
+		}
+		return read(buffer);
+	}
+
+	/**
+	 * Read a result from a stream. The remaining content of the stream is copied to a heap buffer.
+	 */
+	public SQWRLResult read(InputStream in) throws SQWRLException
+	{
+		try {
+			return read(ByteBuffer.wrap(readFully(in)));
+		} catch (IOException e) {
+			throw new SQWRLException("error reading result: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Read a result from the remaining content of a buffer. Unless the body is compressed, the result's values stay in
+	 * the buffer, which must not be modified while the result is in use.
+	 */
+	public SQWRLResult read(ByteBuffer buffer) throws SQWRLException
+	{
+		ByteBuffer in = buffer.slice();
+
+		try {
+			if (in.getInt() != Magic)
+				throw new SQWRLException("buffer does not hold an encoded SQWRL result");
+
+			int version = in.getInt();
+			if (version != Version)
+				throw new SQWRLException("unsupported encoded SQWRL result version " + version);
+
+			if ((in.get() & CompressedFlag) != 0)
+				in = inflate(in);
+
+			int numberOfColumns = in.getInt();
+			int numberOfRows = in.getInt();
+			List<String> columnNames = readStrings(in, numberOfColumns);
+			List<String> columnDisplayNames = readStrings(in, SQWRLResultRowCodec.readVarInt(in));
+			int numberOfOrderByColumns = SQWRLResultRowCodec.readVarInt(in);
+			List<Integer> orderByColumnIndexes = new ArrayList<Integer>(numberOfOrderByColumns);
+			for (int i = 0; i < numberOfOrderByColumns; i++)
+				orderByColumnIndexes.add(SQWRLResultRowCodec.readVarInt(in));
+			boolean ascending = in.get() != 0;
+
+			List<String> strings = readStrings(in, SQWRLResultRowCodec.readVarInt(in));
+			SQWRLResultRowCodec codec = new SQWRLResultRowCodec(this.factory, strings);
+			List<SQWRLResultColumn> columns = new ArrayList<SQWRLResultColumn>(numberOfColumns);
+			for (int c = 0; c < numberOfColumns; c++)
+				columns.add(SQWRLResultColumn.read(in, numberOfRows, codec, this.factory));
+
+			return new DefaultSQWRLResult(this.factory, columnNames, columnDisplayNames, orderByColumnIndexes, ascending,
+					columns, numberOfRows);
+		} catch (BufferUnderflowException e) {
+			throw new SQWRLException("encoded SQWRL result is truncated");
+		}
+	}
+
+	/**
+	 * Write the internal column names, the display names, and the ordering of a result. Results other than
+	 * {@link DefaultSQWRLResult} are written with their column names as internal names and without ordering.
+	 */
+	private static void writeColumnNames(DataOutputStream out, SQWRLResult result) throws IOException, SQWRLException
+	{
+		List<String> columnNames, columnDisplayNames;
+		List<Integer> orderByColumnIndexes;
+		boolean ascending;
+
+		if (result instanceof DefaultSQWRLResult) {
+			DefaultSQWRLResult defaultResult = (DefaultSQWRLResult)result;
+			columnNames = defaultResult.getInternalColumnNames();
+			columnDisplayNames = defaultResult.getColumnDisplayNames();
+			orderByColumnIndexes = defaultResult.getOrderByColumnIndexes();
+			ascending = defaultResult.isAscending();
+		} else {
+			columnNames = result.getColumnNames();
+			columnDisplayNames = Collections.emptyList();
+			orderByColumnIndexes = Collections.emptyList();
+			ascending = false;
+		}
+
+		for (String columnName : columnNames)
+			SQWRLResultRowCodec.writeString(out, columnName);
+		SQWRLResultRowCodec.writeVarInt(out, columnDisplayNames.size());
+		for (String columnDisplayName : columnDisplayNames)
+			SQWRLResultRowCodec.writeString(out, columnDisplayName);
+		SQWRLResultRowCodec.writeVarInt(out, orderByColumnIndexes.size());
+		for (Integer orderByColumnIndex : orderByColumnIndexes)
+			SQWRLResultRowCodec.writeVarInt(out, orderByColumnIndex);
+		out.writeBoolean(ascending);
+	}
+
+	private static List<String> readStrings(ByteBuffer in, int numberOfStrings)
+	{
+		List<String> strings = new ArrayList<String>(numberOfStrings);
+
+		for (int i = 0; i < numberOfStrings; i++)
+			strings.add(SQWRLResultRowCodec.readString(in));
+
+		return strings;
+	}
+
+	private List<SQWRLResultColumn> getColumns(SQWRLResult result) throws SQWRLException
+	{
+		if (result instanceof DefaultSQWRLResult)
+			return ((DefaultSQWRLResult)result).getColumns();
+
+		List<SQWRLResultColumn> columns = new ArrayList<SQWRLResultColumn>(result.getNumberOfColumns());
+		for (int c = 0; c < result.getNumberOfColumns(); c++) {
+			SQWRLResultColumn.Builder columnBuilder = new SQWRLResultColumn.Builder(this.factory);
+			for (int r = 0; r < result.getNumberOfRows(); r++)
+				columnBuilder.add(result.getValue(c, r));
+			columns.add(columnBuilder.build());
+		}
+		return columns;
+	}
+
+	private static ByteBuffer inflate(ByteBuffer in) throws SQWRLException
+	{
+		byte[] compressedBody = new byte[in.remaining()];
+
+		in.get(compressedBody);
+
+		try {
+			return ByteBuffer.wrap(readFully(new InflaterInputStream(new ByteArrayInputStream(compressedBody))));
+		} catch (IOException e) {
+			throw new SQWRLException("error inflating encoded SQWRL result: " + e.getMessage(), e);
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] bytes = new byte[8192];
+		int n;
+
+		while ((n = in.read(bytes)) != -1)
+			out.write(bytes, 0, n);
+
+		return out.toByteArray();
+	}
+}
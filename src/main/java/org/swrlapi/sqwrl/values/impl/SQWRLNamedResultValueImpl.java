@@ -34,6 +34,23 @@ abstract class SQWRLNamedResultValueImpl implements SQWRLNamedResultValue
 		return classIRI.compareTo(((SQWRLNamedResultValueImpl)o).getIRI());
 	}
 
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if ((obj == null) || (obj.getClass() != this.getClass()))
+			return false;
+		SQWRLNamedResultValueImpl impl = (SQWRLNamedResultValueImpl)obj;
+		return this.classIRI.equals(impl.classIRI);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.classIRI.hashCode();
+	}
+
 	@Override
 	public String toString()
 	{
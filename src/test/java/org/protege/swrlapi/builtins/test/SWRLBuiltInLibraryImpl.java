@@ -0,0 +1,52 @@
+package org.protege.swrlapi.builtins.test;
+
+import java.util.List;
+
+import org.swrlapi.builtins.AbstractSWRLBuiltInLibrary;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.exceptions.BuiltInException;
+
+/**
+ * Built-in library with prefix test used by the built-in library manager tests. It is placed in the package from which
+ * the manager loads libraries and records how often it was reset and invoked.
+ */
+public class SWRLBuiltInLibraryImpl extends AbstractSWRLBuiltInLibrary
+{
+	private static final String TestLibraryName = "TestBuiltIns";
+
+	private int numberOfResets; // Guarded by this
+	private int numberOfInvocations; // Guarded by this; reset with the library
+
+	public SWRLBuiltInLibraryImpl()
+	{
+		super(TestLibraryName);
+	}
+
+	@Override
+	public synchronized void reset()
+	{
+		this.numberOfResets++;
+		this.numberOfInvocations = 0;
+	}
+
+	public synchronized int getNumberOfResets()
+	{
+		return this.numberOfResets;
+	}
+
+	public synchronized int getNumberOfInvocations()
+	{
+		return this.numberOfInvocations;
+	}
+
+	/**
+	 * Count the invocation; always evaluates to true.
+	 */
+	public boolean count(List<SWRLBuiltInArgument> arguments) throws BuiltInException
+	{
+		synchronized (this) {
+			this.numberOfInvocations++;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,68 @@
+package org.swrlapi.builtins;
+
+import junit.framework.TestCase;
+
+public class InvocationPatternStoreTest extends TestCase
+{
+	private InvocationPatternStore store;
+
+	@Override
+	protected void setUp()
+	{
+		this.store = new InvocationPatternStore();
+	}
+
+	public void testEqualArgumentsGiveSamePattern()
+	{
+		long id = getPatternID("s", 3);
+
+		assertEquals(id, getPatternID("s", 3));
+		assertEquals(1, this.store.getNumberOfHits());
+		assertEquals(1, this.store.getNumberOfMisses());
+	}
+
+	public void testDifferentArgumentsGiveDifferentPatterns()
+	{
+		assertTrue(getPatternID("s", 3) != getPatternID("s", 4));
+		assertTrue(getPatternID("s", 3) != getPatternID("t", 3));
+	}
+
+	public void testIntegralTypesAreNormalized()
+	{
+		long id = getPatternID(Integer.valueOf(1));
+
+		assertEquals(id, getPatternID(Long.valueOf(1L)));
+		assertEquals(id, getPatternID(Short.valueOf((short)1)));
+		assertEquals(id, getPatternID(Byte.valueOf((byte)1)));
+	}
+
+	public void testFloatingPointTypesAreNormalized()
+	{
+		assertEquals(getPatternID(Float.valueOf(0.1f)), getPatternID(Double.valueOf(0.1)));
+		assertEquals(getPatternID(Float.valueOf(2.5f)), getPatternID(Double.valueOf(2.5)));
+	}
+
+	public void testIntegralAndFloatingPointValuesAreDistinct()
+	{
+		assertTrue(getPatternID(Integer.valueOf(1)) != getPatternID(Double.valueOf(1.0)));
+	}
+
+	public void testLeastRecentlyUsedPatternIsEvicted()
+	{
+		this.store.setMaximumSize(2);
+
+		long id1 = getPatternID(1);
+		getPatternID(2);
+		getPatternID(1);
+		getPatternID(3); // Evicts 2
+
+		assertEquals(2, this.store.size());
+		assertEquals(1, this.store.getNumberOfEvictions());
+		assertEquals(id1, getPatternID(1));
+	}
+
+	private long getPatternID(Object... argumentValues)
+	{
+		return this.store.getPatternID(null, "rule", 0, false, argumentValues);
+	}
+}
@@ -0,0 +1,111 @@
+package org.swrlapi.builtins;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.swrlapi.core.SWRLBuiltInBridge;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+
+public class SWRLBuiltInLibraryManagerTest extends TestCase
+{
+	private static final String CountBuiltInName = "test:count";
+	private static final int NumberOfThreads = 8;
+
+	public void testEachManagerLoadsItsOwnLibraries() throws Exception
+	{
+		SWRLBuiltInLibraryManager manager1 = new SWRLBuiltInLibraryManager(createBridge());
+		SWRLBuiltInLibraryManager manager2 = new SWRLBuiltInLibraryManager(createBridge());
+		SWRLBuiltInLibrary library1 = manager1.resolveSWRLBuiltIn("r", CountBuiltInName).getLibrary();
+		SWRLBuiltInLibrary library2 = manager2.resolveSWRLBuiltIn("r", CountBuiltInName).getLibrary();
+
+		assertNotSame(library1, library2);
+		assertSame(library1, manager1.resolveSWRLBuiltIn("r", CountBuiltInName).getLibrary());
+		assertEquals(1, getNumberOfResets(library1));
+		assertEquals(1, getNumberOfResets(library2));
+	}
+
+	public void testResetOnlyResetsTheManagersLibraries() throws Exception
+	{
+		SWRLBuiltInLibraryManager manager1 = new SWRLBuiltInLibraryManager(createBridge());
+		SWRLBuiltInLibraryManager manager2 = new SWRLBuiltInLibraryManager(createBridge());
+		SWRLBuiltInHandle builtIn1 = manager1.resolveSWRLBuiltIn("r", CountBuiltInName);
+		SWRLBuiltInHandle builtIn2 = manager2.resolveSWRLBuiltIn("r", CountBuiltInName);
+
+		assertEquals(1, manager1.invokeSWRLBuiltIn("r", builtIn1, 0, false, new ArrayList<SWRLBuiltInArgument>()).size());
+		assertEquals(1, manager1.invokeSWRLBuiltIn("r", CountBuiltInName, 0, false, new ArrayList<SWRLBuiltInArgument>())
+				.size());
+		assertEquals(1, manager2.invokeSWRLBuiltIn("r", builtIn2, 0, false, new ArrayList<SWRLBuiltInArgument>()).size());
+		assertEquals(2, getNumberOfInvocations(builtIn1.getLibrary()));
+		assertEquals(1, getNumberOfInvocations(builtIn2.getLibrary()));
+
+		manager1.invokeAllBuiltInLibrariesResetMethod();
+
+		assertEquals(2, getNumberOfResets(builtIn1.getLibrary()));
+		assertEquals(0, getNumberOfInvocations(builtIn1.getLibrary()));
+		assertEquals(1, getNumberOfResets(builtIn2.getLibrary()));
+		assertEquals(1, getNumberOfInvocations(builtIn2.getLibrary()));
+	}
+
+	public void testConcurrentFirstResolutionsLoadLibraryOnce() throws Exception
+	{
+		final SWRLBuiltInLibraryManager manager = new SWRLBuiltInLibraryManager(createBridge());
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(NumberOfThreads);
+		List<Future<SWRLBuiltInHandle>> futures = new ArrayList<Future<SWRLBuiltInHandle>>();
+
+		try {
+			for (int thread = 0; thread < NumberOfThreads; thread++) {
+				futures.add(executorService.submit(new Callable<SWRLBuiltInHandle>()
+				{
+					@Override
+					public SWRLBuiltInHandle call() throws Exception
+					{
+						startSignal.await();
+						return manager.resolveSWRLBuiltIn("r", CountBuiltInName);
+					}
+				}));
+			}
+			startSignal.countDown();
+
+			SWRLBuiltInLibrary library = futures.get(0).get().getLibrary();
+			for (Future<SWRLBuiltInHandle> future : futures)
+				assertSame(library, future.get().getLibrary());
+			assertEquals(1, getNumberOfResets(library));
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private static int getNumberOfResets(SWRLBuiltInLibrary library)
+	{
+		return ((org.protege.swrlapi.builtins.test.SWRLBuiltInLibraryImpl)library).getNumberOfResets();
+	}
+
+	private static int getNumberOfInvocations(SWRLBuiltInLibrary library)
+	{
+		return ((org.protege.swrlapi.builtins.test.SWRLBuiltInLibraryImpl)library).getNumberOfInvocations();
+	}
+
+	private SWRLBuiltInBridge createBridge()
+	{
+		return (SWRLBuiltInBridge)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLBuiltInBridge.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						return null;
+					}
+				});
+	}
+}
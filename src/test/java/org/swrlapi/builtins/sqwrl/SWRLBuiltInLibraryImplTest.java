@@ -0,0 +1,276 @@
+package org.swrlapi.builtins.sqwrl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.core.SWRLBuiltInBridge;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLBuiltInArgumentFactory;
+import org.swrlapi.core.arguments.SWRLLiteralBuiltInArgument;
+import org.swrlapi.exceptions.BuiltInException;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
+
+public class SWRLBuiltInLibraryImplTest extends TestCase
+{
+	private static final String QueryName = "q";
+
+	private SWRLBuiltInArgumentFactory argumentFactory;
+	private SWRLBuiltInBridge bridge;
+	private SWRLBuiltInLibraryImpl library;
+
+	@Override
+	protected void setUp()
+	{
+		final SWRLAPIOWLDataFactory dataFactory = new DefaultSWRLAPIOWLDataFactory(new OWLNamedObjectResolver());
+
+		this.argumentFactory = dataFactory.getSWRLBuiltInArgumentFactory();
+		this.bridge = (SWRLBuiltInBridge)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLBuiltInBridge.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						if (method.getName().equals("getOWLDataFactory"))
+							return dataFactory;
+						else if (method.getName().equals("hashCode"))
+							return Integer.valueOf(1);
+						else
+							return null;
+					}
+				});
+		this.library = new SWRLBuiltInLibraryImpl();
+	}
+
+	public void testSetDropsDuplicatesAndBagKeepsThem() throws Exception
+	{
+		makeCollection("makeSet", "s", 1, 2, 2, 3);
+		makeCollection("makeBag", "b", 1, 2, 2, 3);
+
+		assertEquals(3, getSize("s"));
+		assertEquals(4, getSize("b"));
+	}
+
+	public void testCollectionsAreGrouped() throws Exception
+	{
+		for (int value : new int[] { 1, 2, 3 })
+			invoke("makeBag", unbound("b"), literal(value), individual("g1"));
+		invoke("makeBag", unbound("b"), literal(4), individual("g2"));
+
+		assertEquals(3, getSize("b", individual("g1")));
+		assertEquals(1, getSize("b", individual("g2")));
+	}
+
+	public void testSortedOperatorsOrderNumerically() throws Exception
+	{
+		makeCollection("makeBag", "b", 9, 10, 2, 10);
+
+		assertEquals(2.0, getNumber("least", "b"), 0.0);
+		assertEquals(10.0, getNumber("greatest", "b"), 0.0);
+		assertEquals(9.0, getNth("b", 2), 0.0);
+		assertEquals(10.0, getNth("b", 4), 0.0);
+	}
+
+	public void testSortedViewIsUpdatedAsElementsAreAdded() throws Exception
+	{
+		makeCollection("makeBag", "b", 5, 3);
+		assertEquals(5.0, getNumber("greatest", "b"), 0.0);
+
+		makeCollection("makeBag", "b", 7, 1); // Merged by binary insertion
+		assertEquals(1.0, getNumber("least", "b"), 0.0);
+		assertEquals(7.0, getNumber("greatest", "b"), 0.0);
+		assertEquals(5.0, getNth("b", 3), 0.0);
+
+		for (int value = 100; value > 80; value--) // Too many to insert, so re-sorted
+			makeCollection("makeBag", "b", value);
+		assertEquals(100.0, getNumber("greatest", "b"), 0.0);
+		assertEquals(81.0, getNth("b", 5), 0.0);
+		assertEquals(24, getSize("b"));
+	}
+
+	public void testNumericOperators() throws Exception
+	{
+		makeCollection("makeBag", "b", 4, 1, 2, 2);
+
+		assertEquals(9.0, getNumber("sum", "b"), 0.0);
+		assertEquals(2.25, getNumber("avg", "b"), 0.0);
+		assertEquals(2.0, getNumber("median", "b"), 0.0);
+		assertEquals(1.0, getNumber("min", "b"), 0.0);
+		assertEquals(4.0, getNumber("max", "b"), 0.0);
+	}
+
+	public void testNumericAggregatesAreUpdatedAsElementsAreAdded() throws Exception
+	{
+		makeCollection("makeBag", "b", 4, 1, 2, 2);
+		assertEquals(2.0, getNumber("median", "b"), 0.0);
+
+		makeCollection("makeBag", "b", 10, 11);
+		assertEquals(30.0, getNumber("sum", "b"), 0.0);
+		assertEquals(5.0, getNumber("avg", "b"), 0.0);
+		assertEquals(3.0, getNumber("median", "b"), 0.0);
+		assertEquals(11.0, getNumber("max", "b"), 0.0);
+	}
+
+	public void testNumericOperatorsAcceptMixedNumericTypes() throws Exception
+	{
+		invoke("makeBag", unbound("b"), literal(1));
+		invoke("makeBag", unbound("b"), this.argumentFactory.getLiteralBuiltInArgument(2.5));
+		invoke("makeBag", unbound("b"), this.argumentFactory.getLiteralBuiltInArgument(3L));
+		invoke("makeBag", unbound("b"), this.argumentFactory.getLiteralBuiltInArgument(0.5f));
+
+		assertEquals(7.0, getNumber("sum", "b"), 0.0);
+		assertEquals(1.75, getNumber("median", "b"), 0.0);
+		assertEquals(3.0, getNumber("greatest", "b"), 0.0);
+	}
+
+	public void testNumericOperatorsRejectNonNumericElements() throws Exception
+	{
+		makeCollection("makeBag", "b", 1, 2);
+		assertEquals(3.0, getNumber("sum", "b"), 0.0);
+
+		invoke("makeBag", unbound("b"), this.argumentFactory.getLiteralBuiltInArgument("three"));
+		try {
+			invoke("sum", unbound("n"), collection("b"));
+			fail("expecting non-numeric element to be rejected");
+		} catch (BuiltInException e) {
+		}
+	}
+
+	public void testSetOperations() throws Exception
+	{
+		makeCollection("makeSet", "s1", 1, 2, 3);
+		makeCollection("makeSet", "s2", 2, 3, 4);
+
+		invoke("intersection", unbound("i"), collection("s1"), collection("s2"));
+		invoke("union", unbound("u"), collection("s1"), collection("s2"));
+		invoke("difference", unbound("d"), collection("s1"), collection("s2"));
+
+		assertEquals(2, getSize("i"));
+		assertEquals(4, getSize("u"));
+		assertEquals(1, getSize("d"));
+	}
+
+	public void testCollectionComparisons() throws Exception
+	{
+		makeCollection("makeSet", "s", 1, 2, 3);
+		makeCollection("makeSet", "part", 2, 3);
+		makeCollection("makeSet", "other", 4, 5);
+
+		assertTrue(invoke("contains", collection("s"), collection("part")));
+		assertFalse(invoke("contains", collection("part"), collection("s")));
+		assertTrue(invoke("intersects", collection("s"), collection("part")));
+		assertFalse(invoke("intersects", collection("s"), collection("other")));
+	}
+
+	public void testGroupsAreComparedByElements() throws Exception
+	{
+		for (int value : new int[] { 1, 2, 3 })
+			invoke("makeSet", unbound("s"), literal(value), individual("g1"));
+		for (int value : new int[] { 3, 2, 1 })
+			invoke("makeSet", unbound("s"), literal(value), individual("g2"));
+		for (int value : new int[] { 2, 3 })
+			invoke("makeSet", unbound("s"), literal(value), individual("g3"));
+
+		assertTrue(invoke("equal", collection("s"), collection("s"), individual("g1"), individual("g2")));
+		assertFalse(invoke("equal", collection("s"), collection("s"), individual("g1"), individual("g3")));
+		assertTrue(invoke("contains", collection("s"), collection("s"), individual("g1"), individual("g3")));
+	}
+
+	public void testComparisonIsRepeatedAfterModification() throws Exception
+	{
+		makeCollection("makeSet", "s", 1, 2);
+		makeCollection("makeSet", "part", 2, 3);
+
+		assertFalse(invoke("contains", collection("s"), collection("part")));
+		assertFalse(invoke("contains", collection("s"), collection("part"))); // Memoized
+
+		makeCollection("makeSet", "s", 3);
+		assertTrue(invoke("contains", collection("s"), collection("part")));
+
+		makeCollection("makeSet", "part", 4);
+		assertFalse(invoke("contains", collection("s"), collection("part")));
+	}
+
+	private void makeCollection(String builtInName, String collectionName, int... values) throws Exception
+	{
+		for (int value : values)
+			invoke(builtInName, unbound(collectionName), literal(value));
+	}
+
+	private int getSize(String collectionName, SWRLBuiltInArgument... groupArguments) throws Exception
+	{
+		return (int)getNumber("size", collectionName, groupArguments);
+	}
+
+	private double getNumber(String builtInName, String collectionName, SWRLBuiltInArgument... groupArguments)
+			throws Exception
+	{
+		List<SWRLBuiltInArgument> arguments = createArguments(unbound("n"), collection(collectionName));
+
+		arguments.addAll(Arrays.asList(groupArguments));
+		assertTrue(invoke(builtInName, arguments));
+
+		return Double.parseDouble(((SWRLLiteralBuiltInArgument)arguments.get(0).getBuiltInResult()).getLiteral()
+				.getLiteral());
+	}
+
+	private double getNth(String collectionName, int n) throws Exception
+	{
+		List<SWRLBuiltInArgument> arguments = createArguments(unbound("n"), collection(collectionName), literal(n));
+
+		assertTrue(invoke("nth", arguments));
+
+		return Double.parseDouble(((SWRLLiteralBuiltInArgument)arguments.get(0).getBuiltInResult()).getLiteral()
+				.getLiteral());
+	}
+
+	private boolean invoke(String builtInName, SWRLBuiltInArgument... arguments) throws Exception
+	{
+		return invoke(builtInName, createArguments(arguments));
+	}
+
+	private boolean invoke(String builtInName, List<SWRLBuiltInArgument> arguments) throws Exception
+	{
+		Method method = SWRLBuiltInLibraryImpl.class.getMethod(builtInName, List.class);
+
+		return this.library.invokeBuiltInMethod(method, this.bridge, QueryName, "sqwrl", builtInName, 0, false, arguments);
+	}
+
+	private SWRLBuiltInArgument unbound(String variableName)
+	{
+		return this.argumentFactory.getUnboundVariableBuiltInArgument(variableName);
+	}
+
+	private SWRLBuiltInArgument collection(String collectionName)
+	{
+		SWRLBuiltInArgument argument = this.argumentFactory.getSQWRLCollectionBuiltInArgument(QueryName, collectionName,
+				"?");
+
+		argument.setVariableName(collectionName);
+
+		return argument;
+	}
+
+	private SWRLBuiltInArgument literal(int value)
+	{
+		return this.argumentFactory.getLiteralBuiltInArgument(value);
+	}
+
+	private SWRLBuiltInArgument individual(String name)
+	{
+		return this.argumentFactory.getNamedIndividualBuiltInArgument(IRI.create("http://example.org/test#" + name));
+	}
+
+	private static List<SWRLBuiltInArgument> createArguments(SWRLBuiltInArgument... arguments)
+	{
+		return new ArrayList<SWRLBuiltInArgument>(Arrays.asList(arguments));
+	}
+}
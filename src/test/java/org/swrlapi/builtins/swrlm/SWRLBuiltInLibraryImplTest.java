@@ -0,0 +1,112 @@
+package org.swrlapi.builtins.swrlm;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.core.SWRLBuiltInBridge;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.core.arguments.SWRLBuiltInArgumentFactory;
+import org.swrlapi.core.arguments.SWRLLiteralBuiltInArgument;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
+
+public class SWRLBuiltInLibraryImplTest extends TestCase
+{
+	private static final int NumberOfThreads = 8;
+	private static final int InvocationsPerThread = 500;
+
+	private SWRLBuiltInArgumentFactory argumentFactory;
+	private SWRLBuiltInBridge bridge;
+	private SWRLBuiltInLibraryImpl library;
+
+	@Override
+	protected void setUp()
+	{
+		final SWRLAPIOWLDataFactory dataFactory = new DefaultSWRLAPIOWLDataFactory(new OWLNamedObjectResolver());
+
+		this.argumentFactory = dataFactory.getSWRLBuiltInArgumentFactory();
+		this.bridge = (SWRLBuiltInBridge)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLBuiltInBridge.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						return method.getName().equals("getOWLDataFactory") ? dataFactory : null;
+					}
+				});
+		this.library = new SWRLBuiltInLibraryImpl();
+	}
+
+	public void testLibraryIsStateless()
+	{
+		assertTrue(this.library.isStateless());
+	}
+
+	public void testEval() throws Exception
+	{
+		assertEquals(7.0, eval("x * 2 + y", 2, 3), 0.0);
+	}
+
+	public void testConcurrentEvalUsesSeparateParsers() throws Exception
+	{
+		ExecutorService executorService = Executors.newFixedThreadPool(NumberOfThreads);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+
+		try {
+			for (int thread = 0; thread < NumberOfThreads; thread++) {
+				final int x = thread;
+				futures.add(executorService.submit(new Callable<Integer>()
+				{
+					@Override
+					public Integer call() throws Exception
+					{
+						int numberOfWrongResults = 0;
+
+						for (int y = 0; y < InvocationsPerThread; y++)
+							if (eval("x * 1000 + y", x, y) != x * 1000 + y)
+								numberOfWrongResults++;
+
+						return numberOfWrongResults;
+					}
+				}));
+			}
+			for (Future<Integer> future : futures)
+				assertEquals(Integer.valueOf(0), future.get());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private double eval(String expression, int x, int y) throws Exception
+	{
+		List<SWRLBuiltInArgument> arguments = new ArrayList<SWRLBuiltInArgument>(Arrays.asList(
+				this.argumentFactory.getUnboundVariableBuiltInArgument("r"),
+				this.argumentFactory.getLiteralBuiltInArgument(expression), variable("x", x), variable("y", y)));
+		Method method = SWRLBuiltInLibraryImpl.class.getMethod("eval", List.class);
+
+		assertTrue(this.library.invokeBuiltInMethod(method, this.bridge, "r", "swrlm", "eval", 0, false, arguments));
+
+		return Double.parseDouble(((SWRLLiteralBuiltInArgument)arguments.get(0).getBuiltInResult()).getLiteral()
+				.getLiteral());
+	}
+
+	private SWRLBuiltInArgument variable(String variableName, int value)
+	{
+		SWRLBuiltInArgument argument = this.argumentFactory.getLiteralBuiltInArgument(value);
+
+		argument.setVariableName(variableName);
+
+		return argument;
+	}
+}
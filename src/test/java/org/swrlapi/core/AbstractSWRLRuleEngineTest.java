@@ -0,0 +1,313 @@
+package org.swrlapi.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+import org.swrlapi.engine.SemiNaiveOWL2RLEngine;
+import org.swrlapi.exceptions.SWRLRuleEngineException;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLOntology;
+import org.swrlapi.owl2rl.OWL2RLNames;
+import org.swrlapi.owl2rl.OWL2RLPersistenceLayer;
+import org.swrlapi.sqwrl.SQWRLResultCursor;
+import org.swrlapi.sqwrl.SQWRLResultGenerator;
+
+public class AbstractSWRLRuleEngineTest extends TestCase
+{
+	private static final String Reset = "reset";
+	private static final String Retract = "retract";
+
+	private final List<Object> targetRuleEngineCalls = new ArrayList<Object>();
+	private final Set<OWLAxiom> inferredOWLAxioms = new LinkedHashSet<OWLAxiom>();
+	private OWLOntologyManager ontologyManager;
+	private DefaultSWRLAPIOWLOntology ontology;
+	private AbstractSWRLRuleEngine ruleEngine;
+	private OWLAxiom axiom1, axiom2;
+	private boolean canRetract = true;
+	private final CountDownLatch runLatch = new CountDownLatch(1); // Never released; runs end when interrupted
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		this.ontologyManager = OWLManager.createOWLOntologyManager();
+		this.ontology = new DefaultSWRLAPIOWLOntology(this.ontologyManager, new OWLOntologyID(
+				IRI.create("http://example.org/test")), null);
+		this.ruleEngine = createRuleEngine();
+		this.ruleEngine.setIncrementalImport(true);
+
+		OWLDataFactory dataFactory = this.ontologyManager.getOWLDataFactory();
+		this.axiom1 = dataFactory.getOWLClassAssertionAxiom(dataFactory.getOWLClass(getIRI("A")),
+				dataFactory.getOWLNamedIndividual(getIRI("i")));
+		this.axiom2 = dataFactory.getOWLClassAssertionAxiom(dataFactory.getOWLClass(getIRI("A")),
+				dataFactory.getOWLNamedIndividual(getIRI("j")));
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		this.ruleEngine.dispose();
+	}
+
+	public void testFirstImportIsFull() throws Exception
+	{
+		addAxiom(this.axiom1);
+
+		assertEquals(Arrays.asList(Reset, this.axiom1), importKnowledge());
+	}
+
+	public void testAddedAxiomsAreImportedIncrementally() throws Exception
+	{
+		addAxiom(this.axiom1);
+		importKnowledge();
+		addAxiom(this.axiom2);
+
+		assertEquals(Arrays.asList(this.axiom2), importKnowledge());
+	}
+
+	public void testUnchangedOntologyIsNotImportedAgain() throws Exception
+	{
+		addAxiom(this.axiom1);
+		importKnowledge();
+
+		assertEquals(Collections.emptyList(), importKnowledge());
+	}
+
+	public void testRemovedAxiomIsRetracted() throws Exception
+	{
+		addAxiom(this.axiom1);
+		addAxiom(this.axiom2);
+		importKnowledge();
+		this.ontologyManager.applyChange(new RemoveAxiom(this.ontology, this.axiom1));
+
+		assertEquals(Arrays.asList(Retract, this.axiom1), importKnowledge());
+	}
+
+	public void testRemovedAxiomForcesFullImportIfNotRetracted() throws Exception
+	{
+		this.canRetract = false;
+		addAxiom(this.axiom1);
+		addAxiom(this.axiom2);
+		importKnowledge();
+		this.ontologyManager.applyChange(new RemoveAxiom(this.ontology, this.axiom1));
+
+		assertEquals(Arrays.asList(Retract, this.axiom1, Reset, this.axiom2), importKnowledge());
+	}
+
+	public void testAxiomRemovedAndAddedIsNotRetracted() throws Exception
+	{
+		addAxiom(this.axiom1);
+		importKnowledge();
+		this.ontologyManager.applyChange(new RemoveAxiom(this.ontology, this.axiom1));
+		addAxiom(this.axiom1);
+
+		assertEquals(Collections.emptyList(), importKnowledge());
+	}
+
+	public void testAxiomAddedAndRemovedIsNotImported() throws Exception
+	{
+		addAxiom(this.axiom2);
+		importKnowledge();
+		addAxiom(this.axiom1);
+		this.ontologyManager.applyChange(new RemoveAxiom(this.ontology, this.axiom1));
+
+		assertEquals(Collections.emptyList(), importKnowledge());
+	}
+
+	public void testImportIsFullWithoutIncrementalImport() throws Exception
+	{
+		this.ruleEngine.setIncrementalImport(false);
+		addAxiom(this.axiom1);
+		importKnowledge();
+		addAxiom(this.axiom2);
+
+		List<Object> calls = importKnowledge();
+		assertEquals(Reset, calls.get(0));
+		assertEquals(new HashSet<Object>(Arrays.asList(this.axiom1, this.axiom2)), new HashSet<Object>(calls.subList(1,
+				calls.size())));
+	}
+
+	public void testEngineCannotBeUsedWhileStreaming() throws Exception
+	{
+		SQWRLResultCursor cursor = this.ruleEngine.streamSQWRLQuery("q", 1);
+
+		try {
+			this.ruleEngine.importSWRLRulesAndOWLKnowledge();
+			fail("expecting rule engine to be in use");
+		} catch (SWRLRuleEngineException e) {
+		}
+
+		cursor.close(); // Abandons the run, which the next import waits for
+		this.ruleEngine.importSWRLRulesAndOWLKnowledge();
+	}
+
+	public void testInferredKnowledgeIsWrittenBackInChunks() throws Exception
+	{
+		final List<Integer> batchSizes = new ArrayList<Integer>();
+		OWLDataFactory dataFactory = this.ontologyManager.getOWLDataFactory();
+
+		for (int i = 0; i < 5; i++)
+			this.inferredOWLAxioms.add(dataFactory.getOWLClassAssertionAxiom(dataFactory.getOWLClass(getIRI("B")),
+					dataFactory.getOWLNamedIndividual(getIRI("i" + i))));
+		addAxiom(this.inferredOWLAxioms.iterator().next()); // Already in the ontology, so not written again
+		this.ontologyManager.addOntologyChangeListener(new OWLOntologyChangeListener()
+		{
+			@Override
+			public void ontologiesChanged(List<? extends OWLOntologyChange> changes)
+			{
+				batchSizes.add(changes.size());
+			}
+		});
+		this.ruleEngine.setWriteBackChunkSize(2);
+		this.ruleEngine.writeInferredKnowledge();
+
+		assertEquals(Arrays.asList(2, 2), batchSizes);
+		assertTrue(this.ontology.getAxioms().containsAll(this.inferredOWLAxioms));
+	}
+
+	public void testWriteBackChunkSizeMustBePositive()
+	{
+		try {
+			this.ruleEngine.setWriteBackChunkSize(0);
+			fail("chunk size of zero accepted");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private void addAxiom(OWLAxiom axiom)
+	{
+		this.ontologyManager.applyChange(new AddAxiom(this.ontology, axiom));
+	}
+
+	/**
+	 * Import the ontology and return the resets of, and axioms defined in, the target rule engine.
+	 */
+	private List<Object> importKnowledge() throws Exception
+	{
+		this.targetRuleEngineCalls.clear();
+		this.ruleEngine.importSWRLRulesAndOWLKnowledge();
+
+		return new ArrayList<Object>(this.targetRuleEngineCalls);
+	}
+
+	private AbstractSWRLRuleEngine createRuleEngine() throws Exception
+	{
+		OWL2RLPersistenceLayer persistenceLayer = createProxy(OWL2RLPersistenceLayer.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				return method.getName().equals("getEnabledRules") ? new HashSet<OWL2RLNames.Rule>() : getDefault(method);
+			}
+		});
+		final SemiNaiveOWL2RLEngine owl2RLEngine = new SemiNaiveOWL2RLEngine(persistenceLayer);
+		TargetRuleEngine targetRuleEngine = createProxy(TargetRuleEngine.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments) throws InterruptedException
+			{
+				if (method.getName().equals("getOWL2RLEngine"))
+					return owl2RLEngine;
+				else if (method.getName().equals("resetRuleEngine"))
+					AbstractSWRLRuleEngineTest.this.targetRuleEngineCalls.add(Reset);
+				else if (method.getName().equals("defineOWLAxiom"))
+					AbstractSWRLRuleEngineTest.this.targetRuleEngineCalls.add(arguments[0]);
+				else if (method.getName().equals("runRuleEngine"))
+					AbstractSWRLRuleEngineTest.this.runLatch.await();
+				else if (method.getName().equals("retractOWLAxiom")) {
+					AbstractSWRLRuleEngineTest.this.targetRuleEngineCalls.add(Retract);
+					AbstractSWRLRuleEngineTest.this.targetRuleEngineCalls.add(arguments[0]);
+					return AbstractSWRLRuleEngineTest.this.canRetract;
+				}
+				return getDefault(method);
+			}
+		});
+		SWRLAPIOntologyProcessor ontologyProcessor = createProxy(SWRLAPIOntologyProcessor.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				if (method.getName().equals("getOWLAxioms"))
+					return AbstractSWRLRuleEngineTest.this.ontology.getAxioms();
+				else if (method.getName().equals("getSQWRLQueries"))
+					return Collections.emptySet();
+				else if (method.getName().equals("getSQWRLResultGenerator"))
+					return createProxy(SQWRLResultGenerator.class, new InvocationHandler()
+					{
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] arguments)
+						{
+							return new SQWRLResultCursor(Collections.<String> emptyList(), (Integer)arguments[0]);
+						}
+					});
+				else if (method.getName().equals("processAddedOWLAxioms")
+						|| method.getName().equals("processRemovedOWLAxioms"))
+					return arguments[0];
+				else
+					return getDefault(method);
+			}
+		});
+
+		InvocationHandler ruleEngineBridgeControllerHandler = new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				return method.getName().equals("getInferredOWLAxioms") ? AbstractSWRLRuleEngineTest.this.inferredOWLAxioms
+						: getDefault(method);
+			}
+		};
+		InvocationHandler builtInBridgeControllerHandler = new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				return method.getName().equals("getInjectedOWLAxioms") ? Collections.emptySet() : getDefault(method);
+			}
+		};
+
+		return new AbstractSWRLRuleEngine(this.ontologyManager, this.ontology, null, ontologyProcessor, targetRuleEngine,
+				createProxy(SWRLRuleEngineBridgeController.class, ruleEngineBridgeControllerHandler), createProxy(
+						SWRLBuiltInBridgeController.class, builtInBridgeControllerHandler));
+	}
+
+	private static <T> T createProxy(Class<T> proxyInterface, InvocationHandler handler)
+	{
+		return proxyInterface.cast(Proxy.newProxyInstance(AbstractSWRLRuleEngineTest.class.getClassLoader(),
+				new Class<?>[] { proxyInterface }, handler));
+	}
+
+	private static Object getDefault(Method method)
+	{
+		if (method.getReturnType() == boolean.class)
+			return Boolean.FALSE;
+		else if (method.getReturnType() == int.class)
+			return Integer.valueOf(0);
+		else
+			return null;
+	}
+
+	private static IRI getIRI(String name)
+	{
+		return IRI.create("http://example.org/test#" + name);
+	}
+}
@@ -0,0 +1,75 @@
+package org.swrlapi.core;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLLiteral;
+
+public class OWLTermDictionaryTest extends TestCase
+{
+	private OWLTermDictionary termDictionary;
+
+	@Override
+	protected void setUp()
+	{
+		this.termDictionary = new OWLTermDictionary();
+	}
+
+	public void testLookupDoesNotEncode()
+	{
+		int numberOfTerms = this.termDictionary.getNumberOfTerms();
+
+		assertEquals(OWLTermDictionary.NoTermID, this.termDictionary.lookupTermID(getIRI(0)));
+		assertEquals(OWLTermDictionary.NoTermID, this.termDictionary.lookupPrefixedNameID("test:i0"));
+		assertEquals(numberOfTerms, this.termDictionary.getNumberOfTerms());
+	}
+
+	public void testTermsAndPrefixedNamesSurviveGrowth()
+	{
+		OWLLiteral literal = OWLManager.getOWLDataFactory().getOWLLiteral(42);
+		int literalID = this.termDictionary.encode(literal);
+
+		for (int i = 0; i < 5000; i++)
+			assertEquals(this.termDictionary.encode(getIRI(i), "test:i" + i), this.termDictionary.lookupTermID(getIRI(i)));
+
+		for (int i = 0; i < 5000; i++) {
+			int id = this.termDictionary.lookupPrefixedNameID("test:i" + i);
+
+			assertEquals(getIRI(i), this.termDictionary.getIRI(id));
+			assertEquals("test:i" + i, this.termDictionary.getPrefixedName(id));
+		}
+		assertEquals(literalID, this.termDictionary.lookupTermID(literal));
+		assertTrue(this.termDictionary.isOWLLiteral(literalID));
+		assertNull(this.termDictionary.getPrefixedName(literalID));
+	}
+
+	public void testFirstPrefixedNameIsKept()
+	{
+		int id = this.termDictionary.encode(getIRI(0), "test:i0");
+
+		assertEquals(id, this.termDictionary.encode(getIRI(0), "other:i0"));
+		assertEquals("test:i0", this.termDictionary.getPrefixedName(id));
+		assertEquals(OWLTermDictionary.NoTermID, this.termDictionary.lookupPrefixedNameID("other:i0"));
+	}
+
+	public void testResolverMapsPrefixedNamesThroughDictionary() throws Exception
+	{
+		OWLNamedObjectResolver resolver = new OWLNamedObjectResolver();
+
+		resolver.recordPrefixedName2IRIMapping("test:i0", getIRI(0));
+
+		assertEquals(getIRI(0), resolver.prefixedName2IRI("test:i0"));
+		assertEquals("test:i0", resolver.iri2PrefixedName(getIRI(0)));
+		assertEquals(resolver.getOWLTermDictionary().lookupTermID(getIRI(0)), resolver.lookupTermID(getIRI(0)));
+
+		resolver.reset();
+
+		assertEquals(OWLTermDictionary.NoTermID, resolver.lookupTermID(getIRI(0)));
+	}
+
+	private static IRI getIRI(int index)
+	{
+		return IRI.create("http://example.org/test#i" + index);
+	}
+}
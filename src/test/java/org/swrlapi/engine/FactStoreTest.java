@@ -0,0 +1,75 @@
+package org.swrlapi.engine;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
+
+public class FactStoreTest extends TestCase
+{
+	private OWLNamedObjectResolver namedObjectResolver;
+	private SWRLAPIOWLDataFactory dataFactory;
+	private FactStore factStore;
+
+	@Override
+	protected void setUp()
+	{
+		this.namedObjectResolver = new OWLNamedObjectResolver();
+		this.dataFactory = new DefaultSWRLAPIOWLDataFactory(this.namedObjectResolver);
+		this.factStore = new FactStore(this.namedObjectResolver, this.dataFactory);
+	}
+
+	public void testRecordedTermsUseDictionaryIDs()
+	{
+		OWLNamedIndividual individual = getIndividual("i");
+		OWLLiteral literal = this.dataFactory.getOWLLiteral("l");
+
+		this.namedObjectResolver.recordPrefixedName2IRIMapping("test:i", individual.getIRI());
+		this.namedObjectResolver.recordOWLLiteral(literal);
+
+		assertEquals(this.namedObjectResolver.lookupTermID(individual.getIRI()), this.factStore.intern(individual));
+		assertEquals(this.namedObjectResolver.lookupTermID(literal), this.factStore.intern(literal));
+		assertEquals(individual, this.factStore.getValue(this.factStore.intern(individual)));
+		assertEquals(literal, this.factStore.getValue(this.factStore.intern(literal)));
+		assertTrue(this.factStore.isOWLIndividual(this.factStore.intern(individual)));
+		assertTrue(this.factStore.isOWLLiteral(this.factStore.intern(literal)));
+	}
+
+	public void testOtherValuesUseLocalIDs()
+	{
+		OWLNamedIndividual individual = getIndividual("i");
+		OWLClass cls = this.dataFactory.getOWLClass(individual.getIRI());
+
+		this.namedObjectResolver.recordPrefixedName2IRIMapping("test:i", individual.getIRI());
+
+		int classID = this.factStore.intern(cls);
+		int unrecordedID = this.factStore.intern(getIndividual("j"));
+
+		assertTrue(classID >= FactStore.LocalIDBase);
+		assertTrue(unrecordedID >= FactStore.LocalIDBase);
+		assertFalse(classID == this.factStore.intern(individual));
+		assertEquals(cls, this.factStore.getValue(classID));
+		assertFalse(this.factStore.isOWLIndividual(classID));
+		assertTrue(this.factStore.isOWLIndividual(unrecordedID));
+	}
+
+	public void testValueKeepsLocalIDWhenRecordedLater()
+	{
+		OWLNamedIndividual individual = getIndividual("i");
+		int id = this.factStore.intern(individual);
+
+		this.namedObjectResolver.recordPrefixedName2IRIMapping("test:i", individual.getIRI());
+
+		assertEquals(id, this.factStore.intern(individual));
+	}
+
+	private OWLNamedIndividual getIndividual(String name)
+	{
+		return this.dataFactory.getOWLNamedIndividual(IRI.create("http://example.org/test#" + name));
+	}
+}
@@ -0,0 +1,76 @@
+package org.swrlapi.engine;
+
+import junit.framework.TestCase;
+
+public class RelationTest extends TestCase
+{
+	public void testOldTuplesExcludeDelta()
+	{
+		Relation relation = new Relation(Relation.Type.ObjectProperty, null);
+
+		relation.addPending(Relation.encode(1, 2));
+		relation.addPending(Relation.encode(1, 3));
+		relation.commitPending();
+		relation.addPending(Relation.encode(1, 4));
+		relation.addPending(Relation.encode(5, 3));
+		relation.commitPending();
+
+		assertEquals(3, relation.match(1, -1).size());
+		assertEquals(2, relation.matchOld(1, -1).size());
+		assertEquals(2, relation.match(-1, 3).size());
+		assertEquals(1, relation.matchOld(-1, 3).size());
+		assertEquals(0, relation.matchOld(5, -1).size());
+		assertEquals(1, relation.matchOld(1, 2).size());
+		assertEquals(0, relation.matchOld(1, 4).size());
+		assertEquals(1, relation.match(1, 4).size());
+		assertEquals(4, relation.match(-1, -1).size());
+		assertEquals(2, relation.matchOld(-1, -1).size());
+	}
+
+	public void testDeltaBecomesOldAfterNextCommit()
+	{
+		Relation relation = new Relation(Relation.Type.ObjectProperty, null);
+
+		relation.addPending(Relation.encode(1, 2));
+		relation.commitPending();
+		relation.addPending(Relation.encode(1, 3));
+		relation.commitPending();
+		relation.commitPending();
+
+		assertEquals(0, relation.getDeltaSize());
+		assertEquals(2, relation.matchOld(1, -1).size());
+		assertEquals(1, relation.matchOld(1, 3).size());
+	}
+
+	public void testOldTuplesOfUnaryRelation()
+	{
+		Relation relation = new Relation(Relation.Type.Class, null);
+
+		relation.addPending(Relation.encode(1, 0));
+		relation.commitPending();
+		relation.addPending(Relation.encode(2, 0));
+		relation.commitPending();
+
+		assertEquals(2, relation.match(-1, -1).size());
+		assertEquals(1, relation.matchOld(-1, -1).size());
+		assertEquals(1, relation.matchOld(1, -1).size());
+		assertEquals(0, relation.matchOld(2, -1).size());
+	}
+
+	public void testOldTuplesAreKeptWhenIndexGrows()
+	{
+		Relation relation = new Relation(Relation.Type.ObjectProperty, null);
+
+		for (int subjectID = 0; subjectID < 100; subjectID++)
+			relation.addPending(Relation.encode(subjectID, 0));
+		relation.commitPending();
+		for (int subjectID = 100; subjectID < 200; subjectID++) // Rehashes the subject index during the commit
+			relation.addPending(Relation.encode(subjectID, 0));
+		relation.commitPending();
+
+		assertEquals(200, relation.match(-1, 0).size());
+		assertEquals(100, relation.matchOld(-1, 0).size());
+		assertEquals(1, relation.matchOld(50, -1).size());
+		assertEquals(0, relation.matchOld(150, -1).size());
+	}
+}
@@ -0,0 +1,212 @@
+package org.swrlapi.engine;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.core.SWRLRuleEngineBridge;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
+import org.swrlapi.owl2rl.OWL2RLNames;
+import org.swrlapi.owl2rl.OWL2RLPersistenceLayer;
+
+/**
+ * Measures the throughput of the {@link SemiNaiveRuleEngine} on synthetic data shaped like the Lehigh University
+ * Benchmark (LUBM): universities with departments, faculty, students and courses, a class hierarchy, a transitive
+ * sub-organization property, and property domains, ranges and sub-properties. Run with the number of universities as an
+ * optional argument (default 5). Each configuration is run once to warm up and then timed.
+ */
+public class SemiNaiveRuleEngineBenchmark
+{
+	private static final String Namespace = "http://example.org/lubm#";
+	private static final int DepartmentsPerUniversity = 15;
+	private static final int FacultyPerDepartment = 10;
+	private static final int StudentsPerDepartment = 100;
+	private static final int CoursesPerDepartment = 20;
+	private static final int CoursesPerStudent = 3;
+
+	private final OWLNamedObjectResolver namedObjectResolver;
+	private final SWRLAPIOWLDataFactory dataFactory;
+	private final AtomicInteger numberOfInferredOWLAxioms;
+
+	public SemiNaiveRuleEngineBenchmark()
+	{
+		this.namedObjectResolver = new OWLNamedObjectResolver();
+		this.dataFactory = new DefaultSWRLAPIOWLDataFactory(this.namedObjectResolver);
+		this.numberOfInferredOWLAxioms = new AtomicInteger();
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int numberOfUniversities = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		SemiNaiveRuleEngineBenchmark benchmark = new SemiNaiveRuleEngineBenchmark();
+		List<OWLAxiom> axioms = benchmark.createAxioms(numberOfUniversities);
+
+		System.out.println(numberOfUniversities + " universities, " + axioms.size() + " asserted axioms");
+		for (int numberOfThreads : new int[] { 1, SemiNaiveRuleEngine.DefaultNumberOfThreads }) {
+			benchmark.run(axioms, numberOfThreads); // Warm up
+			benchmark.run(axioms, numberOfThreads);
+		}
+	}
+
+	private void run(List<OWLAxiom> axioms, int numberOfThreads) throws Exception
+	{
+		SemiNaiveRuleEngine engine = createEngine();
+
+		try {
+			engine.setNumberOfThreads(numberOfThreads);
+			this.numberOfInferredOWLAxioms.set(0);
+
+			long startTime = System.nanoTime();
+			for (OWLAxiom axiom : axioms)
+				engine.defineOWLAxiom(axiom);
+			long loadedTime = System.nanoTime();
+			engine.runRuleEngine();
+			long finishedTime = System.nanoTime();
+
+			long runMilliseconds = Math.max(1, (finishedTime - loadedTime) / 1000000);
+			System.out.println(numberOfThreads + " thread(s): load " + (loadedTime - startTime) / 1000000 + " ms, run "
+					+ runMilliseconds + " ms, " + this.numberOfInferredOWLAxioms.get() + " inferred axioms, "
+					+ engine.getNumberOfFacts() + " facts, " + this.numberOfInferredOWLAxioms.get() * 1000L / runMilliseconds
+					+ " inferred axioms/s");
+		} finally {
+			engine.dispose();
+		}
+	}
+
+	private List<OWLAxiom> createAxioms(int numberOfUniversities)
+	{
+		List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+		OWLClass person = getOWLClass("Person"), employee = getOWLClass("Employee"), faculty = getOWLClass("Faculty");
+		OWLClass professor = getOWLClass("Professor"), fullProfessor = getOWLClass("FullProfessor");
+		OWLClass student = getOWLClass("Student"), graduateStudent = getOWLClass("GraduateStudent");
+		OWLClass organization = getOWLClass("Organization"), university = getOWLClass("University");
+		OWLClass department = getOWLClass("Department"), course = getOWLClass("Course");
+		OWLObjectProperty subOrganizationOf = getOWLObjectProperty("subOrganizationOf");
+		OWLObjectProperty memberOf = getOWLObjectProperty("memberOf"), worksFor = getOWLObjectProperty("worksFor");
+		OWLObjectProperty advisor = getOWLObjectProperty("advisor"), takesCourse = getOWLObjectProperty("takesCourse");
+		OWLObjectProperty teacherOf = getOWLObjectProperty("teacherOf");
+
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(fullProfessor, professor));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(professor, faculty));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(faculty, employee));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(employee, person));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(graduateStudent, student));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(student, person));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(university, organization));
+		axioms.add(this.dataFactory.getOWLSubClassOfAxiom(department, organization));
+		axioms.add(this.dataFactory.getOWLTransitiveObjectPropertyAxiom(subOrganizationOf));
+		axioms.add(this.dataFactory.getOWLSubObjectPropertyOfAxiom(worksFor, memberOf));
+		axioms.add(this.dataFactory.getOWLObjectPropertyDomainAxiom(memberOf, person));
+		axioms.add(this.dataFactory.getOWLObjectPropertyRangeAxiom(memberOf, organization));
+		axioms.add(this.dataFactory.getOWLObjectPropertyDomainAxiom(takesCourse, student));
+		axioms.add(this.dataFactory.getOWLObjectPropertyRangeAxiom(takesCourse, course));
+		axioms.add(this.dataFactory.getOWLObjectPropertyRangeAxiom(advisor, professor));
+		axioms.add(this.dataFactory.getOWLObjectPropertyDomainAxiom(teacherOf, faculty));
+
+		for (int u = 0; u < numberOfUniversities; u++) {
+			OWLNamedIndividual universityIndividual = getOWLNamedIndividual("University" + u);
+
+			axioms.add(this.dataFactory.getOWLClassAssertionAxiom(university, universityIndividual));
+			for (int d = 0; d < DepartmentsPerUniversity; d++) {
+				String departmentName = "University" + u + "_Department" + d;
+				OWLNamedIndividual departmentIndividual = getOWLNamedIndividual(departmentName);
+				OWLNamedIndividual researchGroup = getOWLNamedIndividual(departmentName + "_ResearchGroup");
+
+				axioms.add(this.dataFactory.getOWLClassAssertionAxiom(department, departmentIndividual));
+				axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(subOrganizationOf, departmentIndividual,
+						universityIndividual));
+				axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(subOrganizationOf, researchGroup,
+						departmentIndividual));
+
+				for (int f = 0; f < FacultyPerDepartment; f++) {
+					OWLNamedIndividual facultyIndividual = getOWLNamedIndividual(departmentName + "_Faculty" + f);
+					axioms.add(this.dataFactory.getOWLClassAssertionAxiom(fullProfessor, facultyIndividual));
+					axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(worksFor, facultyIndividual,
+							departmentIndividual));
+					for (int c = f; c < CoursesPerDepartment; c += FacultyPerDepartment)
+						axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(teacherOf, facultyIndividual,
+								getOWLNamedIndividual(departmentName + "_Course" + c)));
+				}
+
+				for (int s = 0; s < StudentsPerDepartment; s++) {
+					OWLNamedIndividual studentIndividual = getOWLNamedIndividual(departmentName + "_Student" + s);
+					if (s % 4 == 0)
+						axioms.add(this.dataFactory.getOWLClassAssertionAxiom(graduateStudent, studentIndividual));
+					axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(memberOf, studentIndividual,
+							departmentIndividual));
+					axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(advisor, studentIndividual,
+							getOWLNamedIndividual(departmentName + "_Faculty" + s % FacultyPerDepartment)));
+					for (int c = 0; c < CoursesPerStudent; c++)
+						axioms.add(this.dataFactory.getOWLObjectPropertyAssertionAxiom(takesCourse, studentIndividual,
+								getOWLNamedIndividual(departmentName + "_Course" + (s + c * 7) % CoursesPerDepartment)));
+				}
+			}
+		}
+		return axioms;
+	}
+
+	private SemiNaiveRuleEngine createEngine() throws Exception
+	{
+		final OWL2RLPersistenceLayer persistenceLayer = (OWL2RLPersistenceLayer)Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { OWL2RLPersistenceLayer.class }, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				return method.getName().equals("getEnabledRules") ? EnumSet.allOf(OWL2RLNames.Rule.class) : null;
+			}
+		});
+		SWRLRuleEngineBridge bridge = (SWRLRuleEngineBridge)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLRuleEngineBridge.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						if (method.getName().equals("getOWL2RLPersistenceLayer"))
+							return persistenceLayer;
+						else if (method.getName().equals("getOWLDataFactory"))
+							return SemiNaiveRuleEngineBenchmark.this.dataFactory;
+						else if (method.getName().equals("getOWLNamedObjectResolver"))
+							return SemiNaiveRuleEngineBenchmark.this.namedObjectResolver;
+						else if (method.getName().equals("inferOWLAxiom"))
+							SemiNaiveRuleEngineBenchmark.this.numberOfInferredOWLAxioms.incrementAndGet();
+						return null;
+					}
+				});
+
+		return new SemiNaiveRuleEngine(bridge);
+	}
+
+	private OWLClass getOWLClass(String name)
+	{
+		return this.dataFactory.getOWLClass(IRI.create(Namespace + name));
+	}
+
+	private OWLObjectProperty getOWLObjectProperty(String name)
+	{
+		return this.dataFactory.getOWLObjectProperty(IRI.create(Namespace + name));
+	}
+
+	/**
+	 * Individuals are recorded as the ontology processor would, so facts about them use their term dictionary IDs.
+	 */
+	private OWLNamedIndividual getOWLNamedIndividual(String name)
+	{
+		IRI iri = IRI.create(Namespace + name);
+
+		this.namedObjectResolver.recordPrefixedName2IRIMapping("lubm:" + name, iri);
+
+		return this.dataFactory.getOWLNamedIndividual(iri);
+	}
+}
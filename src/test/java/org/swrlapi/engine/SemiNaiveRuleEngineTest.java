@@ -0,0 +1,391 @@
+package org.swrlapi.engine;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.SWRLAtom;
+import org.swrlapi.builtins.SWRLBuiltInHandle;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.core.SWRLRuleEngineBridge;
+import org.swrlapi.core.arguments.SWRLBuiltInArgument;
+import org.swrlapi.ext.SWRLAPIBuiltInAtom;
+import org.swrlapi.ext.SWRLAPIOWLDataFactory;
+import org.swrlapi.ext.SWRLAPIRule;
+import org.swrlapi.ext.impl.DefaultSWRLAPIOWLDataFactory;
+import org.swrlapi.owl2rl.OWL2RLNames;
+import org.swrlapi.owl2rl.OWL2RLPersistenceLayer;
+
+public class SemiNaiveRuleEngineTest extends TestCase
+{
+	private final List<OWLAxiom> inferredOWLAxioms = new ArrayList<OWLAxiom>();
+	private final AtomicInteger numberOfBuiltInResolutions = new AtomicInteger();
+	private final AtomicInteger numberOfBuiltInInvocations = new AtomicInteger();
+	private OWLNamedObjectResolver namedObjectResolver;
+	private SWRLAPIOWLDataFactory dataFactory;
+	private SemiNaiveRuleEngine engine;
+	private OWLClass a, b, c;
+	private OWLObjectProperty p;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		this.namedObjectResolver = new OWLNamedObjectResolver();
+		this.dataFactory = new DefaultSWRLAPIOWLDataFactory(this.namedObjectResolver);
+		this.engine = createEngine();
+		this.a = this.dataFactory.getOWLClass(getIRI("A"));
+		this.b = this.dataFactory.getOWLClass(getIRI("B"));
+		this.c = this.dataFactory.getOWLClass(getIRI("C"));
+		this.p = this.dataFactory.getOWLObjectProperty(getIRI("p"));
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		this.engine.resetRuleEngine();
+	}
+
+	public void testClassHierarchyIsClosed() throws Exception
+	{
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLSubClassOfAxiom(this.a, this.b));
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLSubClassOfAxiom(this.b, this.c));
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(0)));
+		this.engine.runRuleEngine();
+
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(0))));
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.c, getIndividual(0))));
+	}
+
+	public void testTransitivePropertyIsClosed() throws Exception
+	{
+		int chainLength = 6;
+
+		defineChain(0, chainLength);
+		this.engine.runRuleEngine();
+
+		for (int i = 0; i < chainLength; i++)
+			for (int j = i + 2; j <= chainLength; j++)
+				assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(i, j)));
+		assertFalse(this.inferredOWLAxioms.contains(getPropertyAssertion(1, 0)));
+	}
+
+	public void testEachAxiomIsInferredOnce() throws Exception
+	{
+		defineChain(0, 10);
+		this.engine.runRuleEngine();
+
+		assertEquals(new HashSet<OWLAxiom>(this.inferredOWLAxioms).size(), this.inferredOWLAxioms.size());
+
+		this.inferredOWLAxioms.clear();
+		this.engine.runRuleEngine();
+
+		assertTrue(this.inferredOWLAxioms.isEmpty());
+	}
+
+	public void testLaterRunInfersOnlyNewConsequences() throws Exception
+	{
+		defineChain(0, 3);
+		this.engine.runRuleEngine();
+		Set<OWLAxiom> firstInferredOWLAxioms = new HashSet<OWLAxiom>(this.inferredOWLAxioms);
+
+		this.inferredOWLAxioms.clear();
+		this.engine.defineOWLAxiom(getPropertyAssertion(3, 4));
+		this.engine.runRuleEngine();
+
+		for (int i = 0; i < 3; i++)
+			assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(i, 4)));
+		for (OWLAxiom axiom : this.inferredOWLAxioms)
+			assertFalse(firstInferredOWLAxioms.contains(axiom));
+	}
+
+	public void testRetractedAxiomIsNoLongerUsed() throws Exception
+	{
+		OWLAxiom subClassAxiom = this.dataFactory.getOWLSubClassOfAxiom(this.b, this.c);
+
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLSubClassOfAxiom(this.a, this.b));
+		this.engine.defineOWLAxiom(subClassAxiom);
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(0)));
+		this.engine.runRuleEngine();
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.c, getIndividual(0))));
+
+		this.inferredOWLAxioms.clear();
+		assertTrue(this.engine.retractOWLAxiom(subClassAxiom));
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(1)));
+		this.engine.runRuleEngine();
+
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(0))));
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(1))));
+		assertFalse(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.c, getIndividual(0))));
+		assertFalse(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.c, getIndividual(1))));
+	}
+
+	public void testRetractedFactIsNoLongerUsed() throws Exception
+	{
+		defineChain(0, 4);
+		this.engine.runRuleEngine();
+
+		this.inferredOWLAxioms.clear();
+		this.engine.retractOWLAxiom(getPropertyAssertion(1, 2));
+		this.engine.runRuleEngine();
+
+		assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(2, 4)));
+		assertFalse(this.inferredOWLAxioms.contains(getPropertyAssertion(0, 2)));
+		assertFalse(this.inferredOWLAxioms.contains(getPropertyAssertion(0, 4)));
+	}
+
+	public void testParallelEvaluationReachesSameFixpoint() throws Exception
+	{
+		List<Set<OWLAxiom>> inferredOWLAxiomsByRun = new ArrayList<Set<OWLAxiom>>();
+
+		for (int numberOfThreads : new int[] { 1, 4, 4 }) {
+			this.inferredOWLAxioms.clear();
+			this.engine.resetRuleEngine();
+			this.engine.setNumberOfThreads(numberOfThreads);
+			this.engine.defineOWLAxiom(this.dataFactory.getOWLSubClassOfAxiom(this.a, this.b));
+			this.engine.defineOWLAxiom(this.dataFactory.getOWLObjectPropertyDomainAxiom(this.p, this.a));
+			defineChain(0, 30);
+			this.engine.runRuleEngine();
+			inferredOWLAxiomsByRun.add(new HashSet<OWLAxiom>(this.inferredOWLAxioms));
+		}
+		assertEquals(inferredOWLAxiomsByRun.get(0), inferredOWLAxiomsByRun.get(1));
+		assertEquals(inferredOWLAxiomsByRun.get(1), inferredOWLAxiomsByRun.get(2));
+	}
+
+	public void testEngineRunsAgainAfterDispose() throws Exception
+	{
+		this.engine.setNumberOfThreads(4);
+		defineChain(0, 30);
+		this.engine.runRuleEngine();
+		Set<OWLAxiom> firstInferredOWLAxioms = new HashSet<OWLAxiom>(this.inferredOWLAxioms);
+
+		this.engine.dispose();
+		this.inferredOWLAxioms.clear();
+		this.engine.resetRuleEngine();
+		defineChain(0, 30);
+		this.engine.runRuleEngine();
+		this.engine.dispose();
+
+		assertEquals(firstInferredOWLAxioms, new HashSet<OWLAxiom>(this.inferredOWLAxioms));
+	}
+
+	public void testRecordedAndUnrecordedIndividualsJoin() throws Exception
+	{
+		for (int i = 0; i <= 6; i += 2)
+			recordIndividual(i);
+
+		defineChain(0, 6);
+		this.engine.runRuleEngine();
+
+		assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(0, 6)));
+		assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(1, 5)));
+	}
+
+	public void testIndividualRecordedAfterUseKeepsItsIdentity() throws Exception
+	{
+		defineChain(0, 3);
+		this.engine.runRuleEngine();
+
+		this.inferredOWLAxioms.clear();
+		recordIndividual(3);
+		recordIndividual(4);
+		this.engine.defineOWLAxiom(getPropertyAssertion(3, 4));
+		this.engine.runRuleEngine();
+
+		for (int i = 0; i < 3; i++)
+			assertTrue(this.inferredOWLAxioms.contains(getPropertyAssertion(i, 4)));
+	}
+
+	public void testBuiltInIsResolvedOnceAndReusedAcrossRuns() throws Exception
+	{
+		this.engine.defineOWLAxiom(getBuiltInRule());
+		for (int i = 0; i < 5; i++)
+			this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(i)));
+		this.engine.runRuleEngine();
+
+		this.numberOfBuiltInInvocations.set(0);
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(5)));
+		this.engine.runRuleEngine();
+
+		for (int i = 0; i <= 5; i++)
+			assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(i))));
+		assertEquals(1, this.numberOfBuiltInInvocations.get());
+		assertEquals(1, this.numberOfBuiltInResolutions.get());
+	}
+
+	public void testResetDiscardsResolvedBuiltIns() throws Exception
+	{
+		this.engine.defineOWLAxiom(getBuiltInRule());
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(0)));
+		this.engine.runRuleEngine();
+		assertEquals(1, this.numberOfBuiltInResolutions.get());
+
+		this.engine.resetRuleEngine();
+		this.engine.defineOWLAxiom(getBuiltInRule());
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(0)));
+		this.engine.runRuleEngine();
+
+		assertEquals(2, this.numberOfBuiltInResolutions.get());
+	}
+
+	public void testRetractionDiscardsResolvedBuiltIns() throws Exception
+	{
+		OWLAxiom classAssertionAxiom = this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(0));
+
+		this.engine.defineOWLAxiom(getBuiltInRule());
+		this.engine.defineOWLAxiom(classAssertionAxiom);
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLClassAssertionAxiom(this.a, getIndividual(1)));
+		this.engine.runRuleEngine();
+		assertEquals(1, this.numberOfBuiltInResolutions.get());
+
+		this.inferredOWLAxioms.clear();
+		assertTrue(this.engine.retractOWLAxiom(classAssertionAxiom));
+		this.engine.runRuleEngine();
+
+		assertEquals(2, this.numberOfBuiltInResolutions.get());
+		assertTrue(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(1))));
+		assertFalse(this.inferredOWLAxioms.contains(this.dataFactory.getOWLClassAssertionAxiom(this.b, getIndividual(0))));
+	}
+
+	/**
+	 * A(?x) ^ test:check(?x) -> B(?x), where test:check is answered by the bridge.
+	 */
+	private SWRLAPIRule getBuiltInRule()
+	{
+		SWRLBuiltInArgument argument = this.dataFactory.getSWRLBuiltInArgumentFactory().getVariableBuiltInArgument("x");
+		final List<SWRLBuiltInArgument> builtInArguments = Collections.singletonList(argument);
+		SWRLAPIBuiltInAtom builtInAtom = (SWRLAPIBuiltInAtom)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLAPIBuiltInAtom.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						if (method.getName().equals("getBuiltInPrefixedName"))
+							return "test:check";
+						else if (method.getName().equals("getBuiltInArguments"))
+							return builtInArguments;
+						else if (method.getName().equals("getBuiltInIndex"))
+							return 0;
+						return null;
+					}
+				});
+		final List<SWRLAtom> bodyAtoms = new ArrayList<SWRLAtom>();
+		final List<SWRLAtom> headAtoms = new ArrayList<SWRLAtom>();
+
+		bodyAtoms.add(this.dataFactory.getSWRLClassAtom(this.a, this.dataFactory.getSWRLVariable(getIRI("x"))));
+		bodyAtoms.add(builtInAtom);
+		headAtoms.add(this.dataFactory.getSWRLClassAtom(this.b, this.dataFactory.getSWRLVariable(getIRI("x"))));
+
+		return (SWRLAPIRule)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { SWRLAPIRule.class },
+				new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						if (method.getName().equals("getName"))
+							return "r";
+						else if (method.getName().equals("getBodyAtoms"))
+							return bodyAtoms;
+						else if (method.getName().equals("getHeadAtoms"))
+							return headAtoms;
+						else if (method.getName().equals("hashCode"))
+							return System.identityHashCode(proxy);
+						else if (method.getName().equals("equals"))
+							return proxy == arguments[0];
+						return null;
+					}
+				});
+	}
+
+	private static SWRLBuiltInHandle createBuiltInHandle(String builtInName) throws Exception
+	{ // Handles are normally only created by a built-in library manager
+		Constructor<?> constructor = SWRLBuiltInHandle.class.getDeclaredConstructors()[0];
+
+		constructor.setAccessible(true);
+
+		return (SWRLBuiltInHandle)constructor.newInstance(null, null, "test", "check", builtInName);
+	}
+
+	private void recordIndividual(int index)
+	{
+		this.namedObjectResolver.recordPrefixedName2IRIMapping("test:i" + index, getIRI("i" + index));
+	}
+
+	private void defineChain(int from, int to) throws Exception
+	{
+		this.engine.defineOWLAxiom(this.dataFactory.getOWLTransitiveObjectPropertyAxiom(this.p));
+		for (int i = from; i < to; i++)
+			this.engine.defineOWLAxiom(getPropertyAssertion(i, i + 1));
+	}
+
+	private OWLAxiom getPropertyAssertion(int subjectIndex, int objectIndex)
+	{
+		return this.dataFactory.getOWLObjectPropertyAssertionAxiom(this.p, getIndividual(subjectIndex),
+				getIndividual(objectIndex));
+	}
+
+	private OWLNamedIndividual getIndividual(int index)
+	{
+		return this.dataFactory.getOWLNamedIndividual(getIRI("i" + index));
+	}
+
+	private SemiNaiveRuleEngine createEngine() throws Exception
+	{
+		final OWL2RLPersistenceLayer persistenceLayer = (OWL2RLPersistenceLayer)Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { OWL2RLPersistenceLayer.class }, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments)
+			{
+				return method.getName().equals("getEnabledRules") ? EnumSet.allOf(OWL2RLNames.Rule.class) : null;
+			}
+		});
+		SWRLRuleEngineBridge bridge = (SWRLRuleEngineBridge)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLRuleEngineBridge.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments) throws Exception
+					{
+						if (method.getName().equals("getOWL2RLPersistenceLayer"))
+							return persistenceLayer;
+						else if (method.getName().equals("getOWLDataFactory"))
+							return SemiNaiveRuleEngineTest.this.dataFactory;
+						else if (method.getName().equals("getOWLNamedObjectResolver"))
+							return SemiNaiveRuleEngineTest.this.namedObjectResolver;
+						else if (method.getName().equals("getSWRLBuiltInArgumentFactory"))
+							return SemiNaiveRuleEngineTest.this.dataFactory.getSWRLBuiltInArgumentFactory();
+						else if (method.getName().equals("resolveSWRLBuiltIn")) {
+							SemiNaiveRuleEngineTest.this.numberOfBuiltInResolutions.incrementAndGet();
+							return createBuiltInHandle((String)arguments[1]);
+						} else if (method.getName().equals("invokeSWRLBuiltIn")) { // Always evaluates to true
+							assertTrue(arguments[1] instanceof SWRLBuiltInHandle);
+							SemiNaiveRuleEngineTest.this.numberOfBuiltInInvocations.incrementAndGet();
+							return Collections.singletonList(arguments[4]);
+						} else if (method.getName().equals("inferOWLAxiom"))
+							SemiNaiveRuleEngineTest.this.inferredOWLAxioms.add((OWLAxiom)arguments[0]);
+						return null;
+					}
+				});
+
+		return new SemiNaiveRuleEngine(bridge);
+	}
+
+	private static IRI getIRI(String name)
+	{
+		return IRI.create("http://example.org/test#" + name);
+	}
+}
@@ -0,0 +1,147 @@
+package org.swrlapi.ext.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import uk.ac.manchester.cs.owl.owlapi.EmptyInMemOWLOntologyFactory;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+import uk.ac.manchester.cs.owl.owlapi.OWLOntologyManagerImpl;
+
+public class DefaultSWRLAPIOWLOntologyTest extends TestCase
+{
+	private static final IRI OntologyIRI = IRI.create("http://example.org/test");
+	private static final IRI ImportedOntologyIRI = IRI.create("http://example.org/imported");
+
+	private OWLOntologyManager ontologyManager;
+	private OWLDataFactory dataFactory;
+	private DefaultSWRLAPIOWLOntology ontology;
+	private OWLOntology importedOntology;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		this.dataFactory = new OWLDataFactoryImpl();
+		this.ontologyManager = new OWLOntologyManagerImpl(this.dataFactory);
+		this.ontologyManager.addOntologyFactory(new EmptyInMemOWLOntologyFactory()
+		{
+			@Override
+			public OWLOntology createOWLOntology(OWLOntologyID ontologyID, IRI documentIRI,
+					OWLOntologyCreationHandler handler) throws OWLOntologyCreationException
+			{
+				if (!OntologyIRI.equals(ontologyID.getOntologyIRI()))
+					return super.createOWLOntology(ontologyID, documentIRI, handler);
+
+				OWLOntology ontology = new DefaultSWRLAPIOWLOntology(getOWLOntologyManager(), ontologyID, null);
+				handler.ontologyCreated(ontology);
+				return ontology;
+			}
+		});
+		this.ontology = (DefaultSWRLAPIOWLOntology)this.ontologyManager.createOntology(OntologyIRI);
+		this.importedOntology = this.ontologyManager.createOntology(ImportedOntologyIRI);
+		this.ontologyManager.applyChange(new AddImport(this.ontology, this.dataFactory
+				.getOWLImportsDeclaration(ImportedOntologyIRI)));
+	}
+
+	public void testImportedOntologyChangeAdvancesVersion()
+	{
+		long version = this.ontology.getOntologyVersion();
+
+		this.ontologyManager.addAxiom(this.importedOntology, getAxiom(0));
+
+		assertTrue(this.ontology.hasOntologyChangedSince(version));
+	}
+
+	public void testDisposeStopsTrackingImportedOntologyChanges()
+	{
+		long version = this.ontology.getOntologyVersion();
+
+		this.ontology.dispose();
+		this.ontologyManager.addAxiom(this.importedOntology, getAxiom(0));
+
+		assertFalse(this.ontology.hasOntologyChangedSince(version));
+		this.ontologyManager.addAxiom(this.ontology, getAxiom(1));
+		assertTrue(this.ontology.hasOntologyChangedSince(version));
+	}
+
+	public void testBulkConversionAppliesChangesInChunks()
+	{
+		final List<Integer> batchSizes = new ArrayList<Integer>();
+
+		this.ontologyManager.addOntologyChangeListener(new OWLOntologyChangeListener()
+		{
+			@Override
+			public void ontologiesChanged(List<? extends OWLOntologyChange> changes)
+			{
+				batchSizes.add(changes.size());
+			}
+		});
+		this.ontology.setBulkConversionChunkSize(3);
+		this.ontology.startBulkConversion();
+		for (int i = 0; i < 7; i++)
+			this.ontology.addOWLAxiom(getAxiom(i));
+		assertEquals(6, this.ontology.getAxiomCount());
+
+		this.ontology.completeBulkConversion();
+
+		assertEquals(7, this.ontology.getAxiomCount());
+		assertEquals(3, batchSizes.size());
+		assertEquals(Integer.valueOf(1), batchSizes.get(2));
+	}
+
+	public void testConcurrentBulkConversionKeepsEveryAxiom() throws Exception
+	{
+		final int numberOfThreads = 4, axiomsPerThread = 500;
+		ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+		this.ontology.setBulkConversionChunkSize(64);
+		this.ontology.startBulkConversion();
+		try {
+			for (int thread = 0; thread < numberOfThreads; thread++) {
+				final int firstAxiom = thread * axiomsPerThread;
+				futures.add(executorService.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call()
+					{
+						DefaultSWRLAPIOWLOntologyTest.this.ontology.startBulkConversion();
+						for (int i = firstAxiom; i < firstAxiom + axiomsPerThread; i++)
+							DefaultSWRLAPIOWLOntologyTest.this.ontology.addOWLAxiom(getAxiom(i));
+						DefaultSWRLAPIOWLOntologyTest.this.ontology.completeBulkConversion();
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures)
+				future.get();
+		} finally {
+			executorService.shutdown();
+		}
+		this.ontology.completeBulkConversion();
+
+		assertEquals(numberOfThreads * axiomsPerThread, this.ontology.getAxiomCount());
+	}
+
+	private OWLAxiom getAxiom(int index)
+	{
+		return this.dataFactory.getOWLClassAssertionAxiom(this.dataFactory.getOWLClass(IRI.create(OntologyIRI + "#A")),
+				this.dataFactory.getOWLNamedIndividual(IRI.create(OntologyIRI + "#i" + index)));
+	}
+}
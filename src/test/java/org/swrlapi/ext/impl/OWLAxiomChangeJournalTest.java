@@ -0,0 +1,134 @@
+package org.swrlapi.ext.impl;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.swrlapi.ext.OWLAxiomChangeCursor;
+
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+public class OWLAxiomChangeJournalTest extends TestCase
+{
+	private OWLDataFactory dataFactory;
+	private OWLAxiomChangeJournal journal;
+
+	@Override
+	protected void setUp()
+	{
+		this.dataFactory = new OWLDataFactoryImpl();
+		this.journal = new OWLAxiomChangeJournal(null);
+	}
+
+	public void testCursorReturnsChangesInOrder()
+	{
+		OWLAxiomChangeCursor cursor = this.journal.openCursor();
+
+		this.journal.recordAxiomChange(getAxiom(0), true);
+		this.journal.recordAxiomChange(getAxiom(1), true);
+		this.journal.recordAxiomChange(getAxiom(0), false);
+
+		List<OWLOntologyChange> changes = cursor.getOWLAxiomChanges();
+
+		assertEquals(3, changes.size());
+		assertTrue(changes.get(0).isAddAxiom() && changes.get(0).getAxiom().equals(getAxiom(0)));
+		assertTrue(changes.get(1).isAddAxiom() && changes.get(1).getAxiom().equals(getAxiom(1)));
+		assertFalse(changes.get(2).isAddAxiom());
+		assertEquals(getAxiom(0), changes.get(2).getAxiom());
+	}
+
+	public void testChangesBeforeCursorIsOpenedAreNotRetained()
+	{
+		this.journal.recordAxiomChange(getAxiom(0), true);
+
+		OWLAxiomChangeCursor cursor = this.journal.openCursor();
+
+		assertEquals(1, cursor.getVersion());
+		assertTrue(cursor.getOWLAxiomChanges().isEmpty());
+		assertEquals(0, this.journal.getNumberOfEntries());
+	}
+
+	public void testUnjournaledChangeInvalidatesChanges()
+	{
+		OWLAxiomChangeCursor cursor = this.journal.openCursor();
+
+		this.journal.recordAxiomChange(getAxiom(0), true);
+		this.journal.recordUnjournaledChange();
+
+		assertNull(cursor.getOWLAxiomChanges());
+
+		cursor.moveTo(this.journal.getVersion());
+		this.journal.recordAxiomChange(getAxiom(1), true);
+
+		assertEquals(1, cursor.getOWLAxiomChanges().size());
+	}
+
+	public void testEntriesAreDiscardedOnceEveryCursorHasPassedThem()
+	{
+		OWLAxiomChangeCursor slowCursor = this.journal.openCursor();
+		OWLAxiomChangeCursor fastCursor = this.journal.openCursor();
+
+		for (int i = 0; i < 1000; i++)
+			this.journal.recordAxiomChange(getAxiom(i), true);
+		fastCursor.moveTo(this.journal.getVersion());
+
+		assertEquals(1000, this.journal.getNumberOfEntries());
+		assertEquals(1000, slowCursor.getOWLAxiomChanges().size());
+		assertEquals(getAxiom(999), slowCursor.getOWLAxiomChanges().get(999).getAxiom());
+
+		slowCursor.moveTo(400);
+
+		assertEquals(600, this.journal.getNumberOfEntries());
+		assertEquals(getAxiom(400), slowCursor.getOWLAxiomChanges().get(0).getAxiom());
+
+		slowCursor.close();
+
+		assertEquals(0, this.journal.getNumberOfEntries());
+		assertTrue(fastCursor.getOWLAxiomChanges().isEmpty());
+	}
+
+	public void testNoEntriesAreRetainedWithoutOpenCursors()
+	{
+		this.journal.openCursor().close();
+		this.journal.recordAxiomChange(getAxiom(0), true);
+
+		assertEquals(1, this.journal.getVersion());
+		assertEquals(0, this.journal.getNumberOfEntries());
+	}
+
+	public void testInvalidCursorMovesAreRejected()
+	{
+		OWLAxiomChangeCursor cursor = this.journal.openCursor();
+
+		this.journal.recordAxiomChange(getAxiom(0), true);
+		cursor.moveTo(1);
+
+		try {
+			cursor.moveTo(0);
+			fail("cursor moved backwards");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			cursor.moveTo(2);
+			fail("cursor moved past the current version");
+		} catch (IllegalArgumentException e) {
+		}
+		cursor.close();
+		try {
+			cursor.moveTo(1);
+			fail("closed cursor moved");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	private OWLAxiom getAxiom(int index)
+	{
+		return this.dataFactory.getOWLClassAssertionAxiom(this.dataFactory.getOWLClass(IRI
+				.create("http://example.org/test#A")), this.dataFactory.getOWLNamedIndividual(IRI
+				.create("http://example.org/test#i" + index)));
+	}
+}
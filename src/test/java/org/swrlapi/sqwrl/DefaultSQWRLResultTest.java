@@ -0,0 +1,328 @@
+package org.swrlapi.sqwrl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.exceptions.SQWRLResultStateException;
+import org.swrlapi.sqwrl.values.SQWRLLiteralResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+import org.swrlapi.sqwrl.values.impl.DefaultSQWRLResultValueFactory;
+
+public class DefaultSQWRLResultTest extends TestCase
+{
+	private static final int NumberOfOrderedRows = 200;
+
+	private SQWRLResultValueFactory factory;
+
+	@Override
+	protected void setUp()
+	{
+		OWLNamedObjectResolver resolver = new OWLNamedObjectResolver();
+
+		for (String name : new String[] { "a", "b" })
+			resolver.recordPrefixedName2IRIMapping("t:" + name, getIRI(name));
+
+		this.factory = new DefaultSQWRLResultValueFactory(resolver, new DefaultOWLLiteralFactory(
+				new DefaultOWLDatatypeFactory()));
+	}
+
+	public void testMedianOfOddNumberOfValues() throws SQWRLException
+	{
+		DefaultSQWRLResult result = aggregate(SQWRLResultNames.MedianAggregateFunction, 7, 1, 5);
+
+		assertEquals(5.0, getAggregateValue(result, 0), 0.0);
+	}
+
+	public void testMedianOfEvenNumberOfValuesIsMeanOfMiddleValues() throws SQWRLException
+	{
+		DefaultSQWRLResult result = aggregate(SQWRLResultNames.MedianAggregateFunction, 8, 1, 4, 2);
+
+		assertEquals(3.0, getAggregateValue(result, 0), 0.0);
+	}
+
+	public void testAggregatesAreComputedPerGroup() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createResult(SQWRLResultNames.AvgAggregateFunction);
+
+		addRow(result, "a", 1);
+		addRow(result, "b", 10);
+		addRow(result, "a", 3);
+		addRow(result, "b", 20);
+		result.prepared();
+
+		assertEquals(2, result.getNumberOfRows());
+		assertEquals(2.0, getAggregateValue(result, 0), 0.0);
+		assertEquals(15.0, getAggregateValue(result, 1), 0.0);
+	}
+
+	public void testMinMaxSumCountAndCountDistinct() throws SQWRLException
+	{
+		assertEquals(1.0, getAggregateValue(aggregate(SQWRLResultNames.MinAggregateFunction, 3, 1, 3), 0), 0.0);
+		assertEquals(3.0, getAggregateValue(aggregate(SQWRLResultNames.MaxAggregateFunction, 3, 1, 3), 0), 0.0);
+		assertEquals(7.0, getAggregateValue(aggregate(SQWRLResultNames.SumAggregateFunction, 3, 1, 3), 0), 0.0);
+		assertEquals(3.0, getAggregateValue(aggregate(SQWRLResultNames.CountAggregateFunction, 3, 1, 3), 0), 0.0);
+		assertEquals(2.0, getAggregateValue(aggregate(SQWRLResultNames.CountDistinctAggregateFunction, 3, 1, 3), 0), 0.0);
+	}
+
+	public void testNonNumericValueIsRejectedByNumericAggregate() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createResult(SQWRLResultNames.MedianAggregateFunction);
+
+		result.openRow();
+		result.addRowData(this.factory.getIndividualValue(getIRI("a")));
+		try {
+			result.addRowData(this.factory.getLiteral("x"));
+			fail("expecting exception for non numeric median value");
+		} catch (SQWRLException e) {
+		}
+	}
+
+	public void testOrderedResultIsStreamedAfterExternalSort() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createOrderedResult();
+
+		result.setExternalSortThreshold(2);
+		result.setLimit(4);
+		SQWRLResultCursor cursor = result.openCursor(10);
+		for (int value : new int[] { 5, 3, 9, 1, 7 })
+			result.addRow(new ArrayList<SQWRLResultValue>(Arrays.asList(this.factory.getLiteral(value))));
+		result.prepared();
+
+		for (int value : new int[] { 1, 3, 5, 7 }) {
+			assertTrue(cursor.hasNext());
+			assertEquals(value, ((SQWRLLiteralResultValue)cursor.next().get(0)).getDouble(), 0.0);
+		}
+		assertFalse(cursor.hasNext());
+	}
+
+	public void testOrderedResultIsNotStreamedWithoutExternalSort() throws SQWRLException
+	{
+		try {
+			createOrderedResult().openCursor(10);
+			fail("expecting exception for ordered result without external sort");
+		} catch (SQWRLException e) {
+		}
+	}
+
+	public void testDistinctOnAddKeepsFirstOccurrenceOfEachRow() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createDistinctResult(true);
+
+		addRow(result, "a", 1);
+		addRow(result, "b", 2);
+		addRow(result, "a", 1);
+		addRow(result, "a", 2);
+		addRow(result, "b", 2);
+		result.prepared();
+
+		assertRows(result, new String[] { "a", "b", "a" }, new int[] { 1, 2, 2 });
+	}
+
+	public void testDistinctRequestedAfterRowsWereAddedRemovesAllDuplicates() throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("group");
+		result.addColumn("value");
+		result.setIsDistinctOnAdd(true);
+		result.configured();
+		addRow(result, "a", 1);
+		addRow(result, "a", 1);
+		result.setIsDistinct();
+		addRow(result, "b", 2);
+		addRow(result, "a", 1);
+		addRow(result, "b", 2);
+		result.prepared();
+
+		assertRows(result, new String[] { "a", "b" }, new int[] { 1, 2 });
+	}
+
+	public void testDistinctOnAddGivesSameRowsAsDistinctOnPrepare() throws SQWRLException
+	{
+		DefaultSQWRLResult resultDistinctOnAdd = createDistinctResult(true);
+		DefaultSQWRLResult resultDistinctOnPrepare = createDistinctResult(false);
+
+		for (int i = 0; i < 100; i++) {
+			addRow(resultDistinctOnAdd, i % 3 == 0 ? "a" : "b", i % 7);
+			addRow(resultDistinctOnPrepare, i % 3 == 0 ? "a" : "b", i % 7);
+		}
+		resultDistinctOnAdd.prepared();
+		resultDistinctOnPrepare.prepared();
+
+		assertEquals(14, resultDistinctOnPrepare.getNumberOfRows());
+		assertEquals(resultDistinctOnPrepare.getNumberOfRows(), resultDistinctOnAdd.getNumberOfRows());
+		for (int rowIndex = 0; rowIndex < resultDistinctOnAdd.getNumberOfRows(); rowIndex++)
+			for (int columnIndex = 0; columnIndex < 2; columnIndex++)
+				assertEquals(resultDistinctOnPrepare.getValue(columnIndex, rowIndex), resultDistinctOnAdd.getValue(columnIndex,
+						rowIndex));
+	}
+
+	public void testOrderedLimitSelectsSameRowsAsFullSort() throws SQWRLException
+	{
+		for (boolean ascending : new boolean[] { true, false }) {
+			DefaultSQWRLResult result = createOrderedGroupResult(ascending);
+
+			result.setLimit(10);
+			assertSelectedRowsMatchFullSort(result, ascending, 0, 10);
+		}
+	}
+
+	public void testOrderedFirstAndLastSelectSameRowsAsFullSort() throws SQWRLException
+	{
+		DefaultSQWRLResult firstResult = createOrderedGroupResult(true);
+		DefaultSQWRLResult lastResult = createOrderedGroupResult(true);
+
+		firstResult.setFirst(7);
+		assertSelectedRowsMatchFullSort(firstResult, true, 0, 7);
+		lastResult.setLast(7);
+		assertSelectedRowsMatchFullSort(lastResult, true, NumberOfOrderedRows - 7, NumberOfOrderedRows);
+	}
+
+	public void testOrderedNthAndNthSliceSelectSameRowsAsFullSort() throws SQWRLException
+	{
+		DefaultSQWRLResult nthResult = createOrderedGroupResult(false);
+		DefaultSQWRLResult nthSliceResult = createOrderedGroupResult(false);
+
+		nthResult.setNth(15);
+		assertSelectedRowsMatchFullSort(nthResult, false, 14, 15);
+		nthSliceResult.setNthSlice(5, 4);
+		assertSelectedRowsMatchFullSort(nthSliceResult, false, 4, 8);
+	}
+
+	public void testSelectionChangedAfterRowsWereDroppedIsRejected() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createOrderedGroupResult(true);
+
+		result.setLimit(2);
+		for (int value : new int[] { 5, 3, 9, 1, 7 })
+			addRow(result, "a", value);
+		result.setLimit(3);
+		try {
+			result.prepared();
+			fail("expecting exception for selection changed after rows were dropped");
+		} catch (SQWRLResultStateException e) {
+		}
+	}
+
+	/**
+	 * Add the same rows to the given result, whose selection picks a leading or trailing run of the ordered rows, and to
+	 * a result with no selection, which is sorted in full. The selected rows should be the given run of the fully sorted
+	 * rows. Values repeat, and equal values are added with different groups, so the run also checks that equal rows keep
+	 * their insertion order.
+	 */
+	private void assertSelectedRowsMatchFullSort(DefaultSQWRLResult result, boolean ascending, int fromIndex,
+			int toIndex) throws SQWRLException
+	{
+		DefaultSQWRLResult fullResult = createOrderedGroupResult(ascending);
+		Random random = new Random(42);
+
+		for (int i = 0; i < NumberOfOrderedRows; i++) {
+			String groupName = i % 2 == 0 ? "a" : "b";
+			int value = random.nextInt(20);
+			addRow(result, groupName, value);
+			addRow(fullResult, groupName, value);
+		}
+		result.prepared();
+		fullResult.prepared();
+
+		assertEquals(toIndex - fromIndex, result.getNumberOfRows());
+		for (int rowIndex = 0; rowIndex < result.getNumberOfRows(); rowIndex++)
+			for (int columnIndex = 0; columnIndex < 2; columnIndex++)
+				assertEquals(fullResult.getValue(columnIndex, fromIndex + rowIndex), result.getValue(columnIndex, rowIndex));
+	}
+
+	private DefaultSQWRLResult createOrderedGroupResult(boolean ascending) throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("group");
+		result.addColumn("value");
+		result.addOrderByColumn(1, ascending);
+		result.configured();
+
+		return result;
+	}
+
+	private DefaultSQWRLResult createDistinctResult(boolean isDistinctOnAdd) throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("group");
+		result.addColumn("value");
+		result.setIsDistinct();
+		result.setIsDistinctOnAdd(isDistinctOnAdd);
+		result.configured();
+
+		return result;
+	}
+
+	private DefaultSQWRLResult createOrderedResult() throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("value");
+		result.addOrderByColumn(0, true);
+		result.configured();
+
+		return result;
+	}
+
+	private DefaultSQWRLResult aggregate(String aggregateFunctionName, int... values) throws SQWRLException
+	{
+		DefaultSQWRLResult result = createResult(aggregateFunctionName);
+
+		for (int value : values)
+			addRow(result, "a", value);
+		result.prepared();
+
+		return result;
+	}
+
+	private DefaultSQWRLResult createResult(String aggregateFunctionName) throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("group");
+		result.addAggregateColumn("value", aggregateFunctionName);
+		result.configured();
+
+		return result;
+	}
+
+	private void addRow(DefaultSQWRLResult result, String groupName, int value) throws SQWRLException
+	{
+		List<SQWRLResultValue> row = new ArrayList<SQWRLResultValue>(Arrays.asList(
+				this.factory.getIndividualValue(getIRI(groupName)), this.factory.getLiteral(value)));
+
+		result.addRow(row);
+	}
+
+	private void assertRows(DefaultSQWRLResult result, String[] groupNames, int[] values) throws SQWRLException
+	{
+		assertEquals(groupNames.length, result.getNumberOfRows());
+		for (int rowIndex = 0; rowIndex < groupNames.length; rowIndex++) {
+			assertEquals(this.factory.getIndividualValue(getIRI(groupNames[rowIndex])), result.getValue(0, rowIndex));
+			assertEquals(values[rowIndex], ((SQWRLLiteralResultValue)result.getValue(1, rowIndex)).getDouble(), 0.0);
+		}
+	}
+
+	private double getAggregateValue(DefaultSQWRLResult result, int rowIndex) throws SQWRLException
+	{
+		return ((SQWRLLiteralResultValue)result.getValue(1, rowIndex)).getDouble();
+	}
+
+	private static IRI getIRI(String name)
+	{
+		return IRI.create("http://example.org/test#" + name);
+	}
+}
@@ -0,0 +1,160 @@
+package org.swrlapi.sqwrl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.swrlapi.core.SWRLRuleEngine;
+import org.swrlapi.ext.SWRLAPIOWLOntology;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+
+public class SQWRLQueryExecutorTest extends TestCase
+{
+	private final AtomicInteger numberOfOverlappingQueries = new AtomicInteger();
+	private final AtomicInteger numberOfDisposedQueryEngines = new AtomicInteger();
+	private final Set<Thread> queryThreads = Collections.synchronizedSet(new HashSet<Thread>());
+	private SWRLAPIOWLOntology ontology;
+
+	@Override
+	protected void setUp()
+	{
+		this.ontology = createOntology();
+	}
+
+	public void testConcurrentSubmissionsUseEachEngineOnceAtATime() throws Exception
+	{
+		final SQWRLQueryExecutor executor = new SQWRLQueryExecutor(this.ontology, createQueryEngineCreator(1), 4);
+		ExecutorService submitters = Executors.newFixedThreadPool(8);
+		List<Future<List<Future<SQWRLResult>>>> submissions = new ArrayList<Future<List<Future<SQWRLResult>>>>();
+
+		try {
+			for (int submitter = 0; submitter < 8; submitter++) {
+				final int firstQuery = submitter * 25;
+				submissions.add(submitters.submit(new Callable<List<Future<SQWRLResult>>>()
+				{
+					@Override
+					public List<Future<SQWRLResult>> call()
+					{
+						List<Future<SQWRLResult>> results = new ArrayList<Future<SQWRLResult>>();
+
+						for (int query = firstQuery; query < firstQuery + 25; query++)
+							results.add(executor.submit("q" + query));
+						return results;
+					}
+				}));
+			}
+			for (Future<List<Future<SQWRLResult>>> submission : submissions)
+				for (Future<SQWRLResult> result : submission.get())
+					result.get();
+		} finally {
+			submitters.shutdown();
+		}
+		executor.shutdown();
+
+		assertEquals(0, this.numberOfOverlappingQueries.get());
+		assertTrue(executor.getNumberOfQueryEngines() <= 4);
+		assertTrue(this.queryThreads.size() <= 4);
+		assertEquals(executor.getNumberOfQueryEngines(), this.numberOfDisposedQueryEngines.get());
+	}
+
+	public void testEnginesAreCreatedOnlyWhenAllAreBusy() throws Exception
+	{
+		SQWRLQueryExecutor executor = new SQWRLQueryExecutor(this.ontology, createQueryEngineCreator(0), 4);
+
+		for (int query = 0; query < 10; query++)
+			executor.submit("q" + query).get();
+		executor.shutdown();
+
+		assertEquals(1, executor.getNumberOfQueryEngines());
+	}
+
+	public void testEngineForAnotherOntologyIsRejected() throws Exception
+	{
+		final SWRLAPIOWLOntology otherOntology = createOntology();
+		SQWRLQueryExecutor executor = new SQWRLQueryExecutor(this.ontology,
+				new SQWRLQueryExecutor.SQWRLQueryEngineCreator()
+				{
+					@Override
+					public SQWRLQueryEngine create(SWRLAPIOWLOntology ontology)
+					{
+						return createQueryEngine(otherOntology, 0);
+					}
+				}, 2);
+
+		try {
+			executor.submit("q").get();
+			fail("engine for another ontology accepted");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SQWRLException);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(0, executor.getNumberOfQueryEngines());
+		assertEquals(1, this.numberOfDisposedQueryEngines.get());
+	}
+
+	private SQWRLQueryExecutor.SQWRLQueryEngineCreator createQueryEngineCreator(final long queryMilliseconds)
+	{
+		return new SQWRLQueryExecutor.SQWRLQueryEngineCreator()
+		{
+			@Override
+			public SQWRLQueryEngine create(SWRLAPIOWLOntology ontology)
+			{
+				return createQueryEngine(ontology, queryMilliseconds);
+			}
+		};
+	}
+
+	private SQWRLQueryEngine createQueryEngine(final SWRLAPIOWLOntology ontology, final long queryMilliseconds)
+	{
+		final AtomicBoolean isRunningQuery = new AtomicBoolean();
+
+		return (SQWRLQueryEngine)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLRuleEngine.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments) throws InterruptedException
+					{
+						if (method.getName().equals("getOWLOntology"))
+							return ontology;
+						else if (method.getName().equals("dispose"))
+							SQWRLQueryExecutorTest.this.numberOfDisposedQueryEngines.incrementAndGet();
+						else if (method.getName().equals("runSQWRLQuery")) {
+							if (!isRunningQuery.compareAndSet(false, true))
+								SQWRLQueryExecutorTest.this.numberOfOverlappingQueries.incrementAndGet();
+							SQWRLQueryExecutorTest.this.queryThreads.add(Thread.currentThread());
+							Thread.sleep(queryMilliseconds);
+							isRunningQuery.set(false);
+						}
+						return null;
+					}
+				});
+	}
+
+	private SWRLAPIOWLOntology createOntology()
+	{
+		return (SWRLAPIOWLOntology)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SWRLAPIOWLOntology.class }, new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] arguments)
+					{
+						return method.getName().equals("equals") ? proxy == arguments[0] : null;
+					}
+				});
+	}
+}
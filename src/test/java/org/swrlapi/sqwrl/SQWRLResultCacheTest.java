@@ -0,0 +1,128 @@
+package org.swrlapi.sqwrl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+import org.swrlapi.sqwrl.values.impl.DefaultSQWRLResultValueFactory;
+
+public class SQWRLResultCacheTest extends TestCase
+{
+	private SQWRLResultValueFactory factory;
+	private SQWRLResultCache cache;
+
+	@Override
+	protected void setUp()
+	{
+		this.factory = new DefaultSQWRLResultValueFactory(new OWLNamedObjectResolver(), new DefaultOWLLiteralFactory(
+				new DefaultOWLDatatypeFactory()));
+		this.cache = new SQWRLResultCache(this.factory, 10, 1 << 20);
+	}
+
+	public void testResultIsReturnedForSameQueryVersionAndRuleSelection() throws SQWRLException
+	{
+		this.cache.put("q", 1, "rules", createResult(7));
+
+		assertEquals(this.factory.getLiteral(7), this.cache.get("q", 1, "rules").getValue(0, 0));
+		assertNull(this.cache.get("other", 1, "rules"));
+		assertNull(this.cache.get("q", 1, "other rules"));
+		assertEquals(1, this.cache.getNumberOfHits());
+		assertEquals(2, this.cache.getNumberOfMisses());
+	}
+
+	public void testEachHitReturnsNewResult() throws SQWRLException
+	{
+		this.cache.put("q", 1, null, createResult(7));
+
+		SQWRLResult result = this.cache.get("q", 1, null);
+		result.next();
+
+		assertNotSame(result, this.cache.get("q", 1, null));
+		assertTrue(this.cache.get("q", 1, null).hasNext());
+	}
+
+	public void testLaterOntologyVersionDiscardsEarlierResults() throws SQWRLException
+	{
+		this.cache.put("q1", 1, null, createResult(1));
+		this.cache.put("q2", 1, null, createResult(2));
+
+		assertNull(this.cache.get("q1", 2, null));
+		assertEquals(0, this.cache.getNumberOfEntries());
+		assertEquals(0, this.cache.getSizeInBytes());
+		assertNull(this.cache.get("q2", 1, null));
+	}
+
+	public void testResultForEarlierOntologyVersionIsNotCached() throws SQWRLException
+	{
+		this.cache.put("q", 2, null, createResult(2));
+		this.cache.put("q", 1, null, createResult(1));
+
+		assertEquals(1, this.cache.getNumberOfEntries());
+		assertNull(this.cache.get("q", 1, null));
+		assertEquals(this.factory.getLiteral(2), this.cache.get("q", 2, null).getValue(0, 0));
+	}
+
+	public void testInvalidateDiscardsAllResults() throws SQWRLException
+	{
+		this.cache.put("q", 1, null, createResult(1));
+		this.cache.invalidate();
+
+		assertEquals(0, this.cache.getNumberOfEntries());
+		assertEquals(0, this.cache.getSizeInBytes());
+		assertNull(this.cache.get("q", 1, null));
+	}
+
+	public void testLeastRecentlyUsedResultIsEvicted() throws SQWRLException
+	{
+		SQWRLResultCache cache = new SQWRLResultCache(this.factory, 2, 1 << 20);
+
+		cache.put("q1", 1, null, createResult(1));
+		cache.put("q2", 1, null, createResult(2));
+		assertNotNull(cache.get("q1", 1, null)); // q2 is now least recently used
+		cache.put("q3", 1, null, createResult(3));
+
+		assertEquals(2, cache.getNumberOfEntries());
+		assertEquals(1, cache.getNumberOfEvictions());
+		assertNull(cache.get("q2", 1, null));
+		assertNotNull(cache.get("q1", 1, null));
+		assertNotNull(cache.get("q3", 1, null));
+	}
+
+	public void testResultLargerThanCacheIsNotCached() throws SQWRLException
+	{
+		SQWRLResultCache cache = new SQWRLResultCache(this.factory, 10, 1);
+
+		cache.put("q", 1, null, createResult(1));
+
+		assertEquals(0, cache.getNumberOfEntries());
+		assertEquals(0, cache.getNumberOfEvictions());
+	}
+
+	public void testRuleSelectionIsComparedByValue() throws SQWRLException
+	{
+		this.cache.put("q", 1, new ArrayList<String>(Arrays.asList("a", "b")), createResult(1));
+
+		assertNotNull(this.cache.get("q", 1, Arrays.asList("a", "b")));
+		assertNull(this.cache.get("q", 1, Collections.singletonList("a")));
+	}
+
+	private DefaultSQWRLResult createResult(int value) throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("?v");
+		result.configured();
+		result.addRow(new ArrayList<SQWRLResultValue>(Arrays.asList(this.factory.getLiteral(value))));
+		result.prepared();
+
+		return result;
+	}
+}
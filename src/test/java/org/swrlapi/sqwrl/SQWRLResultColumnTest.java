@@ -0,0 +1,105 @@
+package org.swrlapi.sqwrl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.OWLLiteralFactory;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+import org.swrlapi.sqwrl.values.impl.DefaultSQWRLResultValueFactory;
+
+public class SQWRLResultColumnTest extends TestCase
+{
+	private OWLLiteralFactory literalFactory;
+	private SQWRLResultValueFactory factory;
+
+	@Override
+	protected void setUp()
+	{
+		OWLNamedObjectResolver resolver = new OWLNamedObjectResolver();
+
+		for (String name : new String[] { "a", "b" })
+			resolver.recordPrefixedName2IRIMapping("t:" + name, getIRI(name));
+
+		this.literalFactory = new DefaultOWLLiteralFactory(new DefaultOWLDatatypeFactory());
+		this.factory = new DefaultSQWRLResultValueFactory(resolver, this.literalFactory);
+	}
+
+	public void testNumericAndBooleanColumnsAreStoredAsPrimitives()
+	{
+		assertColumn("IntColumn", this.factory.getLiteral(1), this.factory.getLiteral(-2));
+		assertColumn("IntColumn", this.factory.getLiteral((short)1), this.factory.getLiteral((short)-2));
+		assertColumn("LongColumn", this.factory.getLiteral(1L), this.factory.getLiteral(Long.MAX_VALUE));
+		assertColumn("DoubleColumn", this.factory.getLiteral(1.5), this.factory.getLiteral(-2.25));
+		assertColumn("DoubleColumn", this.factory.getLiteral(1.5f), this.factory.getLiteral(-2.25f));
+		assertColumn("BooleanColumn", this.factory.getLiteral(true), this.factory.getLiteral(false));
+	}
+
+	public void testIRIAndStringColumnsAreDictionaryEncoded()
+	{
+		SQWRLResultValue a = this.factory.getIndividualValue(getIRI("a"));
+
+		assertColumn("DictionaryColumn", a, this.factory.getIndividualValue(getIRI("b")), a);
+		assertColumn("DictionaryColumn", this.factory.getLiteral("x"), this.factory.getLiteral("y"));
+	}
+
+	public void testLaterNonNumericValueSwitchesColumnToDictionary()
+	{
+		assertColumn("DictionaryColumn", this.factory.getLiteral(1), this.factory.getLiteral(2), this.factory
+				.getLiteral("x"), this.factory.getLiteral(3));
+		assertColumn("DictionaryColumn", this.factory.getLiteral(true), this.factory.getIndividualValue(getIRI("a")));
+	}
+
+	public void testLaterValueOfAnotherNumericTypeSwitchesColumnToDictionary()
+	{
+		assertColumn("DictionaryColumn", this.factory.getLiteral(1), this.factory.getLiteral(2.5));
+		assertColumn("DictionaryColumn", this.factory.getLiteral(1), this.factory.getLiteral(2L));
+		assertColumn("DictionaryColumn", this.factory.getLiteral(1.5), this.factory.getLiteral(2.5f));
+	}
+
+	public void testLiteralWithNonCanonicalLexicalFormIsDictionaryEncoded()
+	{
+		SQWRLResultValue one = this.factory.getLiteral(1);
+		SQWRLResultValue paddedOne = this.factory.getLiteral(this.literalFactory.getOWLLiteral("01", this.factory
+				.getLiteral(0).getOWLLiteral().getDatatype()));
+
+		assertColumn("DictionaryColumn", one, paddedOne);
+		assertColumn("DictionaryColumn", paddedOne, one);
+	}
+
+	public void testEmptyColumnIsDictionaryEncoded()
+	{
+		assertColumn("DictionaryColumn");
+	}
+
+	/**
+	 * Build a column from the values and check its type and that it returns values equal to those that were added.
+	 */
+	private void assertColumn(String expectedColumnType, SQWRLResultValue... values)
+	{
+		SQWRLResultColumn.Builder builder = new SQWRLResultColumn.Builder(this.factory);
+
+		for (SQWRLResultValue value : values)
+			builder.add(value);
+
+		SQWRLResultColumn column = builder.build();
+		List<SQWRLResultValue> expectedValues = Arrays.asList(values);
+
+		assertEquals(expectedColumnType, column.getClass().getSimpleName());
+		assertEquals(values.length, column.size());
+		for (int rowIndex = 0; rowIndex < values.length; rowIndex++)
+			assertEquals(values[rowIndex], column.getValue(rowIndex));
+		assertEquals(expectedValues, column.asList());
+	}
+
+	private static IRI getIRI(String name)
+	{
+		return IRI.create("http://example.org/test#" + name);
+	}
+}
@@ -0,0 +1,124 @@
+package org.swrlapi.sqwrl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+
+public class SQWRLResultCursorTest extends TestCase
+{
+	private static final List<SQWRLResultValue> Row = Collections.emptyList();
+
+	public void testRowsArePassedInOrder() throws Exception
+	{
+		final SQWRLResultCursor cursor = new SQWRLResultCursor(Collections.<String> emptyList(), 2);
+		final List<List<SQWRLResultValue>> rows = new ArrayList<List<SQWRLResultValue>>();
+
+		for (int i = 0; i < 10; i++)
+			rows.add(new ArrayList<SQWRLResultValue>());
+
+		startProducer(cursor, new Producer()
+		{
+			@Override
+			public void produce() throws Exception
+			{
+				for (List<SQWRLResultValue> row : rows)
+					cursor.addRow(row);
+				cursor.complete();
+			}
+		});
+
+		for (List<SQWRLResultValue> row : rows) {
+			assertTrue(cursor.hasNext());
+			assertSame(row, cursor.next());
+		}
+		assertFalse(cursor.hasNext());
+	}
+
+	public void testCloseCancelsProducer() throws Exception
+	{
+		final SQWRLResultCursor cursor = new SQWRLResultCursor(Collections.<String> emptyList(), 1);
+		final CountDownLatch producerStopped = new CountDownLatch(1);
+		final Exception[] producerException = new Exception[1];
+
+		startProducer(cursor, new Producer()
+		{
+			@Override
+			public void produce()
+			{
+				try {
+					while (true)
+						cursor.addRow(Row);
+				} catch (SQWRLException e) {
+					producerException[0] = e;
+				} finally {
+					producerStopped.countDown();
+				}
+			}
+		});
+
+		assertTrue(cursor.hasNext());
+		cursor.next();
+		cursor.close();
+
+		assertTrue(producerStopped.await(5, TimeUnit.SECONDS));
+		assertNotNull(producerException[0]);
+		assertFalse(cursor.hasNext());
+	}
+
+	public void testProducerFailureIsReportedAfterQueuedRows() throws Exception
+	{
+		final SQWRLResultCursor cursor = new SQWRLResultCursor(Collections.<String> emptyList(), 1);
+		final RuntimeException failure = new RuntimeException("producer failed");
+
+		startProducer(cursor, new Producer()
+		{
+			@Override
+			public void produce() throws Exception
+			{
+				cursor.addRow(Row);
+				cursor.fail(failure); // Queue is full, so the failure cannot be queued
+			}
+		});
+
+		assertTrue(cursor.hasNext());
+		cursor.next();
+		try {
+			cursor.hasNext();
+			fail("expecting producer failure");
+		} catch (SQWRLException e) {
+			assertSame(failure, e.getCause());
+		}
+	}
+
+	private static void startProducer(SQWRLResultCursor cursor, final Producer producer)
+	{
+		Thread thread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try {
+					producer.produce();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+
+		thread.setDaemon(true);
+		cursor.setProducerThread(thread);
+		thread.start();
+	}
+
+	private interface Producer
+	{
+		void produce() throws Exception;
+	}
+}
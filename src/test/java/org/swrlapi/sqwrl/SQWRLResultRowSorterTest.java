@@ -0,0 +1,148 @@
+package org.swrlapi.sqwrl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.OWLLiteralFactory;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLLiteralResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+import org.swrlapi.sqwrl.values.impl.DefaultSQWRLResultValueFactory;
+
+public class SQWRLResultRowSorterTest extends TestCase
+{
+	private static final Comparator<List<SQWRLResultValue>> KeyComparator = new Comparator<List<SQWRLResultValue>>()
+	{
+		@Override
+		public int compare(List<SQWRLResultValue> row1, List<SQWRLResultValue> row2)
+		{
+			try {
+				return Double.compare(getDouble(row1, 0), getDouble(row2, 0));
+			} catch (SQWRLException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	};
+
+	private OWLLiteralFactory literalFactory;
+	private SQWRLResultValueFactory factory;
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		this.literalFactory = new DefaultOWLLiteralFactory(new DefaultOWLDatatypeFactory());
+		this.factory = new DefaultSQWRLResultValueFactory(new OWLNamedObjectResolver(), this.literalFactory);
+		this.directory = File.createTempFile("sqwrl-sort-test", "");
+		assertTrue(this.directory.delete());
+		assertTrue(this.directory.mkdir());
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		for (File file : this.directory.listFiles())
+			file.delete();
+		this.directory.delete();
+	}
+
+	public void testExternalSortIsStable() throws SQWRLException
+	{
+		SQWRLResultRowSorter sorter = createSorter(3);
+		int numberOfRows = 20;
+
+		for (int i = 0; i < numberOfRows; i++)
+			sorter.add(createRow(this.factory.getLiteral((i * 7) % 4), this.factory.getLiteral(i)));
+		assertTrue(getNumberOfRunFiles() > 0);
+
+		SQWRLResultRowSorter.SortedRows sortedRows = sorter.getSortedRows();
+		List<SQWRLResultValue> previousRow = null, row;
+		int numberOfSortedRows = 0;
+
+		while ((row = sortedRows.nextRow()) != null) {
+			if (previousRow != null) {
+				assertTrue(getDouble(previousRow, 0) <= getDouble(row, 0));
+				if (getDouble(previousRow, 0) == getDouble(row, 0))
+					assertTrue(getDouble(previousRow, 1) < getDouble(row, 1));
+			}
+			previousRow = row;
+			numberOfSortedRows++;
+		}
+		assertEquals(numberOfRows, numberOfSortedRows);
+	}
+
+	public void testRunFilesAreDeletedOnceRowsAreRead() throws SQWRLException
+	{
+		SQWRLResultRowSorter sorter = createSorter(2);
+
+		for (int i = 5; i > 0; i--)
+			sorter.add(createRow(this.factory.getLiteral(i)));
+
+		SQWRLResultRowSorter.SortedRows sortedRows = sorter.getSortedRows();
+		while (sortedRows.nextRow() != null)
+			;
+		assertEquals(0, getNumberOfRunFiles());
+	}
+
+	public void testRunFilesAreDeletedOnDispose() throws SQWRLException
+	{
+		SQWRLResultRowSorter sorter = createSorter(2);
+
+		for (int i = 5; i > 0; i--)
+			sorter.add(createRow(this.factory.getLiteral(i)));
+
+		sorter.getSortedRows().nextRow(); // Abandon the merge after one row
+		sorter.dispose();
+		assertEquals(0, getNumberOfRunFiles());
+	}
+
+	public void testLiteralsAreRestoredFromRuns() throws SQWRLException
+	{
+		SQWRLResultRowSorter sorter = createSorter(1);
+		OWLLiteral languageLiteral = this.literalFactory.getOWLLiteral("chat", "fr");
+		OWLLiteral stringLiteral = this.literalFactory.getOWLLiteral("chat");
+
+		sorter.add(createRow(this.factory.getLiteral(2), this.factory.getLiteral(languageLiteral)));
+		sorter.add(createRow(this.factory.getLiteral(1), this.factory.getLiteral(stringLiteral)));
+
+		SQWRLResultRowSorter.SortedRows sortedRows = sorter.getSortedRows();
+		assertEquals(stringLiteral, getOWLLiteral(sortedRows.nextRow(), 1));
+		assertEquals(languageLiteral, getOWLLiteral(sortedRows.nextRow(), 1));
+		assertNull(sortedRows.nextRow());
+	}
+
+	private SQWRLResultRowSorter createSorter(int maximumNumberOfRowsInMemory)
+	{
+		return new SQWRLResultRowSorter(KeyComparator, this.factory, maximumNumberOfRowsInMemory, this.directory);
+	}
+
+	private int getNumberOfRunFiles()
+	{
+		return this.directory.list().length;
+	}
+
+	private static List<SQWRLResultValue> createRow(SQWRLResultValue... values)
+	{
+		return new ArrayList<SQWRLResultValue>(Arrays.asList(values));
+	}
+
+	private static double getDouble(List<SQWRLResultValue> row, int columnIndex) throws SQWRLException
+	{
+		return ((SQWRLLiteralResultValue)row.get(columnIndex)).getDouble();
+	}
+
+	private static OWLLiteral getOWLLiteral(List<SQWRLResultValue> row, int columnIndex)
+	{
+		return ((SQWRLLiteralResultValue)row.get(columnIndex)).getOWLLiteral();
+	}
+}
@@ -0,0 +1,114 @@
+package org.swrlapi.sqwrl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.swrlapi.core.OWLNamedObjectResolver;
+import org.swrlapi.ext.impl.DefaultOWLDatatypeFactory;
+import org.swrlapi.ext.impl.DefaultOWLLiteralFactory;
+import org.swrlapi.sqwrl.exceptions.SQWRLException;
+import org.swrlapi.sqwrl.values.SQWRLResultValue;
+import org.swrlapi.sqwrl.values.SQWRLResultValueFactory;
+import org.swrlapi.sqwrl.values.impl.DefaultSQWRLResultValueFactory;
+
+public class SQWRLResultSerializerTest extends TestCase
+{
+	private SQWRLResultValueFactory factory;
+	private SQWRLResultSerializer serializer;
+
+	@Override
+	protected void setUp()
+	{
+		OWLNamedObjectResolver resolver = new OWLNamedObjectResolver();
+
+		for (String name : new String[] { "a", "b", "c" })
+			resolver.recordPrefixedName2IRIMapping("t:" + name, getIRI(name));
+
+		this.factory = new DefaultSQWRLResultValueFactory(resolver, new DefaultOWLLiteralFactory(
+				new DefaultOWLDatatypeFactory()));
+		this.serializer = new SQWRLResultSerializer(this.factory);
+	}
+
+	public void testRoundTrip() throws SQWRLException
+	{
+		DefaultSQWRLResult result = createOrderedResult();
+
+		assertSameResult(result, roundTrip(result, false));
+		assertSameResult(result, roundTrip(result, true));
+	}
+
+	public void testColumnsAreFoundByInternalName() throws SQWRLException
+	{
+		SQWRLResult result = roundTrip(createOrderedResult(), false);
+
+		assertEquals(Arrays.asList("person", "?a"), result.getColumnNames());
+		assertEquals(this.factory.getLiteral(3), result.getValue("?a"));
+	}
+
+	public void testCachedResultEqualsFreshResult() throws SQWRLException
+	{
+		SQWRLResultCache cache = new SQWRLResultCache(this.factory, 10, 1 << 20);
+		DefaultSQWRLResult result = createOrderedResult();
+
+		cache.put("query", 1, null, result);
+
+		assertSameResult(result, cache.get("query", 1, null));
+	}
+
+	private DefaultSQWRLResult createOrderedResult() throws SQWRLException
+	{
+		DefaultSQWRLResult result = new DefaultSQWRLResult(this.factory);
+
+		result.addColumn("?p");
+		result.addColumn("?a");
+		result.addColumnDisplayName("person");
+		result.addOrderByColumn(1, false);
+		result.configured();
+
+		addRow(result, "a", 1);
+		addRow(result, "b", 3);
+		addRow(result, "c", 2);
+		result.prepared();
+
+		return result;
+	}
+
+	private void addRow(DefaultSQWRLResult result, String name, int value) throws SQWRLException
+	{
+		result.addRow(new ArrayList<SQWRLResultValue>(Arrays.asList(this.factory.getIndividualValue(getIRI(name)),
+				this.factory.getLiteral(value))));
+	}
+
+	private SQWRLResult roundTrip(SQWRLResult result, boolean compress) throws SQWRLException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		this.serializer.write(result, out, compress);
+
+		return this.serializer.read(ByteBuffer.wrap(out.toByteArray()));
+	}
+
+	private static void assertSameResult(DefaultSQWRLResult expected, SQWRLResult actual) throws SQWRLException
+	{
+		DefaultSQWRLResult actualResult = (DefaultSQWRLResult)actual;
+
+		assertEquals(expected.getColumnNames(), actualResult.getColumnNames());
+		assertEquals(expected.getInternalColumnNames(), actualResult.getInternalColumnNames());
+		assertEquals(expected.isOrdered(), actualResult.isOrdered());
+		assertEquals(expected.isAscending(), actualResult.isAscending());
+		assertEquals(expected.getOrderByColumnIndexes(), actualResult.getOrderByColumnIndexes());
+		assertEquals(expected.getNumberOfRows(), actualResult.getNumberOfRows());
+		for (int c = 0; c < expected.getNumberOfColumns(); c++)
+			assertEquals(expected.getColumn(c), actualResult.getColumn(c));
+	}
+
+	private static IRI getIRI(String name)
+	{
+		return IRI.create("http://example.org/test#" + name);
+	}
+}